@@ -0,0 +1,132 @@
+package com.amazon.ata.dynamodbquery.benchmark;
+
+import com.amazon.ata.dynamodbquery.dao.models.Event;
+import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.Member;
+import com.amazon.ata.dynamodbquery.dependency.DaggerServiceComponent;
+import com.amazon.ata.dynamodbquery.dependency.DaoModule;
+import com.amazon.ata.dynamodbquery.dependency.ServiceComponent;
+import com.amazon.ata.dynamodbquery.local.LocalDynamoDB;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Builds the service on top of an in-memory LocalDynamoDB and fills its tables for the benchmarks.
+ * Everything is written straight through the mapper, so seeding doesn't count against the
+ * activities being measured.
+ */
+public class BenchmarkData {
+    /** Every tenth event is canceled, so the activities' canceled-event paths are exercised too. */
+    private static final int CANCELED_EVENT_INTERVAL = 10;
+    private static final ZonedDateTime FIRST_ANNOUNCEMENT = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final LocalDynamoDB localDynamoDB;
+    private final DynamoDBMapper mapper;
+    private final ServiceComponent service;
+
+    /**
+     * Creates empty tables and a ServiceComponent that uses them.
+     */
+    public BenchmarkData() {
+        localDynamoDB = new LocalDynamoDB()
+            .createTables(Event.class, Invite.class, Member.class, EventAnnouncement.class);
+        mapper = new DynamoDBMapper(localDynamoDB);
+        service = DaggerServiceComponent.builder()
+            .daoModule(new DaoModule(localDynamoDB))
+            .build();
+    }
+
+    public ServiceComponent getService() {
+        return service;
+    }
+
+    /**
+     * Creates a member with one invite to each of inviteCount new events.
+     * @param memberId The ID of the member to create
+     * @param inviteCount The number of invites to send the member
+     */
+    public void createMemberWithInvites(String memberId, int inviteCount) {
+        Member member = new Member();
+        member.setId(memberId);
+        member.setName("Member " + memberId);
+        mapper.save(member);
+
+        List<Object> items = new ArrayList<>(inviteCount * 2);
+        for (int i = 0; i < inviteCount; i++) {
+            String eventId = memberId + "-event-" + i;
+            items.add(event(eventId, i % CANCELED_EVENT_INTERVAL == 0));
+            items.add(invite(eventId, memberId, i));
+        }
+        mapper.batchSave(items);
+    }
+
+    /**
+     * Creates an event with one invite to each of inviteCount members.
+     * @param eventId The ID of the event to create
+     * @param inviteCount The number of invites to send for the event
+     */
+    public void createEventWithInvites(String eventId, int inviteCount) {
+        List<Object> items = new ArrayList<>(inviteCount + 1);
+        items.add(event(eventId, false));
+        for (int i = 0; i < inviteCount; i++) {
+            items.add(invite(eventId, String.format("%s-member-%06d", eventId, i), i));
+        }
+        mapper.batchSave(items);
+    }
+
+    /**
+     * Creates an event with announcementCount announcements, one published each hour.
+     * @param eventId The ID of the event to create
+     * @param announcementCount The number of announcements to publish
+     */
+    public void createEventWithAnnouncements(String eventId, int announcementCount) {
+        List<Object> items = new ArrayList<>(announcementCount + 1);
+        items.add(event(eventId, false));
+        for (int i = 0; i < announcementCount; i++) {
+            EventAnnouncement announcement = new EventAnnouncement();
+            announcement.setEventId(eventId);
+            announcement.setTimePublished(announcementTime(i));
+            announcement.setSubject("Update " + i);
+            announcement.setContent("Details of update " + i + " for everyone coming to " + eventId);
+            items.add(announcement);
+        }
+        mapper.batchSave(items);
+    }
+
+    /**
+     * Returns the time the given announcement was published by createEventWithAnnouncements().
+     * @param index The announcement's position, starting at 0
+     * @return its publish time
+     */
+    public static ZonedDateTime announcementTime(int index) {
+        return FIRST_ANNOUNCEMENT.plusHours(index);
+    }
+
+    private static Event event(String eventId, boolean canceled) {
+        Event event = new Event();
+        event.setId(eventId);
+        event.setOrganizerId("organizer");
+        event.setName("Event " + eventId);
+        event.setDescription("A longer description of event " + eventId);
+        event.setTime(ZonedDateTime.now(ZoneOffset.UTC).plusDays(7));
+        event.setCanceled(canceled);
+        return event;
+    }
+
+    private static Invite invite(String eventId, String memberId, int index) {
+        Invite invite = new Invite();
+        invite.setEventId(eventId);
+        invite.setMemberId(memberId);
+        invite.setAttending(false);
+        invite.setCanceled(false);
+        invite.setTimeReceived(new Date(1_600_000_000_000L + index * 60_000L));
+        return invite;
+    }
+}
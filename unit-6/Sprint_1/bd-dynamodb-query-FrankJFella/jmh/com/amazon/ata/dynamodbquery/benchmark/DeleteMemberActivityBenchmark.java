@@ -0,0 +1,57 @@
+package com.amazon.ata.dynamodbquery.benchmark;
+
+import com.amazon.ata.dynamodbquery.activity.DeleteMemberActivity;
+import com.amazon.ata.dynamodbquery.dao.models.InviteDeleteReport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures DeleteMemberActivity removing a member and all of their invites.
+ *
+ * Every call deletes the member it measures, so the member is seeded again before each invocation.
+ * Seeding isn't measured, and a delete takes long enough that per-invocation setup doesn't skew it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DeleteMemberActivityBenchmark {
+    private static final String MEMBER_ID = "member";
+
+    @Param({"10", "100", "1000"})
+    private int invitesPerMember;
+
+    private BenchmarkData data;
+    private DeleteMemberActivity activity;
+
+    /**
+     * Creates the service and its empty tables.
+     */
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        data = new BenchmarkData();
+        activity = data.getService().provideDeleteMemberActivity();
+    }
+
+    /**
+     * Seeds the member that the next call deletes.
+     */
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        data.createMemberWithInvites(MEMBER_ID, invitesPerMember);
+    }
+
+    @Benchmark
+    public InviteDeleteReport deleteMember() {
+        return activity.handleRequest(MEMBER_ID);
+    }
+}
@@ -0,0 +1,51 @@
+package com.amazon.ata.dynamodbquery.benchmark;
+
+import com.amazon.ata.dynamodbquery.activity.GetEventAnnouncementsBetweenDatesActivity;
+import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures GetEventAnnouncementsBetweenDatesActivity reading the middle half of an event's announcements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GetEventAnnouncementsBetweenDatesActivityBenchmark {
+    private static final String EVENT_ID = "event";
+
+    @Param({"10", "100", "1000"})
+    private int announcementsPerEvent;
+
+    private GetEventAnnouncementsBetweenDatesActivity activity;
+    private ZonedDateTime startTime;
+    private ZonedDateTime endTime;
+
+    /**
+     * Seeds one event's announcements.
+     */
+    @Setup
+    public void setup() {
+        BenchmarkData data = new BenchmarkData();
+        data.createEventWithAnnouncements(EVENT_ID, announcementsPerEvent);
+        activity = data.getService().provideGetEventAnnouncementsBetweenDatesActivity();
+        startTime = BenchmarkData.announcementTime(announcementsPerEvent / 4);
+        endTime = BenchmarkData.announcementTime(announcementsPerEvent * 3 / 4);
+    }
+
+    @Benchmark
+    public List<EventAnnouncement> getAnnouncementsBetweenDates() {
+        return activity.handleRequest(EVENT_ID, startTime, endTime);
+    }
+}
@@ -0,0 +1,58 @@
+package com.amazon.ata.dynamodbquery.benchmark;
+
+import com.amazon.ata.dynamodbquery.activity.GetInvitesForEventActivity;
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures paging through every invite for an event with GetInvitesForEventActivity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GetInvitesForEventActivityBenchmark {
+    private static final String EVENT_ID = "event";
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10", "100", "1000"})
+    private int invitesPerEvent;
+
+    private GetInvitesForEventActivity activity;
+
+    /**
+     * Seeds one event's invites.
+     */
+    @Setup
+    public void setup() {
+        BenchmarkData data = new BenchmarkData();
+        data.createEventWithInvites(EVENT_ID, invitesPerEvent);
+        activity = data.getService().provideGetInvitesForEventActivity();
+    }
+
+    /**
+     * Reads every page of invites for the event.
+     * @return the number of invites read
+     */
+    @Benchmark
+    public int getAllInvitesForEvent() {
+        int inviteCount = 0;
+        String continuationToken = null;
+        do {
+            PaginatedResult<Invite> page = activity.handleRequest(EVENT_ID, continuationToken, PAGE_SIZE);
+            inviteCount += page.getItems().size();
+            continuationToken = page.getContinuationToken();
+        } while (continuationToken != null);
+        return inviteCount;
+    }
+}
@@ -0,0 +1,46 @@
+package com.amazon.ata.dynamodbquery.benchmark;
+
+import com.amazon.ata.dynamodbquery.activity.GetInvitesForMemberActivity;
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures GetInvitesForMemberActivity for members with a growing number of invites.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GetInvitesForMemberActivityBenchmark {
+    private static final String MEMBER_ID = "member";
+
+    @Param({"10", "100", "1000"})
+    private int invitesPerMember;
+
+    private GetInvitesForMemberActivity activity;
+
+    /**
+     * Seeds one member's invites and the events they're for.
+     */
+    @Setup
+    public void setup() {
+        BenchmarkData data = new BenchmarkData();
+        data.createMemberWithInvites(MEMBER_ID, invitesPerMember);
+        activity = data.getService().provideGetInvitesForMemberActivity();
+    }
+
+    @Benchmark
+    public List<Invite> getInvitesForMember() {
+        return activity.handleRequest(MEMBER_ID);
+    }
+}
@@ -1,7 +1,9 @@
 package com.amazon.ata.dynamodbquery.activity;
 
+import com.amazon.ata.dynamodbquery.dao.EventCancellationCascade;
 import com.amazon.ata.dynamodbquery.dao.EventDao;
 import com.amazon.ata.dynamodbquery.dao.models.Event;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
 import javax.inject.Inject;
 
@@ -10,18 +12,22 @@ import javax.inject.Inject;
  */
 public class CancelEventActivity {
     private EventDao eventDao;
+    private EventCancellationCascade cancellationCascade;
 
     /**
      * Constructs an Activity with the given DAO.
      * @param eventDao The EventDao to use for canceling event
+     * @param cancellationCascade The cascade to cancel the event's invites with
      */
     @Inject
-    public CancelEventActivity(EventDao eventDao) {
+    public CancelEventActivity(EventDao eventDao, EventCancellationCascade cancellationCascade) {
         this.eventDao = eventDao;
+        this.cancellationCascade = cancellationCascade;
     }
 
     /**
-     * Cancels an event.
+     * Cancels an event, and starts canceling all of its invites in the background. The cascade's
+     * progress is available from EventCancellationCascade.getProgress().
      *
      * NOTE: A little deviation from usual.
      * Here we're using values directly in our arguments and return value,
@@ -31,9 +37,28 @@ public class CancelEventActivity {
      * using the values directly.
      *
      * @param eventId The ID of the event to cancel
-     * @return The updated event
+     * @return The updated event, or null if there is no such event
      */
     public Event handleRequest(final String eventId) {
-        return eventDao.cancelEvent(eventId);
+        return handleRequest(eventId, null);
+    }
+
+    /**
+     * Cancels an event, and resumes canceling its invites from where an earlier cascade got to.
+     * Canceling an event that is already canceled is safe, and finishes any invites left behind.
+     *
+     * @param eventId The ID of the event to cancel
+     * @param continuationToken The continuation token from an earlier cascade's progress, or null to
+     *                          start with the first invite
+     * @return The updated event, or null if there is no such event
+     */
+    public Event handleRequest(final String eventId, final String continuationToken) {
+        return MetricsContext.run(CancelEventActivity.class, () -> {
+            Event event = eventDao.cancelEvent(eventId);
+            if (event != null) {
+                cancellationCascade.start(eventId, continuationToken);
+            }
+            return event;
+        });
     }
 }
@@ -2,6 +2,7 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.EventDao;
 import com.amazon.ata.dynamodbquery.dao.models.Event;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
 import javax.inject.Inject;
 
@@ -34,6 +35,6 @@ public class CreateEventActivity {
      * @return the created event
      */
     public Event handleRequest(final Event event) {
-        return eventDao.createEvent(event);
+        return MetricsContext.run(CreateEventActivity.class, () -> eventDao.createEvent(event));
     }
 }
@@ -2,6 +2,7 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.EventAnnouncementDao;
 import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
 import javax.inject.Inject;
 
@@ -31,8 +32,7 @@ public class CreateEventAnnouncementActivity {
      * @return created announcement
      */
     public EventAnnouncement handleRequest(EventAnnouncement eventAnnouncement) {
-
-        return eventAnnouncementDao.createEventAnnouncement(eventAnnouncement);
-
+        return MetricsContext.run(CreateEventAnnouncementActivity.class,
+            () -> eventAnnouncementDao.createEventAnnouncement(eventAnnouncement));
     }
 }
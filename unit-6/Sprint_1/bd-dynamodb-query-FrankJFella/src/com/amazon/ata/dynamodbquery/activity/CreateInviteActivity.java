@@ -2,6 +2,7 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.InviteDao;
 import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
 import java.util.Objects;
 import javax.inject.Inject;
@@ -35,13 +36,15 @@ public class CreateInviteActivity {
      * @return the created invite
      */
     public Invite handleRequest(final Invite invite) {
-        if (Objects.isNull(invite.getEventId())) {
-            throw new IllegalArgumentException("Invite had null eventId: " + invite);
-        }
-        if (Objects.isNull(invite.getMemberId())) {
-            throw new IllegalArgumentException("Invite had null memberId: " + invite);
-        }
+        return MetricsContext.run(CreateInviteActivity.class, () -> {
+            if (Objects.isNull(invite.getEventId())) {
+                throw new IllegalArgumentException("Invite had null eventId: " + invite);
+            }
+            if (Objects.isNull(invite.getMemberId())) {
+                throw new IllegalArgumentException("Invite had null memberId: " + invite);
+            }
 
-        return inviteDao.createInvite(invite);
+            return inviteDao.createInvite(invite);
+        });
     }
 }
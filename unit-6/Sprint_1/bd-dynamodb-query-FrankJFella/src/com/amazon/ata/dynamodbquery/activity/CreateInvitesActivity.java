@@ -0,0 +1,53 @@
+package com.amazon.ata.dynamodbquery.activity;
+
+import com.amazon.ata.dynamodbquery.dao.InviteDao;
+import com.amazon.ata.dynamodbquery.dao.models.InviteCreateResult;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
+
+import java.util.List;
+import java.util.Objects;
+import javax.inject.Inject;
+
+/**
+ * Handles requests to invite many members to an event at once.
+ */
+public class CreateInvitesActivity {
+    private InviteDao inviteDao;
+
+    /**
+     * Constructs an Activity using the given DAO.
+     * @param inviteDao The InviteDao to use for creating invites
+     */
+    @Inject
+    public CreateInvitesActivity(InviteDao inviteDao) {
+        this.inviteDao = inviteDao;
+    }
+
+    /**
+     * Invites each of the given members to an event, skipping members listed more than once and members
+     * who are already invited.
+     *
+     * NOTE: A little deviation from usual.
+     * Here we're using values directly in our arguments and return value,
+     * whereas in a typical Coral service we'd have Request/Result objects
+     * that would be generated from configuration via Coral. We haven't
+     * created service infrastructure for this activity, so we're just
+     * using the values directly.
+     *
+     * @param eventId The ID of the event to invite the members to
+     * @param memberIds The IDs of the members to invite
+     * @return The outcome for each member ID, in the same order as memberIds
+     */
+    public List<InviteCreateResult> handleRequest(final String eventId, final List<String> memberIds) {
+        return MetricsContext.run(CreateInvitesActivity.class, () -> {
+            if (Objects.isNull(eventId)) {
+                throw new IllegalArgumentException("Invites had null eventId");
+            }
+            if (Objects.isNull(memberIds) || memberIds.stream().anyMatch(Objects::isNull)) {
+                throw new IllegalArgumentException("Invites for event " + eventId + " had null memberId: " + memberIds);
+            }
+
+            return inviteDao.createInvites(eventId, memberIds);
+        });
+    }
+}
@@ -2,6 +2,7 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.MemberDao;
 import com.amazon.ata.dynamodbquery.dao.models.Member;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
 import javax.inject.Inject;
 
@@ -34,6 +35,6 @@ public class CreateMemberActivity {
      * @return The newly created member
      */
     public Member handleRequest(final Member member) {
-        return memberDao.createMember(member);
+        return MetricsContext.run(CreateMemberActivity.class, () -> memberDao.createMember(member));
     }
 }
@@ -1,9 +1,15 @@
 package com.amazon.ata.dynamodbquery.activity;
 
+import com.amazon.ata.dynamodbquery.dao.ContinuationTokens;
 import com.amazon.ata.dynamodbquery.dao.InviteDao;
 import com.amazon.ata.dynamodbquery.dao.MemberDao;
 import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.InviteDeleteReport;
+import com.amazon.ata.dynamodbquery.dao.models.InviteDeleteResult;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
+import java.util.ArrayList;
 import java.util.List;
 import javax.inject.Inject;
 
@@ -12,6 +18,9 @@ import javax.inject.Inject;
  * from datastore for privacy reasons.
  */
 public class DeleteMemberActivity {
+    private static final int INVITE_PAGE_SIZE = InviteDao.MAX_DELETES_PER_TRANSACTION *
+        InviteDao.MAX_CONCURRENT_DELETE_TRANSACTIONS;
+
     private MemberDao memberDao;
     private InviteDao inviteDao;
 
@@ -37,12 +46,50 @@ public class DeleteMemberActivity {
      * using the values directly.
      *
      * @param memberId The ID of the member to delete
+     * @return The outcome for each of the member's invites
+     */
+    public InviteDeleteReport handleRequest(final String memberId) {
+        return handleRequest(memberId, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Deletes up to maxInvites of a member's invites, resuming from a checkpoint left by an earlier
+     * request. Invites the member is attending are kept. The member itself is deleted once every
+     * invite has been processed, so an interrupted delete can always be resumed.
+     *
+     * If any invite fails to delete, the checkpoint starts over from the member's first invite, so the
+     * failed invites are tried again, and the member is only deleted by a pass over all of their
+     * invites in which none failed.
+     *
+     * @param memberId The ID of the member to delete
+     * @param checkpoint The checkpoint from the previous request's report, or null to start from the beginning
+     * @param maxInvites The most invites to process in this request
+     * @return The outcome for each invite processed, and the checkpoint to resume from if the delete isn't done
      */
-    public void handleRequest(final String memberId) {
-        memberDao.deletePermanently(memberId);
-        List<Invite> invitesToDelete = inviteDao.getInvitesSentToMember(memberId);
-        for (Invite invite : invitesToDelete) {
-            inviteDao.deleteInvite(invite.getEventId(), invite.getMemberId());
-        }
+    public InviteDeleteReport handleRequest(final String memberId, final String checkpoint, final int maxInvites) {
+        return MetricsContext.run(DeleteMemberActivity.class, () -> {
+            if (maxInvites < 1) {
+                throw new IllegalArgumentException("maxInvites must be positive, but was " + maxInvites);
+            }
+
+            List<InviteDeleteResult> results = new ArrayList<>();
+            String nextCheckpoint = checkpoint;
+            do {
+                int pageSize = Math.min(INVITE_PAGE_SIZE, maxInvites - results.size());
+                PaginatedResult<Invite> invites =
+                    inviteDao.getInvitesSentToMember(memberId, null, null, pageSize, nextCheckpoint);
+                results.addAll(inviteDao.deleteInvites(invites.getItems()));
+                nextCheckpoint = invites.getContinuationToken();
+            } while (nextCheckpoint != null && results.size() < maxInvites);
+
+            if (results.stream().anyMatch(result -> result.getStatus() == InviteDeleteResult.Status.FAILED)) {
+                // Keep the member until the failed invites are deleted, or they'd be orphaned
+                return new InviteDeleteReport(results, ContinuationTokens.FIRST_PAGE);
+            }
+            if (nextCheckpoint == null) {
+                memberDao.deletePermanently(memberId);
+            }
+            return new InviteDeleteReport(results, nextCheckpoint);
+        });
     }
 }
@@ -2,6 +2,7 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.EventDao;
 import com.amazon.ata.dynamodbquery.dao.models.Event;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
 import javax.inject.Inject;
 
@@ -34,6 +35,6 @@ public class GetEventActivity {
      * @return The event with the given ID if found; null otherwise
      */
     public Event handleRequest(final String eventId) {
-        return eventDao.getEvent(eventId);
+        return MetricsContext.run(GetEventActivity.class, () -> eventDao.getEvent(eventId));
     }
 }
@@ -2,6 +2,8 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.EventAnnouncementDao;
 import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
 import java.util.Collections;
 import java.util.List;
@@ -33,7 +35,26 @@ public class GetEventAnnouncementsActivity {
      * @return List of announcements for the event.
      */
     public List<EventAnnouncement> handleRequest(final String eventId) {
-        // TODONE: implement
-        return eventAnnouncementDao.getEventAnnouncements(eventId);
+        return MetricsContext.run(GetEventAnnouncementsActivity.class, () -> {
+            // TODONE: implement
+            return eventAnnouncementDao.getEventAnnouncements(eventId);
+        });
+    }
+
+    /**
+     * Gets a page of the announcements for the event, newest first.
+     *
+     * @param eventId The ID of the event to get
+     * @param limit The maximum number of announcements to return
+     * @param continuationToken The token returned with the previous page, or null for the newest announcements
+     * @param attributesToGet If not null or empty, only these announcement attributes are returned
+     * @return A page of announcements for the event, with the token for the next (older) page
+     */
+    public PaginatedResult<EventAnnouncement> handleRequest(final String eventId, final int limit,
+                                                            final String continuationToken,
+                                                            final List<String> attributesToGet) {
+        return MetricsContext.run(GetEventAnnouncementsActivity.class,
+            () -> eventAnnouncementDao.getLatestEventAnnouncements(eventId, null, null, limit, continuationToken,
+                attributesToGet));
     }
 }
@@ -2,6 +2,8 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.EventAnnouncementDao;
 import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
 import java.time.ZonedDateTime;
 import java.util.Collections;
@@ -36,7 +38,29 @@ public class GetEventAnnouncementsBetweenDatesActivity {
      * @return list of announcements posted in the given time range for the event
      */
     public List<EventAnnouncement> handleRequest(final String eventId, final ZonedDateTime startTime, final ZonedDateTime endTime) {
-        // TODO: implement
-        return eventAnnouncementDao.getEventAnnouncementsBetweenDates(eventId, startTime, endTime);
+        return MetricsContext.run(GetEventAnnouncementsBetweenDatesActivity.class, () -> {
+            // TODO: implement
+            return eventAnnouncementDao.getEventAnnouncementsBetweenDates(eventId, startTime, endTime);
+        });
+    }
+
+    /**
+     * Gets a page of announcements posted in the given time range (inclusive), newest first.
+     *
+     * @param eventId The ID of the event to get
+     * @param startTime The beginning of time range to get announcements for
+     * @param endTime The end of time range to get announcements for
+     * @param limit The maximum number of announcements to return
+     * @param continuationToken The token returned with the previous page, or null for the newest announcements
+     * @param attributesToGet If not null or empty, only these announcement attributes are returned
+     * @return A page of announcements for the event, with the token for the next (older) page
+     */
+    public PaginatedResult<EventAnnouncement> handleRequest(final String eventId, final ZonedDateTime startTime,
+                                                            final ZonedDateTime endTime, final int limit,
+                                                            final String continuationToken,
+                                                            final List<String> attributesToGet) {
+        return MetricsContext.run(GetEventAnnouncementsBetweenDatesActivity.class,
+            () -> eventAnnouncementDao.getLatestEventAnnouncements(eventId, startTime, endTime, limit,
+                continuationToken, attributesToGet));
     }
 }
@@ -2,6 +2,7 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.InviteDao;
 import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
 import javax.inject.Inject;
 
@@ -35,6 +36,6 @@ public class GetInviteActivity {
      * @return the Invite, if found; null otherwise
      */
     public Invite handleRequest(final String eventId, final String memberId) {
-        return inviteDao.getInvite(eventId, memberId);
+        return MetricsContext.run(GetInviteActivity.class, () -> inviteDao.getInvite(eventId, memberId));
     }
 }
@@ -0,0 +1,46 @@
+package com.amazon.ata.dynamodbquery.activity;
+
+import com.amazon.ata.dynamodbquery.dao.InviteSummaryDao;
+import com.amazon.ata.dynamodbquery.dao.models.InviteSummary;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
+
+import java.util.Objects;
+import javax.inject.Inject;
+
+/**
+ * Handles requests to get how many pending, accepted and canceled invites a member has.
+ */
+public class GetInviteSummaryActivity {
+    private InviteSummaryDao inviteSummaryDao;
+
+    /**
+     * Constructs a new Activity with the given DAO.
+     * @param inviteSummaryDao The InviteSummaryDao to use for fetching the summary
+     */
+    @Inject
+    public GetInviteSummaryActivity(InviteSummaryDao inviteSummaryDao) {
+        this.inviteSummaryDao = inviteSummaryDao;
+    }
+
+    /**
+     * Fetches a member's invite counts, in a single read rather than by querying all their invites.
+     *
+     * NOTE: A little deviation from usual.
+     * Here we're using values directly in our arguments and return value,
+     * whereas in a typical Coral service we'd have Request/Result objects
+     * that would be generated from configuration via Coral. We haven't
+     * created service infrastructure for this activity, so we're just
+     * using the values directly.
+     *
+     * @param memberId The member ID to get the invite counts for
+     * @return the member's InviteSummary; all zeros if they have never been invited
+     */
+    public InviteSummary handleRequest(final String memberId) {
+        return MetricsContext.run(GetInviteSummaryActivity.class, () -> {
+            if (Objects.isNull(memberId)) {
+                throw new IllegalArgumentException("Invite summary requested for null memberId");
+            }
+            return inviteSummaryDao.getInviteSummary(memberId);
+        });
+    }
+}
@@ -2,8 +2,9 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.InviteDao;
 import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
-import java.util.Collections;
 import java.util.List;
 import javax.inject.Inject;
 
@@ -30,7 +31,23 @@ public class GetInvitesForEventActivity {
      * @return Paginated list of Invite objects for the event.
      */
     public List<Invite> handleRequest(final String eventId, final String exclusiveStartMemberId) {
-        // TODO: implement
-        return inviteDao.getInvitesForEvent(eventId,exclusiveStartMemberId);
+        return MetricsContext.run(GetInvitesForEventActivity.class,
+            () -> inviteDao.getInvitesForEvent(eventId, exclusiveStartMemberId));
     }
-}
\ No newline at end of file
+
+    /**
+     * Fetches a page of invites for a given event, along with a continuation token for the next page.
+     *
+     * @param eventId The ID of the event to query invites for
+     * @param continuationToken The token returned with the previous page, or null for the first page
+     * @param pageSize The maximum number of invites to return
+     * @return A page of Invite objects for the event. The continuation token is null on the last page.
+     */
+    public PaginatedResult<Invite> handleRequest(final String eventId, final String continuationToken,
+                                                 final int pageSize) {
+        // One page is one query, so this doesn't go through the prefetching iterator,
+        // which would start querying for a next page the caller may never ask for
+        return MetricsContext.run(GetInvitesForEventActivity.class,
+            () -> inviteDao.getInvitesForEvent(eventId, pageSize, continuationToken));
+    }
+}
@@ -5,18 +5,24 @@ import com.amazon.ata.dynamodbquery.dao.InviteDao;
 import com.amazon.ata.dynamodbquery.dao.models.CanceledInvite;
 import com.amazon.ata.dynamodbquery.dao.models.Event;
 import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
+
+import com.google.common.collect.Lists;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.inject.Inject;
 
 /**
  * Handles requests to get invites for a given member.
  */
 public class GetInvitesForMemberActivity {
+    private static final int EVENTS_PER_LOOKUP = 100;
+
     private InviteDao inviteDao;
     private EventDao eventDao;
 
@@ -45,34 +51,41 @@ public class GetInvitesForMemberActivity {
      * @return List of Invites sent to the member (if any found)
      */
     public List<Invite> handleRequest(final String memberId) {
-        List<Invite> invites = inviteDao.getInvitesSentToMember(memberId);
-        if(invites.isEmpty()) {
-            return new ArrayList<>();
-        }
+        return MetricsContext.run(GetInvitesForMemberActivity.class, () -> {
+            List<Invite> invites = inviteDao.getInvitesSentToMember(memberId);
+            if(invites.isEmpty()) {
+                return new ArrayList<>();
+            }
 
-        List<String> eventIds = new ArrayList<>();
-        for (Invite invite : invites) {
-            eventIds.add(invite.getEventId());
-        }
+            List<String> eventIds = new ArrayList<>();
+            for (Invite invite : invites) {
+                eventIds.add(invite.getEventId());
+            }
 
-        List<Event> events = eventDao.getEvents(eventIds);
-        Map<String, Event> eventLookup = new HashMap<>();
-        for (Event event : events) {
-            eventLookup.put(event.getId(), event);
-        }
+            // Look up the events in parallel, one BatchGetItem-sized chunk each
+            List<CompletableFuture<List<Event>>> eventLookups = new ArrayList<>();
+            for (List<String> eventIdChunk : Lists.partition(eventIds, EVENTS_PER_LOOKUP)) {
+                eventLookups.add(eventDao.getEventsAsync(eventIdChunk));
+            }
+            Map<String, Event> eventLookup = new HashMap<>();
+            for (CompletableFuture<List<Event>> events : eventLookups) {
+                for (Event event : events.join()) {
+                    eventLookup.put(event.getId(), event);
+                }
+            }
 
-        ListIterator<Invite> inviteIterator = invites.listIterator();
-        while (inviteIterator.hasNext()) {
-            Invite invite = inviteIterator.next();
-            Event event = eventLookup.get(invite.getEventId());
-            if (event.isCanceled()) {
-                inviteDao.cancelInvite(invite.getEventId(), invite.getMemberId());
-                // (or just call set(...)  )
-                inviteIterator.remove();
-                inviteIterator.add(new CanceledInvite(invite));
+            // Canceling an event cascades to its invites in the background, so an invite the cascade
+            // hasn't reached yet is shown as canceled here rather than written from this read
+            ListIterator<Invite> inviteIterator = invites.listIterator();
+            while (inviteIterator.hasNext()) {
+                Invite invite = inviteIterator.next();
+                Event event = eventLookup.get(invite.getEventId());
+                if (event.isCanceled()) {
+                    inviteIterator.set(new CanceledInvite(invite));
+                }
             }
-        }
 
-        return invites;
+            return invites;
+        });
     }
 }
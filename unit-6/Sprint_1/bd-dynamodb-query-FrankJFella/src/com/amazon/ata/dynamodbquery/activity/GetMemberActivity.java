@@ -2,6 +2,7 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.MemberDao;
 import com.amazon.ata.dynamodbquery.dao.models.Member;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
 
 import javax.inject.Inject;
 
@@ -35,6 +36,6 @@ public class GetMemberActivity {
      * @return The member, if found
      */
     public Member handleRequest(String memberId) {
-        return memberDao.getMember(memberId);
+        return MetricsContext.run(GetMemberActivity.class, () -> memberDao.getMember(memberId));
     }
 }
@@ -0,0 +1,97 @@
+package com.amazon.ata.dynamodbquery.client;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.RateLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket whose rate follows what DynamoDB will accept. Each throttle halves the rate, down to
+ * a floor, and every second without one raises it again by a tenth of the ceiling, so a throttled
+ * caller backs off at once and then creeps back up to full speed over about ten seconds.
+ *
+ * Calls already in flight when DynamoDB starts throttling all come back throttled together, so the
+ * rate is only halved once per DECREASE_COOLDOWN_NANOS however many throttles arrive in that time.
+ */
+public class AdaptiveRateLimiter {
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_FRACTION_PER_SECOND = 0.1;
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final RateLimiter rateLimiter;
+    private final double minRate;
+    private final double maxRate;
+    private final Ticker ticker;
+    private long lastAdjustedNanos;
+    private long lastDecreasedNanos;
+    private double rate;
+
+    /**
+     * Creates a limiter that starts at its maximum rate.
+     * @param minRate The lowest rate, in permits per second, throttling can push the limiter down to
+     * @param maxRate The highest rate, in permits per second
+     */
+    public AdaptiveRateLimiter(double minRate, double maxRate) {
+        this(minRate, maxRate, Ticker.systemTicker());
+    }
+
+    AdaptiveRateLimiter(double minRate, double maxRate, Ticker ticker) {
+        if (minRate <= 0 || maxRate < minRate) {
+            throw new IllegalArgumentException("Rates must be positive, with minRate no more than maxRate, but " +
+                "were " + minRate + " and " + maxRate);
+        }
+        this.rateLimiter = RateLimiter.create(maxRate);
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.ticker = ticker;
+        this.rate = maxRate;
+        this.lastAdjustedNanos = ticker.read();
+        this.lastDecreasedNanos = lastAdjustedNanos - DECREASE_COOLDOWN_NANOS;
+    }
+
+    /**
+     * Blocks until a permit is available at the current rate.
+     */
+    public void acquire() {
+        rateLimiter.acquire();
+    }
+
+    /**
+     * Records a call that went through, letting the rate recover toward the maximum.
+     */
+    public synchronized void onSuccess() {
+        long now = ticker.read();
+        if (rate < maxRate) {
+            double elapsedSeconds = (now - lastAdjustedNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            setRate(Math.min(maxRate, rate + maxRate * INCREASE_FRACTION_PER_SECOND * elapsedSeconds));
+        }
+        lastAdjustedNanos = now;
+    }
+
+    /**
+     * Records a call DynamoDB throttled, halving the rate unless it was just halved.
+     */
+    public synchronized void onThrottle() {
+        long now = ticker.read();
+        if (now - lastDecreasedNanos >= DECREASE_COOLDOWN_NANOS) {
+            setRate(Math.max(minRate, rate * DECREASE_FACTOR));
+            lastDecreasedNanos = now;
+        }
+        lastAdjustedNanos = now;
+    }
+
+    /**
+     * Returns the current rate.
+     * @return the permits per second currently allowed
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private void setRate(double newRate) {
+        if (newRate != rate) {
+            rate = newRate;
+            rateLimiter.setRate(newRate);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.amazon.ata.dynamodbquery.client;
+
+import com.amazon.ata.dynamodbquery.metrics.DynamoDbCall;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
+import com.amazon.ata.dynamodbquery.metrics.MetricsSink;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteTableResult;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.ListTablesRequest;
+import com.amazonaws.services.dynamodbv2.model.ListTablesResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItem;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Wraps an AmazonDynamoDB client so every call asks DynamoDB for the capacity it consumed, and reports
+ * each call's latency, item count and capacity to a MetricsSink, tagged with the current activity from
+ * MetricsContext, the table and the DynamoDB operation. Every DAO that reads and writes through the
+ * client DaoModule provides is measured this way, including DynamoDBMapper calls that never show the
+ * consumed capacity to the DAO.
+ *
+ * Calls that already asked for consumed capacity keep the level they asked for; the rest ask for TOTAL.
+ */
+public class InstrumentedDynamoDB extends AbstractAmazonDynamoDB {
+    private final AmazonDynamoDB dynamoDbClient;
+    private final MetricsSink metricsSink;
+
+    /**
+     * Creates an instrumented wrapper around a client.
+     * @param dynamoDbClient The client to make calls with
+     * @param metricsSink Where to report each call
+     */
+    public InstrumentedDynamoDB(AmazonDynamoDB dynamoDbClient, MetricsSink metricsSink) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.metricsSink = metricsSink;
+    }
+
+    @Override
+    public GetItemResult getItem(GetItemRequest request) {
+        GetItemRequest measured = request.clone()
+            .withReturnConsumedCapacity(returnConsumedCapacity(request.getReturnConsumedCapacity()));
+        long startNanos = System.nanoTime();
+        GetItemResult result = call("GetItem", ImmutableSet.of(request.getTableName()), startNanos,
+            () -> dynamoDbClient.getItem(measured));
+        record("GetItem", request.getTableName(), startNanos, result.getItem() == null ? 0 : 1,
+            result.getConsumedCapacity());
+        return result;
+    }
+
+    @Override
+    public PutItemResult putItem(PutItemRequest request) {
+        PutItemRequest measured = request.clone()
+            .withReturnConsumedCapacity(returnConsumedCapacity(request.getReturnConsumedCapacity()));
+        long startNanos = System.nanoTime();
+        PutItemResult result = call("PutItem", ImmutableSet.of(request.getTableName()), startNanos,
+            () -> dynamoDbClient.putItem(measured));
+        record("PutItem", request.getTableName(), startNanos, 1, result.getConsumedCapacity());
+        return result;
+    }
+
+    @Override
+    public UpdateItemResult updateItem(UpdateItemRequest request) {
+        UpdateItemRequest measured = request.clone()
+            .withReturnConsumedCapacity(returnConsumedCapacity(request.getReturnConsumedCapacity()));
+        long startNanos = System.nanoTime();
+        UpdateItemResult result = call("UpdateItem", ImmutableSet.of(request.getTableName()), startNanos,
+            () -> dynamoDbClient.updateItem(measured));
+        record("UpdateItem", request.getTableName(), startNanos, 1, result.getConsumedCapacity());
+        return result;
+    }
+
+    @Override
+    public DeleteItemResult deleteItem(DeleteItemRequest request) {
+        DeleteItemRequest measured = request.clone()
+            .withReturnConsumedCapacity(returnConsumedCapacity(request.getReturnConsumedCapacity()));
+        long startNanos = System.nanoTime();
+        DeleteItemResult result = call("DeleteItem", ImmutableSet.of(request.getTableName()), startNanos,
+            () -> dynamoDbClient.deleteItem(measured));
+        record("DeleteItem", request.getTableName(), startNanos, 1, result.getConsumedCapacity());
+        return result;
+    }
+
+    @Override
+    public QueryResult query(QueryRequest request) {
+        QueryRequest measured = request.clone()
+            .withReturnConsumedCapacity(returnConsumedCapacity(request.getReturnConsumedCapacity()));
+        long startNanos = System.nanoTime();
+        QueryResult result = call("Query", ImmutableSet.of(request.getTableName()), startNanos,
+            () -> dynamoDbClient.query(measured));
+        record("Query", request.getTableName(), startNanos, countOf(result.getCount()), result.getConsumedCapacity());
+        return result;
+    }
+
+    @Override
+    public ScanResult scan(ScanRequest request) {
+        ScanRequest measured = request.clone()
+            .withReturnConsumedCapacity(returnConsumedCapacity(request.getReturnConsumedCapacity()));
+        long startNanos = System.nanoTime();
+        ScanResult result = call("Scan", ImmutableSet.of(request.getTableName()), startNanos,
+            () -> dynamoDbClient.scan(measured));
+        record("Scan", request.getTableName(), startNanos, countOf(result.getCount()), result.getConsumedCapacity());
+        return result;
+    }
+
+    @Override
+    public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+        BatchGetItemRequest measured = request.clone()
+            .withReturnConsumedCapacity(returnConsumedCapacity(request.getReturnConsumedCapacity()));
+        long startNanos = System.nanoTime();
+        BatchGetItemResult result = call("BatchGetItem", request.getRequestItems().keySet(), startNanos,
+            () -> dynamoDbClient.batchGetItem(measured));
+
+        Map<String, Integer> itemCounts = new HashMap<>();
+        for (String tableName : request.getRequestItems().keySet()) {
+            List<?> items = result.getResponses() == null ? null : result.getResponses().get(tableName);
+            itemCounts.put(tableName, items == null ? 0 : items.size());
+        }
+        recordEachTable("BatchGetItem", startNanos, itemCounts, result.getConsumedCapacity());
+        return result;
+    }
+
+    @Override
+    public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+        BatchWriteItemRequest measured = request.clone()
+            .withReturnConsumedCapacity(returnConsumedCapacity(request.getReturnConsumedCapacity()));
+        long startNanos = System.nanoTime();
+        BatchWriteItemResult result = call("BatchWriteItem", request.getRequestItems().keySet(), startNanos,
+            () -> dynamoDbClient.batchWriteItem(measured));
+
+        Map<String, Integer> itemCounts = new HashMap<>();
+        for (Map.Entry<String, List<WriteRequest>> entry : request.getRequestItems().entrySet()) {
+            List<WriteRequest> unprocessed =
+                result.getUnprocessedItems() == null ? null : result.getUnprocessedItems().get(entry.getKey());
+            itemCounts.put(entry.getKey(), entry.getValue().size() - (unprocessed == null ? 0 : unprocessed.size()));
+        }
+        recordEachTable("BatchWriteItem", startNanos, itemCounts, result.getConsumedCapacity());
+        return result;
+    }
+
+    @Override
+    public TransactWriteItemsResult transactWriteItems(TransactWriteItemsRequest request) {
+        TransactWriteItemsRequest measured = request.clone()
+            .withReturnConsumedCapacity(returnConsumedCapacity(request.getReturnConsumedCapacity()));
+        Map<String, Integer> itemCounts = new LinkedHashMap<>();
+        for (TransactWriteItem item : request.getTransactItems()) {
+            String tableName;
+            if (item.getPut() != null) {
+                tableName = item.getPut().getTableName();
+            } else if (item.getUpdate() != null) {
+                tableName = item.getUpdate().getTableName();
+            } else if (item.getDelete() != null) {
+                tableName = item.getDelete().getTableName();
+            } else {
+                tableName = item.getConditionCheck().getTableName();
+            }
+            itemCounts.merge(tableName, 1, Integer::sum);
+        }
+
+        long startNanos = System.nanoTime();
+        TransactWriteItemsResult result = call("TransactWriteItems", itemCounts.keySet(), startNanos,
+            () -> dynamoDbClient.transactWriteItems(measured));
+        recordEachTable("TransactWriteItems", startNanos, itemCounts, result.getConsumedCapacity());
+        return result;
+    }
+
+    @Override
+    public TransactGetItemsResult transactGetItems(TransactGetItemsRequest request) {
+        TransactGetItemsRequest measured = request.clone()
+            .withReturnConsumedCapacity(returnConsumedCapacity(request.getReturnConsumedCapacity()));
+        Map<String, Integer> itemCounts = new LinkedHashMap<>();
+        for (TransactGetItem item : request.getTransactItems()) {
+            itemCounts.merge(item.getGet().getTableName(), 1, Integer::sum);
+        }
+
+        long startNanos = System.nanoTime();
+        TransactGetItemsResult result = call("TransactGetItems", itemCounts.keySet(), startNanos,
+            () -> dynamoDbClient.transactGetItems(measured));
+        recordEachTable("TransactGetItems", startNanos, itemCounts, result.getConsumedCapacity());
+        return result;
+    }
+
+    @Override
+    public CreateTableResult createTable(CreateTableRequest request) {
+        return dynamoDbClient.createTable(request);
+    }
+
+    @Override
+    public DescribeTableResult describeTable(DescribeTableRequest request) {
+        return dynamoDbClient.describeTable(request);
+    }
+
+    @Override
+    public DeleteTableResult deleteTable(DeleteTableRequest request) {
+        return dynamoDbClient.deleteTable(request);
+    }
+
+    @Override
+    public ListTablesResult listTables(ListTablesRequest request) {
+        return dynamoDbClient.listTables(request);
+    }
+
+    @Override
+    public void shutdown() {
+        dynamoDbClient.shutdown();
+    }
+
+    /**
+     * Makes a call, recording it as failed against every table it touches if it throws.
+     */
+    private <T> T call(String operation, Collection<String> tableNames, long startNanos, Supplier<T> request) {
+        try {
+            return request.get();
+        } catch (RuntimeException e) {
+            long latencyNanos = System.nanoTime() - startNanos;
+            String activity = MetricsContext.currentActivity();
+            for (String tableName : tableNames) {
+                metricsSink.record(new DynamoDbCall(activity, tableName, operation, latencyNanos, 0, 0, false));
+            }
+            throw e;
+        }
+    }
+
+    private void record(String operation, String tableName, long startNanos, int itemCount,
+                        ConsumedCapacity consumedCapacity) {
+        metricsSink.record(new DynamoDbCall(MetricsContext.currentActivity(), tableName, operation,
+            System.nanoTime() - startNanos, itemCount, capacityUnitsOf(consumedCapacity), true));
+    }
+
+    private void recordEachTable(String operation, long startNanos, Map<String, Integer> itemCounts,
+                                 List<ConsumedCapacity> consumedCapacity) {
+        long latencyNanos = System.nanoTime() - startNanos;
+        Map<String, Double> capacityUnits = new HashMap<>();
+        if (consumedCapacity != null) {
+            for (ConsumedCapacity tableCapacity : consumedCapacity) {
+                capacityUnits.merge(tableCapacity.getTableName(), capacityUnitsOf(tableCapacity), Double::sum);
+            }
+        }
+
+        String activity = MetricsContext.currentActivity();
+        for (Map.Entry<String, Integer> entry : itemCounts.entrySet()) {
+            metricsSink.record(new DynamoDbCall(activity, entry.getKey(), operation, latencyNanos, entry.getValue(),
+                capacityUnits.getOrDefault(entry.getKey(), 0.0), true));
+        }
+    }
+
+    private static String returnConsumedCapacity(String requested) {
+        return requested == null || ReturnConsumedCapacity.NONE.toString().equals(requested) ?
+            ReturnConsumedCapacity.TOTAL.toString() : requested;
+    }
+
+    private static double capacityUnitsOf(ConsumedCapacity consumedCapacity) {
+        return consumedCapacity == null || consumedCapacity.getCapacityUnits() == null ?
+            0 : consumedCapacity.getCapacityUnits();
+    }
+
+    private static int countOf(Integer count) {
+        return count == null ? 0 : count;
+    }
+}
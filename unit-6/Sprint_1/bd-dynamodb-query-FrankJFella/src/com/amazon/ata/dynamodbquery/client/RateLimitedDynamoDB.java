@@ -0,0 +1,299 @@
+package com.amazon.ata.dynamodbquery.client;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteTableResult;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.ListTablesRequest;
+import com.amazonaws.services.dynamodbv2.model.ListTablesResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItem;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Wraps an AmazonDynamoDB client so that throttling slows callers down instead of making them retry
+ * harder. Every table has an AdaptiveRateLimiter for reads and another for writes; each call waits
+ * for a permit from the limiters of the tables it touches, and a throttle from DynamoDB lowers those
+ * limiters' rate. Batch calls that come back with unprocessed items count as throttled too.
+ *
+ * Throttled and other retryable calls are retried here, with jittered exponential backoff, up to
+ * maxAttempts attempts, and only while the shared RetryBudget allows it. The wrapped client should
+ * not retry on its own, or throttled calls would be retried outside the budget. Transactions are
+ * never retried here, since their callers already decide what to retry from the cancellation reasons.
+ *
+ * A permit is one call, not one capacity unit, so the limiters track how often each table is called.
+ */
+public class RateLimitedDynamoDB extends AbstractAmazonDynamoDB {
+    private static final long BASE_BACKOFF_MILLIS = 25;
+    private static final long MAX_BACKOFF_MILLIS = 1000;
+    private static final String THROTTLING_ERROR = "ThrottlingError";
+
+    /**
+     * The kind of capacity a call consumes, which DynamoDB throttles separately.
+     */
+    public enum OperationType {
+        READ,
+        WRITE
+    }
+
+    private final AmazonDynamoDB dynamoDbClient;
+    private final RetryBudget retryBudget;
+    private final int maxAttempts;
+    private final double minRequestsPerSecond;
+    private final double maxRequestsPerSecond;
+    private final ConcurrentMap<String, AdaptiveRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a rate limited wrapper around a client.
+     * @param dynamoDbClient The client to make calls with; it should have its own retries turned off
+     * @param minRequestsPerSecond The lowest rate throttling can push a table's reads or writes down to
+     * @param maxRequestsPerSecond The highest rate for a table's reads or writes
+     * @param retryBudget The budget every retry is taken from
+     * @param maxAttempts The most times to try a call, including the first
+     */
+    public RateLimitedDynamoDB(AmazonDynamoDB dynamoDbClient, double minRequestsPerSecond,
+                               double maxRequestsPerSecond, RetryBudget retryBudget, int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive, but was " + maxAttempts);
+        }
+        // Fail now rather than on the first call if the rates are wrong
+        new AdaptiveRateLimiter(minRequestsPerSecond, maxRequestsPerSecond);
+        this.dynamoDbClient = dynamoDbClient;
+        this.minRequestsPerSecond = minRequestsPerSecond;
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        this.retryBudget = retryBudget;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Returns the rate currently allowed for a table's reads or writes.
+     * @param tableName The table
+     * @param operationType Reads or writes
+     * @return the requests per second currently allowed
+     */
+    public double getRate(String tableName, OperationType operationType) {
+        return rateLimiter(tableName, operationType).getRate();
+    }
+
+    @Override
+    public GetItemResult getItem(GetItemRequest request) {
+        return call(limiters(OperationType.READ, request.getTableName()), () -> dynamoDbClient.getItem(request));
+    }
+
+    @Override
+    public PutItemResult putItem(PutItemRequest request) {
+        return call(limiters(OperationType.WRITE, request.getTableName()), () -> dynamoDbClient.putItem(request));
+    }
+
+    @Override
+    public UpdateItemResult updateItem(UpdateItemRequest request) {
+        return call(limiters(OperationType.WRITE, request.getTableName()), () -> dynamoDbClient.updateItem(request));
+    }
+
+    @Override
+    public DeleteItemResult deleteItem(DeleteItemRequest request) {
+        return call(limiters(OperationType.WRITE, request.getTableName()), () -> dynamoDbClient.deleteItem(request));
+    }
+
+    @Override
+    public QueryResult query(QueryRequest request) {
+        return call(limiters(OperationType.READ, request.getTableName()), () -> dynamoDbClient.query(request));
+    }
+
+    @Override
+    public ScanResult scan(ScanRequest request) {
+        return call(limiters(OperationType.READ, request.getTableName()), () -> dynamoDbClient.scan(request));
+    }
+
+    @Override
+    public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+        BatchGetItemResult result = call(limiters(OperationType.READ, request.getRequestItems().keySet()),
+            () -> dynamoDbClient.batchGetItem(request));
+        if (result.getUnprocessedKeys() != null) {
+            for (String tableName : result.getUnprocessedKeys().keySet()) {
+                rateLimiter(tableName, OperationType.READ).onThrottle();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+        BatchWriteItemResult result = call(limiters(OperationType.WRITE, request.getRequestItems().keySet()),
+            () -> dynamoDbClient.batchWriteItem(request));
+        if (result.getUnprocessedItems() != null) {
+            for (String tableName : result.getUnprocessedItems().keySet()) {
+                rateLimiter(tableName, OperationType.WRITE).onThrottle();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public TransactWriteItemsResult transactWriteItems(TransactWriteItemsRequest request) {
+        Set<String> tableNames = new LinkedHashSet<>();
+        for (TransactWriteItem item : request.getTransactItems()) {
+            if (item.getPut() != null) {
+                tableNames.add(item.getPut().getTableName());
+            } else if (item.getUpdate() != null) {
+                tableNames.add(item.getUpdate().getTableName());
+            } else if (item.getDelete() != null) {
+                tableNames.add(item.getDelete().getTableName());
+            } else if (item.getConditionCheck() != null) {
+                tableNames.add(item.getConditionCheck().getTableName());
+            }
+        }
+        return transact(limiters(OperationType.WRITE, tableNames), () -> dynamoDbClient.transactWriteItems(request));
+    }
+
+    @Override
+    public TransactGetItemsResult transactGetItems(TransactGetItemsRequest request) {
+        Set<String> tableNames = new LinkedHashSet<>();
+        for (TransactGetItem item : request.getTransactItems()) {
+            tableNames.add(item.getGet().getTableName());
+        }
+        return transact(limiters(OperationType.READ, tableNames), () -> dynamoDbClient.transactGetItems(request));
+    }
+
+    @Override
+    public CreateTableResult createTable(CreateTableRequest request) {
+        return dynamoDbClient.createTable(request);
+    }
+
+    @Override
+    public DescribeTableResult describeTable(DescribeTableRequest request) {
+        return dynamoDbClient.describeTable(request);
+    }
+
+    @Override
+    public DeleteTableResult deleteTable(DeleteTableRequest request) {
+        return dynamoDbClient.deleteTable(request);
+    }
+
+    @Override
+    public ListTablesResult listTables(ListTablesRequest request) {
+        return dynamoDbClient.listTables(request);
+    }
+
+    @Override
+    public void shutdown() {
+        dynamoDbClient.shutdown();
+    }
+
+    private <T> T call(List<AdaptiveRateLimiter> limiters, Supplier<T> request) {
+        retryBudget.recordRequest();
+        for (int attempt = 1; ; attempt++) {
+            limiters.forEach(AdaptiveRateLimiter::acquire);
+            try {
+                T result = request.get();
+                limiters.forEach(AdaptiveRateLimiter::onSuccess);
+                return result;
+            } catch (AmazonClientException e) {
+                boolean throttled = e instanceof AmazonServiceException &&
+                    RetryUtils.isThrottlingException((AmazonServiceException) e);
+                if (throttled) {
+                    limiters.forEach(AdaptiveRateLimiter::onThrottle);
+                }
+                boolean retryable = e instanceof AmazonServiceException ?
+                    throttled || RetryUtils.isRetryableServiceException((AmazonServiceException) e) : e.isRetryable();
+                if (!retryable || attempt >= maxAttempts || !retryBudget.tryRetry() || !backOff(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private <T> T transact(List<AdaptiveRateLimiter> limiters, Supplier<T> request) {
+        limiters.forEach(AdaptiveRateLimiter::acquire);
+        try {
+            T result = request.get();
+            limiters.forEach(AdaptiveRateLimiter::onSuccess);
+            return result;
+        } catch (TransactionCanceledException e) {
+            if (e.getCancellationReasons() != null && e.getCancellationReasons().stream()
+                .map(CancellationReason::getCode)
+                .anyMatch(THROTTLING_ERROR::equals)) {
+                limiters.forEach(AdaptiveRateLimiter::onThrottle);
+            }
+            throw e;
+        } catch (AmazonServiceException e) {
+            if (RetryUtils.isThrottlingException(e)) {
+                limiters.forEach(AdaptiveRateLimiter::onThrottle);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Sleeps before the next attempt, for a random time up to an exponentially growing limit.
+     * @param attempt The attempt that just failed, starting at 1
+     * @return true to try again; false if the thread was interrupted while sleeping
+     */
+    private static boolean backOff(int attempt) {
+        long maxSleepMillis = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(maxSleepMillis + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private List<AdaptiveRateLimiter> limiters(OperationType operationType, String tableName) {
+        return ImmutableList.of(rateLimiter(tableName, operationType));
+    }
+
+    private List<AdaptiveRateLimiter> limiters(OperationType operationType, Collection<String> tableNames) {
+        List<AdaptiveRateLimiter> limiters = new ArrayList<>(tableNames.size());
+        for (String tableName : tableNames) {
+            limiters.add(rateLimiter(tableName, operationType));
+        }
+        return limiters;
+    }
+
+    private AdaptiveRateLimiter rateLimiter(String tableName, OperationType operationType) {
+        return rateLimiters.computeIfAbsent(tableName + "/" + operationType,
+            key -> new AdaptiveRateLimiter(minRequestsPerSecond, maxRequestsPerSecond));
+    }
+}
@@ -0,0 +1,82 @@
+package com.amazon.ata.dynamodbquery.client;
+
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps retries across every call that shares it, so that when DynamoDB throttles, retries can't pile
+ * extra load on top of the calls that are already failing. Each request earns retryRatio of a retry,
+ * and minRetriesPerSecond more are earned over time so a quiet client can still retry; each retry
+ * spends one. Unspent retries build up to at most maxBalance.
+ */
+public class RetryBudget {
+    private final double retryRatio;
+    private final double minRetriesPerSecond;
+    private final double maxBalance;
+    private final Ticker ticker;
+    private final LongAdder rejectedRetries = new LongAdder();
+    private double balance;
+    private long lastRefillNanos;
+
+    /**
+     * Creates a budget that starts full.
+     * @param retryRatio The share of a retry each request earns; 0.1 allows one retry per ten requests
+     * @param minRetriesPerSecond The retries earned per second regardless of traffic
+     * @param maxBalance The most unspent retries to keep
+     */
+    public RetryBudget(double retryRatio, double minRetriesPerSecond, double maxBalance) {
+        this(retryRatio, minRetriesPerSecond, maxBalance, Ticker.systemTicker());
+    }
+
+    RetryBudget(double retryRatio, double minRetriesPerSecond, double maxBalance, Ticker ticker) {
+        if (retryRatio < 0 || minRetriesPerSecond < 0 || maxBalance < 1) {
+            throw new IllegalArgumentException("Retry ratio and minimum retries can't be negative, and the " +
+                "balance must allow at least one retry");
+        }
+        this.retryRatio = retryRatio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.maxBalance = maxBalance;
+        this.ticker = ticker;
+        this.balance = maxBalance;
+        this.lastRefillNanos = ticker.read();
+    }
+
+    /**
+     * Records a request's first attempt, earning its share of a retry.
+     */
+    public synchronized void recordRequest() {
+        refill();
+        balance = Math.min(maxBalance, balance + retryRatio);
+    }
+
+    /**
+     * Spends one retry, if the budget has one.
+     * @return true if the caller may retry; false if it should give up
+     */
+    public synchronized boolean tryRetry() {
+        refill();
+        if (balance < 1) {
+            rejectedRetries.increment();
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+
+    /**
+     * Returns the number of retries refused since this budget was created.
+     * @return the rejected retry count
+     */
+    public long getRejectedRetryCount() {
+        return rejectedRetries.sum();
+    }
+
+    private void refill() {
+        long now = ticker.read();
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        balance = Math.min(maxBalance, balance + minRetriesPerSecond * elapsedSeconds);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,172 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazon.ata.dynamodbquery.dao.models.Event;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An EventDao that keeps recently read events in a bounded, expiring cache. Events rarely change
+ * after they're created, so most lookups can be answered without DynamoDB. Events written through
+ * this DAO replace their cached copy right away; changes made anywhere else are picked up once the
+ * cached copy expires. Misses for the same event at the same time share one read.
+ *
+ * A read only caches what it loaded if no write to the same event was made through this DAO while it
+ * was loading, so a read that races a cancel can't put the event back as it was before the cancel.
+ *
+ * Callers get their own copy of each cached Event, so changing a returned Event never changes the cache.
+ */
+public class CachingEventDao extends EventDao {
+    private final Cache<String, Event> cache;
+    // One token per running load; a write removes the token, so the load knows not to cache its result
+    private final ConcurrentMap<String, Object> loads = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a CachingEventDao with the given DDB mapper and cache limits.
+     * @param mapper DynamoDBMapper
+     * @param dynamoDbClient The client for updates the mapper can't make in one request
+     * @param executorService The ExecutorService the *Async methods run on
+     * @param maximumSize The most events to keep in the cache
+     * @param timeToLive How long an event may be served from the cache after it was read or written
+     */
+    public CachingEventDao(DynamoDBMapper mapper, AmazonDynamoDB dynamoDbClient, ExecutorService executorService,
+                           long maximumSize, Duration timeToLive) {
+        super(mapper, dynamoDbClient, executorService);
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive.toMillis(), TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+    }
+
+    @Override
+    public Event getEvent(String eventId) {
+        Event cachedEvent = cache.getIfPresent(eventId);
+        if (cachedEvent != null) {
+            return copyOf(cachedEvent);
+        }
+
+        Object load = startLoad(eventId);
+        try {
+            Event event = super.getEvent(eventId);
+            if (event != null) {
+                cacheIfNotWritten(load, event);
+            }
+            return event;
+        } finally {
+            loads.remove(eventId, load);
+        }
+    }
+
+    /**
+     * Gets a collection of events for a Collection of event IDs. Only the IDs that aren't cached
+     * are loaded from DynamoDB.
+     * No guarantee of the order/size of result is provided (e.g. in
+     * case some of the IDs are not found).
+     * @param eventIds The (Collection of) IDs to fetch events for
+     * @return List of Events (those found from the IDs provided)
+     */
+    @Override
+    public List<Event> getEvents(Collection<String> eventIds) {
+        Set<String> distinctIds = new LinkedHashSet<>(eventIds);
+        Map<String, Event> cachedEvents = cache.getAllPresent(distinctIds);
+
+        List<Event> events = new ArrayList<>(distinctIds.size());
+        for (Event cachedEvent : cachedEvents.values()) {
+            events.add(copyOf(cachedEvent));
+        }
+
+        distinctIds.removeAll(cachedEvents.keySet());
+        if (!distinctIds.isEmpty()) {
+            Map<String, Object> startedLoads = new HashMap<>();
+            for (String eventId : distinctIds) {
+                startedLoads.put(eventId, startLoad(eventId));
+            }
+            try {
+                for (Event event : super.getEvents(distinctIds)) {
+                    cacheIfNotWritten(startedLoads.get(event.getId()), event);
+                    events.add(event);
+                }
+            } finally {
+                startedLoads.forEach(loads::remove);
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public Event createEvent(Event event) {
+        Event createdEvent = super.createEvent(event);
+        cacheWritten(createdEvent.getId(), createdEvent);
+        return createdEvent;
+    }
+
+    @Override
+    public Event cancelEvent(String eventId) {
+        // Drop the old copy first, so a failed cancel doesn't leave it in the cache
+        cacheWritten(eventId, null);
+        Event canceledEvent = super.cancelEvent(eventId);
+        cacheWritten(eventId, canceledEvent);
+        return canceledEvent;
+    }
+
+    @Override
+    public Event raiseAnnouncementShards(String eventId, int shardCount) {
+        cacheWritten(eventId, null);
+        Event updatedEvent = super.raiseAnnouncementShards(eventId, shardCount);
+        cacheWritten(eventId, updatedEvent);
+        return updatedEvent;
+    }
+
+    private Object startLoad(String eventId) {
+        Object load = new Object();
+        loads.put(eventId, load);
+        return load;
+    }
+
+    private void cacheIfNotWritten(Object load, Event event) {
+        // Checked and cached under the key's lock, so a write can't slip in between
+        loads.computeIfPresent(event.getId(), (id, currentLoad) -> {
+            if (currentLoad == load) {
+                cache.put(id, copyOf(event));
+            }
+            return currentLoad;
+        });
+    }
+
+    private void cacheWritten(String eventId, Event writtenEvent) {
+        // Ends any running load's claim on the key, and replaces the cached copy, as one step
+        loads.compute(eventId, (id, currentLoad) -> {
+            if (writtenEvent == null) {
+                cache.invalidate(id);
+            } else {
+                cache.put(id, copyOf(writtenEvent));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the cache's hit, miss and eviction counts since it was created.
+     * @return the cache statistics
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,80 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Converts DynamoDB LastEvaluatedKey maps to and from opaque continuation tokens
+ * that can be handed to clients. Only String key attributes are supported, which
+ * covers every table key in this service.
+ */
+public final class ContinuationTokens {
+    /** The token for a position before the first page, which decodes to no ExclusiveStartKey. */
+    public static final String FIRST_PAGE = "-";
+    private static final Gson GSON = new Gson();
+    private static final Type KEY_TYPE = new TypeToken<Map<String, String>>() { }.getType();
+
+    private ContinuationTokens() {
+    }
+
+    /**
+     * Encodes a LastEvaluatedKey as a continuation token.
+     * @param lastEvaluatedKey The key returned by DynamoDB for a page of results
+     * @return the token, or null if there are no more pages
+     */
+    public static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+
+        Map<String, String> keyValues = new TreeMap<>();
+        for (Map.Entry<String, AttributeValue> entry : lastEvaluatedKey.entrySet()) {
+            String value = entry.getValue().getS();
+            if (value == null) {
+                throw new IllegalArgumentException("Only String key attributes can be encoded, but got: " +
+                    entry.getKey() + "=" + entry.getValue());
+            }
+            keyValues.put(entry.getKey(), value);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(GSON.toJson(keyValues, KEY_TYPE).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a continuation token back into an ExclusiveStartKey.
+     * @param continuationToken The token from a previous page, or null or FIRST_PAGE for the first page
+     * @return the ExclusiveStartKey to query with, or null for the first page
+     */
+    public static Map<String, AttributeValue> decode(String continuationToken) {
+        if (continuationToken == null || continuationToken.isEmpty() || FIRST_PAGE.equals(continuationToken)) {
+            return null;
+        }
+
+        Map<String, String> keyValues;
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+            keyValues = GSON.fromJson(json, KEY_TYPE);
+        } catch (IllegalArgumentException | JsonSyntaxException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + continuationToken, e);
+        }
+        if (keyValues == null || keyValues.isEmpty()) {
+            throw new IllegalArgumentException("Invalid continuation token: " + continuationToken);
+        }
+
+        Map<String, AttributeValue> exclusiveStartKey = new HashMap<>();
+        for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+            exclusiveStartKey.put(entry.getKey(), new AttributeValue().withS(entry.getValue()));
+        }
+        return exclusiveStartKey;
+    }
+}
@@ -1,39 +1,109 @@
 package com.amazon.ata.dynamodbquery.dao;
 
 import com.amazon.ata.dynamodbquery.converter.ZonedDateTimeConverter;
+import com.amazon.ata.dynamodbquery.dao.codec.EventAnnouncementCodec;
+import com.amazon.ata.dynamodbquery.dao.codec.ItemReader;
 import com.amazon.ata.dynamodbquery.dao.models.Event;
 import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import org.checkerframework.checker.units.qual.A;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 import javax.inject.Inject;
 
 /**
  * Manages access to EventAnnouncement items.
+ *
+ * An event's announcements normally share one partition, keyed by the event ID. An event that gets more
+ * announcement traffic than one partition can take can have its announcements sharded with
+ * shardEventAnnouncements(): new announcements are then written to one of several partitions keyed
+ * "eventId#shard", and reads query the original partition and every shard in parallel, merging the
+ * results by timePublished. Callers always see the plain event ID on the announcements they get back.
  */
 public class EventAnnouncementDao {
+    /** The most partitions one event's announcements can be spread over. */
+    public static final int MAX_SHARDS = 32;
+    private static final String SHARD_SEPARATOR = "#";
+
+    private static final EventAnnouncementCodec EVENT_ANNOUNCEMENT_CODEC = new EventAnnouncementCodec();
 
     private DynamoDBMapper mapper;
+    private ItemReader itemReader;
+    private ExecutorService executorService;
+    private EventDao eventDao;
 
     // Define a constant to represent the Date/time converter we are using
     // This is done to make it easier if we need to change the converter
     // NOT REQUIRED FOR DYNAMODB ACCESS
     private static final ZonedDateTimeConverter ZONED_DATE_TIME_CONVERTER = new ZonedDateTimeConverter();
+    // Orders announcements the way DynamoDB orders the range key: by the stored timePublished string
+    private static final Comparator<EventAnnouncement> BY_TIME_PUBLISHED =
+        Comparator.comparing(announcement -> ZONED_DATE_TIME_CONVERTER.convert(announcement.getTimePublished()));
+
     /**
      * Creates an EventDao with the given DDB mapper.
      * @param mapper DynamoDBMapper
+     * @param itemReader The ItemReader to query announcements with
+     * @param executorService The ExecutorService the *Async methods and the shard queries run on
+     * @param eventDao The EventDao to look up each event's announcement shard count with
      */
     @Inject
-    public EventAnnouncementDao(DynamoDBMapper mapper) {
+    public EventAnnouncementDao(DynamoDBMapper mapper, ItemReader itemReader, ExecutorService executorService,
+                                EventDao eventDao) {
         this.mapper = mapper;
+        this.itemReader = itemReader;
+        this.executorService = executorService;
+        this.eventDao = eventDao;
+    }
+
+    /**
+     * Spreads an event's future announcements over the given number of partitions, so that writes and
+     * reads for the event are no longer held to one partition's throughput. Announcements already written
+     * stay where they are and are still read.
+     *
+     * The shard count can only grow, since lowering it would hide the announcements in the dropped shards.
+     * Raise it before the event gets busy: hosts that have the event cached keep using the old count
+     * until their copy expires. Only the event's shard count is written, so changes made to the rest of
+     * the event meanwhile are kept.
+     *
+     * @param eventId The event whose announcements to shard.
+     * @param shardCount The number of shards, from 1 to MAX_SHARDS.
+     * @return The updated event.
+     */
+    public Event shardEventAnnouncements(String eventId, int shardCount) {
+        Event event = eventDao.getEvent(eventId);
+        if (event == null) {
+            throw new IllegalArgumentException("No event found with ID: " + eventId);
+        }
+        int currentShardCount = shardCountOf(event);
+        if (shardCount < currentShardCount || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException(String.format("Shard count for event %s must be between %d and %d, " +
+                "but got: %d", eventId, Math.max(currentShardCount, 1), MAX_SHARDS, shardCount));
+        }
+
+        // The event read above may be stale, so only the shard count is written, and only if it isn't lower
+        Event updatedEvent = eventDao.raiseAnnouncementShards(eventId, shardCount);
+        if (updatedEvent == null) {
+            throw new IllegalArgumentException(String.format("No event found with ID %s, or its announcements " +
+                "already use more than %d shards", eventId, shardCount));
+        }
+        return updatedEvent;
     }
 
     /**
@@ -43,23 +113,25 @@ public class EventAnnouncementDao {
      * @return the list of event announcements.
      */
     public List<EventAnnouncement> getEventAnnouncements(String eventId) {
+        int shardCount = getShardCount(eventId);
+        if (shardCount > 0) {
+            return queryAllPartitions(eventId, shardCount, this::buildEventAnnouncementsQuery);
+        }
+        return itemReader.query(EVENT_ANNOUNCEMENT_CODEC, buildEventAnnouncementsQuery(eventId));
+    }
+
+    private DynamoDBQueryExpression<EventAnnouncement> buildEventAnnouncementsQuery(String partitionKey) {
         // TODONE: implement
 
         // Instantiate EventAnnouncement object for interaction with DynamoDB
         EventAnnouncement anEventAnnoucement = new EventAnnouncement();
         //       and set it's eventId to the eventId we are given as a parameter
-        anEventAnnoucement.setEventId(eventId);
+        anEventAnnoucement.setEventId(partitionKey);
 
         // Define a Query Expression to tell DynamoDB which rows we want to retrieve
         //       based on the "hash key" eventId
-        DynamoDBQueryExpression<EventAnnouncement> whatWeWant =
-                      new DynamoDBQueryExpression<EventAnnouncement>()
+        return new DynamoDBQueryExpression<EventAnnouncement>()
                          .withHashKeyValues(anEventAnnoucement);
-
-        // Go to DynamoDB to get the rows based on the Query Expression
-        //       and return them to caller
-        //                  class-to-returned      , Query Expression
-        return mapper.query(EventAnnouncement.class, whatWeWant);
     }
 
     /**
@@ -72,7 +144,20 @@ public class EventAnnouncementDao {
      */
     public List<EventAnnouncement> getEventAnnouncementsBetweenDates(String eventId, ZonedDateTime startTime,
                                                                      ZonedDateTime endTime) {
-        // TODO: implement
+        int shardCount = getShardCount(eventId);
+        if (shardCount > 0) {
+            return queryAllPartitions(eventId, shardCount,
+                partitionKey -> buildBetweenDatesQuery(partitionKey, startTime, endTime));
+        }
+
+        // Go to DynamoDB to retrieve the rows between the dates given using the Query Expression
+        //    and return them
+        return itemReader.query(EVENT_ANNOUNCEMENT_CODEC, buildBetweenDatesQuery(eventId, startTime, endTime));
+    }
+
+    private DynamoDBQueryExpression<EventAnnouncement> buildBetweenDatesQuery(String partitionKey,
+                                                                              ZonedDateTime startTime,
+                                                                              ZonedDateTime endTime) {
         // Because there are multiple conditions for our search
         // Define the values used in the condition to tell DynamoDB what we want in a Map
         // The key for the Map is an identifier for the values to be used
@@ -84,30 +169,275 @@ public class EventAnnouncementDao {
         // Add the values to used in the condition for the Query Expression in to the Map
         // We need to convert the parameters to String to use in the condition for the Query Expression
         // It is common for the identifier of the value to be :column-name
-        searchValues.put(":eventId"  , new AttributeValue().withS(eventId));
+        searchValues.put(":eventId"  , new AttributeValue().withS(partitionKey));
         searchValues.put(":startDate", new AttributeValue().withS(ZONED_DATE_TIME_CONVERTER.convert(startTime)));
-        searchValues.put(":endDate"  , new AttributeValue().withS(new ZonedDateTimeConverter().convert(endTime)));
+        searchValues.put(":endDate"  , new AttributeValue().withS(ZONED_DATE_TIME_CONVERTER.convert(endTime)));
 
         // Define a Query Expression with a condition using the values in the Map
-        DynamoDBQueryExpression<EventAnnouncement> querySearchExpression =
-                  new DynamoDBQueryExpression<EventAnnouncement>()
+        return new DynamoDBQueryExpression<EventAnnouncement>()
                   //                          column  = id-in-map      column-in-table       id-in-map      id-in-map
-                 .withKeyConditionExpression("eventId = :eventId  and  timePublished between :startDate and :endDate")
+                 .withKeyConditionExpression("eventId = :eventId and timePublished between :startDate and :endDate")
                  .withExpressionAttributeValues(searchValues);
+    }
 
-        // Go to DynamoDB to retrieve the rows between the dates given using the Query Expression
-        //    and return them
-        return mapper.query(EventAnnouncement.class, querySearchExpression);
+    /**
+     * Gets a page of an event's announcements, newest first. DynamoDB reads the partition backwards
+     * from the newest announcement and stops after limit announcements, so only the page is read.
+     * For a sharded event, each partition is read that way and the newest limit announcements are kept.
+     *
+     * @param eventId The event to get announcements for.
+     * @param startTime If not null, only return announcements published at or after this time.
+     * @param endTime If not null, only return announcements published at or before this time.
+     * @param limit The maximum number of announcements to return.
+     * @param continuationToken The token returned with the previous page, or null for the newest announcements.
+     * @param attributesToGet If not null or empty, only these attributes are read (plus the key attributes);
+     *                        the others are left null.
+     * @return A page of event announcements, newest first.
+     */
+    public PaginatedResult<EventAnnouncement> getLatestEventAnnouncements(String eventId, ZonedDateTime startTime,
+                                                                        ZonedDateTime endTime, int limit,
+                                                                        String continuationToken,
+                                                                        List<String> attributesToGet) {
+        int shardCount = getShardCount(eventId);
+        if (shardCount > 0) {
+            return getLatestShardedEventAnnouncements(eventId, shardCount, startTime, endTime, limit,
+                continuationToken, attributesToGet);
+        }
+
+        DynamoDBQueryExpression<EventAnnouncement> queryExpression =
+            buildLatestEventAnnouncementsQuery(eventId, startTime, endTime, limit, attributesToGet)
+                .withExclusiveStartKey(ContinuationTokens.decode(continuationToken));
+
+        QueryResultPage<EventAnnouncement> page = itemReader.queryPage(EVENT_ANNOUNCEMENT_CODEC, queryExpression);
+        return new PaginatedResult<>(page.getResults(), ContinuationTokens.encode(page.getLastEvaluatedKey()));
+    }
+
+    /**
+     * Reads up to limit announcements from every partition of a sharded event and keeps the newest limit
+     * of them. The announcement shard is derived from timePublished, so no two partitions hold the same
+     * timePublished, and the continuation token only needs the timePublished of the last announcement
+     * returned. It has the same shape as an unsharded LastEvaluatedKey, so paging carries on across
+     * shardEventAnnouncements().
+     */
+    private PaginatedResult<EventAnnouncement> getLatestShardedEventAnnouncements(
+            String eventId, int shardCount, ZonedDateTime startTime, ZonedDateTime endTime, int limit,
+            String continuationToken, List<String> attributesToGet) {
+        Map<String, AttributeValue> startKey = ContinuationTokens.decode(continuationToken);
+        AttributeValue startTimePublished = startKey == null ? null : startKey.get("timePublished");
+
+        List<CompletableFuture<QueryResultPage<EventAnnouncement>>> pageFutures = new ArrayList<>();
+        for (String partitionKey : partitionKeys(eventId, shardCount)) {
+            DynamoDBQueryExpression<EventAnnouncement> queryExpression =
+                buildLatestEventAnnouncementsQuery(partitionKey, startTime, endTime, limit, attributesToGet);
+            if (startTimePublished != null) {
+                Map<String, AttributeValue> partitionStartKey = new HashMap<>();
+                partitionStartKey.put("eventId", new AttributeValue().withS(partitionKey));
+                partitionStartKey.put("timePublished", startTimePublished);
+                queryExpression.withExclusiveStartKey(partitionStartKey);
+            }
+            pageFutures.add(CompletableFuture.supplyAsync(
+                () -> itemReader.queryPage(EVENT_ANNOUNCEMENT_CODEC, queryExpression), executorService));
+        }
+
+        List<EventAnnouncement> announcements = new ArrayList<>();
+        boolean partitionHasMore = false;
+        for (CompletableFuture<QueryResultPage<EventAnnouncement>> pageFuture : pageFutures) {
+            QueryResultPage<EventAnnouncement> page = pageFuture.join();
+            announcements.addAll(page.getResults());
+            partitionHasMore |= page.getLastEvaluatedKey() != null && !page.getLastEvaluatedKey().isEmpty();
+        }
+        announcements.sort(BY_TIME_PUBLISHED.reversed());
+
+        boolean hasMore = partitionHasMore || announcements.size() > limit;
+        List<EventAnnouncement> pageItems = new ArrayList<>(announcements.subList(0,
+            Math.min(limit, announcements.size())));
+        pageItems.forEach(announcement -> announcement.setEventId(eventId));
+
+        String nextToken = null;
+        if (hasMore && !pageItems.isEmpty()) {
+            Map<String, AttributeValue> lastKey = new HashMap<>();
+            lastKey.put("eventId", new AttributeValue().withS(eventId));
+            lastKey.put("timePublished", new AttributeValue().withS(
+                ZONED_DATE_TIME_CONVERTER.convert(pageItems.get(pageItems.size() - 1).getTimePublished())));
+            nextToken = ContinuationTokens.encode(lastKey);
+        }
+        return new PaginatedResult<>(pageItems, nextToken);
+    }
+
+    private DynamoDBQueryExpression<EventAnnouncement> buildLatestEventAnnouncementsQuery(
+            String partitionKey, ZonedDateTime startTime, ZonedDateTime endTime, int limit,
+            List<String> attributesToGet) {
+        Map<String, AttributeValue> valueMap = new HashMap<>();
+        valueMap.put(":eventId", new AttributeValue().withS(partitionKey));
+
+        String keyConditionExpression = "eventId = :eventId";
+        if (startTime != null && endTime != null) {
+            keyConditionExpression += " and timePublished between :startDate and :endDate";
+        } else if (startTime != null) {
+            keyConditionExpression += " and timePublished >= :startDate";
+        } else if (endTime != null) {
+            keyConditionExpression += " and timePublished <= :endDate";
+        }
+        if (startTime != null) {
+            valueMap.put(":startDate", new AttributeValue().withS(ZONED_DATE_TIME_CONVERTER.convert(startTime)));
+        }
+        if (endTime != null) {
+            valueMap.put(":endDate", new AttributeValue().withS(ZONED_DATE_TIME_CONVERTER.convert(endTime)));
+        }
+
+        DynamoDBQueryExpression<EventAnnouncement> queryExpression = new DynamoDBQueryExpression<EventAnnouncement>()
+            .withKeyConditionExpression(keyConditionExpression)
+            .withExpressionAttributeValues(valueMap)
+            .withScanIndexForward(false)
+            .withLimit(limit);
+
+        if (attributesToGet != null && !attributesToGet.isEmpty()) {
+            // Use placeholder names, since attributes like "content" could be DynamoDB reserved words
+            Set<String> projectedAttributes = new LinkedHashSet<>();
+            projectedAttributes.add("eventId");
+            projectedAttributes.add("timePublished");
+            projectedAttributes.addAll(attributesToGet);
+
+            Map<String, String> nameMap = new HashMap<>();
+            List<String> placeholders = new ArrayList<>();
+            for (String attribute : projectedAttributes) {
+                String placeholder = "#a" + nameMap.size();
+                nameMap.put(placeholder, attribute);
+                placeholders.add(placeholder);
+            }
+            queryExpression
+                .withProjectionExpression(String.join(", ", placeholders))
+                .withExpressionAttributeNames(nameMap);
+        }
+        return queryExpression;
     }
 
     /**
-     * Creates a new event announcement.
+     * Creates a new event announcement. For a sharded event it's written to the shard picked by its
+     * timePublished, so saving the same announcement again always lands on the same item.
      *
      * @param eventAnnouncement The event announcement to create.
      * @return The newly created event announcement.
      */
     public EventAnnouncement createEventAnnouncement(EventAnnouncement eventAnnouncement) {
-        mapper.save(eventAnnouncement);
+        int shardCount = getShardCount(eventAnnouncement.getEventId());
+        if (shardCount == 0) {
+            mapper.save(eventAnnouncement);
+            return eventAnnouncement;
+        }
+
+        String timePublished = ZONED_DATE_TIME_CONVERTER.convert(eventAnnouncement.getTimePublished());
+        EventAnnouncement shardedAnnouncement = new EventAnnouncement();
+        shardedAnnouncement.setEventId(shardKey(eventAnnouncement.getEventId(),
+            Math.floorMod(timePublished.hashCode(), shardCount)));
+        shardedAnnouncement.setTimePublished(eventAnnouncement.getTimePublished());
+        shardedAnnouncement.setSubject(eventAnnouncement.getSubject());
+        shardedAnnouncement.setContent(eventAnnouncement.getContent());
+        mapper.save(shardedAnnouncement);
         return eventAnnouncement;
     }
+
+    /**
+     * Asynchronous version of getEventAnnouncements(String). The whole list is read before the future completes.
+     *
+     * @param eventId The event to get announcements for.
+     * @return a future of the list of event announcements.
+     */
+    public CompletableFuture<List<EventAnnouncement>> getEventAnnouncementsAsync(String eventId) {
+        return CompletableFuture.supplyAsync(() -> getEventAnnouncements(eventId), executorService);
+    }
+
+    /**
+     * Asynchronous version of getEventAnnouncementsBetweenDates(String, ZonedDateTime, ZonedDateTime).
+     * The whole list is read before the future completes.
+     *
+     * @param eventId The event to get announcements for.
+     * @param startTime The start time to get announcements for.
+     * @param endTime The end time to get announcements for.
+     * @return a future of the list of event announcements.
+     */
+    public CompletableFuture<List<EventAnnouncement>> getEventAnnouncementsBetweenDatesAsync(
+            String eventId, ZonedDateTime startTime, ZonedDateTime endTime) {
+        return CompletableFuture.supplyAsync(
+            () -> getEventAnnouncementsBetweenDates(eventId, startTime, endTime), executorService);
+    }
+
+    /**
+     * Asynchronous version of getLatestEventAnnouncements(String, ZonedDateTime, ZonedDateTime, int, String, List).
+     *
+     * @param eventId The event to get announcements for.
+     * @param startTime If not null, only return announcements published at or after this time.
+     * @param endTime If not null, only return announcements published at or before this time.
+     * @param limit The maximum number of announcements to return.
+     * @param continuationToken The token returned with the previous page, or null for the newest announcements.
+     * @param attributesToGet If not null or empty, only these attributes are read (plus the key attributes).
+     * @return a future of a page of event announcements, newest first.
+     */
+    public CompletableFuture<PaginatedResult<EventAnnouncement>> getLatestEventAnnouncementsAsync(
+            String eventId, ZonedDateTime startTime, ZonedDateTime endTime, int limit, String continuationToken,
+            List<String> attributesToGet) {
+        return CompletableFuture.supplyAsync(() -> getLatestEventAnnouncements(eventId, startTime, endTime, limit,
+            continuationToken, attributesToGet), executorService);
+    }
+
+    /**
+     * Asynchronous version of createEventAnnouncement(EventAnnouncement).
+     *
+     * @param eventAnnouncement The event announcement to create.
+     * @return a future of the newly created event announcement.
+     */
+    public CompletableFuture<EventAnnouncement> createEventAnnouncementAsync(EventAnnouncement eventAnnouncement) {
+        return CompletableFuture.supplyAsync(() -> createEventAnnouncement(eventAnnouncement), executorService);
+    }
+
+    private int getShardCount(String eventId) {
+        return shardCountOf(eventDao.getEvent(eventId));
+    }
+
+    private static int shardCountOf(Event event) {
+        if (event == null || event.getAnnouncementShards() == null) {
+            return 0;
+        }
+        return event.getAnnouncementShards();
+    }
+
+    /**
+     * Returns the partition keys of a sharded event: the event ID itself, which holds the announcements
+     * written before the event was sharded, then one key per shard.
+     */
+    private static List<String> partitionKeys(String eventId, int shardCount) {
+        List<String> partitionKeys = new ArrayList<>(shardCount + 1);
+        partitionKeys.add(eventId);
+        for (int shard = 0; shard < shardCount; shard++) {
+            partitionKeys.add(shardKey(eventId, shard));
+        }
+        return partitionKeys;
+    }
+
+    private static String shardKey(String eventId, int shard) {
+        return eventId + SHARD_SEPARATOR + shard;
+    }
+
+    /**
+     * Runs a query against every partition of a sharded event in parallel and merges the results oldest
+     * first, the order a single partition returns them in.
+     */
+    private List<EventAnnouncement> queryAllPartitions(
+            String eventId, int shardCount,
+            Function<String, DynamoDBQueryExpression<EventAnnouncement>> queryForPartition) {
+        List<CompletableFuture<List<EventAnnouncement>>> partitionFutures = new ArrayList<>();
+        for (String partitionKey : partitionKeys(eventId, shardCount)) {
+            DynamoDBQueryExpression<EventAnnouncement> queryExpression = queryForPartition.apply(partitionKey);
+            partitionFutures.add(CompletableFuture.supplyAsync(
+                () -> itemReader.query(EVENT_ANNOUNCEMENT_CODEC, queryExpression), executorService));
+        }
+
+        List<EventAnnouncement> announcements = new ArrayList<>();
+        for (CompletableFuture<List<EventAnnouncement>> partitionFuture : partitionFutures) {
+            announcements.addAll(partitionFuture.join());
+        }
+        announcements.forEach(announcement -> announcement.setEventId(eventId));
+        announcements.sort(BY_TIME_PUBLISHED);
+        return announcements;
+    }
 }
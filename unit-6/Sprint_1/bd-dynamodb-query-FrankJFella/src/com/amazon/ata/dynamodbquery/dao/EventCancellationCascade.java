@@ -0,0 +1,128 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.InviteCancellationProgress;
+
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Marks every invite to a canceled event canceled, in the background. The event's invites are read a
+ * page at a time by query, and each page is canceled with parallel conditional updates before the next
+ * one is read, so a guest list of any size is held in memory a page at a time.
+ *
+ * The cascade is idempotent: invites that are already canceled are skipped, so it can be run again at
+ * any time, from the start or from the continuation token of an earlier run's progress. Invites that
+ * fail to write don't stop the cascade, but its continuation token stays at the first page that had a
+ * failure, and it isn't reported done, so running it again from its progress retries them. Only one
+ * cascade runs per event at a time; starting another while one is running returns the running one.
+ * Progress is kept for the most recent 10,000 events.
+ */
+@Singleton
+public class EventCancellationCascade {
+    /** How many invites to read, and then cancel, at a time. */
+    public static final int PAGE_SIZE = 100;
+    private static final int MAX_PROGRESS_REPORTS = 10_000;
+
+    private final InviteDao inviteDao;
+    private final ExecutorService executorService;
+    private final ConcurrentMap<String, CompletableFuture<InviteCancellationProgress>> running =
+        new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, InviteCancellationProgress> latestProgress = CacheBuilder.newBuilder()
+        .maximumSize(MAX_PROGRESS_REPORTS)
+        .<String, InviteCancellationProgress>build()
+        .asMap();
+
+    /**
+     * Constructs a cascade that cancels invites with the given DAO.
+     * @param inviteDao The InviteDao to page through and cancel invites with
+     * @param executorService The ExecutorService to run cascades on
+     */
+    @Inject
+    public EventCancellationCascade(InviteDao inviteDao, ExecutorService executorService) {
+        this.inviteDao = inviteDao;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Starts canceling an event's invites, unless a cascade for the event is already running.
+     * @param eventId The canceled event
+     * @param continuationToken The continuation token of an earlier run's progress to resume from, or null to
+     *                          start with the first invite
+     * @return a future of the final progress, completed once every invite has been read; it's only done if
+     *         every invite was written
+     */
+    public CompletableFuture<InviteCancellationProgress> start(String eventId, String continuationToken) {
+        CompletableFuture<InviteCancellationProgress> cascade = new CompletableFuture<>();
+        CompletableFuture<InviteCancellationProgress> runningCascade = running.putIfAbsent(eventId, cascade);
+        if (runningCascade != null) {
+            return runningCascade;
+        }
+
+        latestProgress.put(eventId, new InviteCancellationProgress(eventId, 0, 0, 0, continuationToken, false));
+        CompletableFuture.supplyAsync(() -> run(eventId, continuationToken), executorService)
+            .whenComplete((progress, e) -> {
+                running.remove(eventId, cascade);
+                if (e != null) {
+                    cascade.completeExceptionally(e);
+                } else {
+                    cascade.complete(progress);
+                }
+            });
+        return cascade;
+    }
+
+    /**
+     * Returns how far the latest cascade for an event has got. If it failed part way, its continuation
+     * token is where to resume from.
+     * @param eventId The canceled event
+     * @return the progress, or null if no cascade has been started for the event
+     */
+    public InviteCancellationProgress getProgress(String eventId) {
+        return latestProgress.get(eventId);
+    }
+
+    private InviteCancellationProgress run(String eventId, String continuationToken) {
+        long canceledCount = 0;
+        long alreadyCanceledCount = 0;
+        long failedCount = 0;
+        // Where the first page with failures started; resuming from there retries every failed invite
+        String failedPageToken = null;
+        try (PrefetchingPageIterator<Invite> invites =
+                 inviteDao.getInvitesForEventIterator(eventId, PAGE_SIZE, continuationToken)) {
+            while (invites.hasNext()) {
+                String pageToken = invites.getContinuationToken();
+                List<Invite> page = new ArrayList<>(PAGE_SIZE);
+                while (page.size() < PAGE_SIZE && invites.hasNext()) {
+                    page.add(invites.next());
+                }
+
+                int failed = inviteDao.cancelInvites(page).size();
+                int alreadyCanceled = (int) page.stream().filter(Invite::isCanceled).count();
+                canceledCount += page.size() - alreadyCanceled - failed;
+                alreadyCanceledCount += alreadyCanceled;
+                failedCount += failed;
+                if (failed > 0 && failedPageToken == null) {
+                    failedPageToken = pageToken;
+                }
+                // The token only moves past a page once every invite on it has been written
+                latestProgress.put(eventId, new InviteCancellationProgress(eventId, canceledCount,
+                    alreadyCanceledCount, failedCount,
+                    failedPageToken != null ? failedPageToken : invites.getContinuationToken(), false));
+            }
+        }
+
+        InviteCancellationProgress progress = new InviteCancellationProgress(eventId, canceledCount,
+            alreadyCanceledCount, failedCount, failedPageToken, failedPageToken == null);
+        latestProgress.put(eventId, progress);
+        return progress;
+    }
+}
@@ -1,16 +1,27 @@
 package com.amazon.ata.dynamodbquery.dao;
 
+import com.amazon.ata.dynamodbquery.dao.codec.EventCodec;
 import com.amazon.ata.dynamodbquery.dao.models.Event;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.KeyPair;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.google.common.collect.ImmutableMap;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 
@@ -19,15 +30,40 @@ import javax.inject.Inject;
  * Manages access to Event items.
  */
 public class EventDao {
+    private static final long MAX_SHARED_LOOKUP_RESULTS = 10_000;
+    private static final EventCodec EVENT_CODEC = new EventCodec();
+
     private DynamoDBMapper mapper;
+    private AmazonDynamoDB dynamoDbClient;
+    private ExecutorService executorService;
+    private SingleFlight<String, Event> eventLookups;
 
     /**
-     * Creates an EventDao with the given DDB mapper.
+     * Creates an EventDao with the given DDB mapper. Concurrent lookups for the same event share one read.
      * @param mapper DynamoDBMapper
+     * @param dynamoDbClient The client for updates the mapper can't make in one request
+     * @param executorService The ExecutorService the *Async methods run on
      */
     @Inject
-    public EventDao(DynamoDBMapper mapper) {
+    public EventDao(DynamoDBMapper mapper, AmazonDynamoDB dynamoDbClient, ExecutorService executorService) {
+        this(mapper, dynamoDbClient, executorService, Duration.ZERO);
+    }
+
+    /**
+     * Creates an EventDao with the given DDB mapper. Concurrent lookups for the same event share one read,
+     * and lookups within lookupResultTtl after a read finished get its result too.
+     * @param mapper DynamoDBMapper
+     * @param dynamoDbClient The client for updates the mapper can't make in one request
+     * @param executorService The ExecutorService the *Async methods run on
+     * @param lookupResultTtl How long a read's result is shared; null or zero to only share reads still running
+     */
+    public EventDao(DynamoDBMapper mapper, AmazonDynamoDB dynamoDbClient, ExecutorService executorService,
+                    Duration lookupResultTtl) {
         this.mapper = mapper;
+        this.dynamoDbClient = dynamoDbClient;
+        this.executorService = executorService;
+        this.eventLookups = new SingleFlight<>(lookupResultTtl == null ? Duration.ZERO : lookupResultTtl,
+            MAX_SHARED_LOOKUP_RESULTS, EventDao::copyOf);
     }
 
     /**
@@ -36,7 +72,7 @@ public class EventDao {
      * @return the Event
      */
     public Event getEvent(String eventId) {
-        return mapper.load(Event.class, eventId);
+        return eventLookups.get(eventId, id -> mapper.load(Event.class, id));
     }
 
     /**
@@ -73,18 +109,124 @@ public class EventDao {
             event.setId(UUID.randomUUID().toString());
         }
         mapper.save(event);
+        eventLookups.invalidate(event.getId());
         return event;
     }
 
     /**
-     * Cancels an existing event by ID.
+     * Cancels an existing event by ID, in a single update that only sets its canceled flag.
      * @param eventId The event ID of the event to cancel
-     * @return the updated state of the event
+     * @return the updated state of the event, or null if there is no such event
      */
     public Event cancelEvent(String eventId) {
-        Event eventToCancel = mapper.load(Event.class, eventId);
-        eventToCancel.setCanceled(true);
-        mapper.save(eventToCancel);
-        return eventToCancel;
+        UpdateItemResult result;
+        try {
+            result = dynamoDbClient.updateItem(new UpdateItemRequest()
+                .withTableName(EVENT_CODEC.getTableName())
+                .withKey(ImmutableMap.of(EVENT_CODEC.getHashKeyName(), new AttributeValue().withS(eventId)))
+                .withUpdateExpression("SET isCanceled = :canceled")
+                .withConditionExpression("attribute_exists(id)")
+                .withExpressionAttributeValues(ImmutableMap.of(":canceled", new AttributeValue().withBOOL(true)))
+                .withReturnValues(ReturnValue.ALL_NEW));
+        } catch (ConditionalCheckFailedException e) {
+            // No such event; the condition kept the update from creating one
+            return null;
+        } finally {
+            eventLookups.invalidate(eventId);
+        }
+        return EVENT_CODEC.decode(result.getAttributes());
+    }
+
+    /**
+     * Raises the number of partitions an event's announcements are spread over, in a single update that
+     * only sets announcementShards. The count is never lowered, so a racing update that raised it further
+     * wins.
+     * @param eventId The event ID of the event to update
+     * @param shardCount The new announcement shard count
+     * @return the updated state of the event, or null if there is no such event or it already has more shards
+     */
+    public Event raiseAnnouncementShards(String eventId, int shardCount) {
+        UpdateItemResult result;
+        try {
+            result = dynamoDbClient.updateItem(new UpdateItemRequest()
+                .withTableName(EVENT_CODEC.getTableName())
+                .withKey(ImmutableMap.of(EVENT_CODEC.getHashKeyName(), new AttributeValue().withS(eventId)))
+                .withUpdateExpression("SET announcementShards = :shards")
+                .withConditionExpression("attribute_exists(id) AND " +
+                    "(attribute_not_exists(announcementShards) OR announcementShards <= :shards)")
+                .withExpressionAttributeValues(ImmutableMap.of(":shards",
+                    new AttributeValue().withN(Integer.toString(shardCount))))
+                .withReturnValues(ReturnValue.ALL_NEW));
+        } catch (ConditionalCheckFailedException e) {
+            // No such event, or it already has more shards; the condition kept the update from lowering it
+            return null;
+        } finally {
+            eventLookups.invalidate(eventId);
+        }
+        return EVENT_CODEC.decode(result.getAttributes());
+    }
+
+    /**
+     * Returns the number of getEvent() calls answered by another call's read instead of their own.
+     * @return the coalesced lookup count
+     */
+    public long getCoalescedLookupCount() {
+        return eventLookups.getCoalescedCount();
+    }
+
+    /**
+     * Returns the number of reads getEvent() has made.
+     * @return the lookup read count
+     */
+    public long getLookupLoadCount() {
+        return eventLookups.getLoadCount();
+    }
+
+    /**
+     * Asynchronous version of getEvent(String).
+     * @param eventId The ID of the event to look up
+     * @return a future of the Event, or of null if not found
+     */
+    public CompletableFuture<Event> getEventAsync(String eventId) {
+        return CompletableFuture.supplyAsync(() -> getEvent(eventId), executorService);
+    }
+
+    /**
+     * Asynchronous version of getEvents(Collection).
+     * @param eventIds The (Collection of) IDs to fetch events for
+     * @return a future of the List of Events found
+     */
+    public CompletableFuture<List<Event>> getEventsAsync(Collection<String> eventIds) {
+        return CompletableFuture.supplyAsync(() -> getEvents(eventIds), executorService);
+    }
+
+    /**
+     * Asynchronous version of createEvent(Event).
+     * @param event The event to create
+     * @return a future of the created event
+     */
+    public CompletableFuture<Event> createEventAsync(Event event) {
+        return CompletableFuture.supplyAsync(() -> createEvent(event), executorService);
+    }
+
+    /**
+     * Asynchronous version of cancelEvent(String).
+     * @param eventId The event ID of the event to cancel
+     * @return a future of the updated state of the event
+     */
+    public CompletableFuture<Event> cancelEventAsync(String eventId) {
+        return CompletableFuture.supplyAsync(() -> cancelEvent(eventId), executorService);
+    }
+
+    static Event copyOf(Event event) {
+        Event copy = new Event();
+        copy.setId(event.getId());
+        copy.setOrganizerId(event.getOrganizerId());
+        copy.setTime(event.getTime());
+        copy.setName(event.getName());
+        copy.setDescription(event.getDescription());
+        copy.setCanceled(event.isCanceled());
+        copy.setAnnouncementShards(event.getAnnouncementShards());
+        return copy;
     }
 }
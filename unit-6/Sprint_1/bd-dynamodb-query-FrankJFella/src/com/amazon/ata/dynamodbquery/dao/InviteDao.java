@@ -1,30 +1,90 @@
 package com.amazon.ata.dynamodbquery.dao;
 
+import com.amazon.ata.dynamodbquery.dao.codec.InviteCodec;
+import com.amazon.ata.dynamodbquery.dao.codec.ItemReader;
 import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.InviteCreateResult;
+import com.amazon.ata.dynamodbquery.dao.models.InviteDeleteResult;
+import com.amazon.ata.dynamodbquery.dao.models.InviteSummary;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.*;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.util.DateUtils;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 
 /**
  * Manages access to Invite items.
  */
 public class InviteDao {
+    /** The most deletes to group into one transaction. */
+    public static final int MAX_DELETES_PER_TRANSACTION = 25;
+    /** The most delete transactions to run at the same time in deleteInvites(). */
+    public static final int MAX_CONCURRENT_DELETE_TRANSACTIONS = 4;
+
+    /** The most invites in one create transaction, or in each chunk of cancels a cancelInvites() worker takes. */
+    public static final int MAX_INVITES_PER_BATCH_WRITE = 25;
+    /** The most create transactions, or cancelInvites() workers, to run at the same time. */
+    public static final int MAX_CONCURRENT_BATCH_WRITES = 4;
+    /** The most invites to look up in one batch load in createInvites(); DynamoDB allows 100 per BatchGetItem. */
+    public static final int MAX_INVITES_PER_BATCH_LOAD = 100;
+
+    private static final int INVITES_PER_PAGE = 10;
+    private static final int MAX_TRANSACTION_ATTEMPTS = 3;
+    private static final DynamoDBMapperConfig CONSISTENT_READ_CONFIG = DynamoDBMapperConfig.builder()
+        .withConsistentReads(DynamoDBMapperConfig.ConsistentReads.CONSISTENT)
+        .build();
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    private static final InviteCodec INVITE_CODEC = new InviteCodec();
+
     private DynamoDBMapper mapper;
+    private AmazonDynamoDB dynamoDbClient;
+    private ItemReader itemReader;
+    private ExecutorService executorService;
+    private InviteSummaryDao inviteSummaryDao;
 
     /**
      * Constructs a DAO with the given mapper.
      * @param mapper The DynamoDBMapper to use
+     * @param dynamoDbClient The client for single-invite writes that need the invite's previous state back
+     * @param itemReader The ItemReader to run queries that return many invites with
+     * @param executorService The ExecutorService to prefetch pages, run bulk writes and run the *Async methods on
+     * @param inviteSummaryDao The InviteSummaryDao to keep members' invite counts up to date with
      */
     @Inject
-    public InviteDao(DynamoDBMapper mapper) {
+    public InviteDao(DynamoDBMapper mapper, AmazonDynamoDB dynamoDbClient, ItemReader itemReader,
+                     ExecutorService executorService, InviteSummaryDao inviteSummaryDao) {
         this.mapper = mapper;
+        this.dynamoDbClient = dynamoDbClient;
+        this.itemReader = itemReader;
+        this.executorService = executorService;
+        this.inviteSummaryDao = inviteSummaryDao;
     }
 
     /**
@@ -38,15 +98,63 @@ public class InviteDao {
     }
 
     /**
-     * Fetches all invites sent to a given member.
+     * Fetches all invites sent to a given member, newest first.
      * @param memberId The ID of the member to fetch invites for (sent to)
      * @return List of Invite objects sent to the given member
      */
     public List<Invite> getInvitesSentToMember(String memberId) {
-        DynamoDBScanExpression scanExpression = new DynamoDBScanExpression()
-            .withFilterExpression("memberId = :memberId")
-            .withExpressionAttributeValues(ImmutableMap.of(":memberId", new AttributeValue(memberId)));
-        return new ArrayList<>(mapper.scan(Invite.class, scanExpression));
+        DynamoDBQueryExpression<Invite> queryExpression = buildInvitesSentToMemberQuery(memberId, null, null);
+        return itemReader.query(INVITE_CODEC, queryExpression);
+    }
+
+    /**
+     * Fetches a page of invites sent to a given member, newest first, from the
+     * memberId-timeReceived GSI.
+     * @param memberId The ID of the member to fetch invites for (sent to)
+     * @param receivedAfter If not null, only return invites received at or after this time
+     * @param receivedBefore If not null, only return invites received at or before this time
+     * @param pageSize The maximum number of invites to return
+     * @param continuationToken The token returned with the previous page, or null for the first page
+     * @return A page of Invite objects sent to the given member
+     */
+    public PaginatedResult<Invite> getInvitesSentToMember(String memberId, Date receivedAfter, Date receivedBefore,
+                                                          int pageSize, String continuationToken) {
+        DynamoDBQueryExpression<Invite> queryExpression =
+            buildInvitesSentToMemberQuery(memberId, receivedAfter, receivedBefore)
+                .withLimit(pageSize)
+                .withExclusiveStartKey(ContinuationTokens.decode(continuationToken));
+
+        QueryResultPage<Invite> page = itemReader.queryPage(INVITE_CODEC, queryExpression);
+        return new PaginatedResult<>(page.getResults(), ContinuationTokens.encode(page.getLastEvaluatedKey()));
+    }
+
+    private DynamoDBQueryExpression<Invite> buildInvitesSentToMemberQuery(String memberId, Date receivedAfter,
+                                                                          Date receivedBefore) {
+        Map<String, AttributeValue> valueMap = new HashMap<>();
+        valueMap.put(":memberId", new AttributeValue().withS(memberId));
+
+        String keyConditionExpression = "memberId = :memberId";
+        if (receivedAfter != null && receivedBefore != null) {
+            keyConditionExpression += " and timeReceived between :receivedAfter and :receivedBefore";
+        } else if (receivedAfter != null) {
+            keyConditionExpression += " and timeReceived >= :receivedAfter";
+        } else if (receivedBefore != null) {
+            keyConditionExpression += " and timeReceived <= :receivedBefore";
+        }
+        if (receivedAfter != null) {
+            valueMap.put(":receivedAfter", new AttributeValue().withS(DateUtils.formatISO8601Date(receivedAfter)));
+        }
+        if (receivedBefore != null) {
+            valueMap.put(":receivedBefore", new AttributeValue().withS(DateUtils.formatISO8601Date(receivedBefore)));
+        }
+
+        // GSIs don't support consistent reads, and we want the most recent invites first
+        return new DynamoDBQueryExpression<Invite>()
+            .withIndexName(Invite.TIME_RECEIVED_MEMBER_ID_GSI)
+            .withConsistentRead(false)
+            .withScanIndexForward(false)
+            .withKeyConditionExpression(keyConditionExpression)
+            .withExpressionAttributeValues(valueMap);
     }
 
     /**
@@ -55,7 +163,29 @@ public class InviteDao {
      * @return List of accepted Invite objects for the given ID
      */
     public List<Invite> getAcceptedInvitesForEvent(String eventId) {
-        return Collections.emptyList();
+        return itemReader.query(INVITE_CODEC, buildAcceptedInvitesForEventQuery(eventId));
+    }
+
+    /**
+     * Counts the *accepted* invites for a given event ID without loading them.
+     * @param eventId The ID of the event to count invites for.
+     * @return the number of accepted invites for the given ID
+     */
+    public int countAcceptedInvitesForEvent(String eventId) {
+        return mapper.count(Invite.class, buildAcceptedInvitesForEventQuery(eventId));
+    }
+
+    private DynamoDBQueryExpression<Invite> buildAcceptedInvitesForEventQuery(String eventId) {
+        Map<String, AttributeValue> valueMap = new HashMap<>();
+        valueMap.put(":eventId", new AttributeValue().withS(eventId));
+
+        // The attending GSI is sparse: only invites with isAttending set carry attendingEventId,
+        // so the query never reads declined or unanswered invites
+        return new DynamoDBQueryExpression<Invite>()
+            .withIndexName(Invite.ATTENDING_EVENT_ID_GSI)
+            .withConsistentRead(false)
+            .withKeyConditionExpression("attendingEventId = :eventId")
+            .withExpressionAttributeValues(valueMap);
     }
 
     /**
@@ -67,64 +197,312 @@ public class InviteDao {
      * @return Paginated list of invites.
      */
     public List<Invite> getInvitesForEvent(String eventId, String exclusiveStartMemberId) {
-        // TODO: implement
-        // Define an object for interaction with DynamoDB
-        Invite anInvite = new Invite();
-        // Set the key in the object to the eventId we want
-        anInvite.setEventId(eventId);
-
-        // Because we have two search conditions we store them in a Map
-        // The values represent where to start the return of 10 rows from
-        // To tell DynamoDB to start with the first row that matches our condition
-        //    we set the values Map to null
+        // The last invite returned is the key to start after; no key starts with the first invite
         Map<String, AttributeValue> startKey = null;
-        if (exclusiveStartMemberId != null) {  // We have already retrieved from data
-            startKey = new HashMap<>();        // Define a Map to hold the last row we previously retrieved
-            startKey.put("eventId" , new AttributeValue().withS(eventId));                // Set the eventId passed to us
-            startKey.put("memberId", new AttributeValue().withS(exclusiveStartMemberId)); // Set memberID passed to us
+        if (exclusiveStartMemberId != null) {
+            startKey = ImmutableMap.of(
+                "eventId", new AttributeValue().withS(eventId),
+                "memberId", new AttributeValue().withS(exclusiveStartMemberId));
         }
+        return queryInvitesForEvent(eventId, INVITES_PER_PAGE, startKey).getResults();
+    }
+
+    /**
+     * Fetches one page of invites for a given event, with a single query.
+     *
+     * @param eventId The ID of the event to query invites for.
+     * @param pageSize The maximum number of invites to return.
+     * @param continuationToken The token returned with the previous page, or null for the first page
+     * @return A page of Invite objects for the event. The continuation token is null on the last page.
+     */
+    public PaginatedResult<Invite> getInvitesForEvent(String eventId, int pageSize, String continuationToken) {
+        QueryResultPage<Invite> page =
+            queryInvitesForEvent(eventId, pageSize, ContinuationTokens.decode(continuationToken));
+        return new PaginatedResult<>(page.getResults(), ContinuationTokens.encode(page.getLastEvaluatedKey()));
+    }
+
+    private QueryResultPage<Invite> queryInvitesForEvent(String eventId, int pageSize,
+                                                         Map<String, AttributeValue> exclusiveStartKey) {
+        Invite anInvite = new Invite();
+        anInvite.setEventId(eventId);
 
-        // Define a Query Expression with a condtion using the values in the Map
-        DynamoDBQueryExpression<Invite> queryExpression= new DynamoDBQueryExpression<Invite>()
-                .withHashKeyValues(anInvite)     // Use the object we defined to interact with DynamoDB
-                .withExclusiveStartKey(startKey) // Use the Map with the values to be searched
-                .withLimit(10);                  // Only return 10 rows
+        return itemReader.queryPage(INVITE_CODEC, new DynamoDBQueryExpression<Invite>()
+            .withHashKeyValues(anInvite)
+            .withExclusiveStartKey(exclusiveStartKey)
+            .withLimit(pageSize));
+    }
 
-        // Go to DynamoDB to get a page of 10 rows based on the Query Expression
-        // Note: Use of QueryResultPage object to hold the result from DynamoDB
-        QueryResultPage pageOfResults = mapper.queryPage(Invite.class, queryExpression);
-        // Return the rows from the result/
-        return pageOfResults.getResults();
-        // Alternate coding option
-        // return mapper.queryPage(Invite.class, queryExpression).getResults();
+    /**
+     * Returns a lazy iterator over all invites for a given event. Pages of pageSize invites are
+     * fetched as needed, and the next page is prefetched while the current one is being consumed.
+     *
+     * @param eventId The ID of the event to query invites for.
+     * @param pageSize The number of invites to request from DynamoDB per page.
+     * @param continuationToken A token from a previous iterator's getContinuationToken(), or null to
+     *                          start with the first invite.
+     * @return Iterator over the event's invites; use stream() for a Stream.
+     */
+    public PrefetchingPageIterator<Invite> getInvitesForEventIterator(String eventId, int pageSize,
+                                                                      String continuationToken) {
+        return new PrefetchingPageIterator<>(
+            exclusiveStartKey -> queryInvitesForEvent(eventId, pageSize, exclusiveStartKey),
+            invite -> ImmutableMap.of(
+                "eventId", new AttributeValue().withS(invite.getEventId()),
+                "memberId", new AttributeValue().withS(invite.getMemberId())),
+            executorService,
+            ContinuationTokens.decode(continuationToken));
     }
 
     /**
-     * Creates a new invite.
+     * Creates a new invite, or replaces the existing invite with the same event + member IDs.
      * @param invite The invite to create
      * @return The newly created invite
      */
     public Invite createInvite(Invite invite) {
-        mapper.save(invite);
+        // Put the item ourselves so we get back any invite it replaced, to move it out of its old count
+        PutItemResult result = dynamoDbClient.putItem(new PutItemRequest()
+            .withTableName(INVITE_CODEC.getTableName())
+            .withItem(INVITE_CODEC.encode(invite))
+            .withReturnValues(ReturnValue.ALL_OLD));
+        Invite previous = result.getAttributes() == null || result.getAttributes().isEmpty() ?
+            null : INVITE_CODEC.decode(result.getAttributes());
+        inviteSummaryDao.recordChange(invite.getMemberId(), InviteSummary.statusOf(previous),
+            InviteSummary.statusOf(invite));
         return invite;
     }
 
     /**
-     * Cancels the invite corresponding to the event + member IDs.
+     * Records a member's answer to an invite.
+     * @param eventId The event ID of the invite
+     * @param memberId The member ID of the invite
+     * @param attending true if the member will attend; false if they won't
+     * @return The updated Invite if found; null otherwise.
+     */
+    public Invite setAttending(String eventId, String memberId, boolean attending) {
+        Map<String, AttributeValue> valueMap = new HashMap<>();
+        valueMap.put(":attending", new AttributeValue().withBOOL(attending));
+        // attendingEventId is what puts accepted invites in the sparse attending GSI
+        String updateExpression = "SET isAttending = :attending";
+        if (attending) {
+            updateExpression += ", attendingEventId = :eventId";
+            valueMap.put(":eventId", new AttributeValue().withS(eventId));
+        } else {
+            updateExpression += " REMOVE attendingEventId";
+        }
+
+        UpdateItemResult result;
+        try {
+            result = dynamoDbClient.updateItem(new UpdateItemRequest()
+                .withTableName(INVITE_CODEC.getTableName())
+                .withKey(ImmutableMap.of(
+                    "eventId", new AttributeValue().withS(eventId),
+                    "memberId", new AttributeValue().withS(memberId)))
+                .withUpdateExpression(updateExpression)
+                .withConditionExpression("attribute_exists(eventId)")
+                .withExpressionAttributeValues(valueMap)
+                .withReturnValues(ReturnValue.ALL_OLD));
+        } catch (ConditionalCheckFailedException e) {
+            // No such invite; the condition kept the update from creating one
+            return null;
+        }
+
+        Invite invite = INVITE_CODEC.decode(result.getAttributes());
+        InviteSummary.InviteStatus before = InviteSummary.statusOf(invite);
+        invite.setAttending(attending);
+        inviteSummaryDao.recordChange(memberId, before, InviteSummary.statusOf(invite));
+        return invite;
+    }
+
+    /**
+     * Invites many members to an event at once. Members listed more than once are invited once, and
+     * members who already have an invite to the event keep it as it is. Existing invites are looked up
+     * by key, in batch loads of up to MAX_INVITES_PER_BATCH_LOAD members. The new invites are written in
+     * transactions of up to MAX_INVITES_PER_BATCH_WRITE conditional puts, and up to
+     * MAX_CONCURRENT_BATCH_WRITES transactions run at the same time.
+     *
+     * Each put only succeeds if the member has no invite yet, so an invite created for the same member by
+     * another request while this one runs is kept and reported as existing, and is only counted once in
+     * the member's summary. A put that fails its condition cancels its whole transaction, so the rest of
+     * the transaction is tried again without it.
+     *
+     * @param eventId The event to invite the members to
+     * @param memberIds The members to invite
+     * @return The outcome for each member ID, in the same order as memberIds
+     */
+    public List<InviteCreateResult> createInvites(String eventId, List<String> memberIds) {
+        Set<String> existingMemberIds = getInvitedMemberIds(eventId, memberIds);
+        Date timeReceived = new Date();
+
+        InviteCreateResult.Status[] statuses = new InviteCreateResult.Status[memberIds.size()];
+        Set<String> seenMemberIds = new HashSet<>();
+        List<Invite> invitesToCreate = new ArrayList<>();
+        for (int i = 0; i < memberIds.size(); i++) {
+            String memberId = memberIds.get(i);
+            if (!seenMemberIds.add(memberId)) {
+                statuses[i] = InviteCreateResult.Status.SKIPPED_DUPLICATE;
+            } else if (existingMemberIds.contains(memberId)) {
+                statuses[i] = InviteCreateResult.Status.SKIPPED_EXISTING;
+            } else {
+                Invite invite = new Invite();
+                invite.setEventId(eventId);
+                invite.setMemberId(memberId);
+                invite.setTimeReceived(timeReceived);
+                invitesToCreate.add(invite);
+            }
+        }
+
+        // Each member is written at most once, so the written invites' outcomes can be looked up by member
+        List<InviteCreateResult> created = processInChunks(invitesToCreate, MAX_INVITES_PER_BATCH_WRITE,
+            MAX_CONCURRENT_BATCH_WRITES, this::createInvitesInTransaction);
+        Map<String, InviteCreateResult.Status> createdStatuses = new HashMap<>();
+        Map<String, Map<InviteSummary.InviteStatus, Integer>> deltas = new HashMap<>();
+        for (InviteCreateResult result : created) {
+            createdStatuses.put(result.getMemberId(), result.getStatus());
+            if (result.getStatus() == InviteCreateResult.Status.CREATED) {
+                deltas.put(result.getMemberId(), ImmutableMap.of(InviteSummary.InviteStatus.PENDING, 1));
+            }
+        }
+        adjustInviteSummaries(deltas);
+
+        List<InviteCreateResult> results = new ArrayList<>(memberIds.size());
+        for (int i = 0; i < memberIds.size(); i++) {
+            String memberId = memberIds.get(i);
+            InviteCreateResult.Status status = statuses[i] == null ? createdStatuses.get(memberId) : statuses[i];
+            results.add(new InviteCreateResult(eventId, memberId, status));
+        }
+        return results;
+    }
+
+    private Set<String> getInvitedMemberIds(String eventId, List<String> memberIds) {
+        // Only look up the members being invited, rather than reading the whole event's partition
+        List<KeyPair> keys = memberIds.stream()
+            .distinct()
+            .map(memberId -> new KeyPair().withHashKey(eventId).withRangeKey(memberId))
+            .collect(Collectors.toList());
+
+        List<String> invitedMemberIds = processInChunks(keys, MAX_INVITES_PER_BATCH_LOAD,
+            MAX_CONCURRENT_BATCH_WRITES, chunk -> {
+                List<String> found = new ArrayList<>();
+                for (List<Object> loaded : mapper.batchLoad(ImmutableMap.of(Invite.class, chunk)).values()) {
+                    loaded.forEach(invite -> found.add(((Invite) invite).getMemberId()));
+                }
+                return found;
+            });
+        return new HashSet<>(invitedMemberIds);
+    }
+
+    private List<InviteCreateResult> createInvitesInTransaction(List<Invite> invites) {
+        InviteCreateResult.Status[] statuses = new InviteCreateResult.Status[invites.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < invites.size(); i++) {
+            pending.add(i);
+        }
+
+        for (int attempt = 0; attempt < MAX_TRANSACTION_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            TransactionWriteRequest transaction = new TransactionWriteRequest();
+            for (int i : pending) {
+                transaction.addPut(invites.get(i), notInvitedCondition());
+            }
+
+            try {
+                mapper.transactionWrite(transaction);
+                for (int i : pending) {
+                    statuses[i] = InviteCreateResult.Status.CREATED;
+                }
+                pending = Collections.emptyList();
+            } catch (TransactionCanceledException e) {
+                // Reasons are in the same order as the puts; retry everything that didn't fail its condition
+                List<CancellationReason> reasons = e.getCancellationReasons();
+                List<Integer> retry = new ArrayList<>();
+                for (int j = 0; j < pending.size(); j++) {
+                    String code = reasons != null && j < reasons.size() ? reasons.get(j).getCode() : null;
+                    if (CONDITIONAL_CHECK_FAILED.equals(code)) {
+                        statuses[pending.get(j)] = InviteCreateResult.Status.SKIPPED_EXISTING;
+                    } else {
+                        retry.add(pending.get(j));
+                    }
+                }
+                pending = retry;
+            } catch (AmazonClientException e) {
+                break;
+            }
+        }
+
+        List<InviteCreateResult> results = new ArrayList<>(invites.size());
+        for (int i = 0; i < invites.size(); i++) {
+            Invite invite = invites.get(i);
+            InviteCreateResult.Status status = statuses[i] == null ? InviteCreateResult.Status.FAILED : statuses[i];
+            results.add(new InviteCreateResult(invite.getEventId(), invite.getMemberId(), status));
+        }
+        return results;
+    }
+
+    private static DynamoDBTransactionWriteExpression notInvitedCondition() {
+        return new DynamoDBTransactionWriteExpression()
+            .withConditionExpression("attribute_not_exists(memberId)");
+    }
+
+    /**
+     * Marks one event's invites canceled, with the same single conditional update as cancelInvite(), up to
+     * MAX_CONCURRENT_BATCH_WRITES at a time. Invites given already canceled are left alone, so canceling
+     * the same invites again is safe.
+     *
+     * Only isCanceled is written, so invites deleted since they were read aren't re-created and answers
+     * given since are kept. Each member's summary is moved to canceled from the status the update found.
+     *
+     * @param invites The invites to cancel, all for the same event
+     * @return The invites that could not be written; canceling them again may succeed
+     */
+    public List<Invite> cancelInvites(List<Invite> invites) {
+        List<Invite> invitesToCancel = new ArrayList<>();
+        for (Invite invite : invites) {
+            if (!Boolean.TRUE.equals(invite.isCanceled())) {
+                invitesToCancel.add(invite);
+            }
+        }
+
+        return processInChunks(invitesToCancel, MAX_INVITES_PER_BATCH_WRITE, MAX_CONCURRENT_BATCH_WRITES, chunk -> {
+            List<Invite> failedInChunk = new ArrayList<>();
+            for (Invite invite : chunk) {
+                try {
+                    cancelInvite(invite.getEventId(), invite.getMemberId());
+                } catch (AmazonClientException e) {
+                    failedInChunk.add(invite);
+                }
+            }
+            return failedInChunk;
+        });
+    }
+
+    /**
+     * Cancels the invite corresponding to the event + member IDs, in a single update that only sets its
+     * canceled flag.
      * @param eventId event ID for the invite to cancel
      * @param memberId member ID for the invite to cancel
      * @return The updated Invite if found; null otherwise.
      */
     public Invite cancelInvite(String eventId, String memberId) {
-        Invite invite = mapper.load(Invite.class, eventId, memberId);
-        if (Objects.isNull(invite)) {
+        UpdateItemResult result;
+        try {
+            // The updated invite is the old one with isCanceled set, and the old one says which count it leaves
+            result = dynamoDbClient.updateItem(new UpdateItemRequest()
+                .withTableName(INVITE_CODEC.getTableName())
+                .withKey(ImmutableMap.of(
+                    "eventId", new AttributeValue().withS(eventId),
+                    "memberId", new AttributeValue().withS(memberId)))
+                .withUpdateExpression("SET isCanceled = :canceled")
+                .withConditionExpression("attribute_exists(eventId)")
+                .withExpressionAttributeValues(ImmutableMap.of(":canceled", new AttributeValue().withBOOL(true)))
+                .withReturnValues(ReturnValue.ALL_OLD));
+        } catch (ConditionalCheckFailedException e) {
+            // No such invite; the condition kept the update from creating one
             return null;
         }
 
-        if (!invite.isCanceled()) {
-            invite.setCanceled(true);
-            mapper.save(invite);
-        }
+        Invite invite = INVITE_CODEC.decode(result.getAttributes());
+        InviteSummary.InviteStatus before = InviteSummary.statusOf(invite);
+        invite.setCanceled(true);
+        inviteSummaryDao.recordChange(memberId, before, InviteSummary.InviteStatus.CANCELED);
         return invite;
     }
 
@@ -138,23 +516,333 @@ public class InviteDao {
      *         invite isAttending is set to true.
      */
     public boolean deleteInvite(String eventId, String memberId) {
-        Invite inviteToDelete = new Invite();
-        inviteToDelete.setEventId(eventId);
-        inviteToDelete.setMemberId(memberId);
-
-        DynamoDBDeleteExpression deleteExpression = new DynamoDBDeleteExpression();
         ExpectedAttributeValue expectedAttributeValue = new ExpectedAttributeValue()
             .withComparisonOperator(ComparisonOperator.NE)
             .withValue(new AttributeValue().withBOOL(true));
-        deleteExpression.withExpectedEntry("isAttending", expectedAttributeValue);
 
+        // Delete the item ourselves so we get back the deleted invite, to take it out of its count
+        DeleteItemResult result;
         try {
-            mapper.delete(inviteToDelete, deleteExpression);
+            result = dynamoDbClient.deleteItem(new DeleteItemRequest()
+                .withTableName(INVITE_CODEC.getTableName())
+                .withKey(ImmutableMap.of(
+                    "eventId", new AttributeValue().withS(eventId),
+                    "memberId", new AttributeValue().withS(memberId)))
+                .withExpected(ImmutableMap.of("isAttending", expectedAttributeValue))
+                .withReturnValues(ReturnValue.ALL_OLD));
         } catch (ConditionalCheckFailedException e) {
             // check failed, delete didn't happen
             return false;
         }
 
+        if (result.getAttributes() != null && !result.getAttributes().isEmpty()) {
+            inviteSummaryDao.recordChange(memberId, InviteSummary.statusOf(INVITE_CODEC.decode(result.getAttributes())),
+                null);
+        }
         return true;
     }
+
+    /**
+     * Deletes many invites, with the same isAttending condition as deleteInvite(). Deletes are grouped
+     * into transactions of up to MAX_DELETES_PER_TRANSACTION invites, and up to
+     * MAX_CONCURRENT_DELETE_TRANSACTIONS transactions run at the same time.
+     *
+     * Transactions don't return the deleted items, so each delete is also conditioned on the invite still
+     * existing with the isCanceled value it was passed in with, and the deleted invite is taken out of its
+     * member's summary by that value. An invite that fails its condition cancels its whole transaction, so
+     * it is read again: if it's being attended it's reported as skipped, if it's gone it's reported as
+     * deleted, and otherwise it's retried with what was read. The rest of the transaction is tried again
+     * as it was.
+     *
+     * @param invites The invites to delete, as read from the table
+     * @return The outcome for each invite, in the same order as invites
+     */
+    public List<InviteDeleteResult> deleteInvites(List<Invite> invites) {
+        Queue<Invite> deletedInvites = new ConcurrentLinkedQueue<>();
+        List<InviteDeleteResult> results = processInChunks(invites, MAX_DELETES_PER_TRANSACTION,
+            MAX_CONCURRENT_DELETE_TRANSACTIONS, chunk -> deleteInvitesInTransaction(chunk, deletedInvites));
+
+        // Only invites that weren't attending can be deleted, so every deleted invite was pending or canceled
+        Map<String, Map<InviteSummary.InviteStatus, Integer>> deltas = new HashMap<>();
+        for (Invite invite : deletedInvites) {
+            deltas.computeIfAbsent(invite.getMemberId(),
+                memberId -> new EnumMap<>(InviteSummary.InviteStatus.class))
+                .merge(InviteSummary.statusOf(invite), -1, Integer::sum);
+        }
+        adjustInviteSummaries(deltas);
+        return results;
+    }
+
+    private void adjustInviteSummaries(Map<String, Map<InviteSummary.InviteStatus, Integer>> deltas) {
+        List<Map.Entry<String, Map<InviteSummary.InviteStatus, Integer>>> changes = new ArrayList<>(deltas.entrySet());
+        processInChunks(changes, MAX_INVITES_PER_BATCH_WRITE, MAX_CONCURRENT_BATCH_WRITES, chunk -> {
+            chunk.forEach(change -> inviteSummaryDao.adjustCounts(change.getKey(), change.getValue()));
+            return Collections.emptyList();
+        });
+    }
+
+    /**
+     * Processes items a chunk at a time, with up to maxConcurrentChunks chunks processed at the same time.
+     * The calling thread processes chunks too, and only waits for chunks other threads have started, so
+     * this never waits on a task queued behind the caller's own, however busy or small the executor is.
+     * @param items The items to process
+     * @param chunkSize The most items in each chunk
+     * @param maxConcurrentChunks The most chunks to process at the same time
+     * @param processChunk Processes one chunk, returning one result per item in the same order
+     * @return The result for each item, in the same order as items
+     */
+    private <T, R> List<R> processInChunks(List<T> items, int chunkSize, int maxConcurrentChunks,
+                                           Function<List<T>, List<R>> processChunk) {
+        List<List<T>> chunks = Lists.partition(items, chunkSize);
+        List<List<R>> chunkResults = new ArrayList<>(Collections.nCopies(chunks.size(), null));
+        AtomicInteger nextChunk = new AtomicInteger();
+        CountDownLatch chunksDone = new CountDownLatch(chunks.size());
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        // Each worker keeps taking the next chunk, so at most this many chunks are in flight.
+        // Once a chunk fails, the rest are skipped
+        Runnable worker = () -> {
+            for (int chunk = nextChunk.getAndIncrement(); chunk < chunks.size();
+                 chunk = nextChunk.getAndIncrement()) {
+                try {
+                    if (failure.get() == null) {
+                        chunkResults.set(chunk, processChunk.apply(chunks.get(chunk)));
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    chunksDone.countDown();
+                }
+            }
+        };
+        int workers = Math.min(maxConcurrentChunks, chunks.size());
+        for (int i = 1; i < workers; i++) {
+            executorService.execute(worker);
+        }
+        worker.run();
+
+        try {
+            chunksDone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for chunks to be processed", e);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        chunkResults.forEach(results::addAll);
+        return results;
+    }
+
+    /**
+     * Deletes up to MAX_DELETES_PER_TRANSACTION invites in one transaction, retrying the ones that didn't
+     * fail their condition, and re-reading the ones that did.
+     * @param givenInvites The invites to delete
+     * @param deletedInvites Receives each invite deleted, as it was just before it was deleted
+     * @return The outcome for each invite, in the same order as givenInvites
+     */
+    private List<InviteDeleteResult> deleteInvitesInTransaction(List<Invite> givenInvites,
+                                                                Collection<Invite> deletedInvites) {
+        // Invites found to have changed are replaced with what was read, so the retry expects their new state
+        List<Invite> invites = new ArrayList<>(givenInvites);
+        InviteDeleteResult.Status[] statuses = new InviteDeleteResult.Status[invites.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < invites.size(); i++) {
+            pending.add(i);
+        }
+
+        for (int attempt = 0; attempt < MAX_TRANSACTION_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            TransactionWriteRequest transaction = new TransactionWriteRequest();
+            for (int i : pending) {
+                transaction.addDelete(invites.get(i), unchangedAndNotAttendingCondition(invites.get(i)));
+            }
+
+            try {
+                mapper.transactionWrite(transaction);
+                for (int i : pending) {
+                    statuses[i] = InviteDeleteResult.Status.DELETED;
+                    deletedInvites.add(invites.get(i));
+                }
+                pending = Collections.emptyList();
+            } catch (TransactionCanceledException e) {
+                // Reasons are in the same order as the deletes; retry everything that didn't fail its condition
+                List<CancellationReason> reasons = e.getCancellationReasons();
+                List<Integer> retry = new ArrayList<>();
+                for (int j = 0; j < pending.size(); j++) {
+                    int i = pending.get(j);
+                    String code = reasons != null && j < reasons.size() ? reasons.get(j).getCode() : null;
+                    if (!CONDITIONAL_CHECK_FAILED.equals(code)) {
+                        retry.add(i);
+                        continue;
+                    }
+
+                    // The invite is attending, gone, or was changed since it was read
+                    Invite current;
+                    try {
+                        current = mapper.load(Invite.class, invites.get(i).getEventId(),
+                            invites.get(i).getMemberId(), CONSISTENT_READ_CONFIG);
+                    } catch (AmazonClientException readException) {
+                        continue;
+                    }
+                    if (current == null) {
+                        statuses[i] = InviteDeleteResult.Status.DELETED;
+                    } else if (Boolean.TRUE.equals(current.isAttending())) {
+                        statuses[i] = InviteDeleteResult.Status.SKIPPED_ATTENDING;
+                    } else {
+                        invites.set(i, current);
+                        retry.add(i);
+                    }
+                }
+                pending = retry;
+            } catch (AmazonClientException e) {
+                break;
+            }
+        }
+
+        List<InviteDeleteResult> results = new ArrayList<>(invites.size());
+        for (int i = 0; i < invites.size(); i++) {
+            Invite invite = invites.get(i);
+            InviteDeleteResult.Status status = statuses[i] == null ? InviteDeleteResult.Status.FAILED : statuses[i];
+            results.add(new InviteDeleteResult(invite.getEventId(), invite.getMemberId(), status));
+        }
+        return results;
+    }
+
+    private static DynamoDBTransactionWriteExpression unchangedAndNotAttendingCondition(Invite invite) {
+        Map<String, AttributeValue> valueMap = new HashMap<>();
+        valueMap.put(":attending", new AttributeValue().withBOOL(true));
+        valueMap.put(":canceled", new AttributeValue().withBOOL(true));
+        // The summary delta is taken from isCanceled, so the delete only goes ahead if it hasn't changed
+        String canceledCondition = Boolean.TRUE.equals(invite.isCanceled()) ?
+            "isCanceled = :canceled" : "(attribute_not_exists(isCanceled) or isCanceled <> :canceled)";
+        return new DynamoDBTransactionWriteExpression()
+            .withConditionExpression("attribute_exists(eventId) and " +
+                "(attribute_not_exists(isAttending) or isAttending <> :attending) and " + canceledCondition)
+            .withExpressionAttributeValues(valueMap);
+    }
+
+    /**
+     * Asynchronous version of getInvite(String, String).
+     * @param eventId The event ID of the invite
+     * @param memberId The member ID of the invite
+     * @return a future of the invite, or of null if not found
+     */
+    public CompletableFuture<Invite> getInviteAsync(String eventId, String memberId) {
+        return CompletableFuture.supplyAsync(() -> getInvite(eventId, memberId), executorService);
+    }
+
+    /**
+     * Asynchronous version of getInvitesSentToMember(String).
+     * @param memberId The ID of the member to fetch invites for (sent to)
+     * @return a future of the List of Invite objects sent to the given member
+     */
+    public CompletableFuture<List<Invite>> getInvitesSentToMemberAsync(String memberId) {
+        return CompletableFuture.supplyAsync(() -> getInvitesSentToMember(memberId), executorService);
+    }
+
+    /**
+     * Asynchronous version of getInvitesSentToMember(String, Date, Date, int, String).
+     * @param memberId The ID of the member to fetch invites for (sent to)
+     * @param receivedAfter If not null, only return invites received at or after this time
+     * @param receivedBefore If not null, only return invites received at or before this time
+     * @param pageSize The maximum number of invites to return
+     * @param continuationToken The token returned with the previous page, or null for the first page
+     * @return a future of a page of Invite objects sent to the given member
+     */
+    public CompletableFuture<PaginatedResult<Invite>> getInvitesSentToMemberAsync(String memberId, Date receivedAfter,
+                                                                                 Date receivedBefore, int pageSize,
+                                                                                 String continuationToken) {
+        return CompletableFuture.supplyAsync(() -> getInvitesSentToMember(memberId, receivedAfter, receivedBefore,
+            pageSize, continuationToken), executorService);
+    }
+
+    /**
+     * Asynchronous version of getAcceptedInvitesForEvent(String).
+     * @param eventId The ID of the event to query invites for.
+     * @return a future of the List of accepted Invite objects for the given ID
+     */
+    public CompletableFuture<List<Invite>> getAcceptedInvitesForEventAsync(String eventId) {
+        return CompletableFuture.supplyAsync(() -> getAcceptedInvitesForEvent(eventId), executorService);
+    }
+
+    /**
+     * Asynchronous version of countAcceptedInvitesForEvent(String).
+     * @param eventId The ID of the event to count invites for.
+     * @return a future of the number of accepted invites for the given ID
+     */
+    public CompletableFuture<Integer> countAcceptedInvitesForEventAsync(String eventId) {
+        return CompletableFuture.supplyAsync(() -> countAcceptedInvitesForEvent(eventId), executorService);
+    }
+
+    /**
+     * Asynchronous version of getInvitesForEvent(String, String).
+     * @param eventId The ID of the event to query invites for.
+     * @param exclusiveStartMemberId The member ID of the last invite returned from the previous page.
+     * @return a future of the page of invites.
+     */
+    public CompletableFuture<List<Invite>> getInvitesForEventAsync(String eventId, String exclusiveStartMemberId) {
+        return CompletableFuture.supplyAsync(() -> getInvitesForEvent(eventId, exclusiveStartMemberId),
+            executorService);
+    }
+
+    /**
+     * Asynchronous version of createInvite(Invite).
+     * @param invite The invite to create
+     * @return a future of the newly created invite
+     */
+    public CompletableFuture<Invite> createInviteAsync(Invite invite) {
+        return CompletableFuture.supplyAsync(() -> createInvite(invite), executorService);
+    }
+
+    /**
+     * Asynchronous version of createInvites(String, List).
+     * @param eventId The event to invite the members to
+     * @param memberIds The members to invite
+     * @return a future of the outcome for each member ID, in the same order as memberIds
+     */
+    public CompletableFuture<List<InviteCreateResult>> createInvitesAsync(String eventId, List<String> memberIds) {
+        return CompletableFuture.supplyAsync(() -> createInvites(eventId, memberIds), executorService);
+    }
+
+    /**
+     * Asynchronous version of setAttending(String, String, boolean).
+     * @param eventId The event ID of the invite
+     * @param memberId The member ID of the invite
+     * @param attending true if the member will attend; false if they won't
+     * @return a future of the updated Invite, or of null if not found
+     */
+    public CompletableFuture<Invite> setAttendingAsync(String eventId, String memberId, boolean attending) {
+        return CompletableFuture.supplyAsync(() -> setAttending(eventId, memberId, attending), executorService);
+    }
+
+    /**
+     * Asynchronous version of cancelInvite(String, String).
+     * @param eventId event ID for the invite to cancel
+     * @param memberId member ID for the invite to cancel
+     * @return a future of the updated Invite, or of null if not found
+     */
+    public CompletableFuture<Invite> cancelInviteAsync(String eventId, String memberId) {
+        return CompletableFuture.supplyAsync(() -> cancelInvite(eventId, memberId), executorService);
+    }
+
+    /**
+     * Asynchronous version of deleteInvite(String, String).
+     * @param eventId The event the invite is for
+     * @param memberId The member the invite is sent to
+     * @return a future of true if the invite was deleted; false if it was kept because isAttending is true
+     */
+    public CompletableFuture<Boolean> deleteInviteAsync(String eventId, String memberId) {
+        return CompletableFuture.supplyAsync(() -> deleteInvite(eventId, memberId), executorService);
+    }
+
+    /**
+     * Asynchronous version of deleteInvites(List).
+     * @param invites The invites to delete
+     * @return a future of the outcome for each invite, in the same order as invites
+     */
+    public CompletableFuture<List<InviteDeleteResult>> deleteInvitesAsync(List<Invite> invites) {
+        return CompletableFuture.supplyAsync(() -> deleteInvites(invites), executorService);
+    }
 }
@@ -0,0 +1,121 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazon.ata.dynamodbquery.dao.models.InviteSummary;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+
+/**
+ * Manages access to InviteSummary items. Counts are changed with atomic ADD updates, so concurrent
+ * changes to one member's invites never overwrite each other's counts.
+ */
+public class InviteSummaryDao {
+    private static final String TABLE_NAME = InviteSummary.class.getAnnotation(DynamoDBTable.class).tableName();
+    private static final Map<InviteSummary.InviteStatus, String> COUNT_ATTRIBUTES = ImmutableMap.of(
+        InviteSummary.InviteStatus.PENDING, "pendingCount",
+        InviteSummary.InviteStatus.ACCEPTED, "acceptedCount",
+        InviteSummary.InviteStatus.CANCELED, "canceledCount");
+
+    private DynamoDBMapper mapper;
+    private AmazonDynamoDB dynamoDbClient;
+
+    /**
+     * Constructs a DAO with the given mapper and client.
+     * @param mapper The DynamoDBMapper to read and rebuild summaries with
+     * @param dynamoDbClient The client to update counts with, since the mapper can't ADD to an attribute
+     */
+    @Inject
+    public InviteSummaryDao(DynamoDBMapper mapper, AmazonDynamoDB dynamoDbClient) {
+        this.mapper = mapper;
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    /**
+     * Fetches a member's invite summary in a single read.
+     * @param memberId The member to fetch the summary of
+     * @return the summary; all counts are zero for a member who has never been invited
+     */
+    public InviteSummary getInviteSummary(String memberId) {
+        InviteSummary summary = mapper.load(InviteSummary.class, memberId);
+        if (summary == null) {
+            summary = new InviteSummary();
+            summary.setMemberId(memberId);
+        }
+        return summary;
+    }
+
+    /**
+     * Moves one invite from one count to another.
+     * @param memberId The member the invite was sent to
+     * @param before The invite's status before it changed, or null if it was just created
+     * @param after The invite's status after it changed, or null if it was deleted
+     */
+    public void recordChange(String memberId, InviteSummary.InviteStatus before, InviteSummary.InviteStatus after) {
+        if (before == after) {
+            return;
+        }
+        Map<InviteSummary.InviteStatus, Integer> deltas = new EnumMap<>(InviteSummary.InviteStatus.class);
+        if (before != null) {
+            deltas.put(before, -1);
+        }
+        if (after != null) {
+            deltas.put(after, 1);
+        }
+        adjustCounts(memberId, deltas);
+    }
+
+    /**
+     * Adds to a member's counts in one update, creating the summary if the member doesn't have one.
+     * @param memberId The member whose counts changed
+     * @param deltas How much to add to each count; negative to subtract
+     */
+    public void adjustCounts(String memberId, Map<InviteSummary.InviteStatus, Integer> deltas) {
+        List<String> additions = new ArrayList<>();
+        Map<String, AttributeValue> valueMap = new HashMap<>();
+        for (Map.Entry<InviteSummary.InviteStatus, Integer> delta : deltas.entrySet()) {
+            if (delta.getValue() != 0) {
+                String placeholder = ":" + COUNT_ATTRIBUTES.get(delta.getKey());
+                additions.add(COUNT_ATTRIBUTES.get(delta.getKey()) + " " + placeholder);
+                valueMap.put(placeholder, new AttributeValue().withN(Integer.toString(delta.getValue())));
+            }
+        }
+        if (additions.isEmpty()) {
+            return;
+        }
+
+        dynamoDbClient.updateItem(new UpdateItemRequest()
+            .withTableName(TABLE_NAME)
+            .withKey(ImmutableMap.of("memberId", new AttributeValue().withS(memberId)))
+            .withUpdateExpression("ADD " + String.join(", ", additions))
+            .withExpressionAttributeValues(valueMap));
+    }
+
+    /**
+     * Replaces a member's summary with counts worked out from their invites.
+     * @param summary The recomputed summary
+     */
+    public void saveInviteSummary(InviteSummary summary) {
+        mapper.save(summary);
+    }
+
+    /**
+     * Deletes a member's summary, such as when the member is deleted.
+     * @param memberId The member whose summary to delete
+     */
+    public void deleteInviteSummary(String memberId) {
+        InviteSummary summary = new InviteSummary();
+        summary.setMemberId(memberId);
+        mapper.delete(summary);
+    }
+}
@@ -0,0 +1,67 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.InviteSummary;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.inject.Inject;
+
+/**
+ * Recomputes every member's InviteSummary from the Invites table, for when counts have drifted, such as
+ * after a count update failed once its invite was already written, or to fill in summaries for invites
+ * written before summaries existed.
+ *
+ * Invite changes made while the job runs may be counted twice or not at all, so run it when invites are
+ * quiet, or run it again afterwards.
+ */
+public class InviteSummaryRebuildJob {
+    private static final int TOTAL_SEGMENTS = 16;
+
+    private final ParallelScanner scanner;
+    private final InviteSummaryDao inviteSummaryDao;
+
+    /**
+     * Constructs the job.
+     * @param scanner The ParallelScanner to read every invite and summary with
+     * @param inviteSummaryDao The InviteSummaryDao to save the recomputed summaries with
+     */
+    @Inject
+    public InviteSummaryRebuildJob(ParallelScanner scanner, InviteSummaryDao inviteSummaryDao) {
+        this.scanner = scanner;
+        this.inviteSummaryDao = inviteSummaryDao;
+    }
+
+    /**
+     * Recounts every member's invites and overwrites their summaries. Members who have a summary but no
+     * invites left get all their counts set to zero.
+     * @return the number of summaries saved
+     */
+    public int rebuildAll() {
+        Map<String, InviteSummary> summaries = new HashMap<>();
+        scanner.scan(InviteSummary.class, TOTAL_SEGMENTS,
+            existing -> summaries.put(existing.getMemberId(), emptySummary(existing.getMemberId())));
+        scanner.scan(Invite.class, TOTAL_SEGMENTS, invite -> {
+            InviteSummary summary = summaries.computeIfAbsent(invite.getMemberId(), this::emptySummary);
+            switch (InviteSummary.statusOf(invite)) {
+                case CANCELED:
+                    summary.setCanceledCount(summary.getCanceledCount() + 1);
+                    break;
+                case ACCEPTED:
+                    summary.setAcceptedCount(summary.getAcceptedCount() + 1);
+                    break;
+                default:
+                    summary.setPendingCount(summary.getPendingCount() + 1);
+            }
+        });
+
+        summaries.values().forEach(inviteSummaryDao::saveInviteSummary);
+        return summaries.size();
+    }
+
+    private InviteSummary emptySummary(String memberId) {
+        InviteSummary summary = new InviteSummary();
+        summary.setMemberId(memberId);
+        return summary;
+    }
+}
@@ -4,23 +4,45 @@ import com.amazon.ata.dynamodbquery.dao.models.Member;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 
+import java.time.Duration;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import javax.inject.Inject;
 
 /**
  * Manages access to Member items.
  */
 public class MemberDao {
+    private static final long MAX_SHARED_LOOKUP_RESULTS = 10_000;
+
     private DynamoDBMapper mapper;
+    private ExecutorService executorService;
+    private SingleFlight<String, Member> memberLookups;
 
     /**
-     * Creates an MemberDao with the given DDB mapper.
+     * Creates an MemberDao with the given DDB mapper. Concurrent lookups for the same member share one read.
      * @param mapper DynamoDBMapper
+     * @param executorService The ExecutorService the *Async methods run on
      */
     @Inject
-    public MemberDao(DynamoDBMapper mapper) {
+    public MemberDao(DynamoDBMapper mapper, ExecutorService executorService) {
+        this(mapper, executorService, Duration.ZERO);
+    }
+
+    /**
+     * Creates an MemberDao with the given DDB mapper. Concurrent lookups for the same member share one read,
+     * and lookups within lookupResultTtl after a read finished get its result too.
+     * @param mapper DynamoDBMapper
+     * @param executorService The ExecutorService the *Async methods run on
+     * @param lookupResultTtl How long a read's result is shared; null or zero to only share reads still running
+     */
+    public MemberDao(DynamoDBMapper mapper, ExecutorService executorService, Duration lookupResultTtl) {
         this.mapper = mapper;
+        this.executorService = executorService;
+        this.memberLookups = new SingleFlight<>(lookupResultTtl == null ? Duration.ZERO : lookupResultTtl,
+            MAX_SHARED_LOOKUP_RESULTS, MemberDao::copyOf);
     }
 
     /**
@@ -34,6 +56,7 @@ public class MemberDao {
         }
 
         mapper.save(member);
+        memberLookups.invalidate(member.getId());
         return member;
     }
 
@@ -43,7 +66,7 @@ public class MemberDao {
      * @return The Member indicated by memberId, if found; null otherwise.
      */
     public Member getMember(String memberId) {
-        return mapper.load(Member.class, memberId);
+        return memberLookups.get(memberId, id -> mapper.load(Member.class, id));
     }
 
     /**
@@ -54,5 +77,56 @@ public class MemberDao {
         Member member = new Member();
         member.setId(memberId);
         mapper.delete(member);
+        memberLookups.invalidate(memberId);
+    }
+
+    /**
+     * Returns the number of getMember() calls answered by another call's read instead of their own.
+     * @return the coalesced lookup count
+     */
+    public long getCoalescedLookupCount() {
+        return memberLookups.getCoalescedCount();
+    }
+
+    /**
+     * Returns the number of reads getMember() has made.
+     * @return the lookup read count
+     */
+    public long getLookupLoadCount() {
+        return memberLookups.getLoadCount();
+    }
+
+    /**
+     * Asynchronous version of createMember(Member).
+     * @param member The member to create
+     * @return a future of the member
+     */
+    public CompletableFuture<Member> createMemberAsync(Member member) {
+        return CompletableFuture.supplyAsync(() -> createMember(member), executorService);
+    }
+
+    /**
+     * Asynchronous version of getMember(String).
+     * @param memberId The member ID to look for
+     * @return a future of the Member, or of null if not found
+     */
+    public CompletableFuture<Member> getMemberAsync(String memberId) {
+        return CompletableFuture.supplyAsync(() -> getMember(memberId), executorService);
+    }
+
+    /**
+     * Asynchronous version of deletePermanently(String).
+     * @param memberId The member ID for the member to delete
+     * @return a future that completes once the member is deleted
+     */
+    public CompletableFuture<Void> deletePermanentlyAsync(String memberId) {
+        return CompletableFuture.runAsync(() -> deletePermanently(memberId), executorService);
+    }
+
+    private static Member copyOf(Member member) {
+        Member copy = new Member();
+        copy.setId(member.getId());
+        copy.setName(member.getName());
+        return copy;
     }
 }
@@ -0,0 +1,173 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+/**
+ * Scans a whole table in parallel for maintenance jobs. The table is split into segments that are
+ * scanned on a bounded pool of worker threads, and every page read is charged against a shared
+ * read capacity budget so a job can't starve online traffic.
+ *
+ * Items are handed to the caller's consumer on the calling thread through a bounded queue. If the
+ * consumer falls behind, the workers block instead of reading further ahead.
+ */
+public class ParallelScanner {
+    /** An eventually consistent read of an item up to 4KB, used when DynamoDB doesn't report capacity. */
+    private static final double ESTIMATED_READ_CAPACITY_PER_ITEM = 0.5;
+
+    private static final Object SEGMENT_DONE = new Object();
+
+    private final DynamoDBMapper mapper;
+    private final int workerThreads;
+    private final int pageSize;
+    private final int queueCapacity;
+    private final RateLimiter readCapacityLimiter;
+    private final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+        .setNameFormat("parallel-scan-%d")
+        .setDaemon(true)
+        .build();
+
+    /**
+     * Constructs a ParallelScanner.
+     * @param mapper The DynamoDBMapper to scan with
+     * @param workerThreads The maximum number of segments to scan at the same time
+     * @param pageSize The maximum number of items to read per scan request
+     * @param queueCapacity The number of scanned items that may wait for the consumer before the workers block
+     * @param readCapacityUnitsPerSecond The read capacity budget shared by every scan this scanner runs
+     */
+    public ParallelScanner(DynamoDBMapper mapper, int workerThreads, int pageSize, int queueCapacity,
+                           double readCapacityUnitsPerSecond) {
+        if (workerThreads < 1 || pageSize < 1 || queueCapacity < 1 || readCapacityUnitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Worker threads, page size, queue capacity and read capacity " +
+                "must all be positive");
+        }
+        this.mapper = mapper;
+        this.workerThreads = workerThreads;
+        this.pageSize = pageSize;
+        this.queueCapacity = queueCapacity;
+        this.readCapacityLimiter = RateLimiter.create(readCapacityUnitsPerSecond);
+    }
+
+    /**
+     * Scans every item in the table for the given class, passing each one to the consumer. Blocks until
+     * the whole table has been scanned. Items from different segments are interleaved in no particular order.
+     *
+     * If a segment fails or the consumer throws, the remaining segments are stopped and the exception is
+     * rethrown to the caller.
+     *
+     * @param itemClass The mapped class of the table to scan
+     * @param totalSegments The number of segments to split the table into
+     * @param consumer Called on the calling thread with each scanned item
+     * @param <T> The type of item being scanned
+     * @return the number of items passed to the consumer
+     */
+    public <T> long scan(Class<T> itemClass, int totalSegments, Consumer<? super T> consumer) {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be positive, but was " + totalSegments);
+        }
+
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(workerThreads, totalSegments),
+            threadFactory);
+        long itemCount = 0;
+        try {
+            for (int segment = 0; segment < totalSegments; segment++) {
+                int thisSegment = segment;
+                workers.execute(() -> scanSegment(itemClass, thisSegment, totalSegments, queue));
+            }
+
+            int remainingSegments = totalSegments;
+            while (remainingSegments > 0) {
+                Object next = queue.take();
+                if (next == SEGMENT_DONE) {
+                    remainingSegments--;
+                } else if (next instanceof SegmentFailure) {
+                    throw ((SegmentFailure) next).rethrow();
+                } else {
+                    consumer.accept(itemClass.cast(next));
+                    itemCount++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning " + itemClass.getSimpleName(), e);
+        } finally {
+            workers.shutdownNow();
+        }
+        return itemCount;
+    }
+
+    private <T> void scanSegment(Class<T> itemClass, int segment, int totalSegments, BlockingQueue<Object> queue) {
+        try {
+            try {
+                Map<String, AttributeValue> exclusiveStartKey = null;
+                do {
+                    ScanResultPage<T> page = mapper.scanPage(itemClass, new DynamoDBScanExpression()
+                        .withSegment(segment)
+                        .withTotalSegments(totalSegments)
+                        .withLimit(pageSize)
+                        .withExclusiveStartKey(exclusiveStartKey)
+                        .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL));
+                    // Pay for this page before reading the next one
+                    readCapacityLimiter.acquire(readCapacityUnits(page));
+
+                    for (T item : page.getResults()) {
+                        queue.put(item);
+                    }
+                    exclusiveStartKey = page.getLastEvaluatedKey();
+                } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+                queue.put(SEGMENT_DONE);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Throwable e) {
+                // Errors too, or scan() would wait forever for this segment to finish
+                queue.put(new SegmentFailure(e));
+            }
+        } catch (InterruptedException e) {
+            // The scan was stopped by the caller, so nobody is waiting on this segment any more
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int readCapacityUnits(ScanResultPage<?> page) {
+        double units;
+        if (page.getConsumedCapacity() != null && page.getConsumedCapacity().getCapacityUnits() != null) {
+            units = page.getConsumedCapacity().getCapacityUnits();
+        } else {
+            Integer scannedCount = page.getScannedCount() != null ? page.getScannedCount() : page.getCount();
+            units = (scannedCount == null ? 0 : scannedCount) * ESTIMATED_READ_CAPACITY_PER_ITEM;
+        }
+        return Math.max(1, (int) Math.ceil(units));
+    }
+
+    private static final class SegmentFailure {
+        private final Throwable cause;
+
+        private SegmentFailure(Throwable cause) {
+            this.cause = cause;
+        }
+
+        private RuntimeException rethrow() {
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                return (RuntimeException) cause;
+            }
+            return new IllegalStateException("Segment scan failed", cause);
+        }
+    }
+}
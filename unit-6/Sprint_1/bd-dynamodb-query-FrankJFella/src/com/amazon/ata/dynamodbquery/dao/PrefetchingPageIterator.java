@@ -0,0 +1,142 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily iterates over the items of a paginated query. As soon as one page is handed
+ * out, the next page is requested in the background so it is usually ready by the time
+ * the caller has worked through the current one.
+ *
+ * The iterator can report a continuation token for the position right after the last
+ * item it returned, so a caller can stop part way through a page and resume later.
+ * @param <T> The type of item being queried
+ */
+public class PrefetchingPageIterator<T> implements Iterator<T>, AutoCloseable {
+    private final Function<Map<String, AttributeValue>, QueryResultPage<T>> pageFetcher;
+    private final Function<T, Map<String, AttributeValue>> keyExtractor;
+    private final Executor executor;
+    private final Map<String, AttributeValue> startKey;
+
+    private Iterator<T> currentPage = Collections.emptyIterator();
+    private Map<String, AttributeValue> currentPageLastEvaluatedKey;
+    private boolean pageReceived;
+    private CompletableFuture<QueryResultPage<T>> nextPage;
+    private T lastReturned;
+
+    /**
+     * Constructs an iterator and starts fetching the first page.
+     * @param pageFetcher Fetches the page that starts after the given exclusive start key (null for the first page)
+     * @param keyExtractor Builds the primary key map for an item, used for continuation tokens
+     * @param executor The executor to fetch pages on
+     * @param startKey The exclusive start key to begin from, or null to start at the beginning
+     */
+    public PrefetchingPageIterator(Function<Map<String, AttributeValue>, QueryResultPage<T>> pageFetcher,
+                                   Function<T, Map<String, AttributeValue>> keyExtractor,
+                                   Executor executor,
+                                   Map<String, AttributeValue> startKey) {
+        this.pageFetcher = pageFetcher;
+        this.keyExtractor = keyExtractor;
+        this.executor = executor;
+        this.startKey = startKey;
+        this.nextPage = fetchAsync(startKey);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext()) {
+            if (nextPage == null) {
+                return false;
+            }
+
+            QueryResultPage<T> page = await(nextPage);
+            Map<String, AttributeValue> lastEvaluatedKey = page.getLastEvaluatedKey();
+            // Kick off the following page before the caller starts on this one
+            nextPage = lastEvaluatedKey == null || lastEvaluatedKey.isEmpty() ? null : fetchAsync(lastEvaluatedKey);
+            currentPage = page.getResults().iterator();
+            currentPageLastEvaluatedKey = lastEvaluatedKey;
+            pageReceived = true;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        lastReturned = currentPage.next();
+        return lastReturned;
+    }
+
+    /**
+     * Returns a token that resumes iteration right after the last item returned by next(). Never waits
+     * for a prefetched page: once a page is used up, the token is that page's LastEvaluatedKey, so the
+     * page it resumes from may turn out to be empty, as with any DynamoDB query.
+     * @return the continuation token, or null if the last page has been used up
+     */
+    public String getContinuationToken() {
+        if (!pageReceived) {
+            return startToken();
+        }
+        if (currentPage.hasNext()) {
+            // Stopped part way through a page
+            return lastReturned == null ? startToken() : ContinuationTokens.encode(keyExtractor.apply(lastReturned));
+        }
+        return nextPage == null ? null : ContinuationTokens.encode(currentPageLastEvaluatedKey);
+    }
+
+    /**
+     * Returns a sequential Stream over the remaining items.
+     * @return the Stream
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(this::close);
+    }
+
+    /**
+     * Stops any page fetch that is still in flight.
+     */
+    @Override
+    public void close() {
+        if (nextPage != null) {
+            nextPage.cancel(false);
+            nextPage = null;
+        }
+        currentPage = Collections.emptyIterator();
+    }
+
+    private String startToken() {
+        return startKey == null ? ContinuationTokens.FIRST_PAGE : ContinuationTokens.encode(startKey);
+    }
+
+    private CompletableFuture<QueryResultPage<T>> fetchAsync(Map<String, AttributeValue> exclusiveStartKey) {
+        return CompletableFuture.supplyAsync(() -> pageFetcher.apply(exclusiveStartKey), executor);
+    }
+
+    private QueryResultPage<T> await(CompletableFuture<QueryResultPage<T>> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
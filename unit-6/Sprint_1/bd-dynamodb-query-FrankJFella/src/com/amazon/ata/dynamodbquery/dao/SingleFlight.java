@@ -0,0 +1,159 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Shares one load among all the callers that ask for the same key at the same time. The first caller
+ * runs the load; callers that arrive while it's running wait for it and get the same result, or the
+ * same exception. With a result TTL, callers that arrive shortly after a load finished get its result
+ * too, so a burst of lookups for one key costs one read per TTL.
+ *
+ * Callers that share a result each get their own copy of it, made with the given copier, so one caller
+ * changing its value never changes another's. Null results are shared like any other; exceptions are
+ * never kept past the load that threw them.
+ *
+ * @param <K> The key type
+ * @param <V> The loaded value type
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<K, Optional<V>> recentResults;
+    private final UnaryOperator<V> copier;
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+
+    /**
+     * Creates a SingleFlight that only shares loads that are still running.
+     * @param copier Copies a value for each caller it's shared with; UnaryOperator.identity() for
+     *               immutable values
+     */
+    public SingleFlight(UnaryOperator<V> copier) {
+        this(Duration.ZERO, 0, copier);
+    }
+
+    /**
+     * Creates a SingleFlight that also shares each result for resultTtl after its load finishes.
+     * @param resultTtl How long a finished load's result is shared; zero to only share running loads
+     * @param maximumResults The most results to keep at once
+     * @param copier Copies a value for each caller it's shared with; UnaryOperator.identity() for
+     *               immutable values
+     */
+    public SingleFlight(Duration resultTtl, long maximumResults, UnaryOperator<V> copier) {
+        this(resultTtl, maximumResults, copier, Ticker.systemTicker());
+    }
+
+    SingleFlight(Duration resultTtl, long maximumResults, UnaryOperator<V> copier, Ticker ticker) {
+        this.copier = copier;
+        this.recentResults = resultTtl.isZero() ? null : CacheBuilder.newBuilder()
+            .expireAfterWrite(resultTtl.toNanos(), TimeUnit.NANOSECONDS)
+            .maximumSize(maximumResults)
+            .ticker(ticker)
+            .build();
+    }
+
+    /**
+     * Returns the value for a key, from a load that's running or recently finished if there is one,
+     * or by running the loader on this thread otherwise.
+     * @param key The key to look up
+     * @param loader Loads the value for a key; may return null
+     * @return the value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        if (recentResults != null) {
+            Optional<V> recentResult = recentResults.getIfPresent(key);
+            if (recentResult != null) {
+                coalescedCount.increment();
+                return recentResult.map(copier).orElse(null);
+            }
+        }
+
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> runningFlight = inFlight.putIfAbsent(key, flight);
+        if (runningFlight != null) {
+            coalescedCount.increment();
+            V sharedValue = join(runningFlight);
+            return sharedValue == null ? null : copier.apply(sharedValue);
+        }
+
+        loadCount.increment();
+        try {
+            V value = loader.apply(key);
+            // Share a copy, since this caller may change the value as soon as it's returned
+            V sharedValue = value == null ? null : copier.apply(value);
+            if (recentResults != null) {
+                // Only keep the result if the key wasn't invalidated while it loaded
+                inFlight.computeIfPresent(key, (k, currentFlight) -> {
+                    if (currentFlight == flight) {
+                        recentResults.put(key, Optional.ofNullable(sharedValue));
+                    }
+                    return currentFlight;
+                });
+            }
+            flight.complete(sharedValue);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Forgets the recent result for a key, so the next lookup loads it again. Call it after writing the
+     * value, so callers don't keep getting the old one until the TTL runs out. A load that's already
+     * running still finishes for the callers waiting on it, but later callers start a new one.
+     * @param key The key whose value changed
+     */
+    public void invalidate(K key) {
+        inFlight.remove(key);
+        if (recentResults != null) {
+            recentResults.invalidate(key);
+        }
+    }
+
+    /**
+     * Returns the number of loads run since this SingleFlight was created.
+     * @return the load count
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    /**
+     * Returns the number of lookups answered without their own load, because they joined a running
+     * load or got a recent result.
+     * @return the coalesced lookup count
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // Rethrow the loader's own exception, as the caller that ran the load saw it
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.amazon.ata.dynamodbquery.dao.codec;
+
+import com.amazon.ata.dynamodbquery.converter.ZonedDateTimeConverter;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.util.DateUtils;
+
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Reads and writes single attributes in the formats DynamoDBMapper uses for the model classes.
+ */
+final class Attributes {
+    private static final ZonedDateTimeConverter ZONED_DATE_TIME_CONVERTER = new ZonedDateTimeConverter();
+
+    private Attributes() {
+    }
+
+    static String tableNameOf(Class<?> modelClass) {
+        return modelClass.getAnnotation(DynamoDBTable.class).tableName();
+    }
+
+    static void putString(Map<String, AttributeValue> item, String name, String value) {
+        if (value != null) {
+            item.put(name, new AttributeValue().withS(value));
+        }
+    }
+
+    static void putBoolean(Map<String, AttributeValue> item, String name, Boolean value) {
+        if (value != null) {
+            item.put(name, new AttributeValue().withBOOL(value));
+        }
+    }
+
+    static void putInteger(Map<String, AttributeValue> item, String name, Integer value) {
+        if (value != null) {
+            item.put(name, new AttributeValue().withN(value.toString()));
+        }
+    }
+
+    static void putDate(Map<String, AttributeValue> item, String name, Date value) {
+        if (value != null) {
+            item.put(name, new AttributeValue().withS(DateUtils.formatISO8601Date(value)));
+        }
+    }
+
+    static void putZonedDateTime(Map<String, AttributeValue> item, String name, ZonedDateTime value) {
+        if (value != null) {
+            item.put(name, new AttributeValue().withS(ZONED_DATE_TIME_CONVERTER.convert(value)));
+        }
+    }
+
+    static String getString(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value == null ? null : value.getS();
+    }
+
+    static Boolean getBoolean(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        if (value == null) {
+            return null;
+        }
+        // Items written before the attribute was typed as BOOL store it as the number 1 or 0
+        return value.getBOOL() != null ? value.getBOOL() : "1".equals(value.getN());
+    }
+
+    static Integer getInteger(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value == null || value.getN() == null ? null : Integer.valueOf(value.getN());
+    }
+
+    static Date getDate(Map<String, AttributeValue> item, String name) {
+        String value = getString(item, name);
+        return value == null ? null : DateUtils.parseISO8601Date(value);
+    }
+
+    static ZonedDateTime getZonedDateTime(Map<String, AttributeValue> item, String name) {
+        String value = getString(item, name);
+        return value == null ? null : ZONED_DATE_TIME_CONVERTER.unconvert(value);
+    }
+}
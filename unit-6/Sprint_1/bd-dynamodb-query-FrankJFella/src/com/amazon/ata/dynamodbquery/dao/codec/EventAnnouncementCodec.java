@@ -0,0 +1,45 @@
+package com.amazon.ata.dynamodbquery.dao.codec;
+
+import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts EventAnnouncements to and from DynamoDB items.
+ */
+public final class EventAnnouncementCodec implements ItemCodec<EventAnnouncement> {
+    private static final String TABLE_NAME = Attributes.tableNameOf(EventAnnouncement.class);
+
+    @Override
+    public String getTableName() {
+        return TABLE_NAME;
+    }
+
+    @Override
+    public String getHashKeyName() {
+        return "eventId";
+    }
+
+    @Override
+    public Map<String, AttributeValue> encode(EventAnnouncement announcement) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        Attributes.putString(item, "eventId", announcement.getEventId());
+        Attributes.putZonedDateTime(item, "timePublished", announcement.getTimePublished());
+        Attributes.putString(item, "subject", announcement.getSubject());
+        Attributes.putString(item, "content", announcement.getContent());
+        return item;
+    }
+
+    @Override
+    public EventAnnouncement decode(Map<String, AttributeValue> item) {
+        EventAnnouncement announcement = new EventAnnouncement();
+        announcement.setEventId(Attributes.getString(item, "eventId"));
+        announcement.setTimePublished(Attributes.getZonedDateTime(item, "timePublished"));
+        announcement.setSubject(Attributes.getString(item, "subject"));
+        announcement.setContent(Attributes.getString(item, "content"));
+        return announcement;
+    }
+}
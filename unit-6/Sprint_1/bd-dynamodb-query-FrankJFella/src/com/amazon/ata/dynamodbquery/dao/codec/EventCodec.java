@@ -0,0 +1,51 @@
+package com.amazon.ata.dynamodbquery.dao.codec;
+
+import com.amazon.ata.dynamodbquery.dao.models.Event;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts Events to and from DynamoDB items.
+ */
+public final class EventCodec implements ItemCodec<Event> {
+    private static final String TABLE_NAME = Attributes.tableNameOf(Event.class);
+
+    @Override
+    public String getTableName() {
+        return TABLE_NAME;
+    }
+
+    @Override
+    public String getHashKeyName() {
+        return "id";
+    }
+
+    @Override
+    public Map<String, AttributeValue> encode(Event event) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        Attributes.putString(item, "id", event.getId());
+        Attributes.putString(item, "organizerId", event.getOrganizerId());
+        Attributes.putZonedDateTime(item, "time", event.getTime());
+        Attributes.putString(item, "name", event.getName());
+        Attributes.putString(item, "description", event.getDescription());
+        Attributes.putBoolean(item, "isCanceled", event.isCanceled());
+        Attributes.putInteger(item, "announcementShards", event.getAnnouncementShards());
+        return item;
+    }
+
+    @Override
+    public Event decode(Map<String, AttributeValue> item) {
+        Event event = new Event();
+        event.setId(Attributes.getString(item, "id"));
+        event.setOrganizerId(Attributes.getString(item, "organizerId"));
+        event.setTime(Attributes.getZonedDateTime(item, "time"));
+        event.setName(Attributes.getString(item, "name"));
+        event.setDescription(Attributes.getString(item, "description"));
+        event.setCanceled(Attributes.getBoolean(item, "isCanceled"));
+        event.setAnnouncementShards(Attributes.getInteger(item, "announcementShards"));
+        return event;
+    }
+}
@@ -0,0 +1,48 @@
+package com.amazon.ata.dynamodbquery.dao.codec;
+
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts Invites to and from DynamoDB items.
+ */
+public final class InviteCodec implements ItemCodec<Invite> {
+    private static final String TABLE_NAME = Attributes.tableNameOf(Invite.class);
+
+    @Override
+    public String getTableName() {
+        return TABLE_NAME;
+    }
+
+    @Override
+    public String getHashKeyName() {
+        return "eventId";
+    }
+
+    @Override
+    public Map<String, AttributeValue> encode(Invite invite) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        Attributes.putString(item, "eventId", invite.getEventId());
+        Attributes.putString(item, "memberId", invite.getMemberId());
+        Attributes.putString(item, "attendingEventId", invite.getAttendingEventId());
+        Attributes.putBoolean(item, "isAttending", invite.isAttending());
+        Attributes.putBoolean(item, "isCanceled", invite.isCanceled());
+        Attributes.putDate(item, "timeReceived", invite.getTimeReceived());
+        return item;
+    }
+
+    @Override
+    public Invite decode(Map<String, AttributeValue> item) {
+        Invite invite = new Invite();
+        invite.setEventId(Attributes.getString(item, "eventId"));
+        invite.setMemberId(Attributes.getString(item, "memberId"));
+        invite.setAttending(Attributes.getBoolean(item, "isAttending"));
+        invite.setCanceled(Attributes.getBoolean(item, "isCanceled"));
+        invite.setTimeReceived(Attributes.getDate(item, "timeReceived"));
+        return invite;
+    }
+}
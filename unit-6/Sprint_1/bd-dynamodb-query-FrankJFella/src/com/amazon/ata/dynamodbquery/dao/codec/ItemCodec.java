@@ -0,0 +1,41 @@
+package com.amazon.ata.dynamodbquery.dao.codec;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Converts one model class to and from DynamoDB items with plain getter and setter calls, in the same
+ * attribute format DynamoDBMapper reads and writes. Codecs keep no per-item state, so one instance can
+ * be shared by every thread.
+ *
+ * @param <T> The model class
+ */
+public interface ItemCodec<T> {
+    /**
+     * Returns the name of the table the model class is stored in.
+     * @return the table name
+     */
+    String getTableName();
+
+    /**
+     * Returns the name of the table's hash key attribute.
+     * @return the hash key attribute name
+     */
+    String getHashKeyName();
+
+    /**
+     * Converts an object to an item. Null fields are left out of the item.
+     * @param object The object to convert
+     * @return the item
+     */
+    Map<String, AttributeValue> encode(T object);
+
+    /**
+     * Converts an item, or the projected part of one, to an object. Fields missing from the item are
+     * left null.
+     * @param item The item to convert
+     * @return the object
+     */
+    T decode(Map<String, AttributeValue> item);
+}
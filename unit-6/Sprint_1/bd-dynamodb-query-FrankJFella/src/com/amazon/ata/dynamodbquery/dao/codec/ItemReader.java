@@ -0,0 +1,131 @@
+package com.amazon.ata.dynamodbquery.dao.codec;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+
+/**
+ * Runs the same DynamoDBQueryExpressions DAOs would give DynamoDBMapper, but converts the items it gets
+ * back with an ItemCodec instead of the mapper's reflective marshalling. Use it for queries that return
+ * many items, where converting them is a noticeable share of the work.
+ *
+ * Queries can name their key condition with a key condition expression, or with hash key values on the
+ * table's own hash key; range key conditions are not supported.
+ */
+public class ItemReader {
+    private static final String HASH_KEY_NAME_PLACEHOLDER = "#hashKey";
+    private static final String HASH_KEY_VALUE_PLACEHOLDER = ":hashKey";
+
+    private final AmazonDynamoDB dynamoDbClient;
+
+    /**
+     * Creates an ItemReader that reads through the given client.
+     * @param dynamoDbClient The client to query with
+     */
+    @Inject
+    public ItemReader(AmazonDynamoDB dynamoDbClient) {
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    /**
+     * Queries one page of items, like DynamoDBMapper.queryPage().
+     * @param codec The codec for the queried table's model class
+     * @param queryExpression The query to run
+     * @param <T> The model class
+     * @return the page of objects, with the LastEvaluatedKey to continue from
+     */
+    public <T> QueryResultPage<T> queryPage(ItemCodec<T> codec, DynamoDBQueryExpression<T> queryExpression) {
+        QueryResult result = dynamoDbClient.query(toQueryRequest(codec, queryExpression));
+
+        QueryResultPage<T> page = new QueryResultPage<>();
+        page.setResults(decodeAll(codec, result.getItems(), new ArrayList<>(result.getItems().size())));
+        page.setLastEvaluatedKey(result.getLastEvaluatedKey());
+        page.setCount(result.getCount());
+        page.setScannedCount(result.getScannedCount());
+        page.setConsumedCapacity(result.getConsumedCapacity());
+        return page;
+    }
+
+    /**
+     * Queries every matching item, reading page after page until DynamoDB has no more. Unlike
+     * DynamoDBMapper.query(), all pages are read before this returns. The query's limit, if any, is
+     * the page size.
+     * @param codec The codec for the queried table's model class
+     * @param queryExpression The query to run
+     * @param <T> The model class
+     * @return every matching object
+     */
+    public <T> List<T> query(ItemCodec<T> codec, DynamoDBQueryExpression<T> queryExpression) {
+        QueryRequest request = toQueryRequest(codec, queryExpression);
+        List<T> results = new ArrayList<>();
+        while (true) {
+            QueryResult result = dynamoDbClient.query(request);
+            decodeAll(codec, result.getItems(), results);
+            if (result.getLastEvaluatedKey() == null || result.getLastEvaluatedKey().isEmpty()) {
+                return results;
+            }
+            request = request.clone().withExclusiveStartKey(result.getLastEvaluatedKey());
+        }
+    }
+
+    private static <T> List<T> decodeAll(ItemCodec<T> codec, List<Map<String, AttributeValue>> items,
+                                         List<T> results) {
+        for (Map<String, AttributeValue> item : items) {
+            results.add(codec.decode(item));
+        }
+        return results;
+    }
+
+    private static <T> QueryRequest toQueryRequest(ItemCodec<T> codec, DynamoDBQueryExpression<T> queryExpression) {
+        if (queryExpression.getRangeKeyConditions() != null) {
+            throw new IllegalArgumentException("Range key conditions are not supported; use a key condition " +
+                "expression instead");
+        }
+
+        String keyConditionExpression = queryExpression.getKeyConditionExpression();
+        Map<String, String> nameMap = queryExpression.getExpressionAttributeNames();
+        Map<String, AttributeValue> valueMap = queryExpression.getExpressionAttributeValues();
+
+        T hashKeyValues = queryExpression.getHashKeyValues();
+        if (hashKeyValues != null) {
+            if (keyConditionExpression != null || queryExpression.getIndexName() != null) {
+                throw new IllegalArgumentException("Hash key values can only be used to query the table's own " +
+                    "hash key, without a key condition expression");
+            }
+            AttributeValue hashKey = codec.encode(hashKeyValues).get(codec.getHashKeyName());
+            if (hashKey == null) {
+                throw new IllegalArgumentException("The hash key values have no " + codec.getHashKeyName());
+            }
+
+            keyConditionExpression = HASH_KEY_NAME_PLACEHOLDER + " = " + HASH_KEY_VALUE_PLACEHOLDER;
+            nameMap = nameMap == null ? new HashMap<>() : new HashMap<>(nameMap);
+            nameMap.put(HASH_KEY_NAME_PLACEHOLDER, codec.getHashKeyName());
+            valueMap = valueMap == null ? new HashMap<>() : new HashMap<>(valueMap);
+            valueMap.put(HASH_KEY_VALUE_PLACEHOLDER, hashKey);
+        }
+
+        return new QueryRequest()
+            .withTableName(codec.getTableName())
+            .withIndexName(queryExpression.getIndexName())
+            .withConsistentRead(queryExpression.isConsistentRead())
+            .withScanIndexForward(queryExpression.isScanIndexForward())
+            .withLimit(queryExpression.getLimit())
+            .withExclusiveStartKey(queryExpression.getExclusiveStartKey())
+            .withKeyConditionExpression(keyConditionExpression)
+            .withFilterExpression(queryExpression.getFilterExpression())
+            .withProjectionExpression(queryExpression.getProjectionExpression())
+            .withExpressionAttributeNames(nameMap)
+            .withExpressionAttributeValues(valueMap)
+            .withSelect(queryExpression.getSelect())
+            .withReturnConsumedCapacity(queryExpression.getReturnConsumedCapacity());
+    }
+}
@@ -23,6 +23,7 @@ public class Event {
     private String name;
     private String description;
     private Boolean isCanceled;
+    private Integer announcementShards;
 
     @DynamoDBHashKey(attributeName = "id")
     public String getId() {
@@ -80,6 +81,20 @@ public class Event {
         isCanceled = canceled;
     }
 
+    /**
+     * The number of partitions this event's announcements are spread over, for events that get
+     * more announcement traffic than one partition can take. See EventAnnouncementDao.
+     * @return the shard count, or null if announcements aren't sharded
+     */
+    @DynamoDBAttribute(attributeName = "announcementShards")
+    public Integer getAnnouncementShards() {
+        return announcementShards;
+    }
+
+    public void setAnnouncementShards(Integer announcementShards) {
+        this.announcementShards = announcementShards;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -94,12 +109,14 @@ public class Event {
             Objects.equals(getTime(), event.getTime()) &&
             Objects.equals(getName(), event.getName()) &&
             Objects.equals(getDescription(), event.getDescription()) &&
-            Objects.equals(isCanceled, event.isCanceled);
+            Objects.equals(isCanceled, event.isCanceled) &&
+            Objects.equals(announcementShards, event.announcementShards);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getId(), getOrganizerId(), getTime(), getName(), getDescription(), isCanceled);
+        return Objects.hash(getId(), getOrganizerId(), getTime(), getName(), getDescription(), isCanceled,
+            announcementShards);
     }
 
     @Override
@@ -111,6 +128,7 @@ public class Event {
             ", name='" + name + '\'' +
             ", description='" + description + '\'' +
             ", isCanceled=" + isCanceled +
+            ", announcementShards=" + announcementShards +
             '}';
     }
 }
@@ -18,6 +18,8 @@ import java.util.Objects;
 @DynamoDBTable(tableName = "DynamoDBQuery-Invites")
 public class Invite {
     public static final String TIME_RECEIVED_MEMBER_ID_GSI = "memberId-timeReceived";
+    /** Sparse GSI holding only the invites that are being attended, keyed by event. */
+    public static final String ATTENDING_EVENT_ID_GSI = "attendingEventId-memberId";
 
     private String eventId;
     private String memberId;
@@ -36,6 +38,7 @@ public class Invite {
 
     @DynamoDBRangeKey(attributeName = "memberId")
     @DynamoDBIndexHashKey(globalSecondaryIndexName = TIME_RECEIVED_MEMBER_ID_GSI)
+    @DynamoDBIndexRangeKey(globalSecondaryIndexName = ATTENDING_EVENT_ID_GSI)
     public String getMemberId() {
         return memberId;
     }
@@ -54,6 +57,23 @@ public class Invite {
         isAttending = attending;
     }
 
+    /**
+     * The event ID, but only while the member is attending. Invites without it are left out of the
+     * attendingEventId-memberId GSI, so that index only ever holds accepted invites.
+     * @return the event ID if isAttending is true; null otherwise
+     */
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = ATTENDING_EVENT_ID_GSI, attributeName = "attendingEventId")
+    public String getAttendingEventId() {
+        return Boolean.TRUE.equals(isAttending) ? eventId : null;
+    }
+
+    /**
+     * Derived from eventId and isAttending; the stored value is ignored when loading.
+     * @param attendingEventId Unused
+     */
+    public void setAttendingEventId(String attendingEventId) {
+    }
+
     @DynamoDBAttribute(attributeName = "isCanceled")
     @DynamoDBTyped(DynamoDBMapperFieldModel.DynamoDBAttributeType.BOOL)
     public Boolean isCanceled() {
@@ -0,0 +1,92 @@
+package com.amazon.ata.dynamodbquery.dao.models;
+
+import java.util.Objects;
+
+/**
+ * How far a cascade canceling an event's invites has got.
+ */
+public class InviteCancellationProgress {
+    private final String eventId;
+    private final long canceledCount;
+    private final long alreadyCanceledCount;
+    private final long failedCount;
+    private final String continuationToken;
+    private final boolean done;
+
+    /**
+     * Constructs a progress report.
+     * @param eventId The event whose invites are being canceled
+     * @param canceledCount How many invites the cascade has canceled so far
+     * @param alreadyCanceledCount How many invites the cascade found already canceled
+     * @param failedCount How many invites could not be written; running the cascade again retries them
+     * @param continuationToken Where to resume the cascade from, or null once every invite has been written
+     * @param done true once every invite has been read and written
+     */
+    public InviteCancellationProgress(String eventId, long canceledCount, long alreadyCanceledCount, long failedCount,
+                                      String continuationToken, boolean done) {
+        this.eventId = eventId;
+        this.canceledCount = canceledCount;
+        this.alreadyCanceledCount = alreadyCanceledCount;
+        this.failedCount = failedCount;
+        this.continuationToken = continuationToken;
+        this.done = done;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public long getCanceledCount() {
+        return canceledCount;
+    }
+
+    public long getAlreadyCanceledCount() {
+        return alreadyCanceledCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        InviteCancellationProgress that = (InviteCancellationProgress) o;
+        return canceledCount == that.canceledCount &&
+            alreadyCanceledCount == that.alreadyCanceledCount &&
+            failedCount == that.failedCount &&
+            done == that.done &&
+            Objects.equals(eventId, that.eventId) &&
+            Objects.equals(continuationToken, that.continuationToken);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventId, canceledCount, alreadyCanceledCount, failedCount, continuationToken, done);
+    }
+
+    @Override
+    public String toString() {
+        return "InviteCancellationProgress{" +
+            "eventId='" + eventId + '\'' +
+            ", canceledCount=" + canceledCount +
+            ", alreadyCanceledCount=" + alreadyCanceledCount +
+            ", failedCount=" + failedCount +
+            ", continuationToken='" + continuationToken + '\'' +
+            ", done=" + done +
+            '}';
+    }
+}
@@ -0,0 +1,78 @@
+package com.amazon.ata.dynamodbquery.dao.models;
+
+import java.util.Objects;
+
+/**
+ * The outcome of trying to create a single invite as part of a bulk create.
+ */
+public class InviteCreateResult {
+    /**
+     * What happened to the invite.
+     */
+    public enum Status {
+        /** The invite was created. */
+        CREATED,
+        /** The member was listed more than once; only the first listing is created. */
+        SKIPPED_DUPLICATE,
+        /** The member already had an invite to the event, which was left as it was. */
+        SKIPPED_EXISTING,
+        /** The invite could not be created; creating it again may succeed. */
+        FAILED
+    }
+
+    private final String eventId;
+    private final String memberId;
+    private final Status status;
+
+    /**
+     * Constructs a result for the invite with the given key.
+     * @param eventId The event ID of the invite
+     * @param memberId The member ID of the invite
+     * @param status What happened to the invite
+     */
+    public InviteCreateResult(String eventId, String memberId, Status status) {
+        this.eventId = eventId;
+        this.memberId = memberId;
+        this.status = status;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        InviteCreateResult that = (InviteCreateResult) o;
+        return Objects.equals(eventId, that.eventId) &&
+            Objects.equals(memberId, that.memberId) &&
+            status == that.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventId, memberId, status);
+    }
+
+    @Override
+    public String toString() {
+        return "InviteCreateResult{" +
+            "eventId='" + eventId + '\'' +
+            ", memberId='" + memberId + '\'' +
+            ", status=" + status +
+            '}';
+    }
+}
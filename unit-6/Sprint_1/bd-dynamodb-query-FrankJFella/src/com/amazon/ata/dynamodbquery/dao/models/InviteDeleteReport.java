@@ -0,0 +1,78 @@
+package com.amazon.ata.dynamodbquery.dao.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reports what happened to each invite during a bulk delete, along with the checkpoint to
+ * resume from if the delete stopped before every invite was processed.
+ */
+public class InviteDeleteReport {
+    private final List<InviteDeleteResult> results;
+    private final String checkpoint;
+
+    /**
+     * Constructs a report.
+     * @param results The outcome for each invite processed
+     * @param checkpoint The checkpoint to resume the delete from; null if every invite was processed
+     */
+    public InviteDeleteReport(List<InviteDeleteResult> results, String checkpoint) {
+        this.results = Collections.unmodifiableList(new ArrayList<>(results));
+        this.checkpoint = checkpoint;
+    }
+
+    public List<InviteDeleteResult> getResults() {
+        return results;
+    }
+
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Returns true if every invite was processed, so there is nothing left to resume.
+     * @return true if there is no checkpoint
+     */
+    public boolean isComplete() {
+        return checkpoint == null;
+    }
+
+    /**
+     * Counts the invites that ended with the given status.
+     * @param status The status to count
+     * @return the number of results with that status
+     */
+    public long count(InviteDeleteResult.Status status) {
+        return results.stream()
+            .filter(result -> result.getStatus() == status)
+            .count();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        InviteDeleteReport that = (InviteDeleteReport) o;
+        return Objects.equals(results, that.results) &&
+            Objects.equals(checkpoint, that.checkpoint);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(results, checkpoint);
+    }
+
+    @Override
+    public String toString() {
+        return "InviteDeleteReport{" +
+            "results=" + results +
+            ", checkpoint='" + checkpoint + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,76 @@
+package com.amazon.ata.dynamodbquery.dao.models;
+
+import java.util.Objects;
+
+/**
+ * The outcome of trying to delete a single invite as part of a bulk delete.
+ */
+public class InviteDeleteResult {
+    /**
+     * What happened to the invite.
+     */
+    public enum Status {
+        /** The invite was deleted (or was already gone). */
+        DELETED,
+        /** The invite was kept because the member is attending the event. */
+        SKIPPED_ATTENDING,
+        /** The invite could not be deleted; deleting it again may succeed. */
+        FAILED
+    }
+
+    private final String eventId;
+    private final String memberId;
+    private final Status status;
+
+    /**
+     * Constructs a result for the invite with the given key.
+     * @param eventId The event ID of the invite
+     * @param memberId The member ID of the invite
+     * @param status What happened to the invite
+     */
+    public InviteDeleteResult(String eventId, String memberId, Status status) {
+        this.eventId = eventId;
+        this.memberId = memberId;
+        this.status = status;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        InviteDeleteResult that = (InviteDeleteResult) o;
+        return Objects.equals(eventId, that.eventId) &&
+            Objects.equals(memberId, that.memberId) &&
+            status == that.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventId, memberId, status);
+    }
+
+    @Override
+    public String toString() {
+        return "InviteDeleteResult{" +
+            "eventId='" + eventId + '\'' +
+            ", memberId='" + memberId + '\'' +
+            ", status=" + status +
+            '}';
+    }
+}
@@ -0,0 +1,112 @@
+package com.amazon.ata.dynamodbquery.dao.models;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+
+import java.util.Objects;
+
+/**
+ * How many of a member's invites are pending, accepted and canceled. Kept up to date by InviteDao as
+ * invites change, so a member's counts can be read without reading their invites.
+ */
+@DynamoDBTable(tableName = "DynamoDBQuery-InviteSummaries")
+public class InviteSummary {
+    /**
+     * The state an invite is counted in.
+     */
+    public enum InviteStatus {
+        /** Neither accepted nor canceled. */
+        PENDING,
+        /** The member is attending. */
+        ACCEPTED,
+        /** Canceled, whether or not the member had accepted. */
+        CANCELED
+    }
+
+    private String memberId;
+    private int pendingCount;
+    private int acceptedCount;
+    private int canceledCount;
+
+    /**
+     * Returns the state an invite is counted in.
+     * @param invite The invite, or null for one that doesn't exist
+     * @return the invite's status, or null if invite is null
+     */
+    public static InviteStatus statusOf(Invite invite) {
+        if (invite == null) {
+            return null;
+        }
+        if (Boolean.TRUE.equals(invite.isCanceled())) {
+            return InviteStatus.CANCELED;
+        }
+        return Boolean.TRUE.equals(invite.isAttending()) ? InviteStatus.ACCEPTED : InviteStatus.PENDING;
+    }
+
+    @DynamoDBHashKey(attributeName = "memberId")
+    public String getMemberId() {
+        return memberId;
+    }
+
+    public void setMemberId(String memberId) {
+        this.memberId = memberId;
+    }
+
+    @DynamoDBAttribute(attributeName = "pendingCount")
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    public void setPendingCount(int pendingCount) {
+        this.pendingCount = pendingCount;
+    }
+
+    @DynamoDBAttribute(attributeName = "acceptedCount")
+    public int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public void setAcceptedCount(int acceptedCount) {
+        this.acceptedCount = acceptedCount;
+    }
+
+    @DynamoDBAttribute(attributeName = "canceledCount")
+    public int getCanceledCount() {
+        return canceledCount;
+    }
+
+    public void setCanceledCount(int canceledCount) {
+        this.canceledCount = canceledCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        InviteSummary that = (InviteSummary) o;
+        return pendingCount == that.pendingCount &&
+            acceptedCount == that.acceptedCount &&
+            canceledCount == that.canceledCount &&
+            Objects.equals(memberId, that.memberId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(memberId, pendingCount, acceptedCount, canceledCount);
+    }
+
+    @Override
+    public String toString() {
+        return "InviteSummary{" +
+            "memberId='" + memberId + '\'' +
+            ", pendingCount=" + pendingCount +
+            ", acceptedCount=" + acceptedCount +
+            ", canceledCount=" + canceledCount +
+            '}';
+    }
+}
@@ -0,0 +1,67 @@
+package com.amazon.ata.dynamodbquery.dao.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One page of results plus the opaque token a caller passes back to fetch the next page.
+ * @param <T> The type of item in the page
+ */
+public class PaginatedResult<T> {
+    private final List<T> items;
+    private final String continuationToken;
+
+    /**
+     * Constructs a page of results.
+     * @param items The items in this page
+     * @param continuationToken The token for the next page; null if this is the last page
+     */
+    public PaginatedResult(List<T> items, String continuationToken) {
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.continuationToken = continuationToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    /**
+     * Returns true if there may be more results after this page.
+     * @return true if a continuation token was returned with this page
+     */
+    public boolean hasMorePages() {
+        return continuationToken != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PaginatedResult<?> that = (PaginatedResult<?>) o;
+        return Objects.equals(items, that.items) &&
+            Objects.equals(continuationToken, that.continuationToken);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(items, continuationToken);
+    }
+
+    @Override
+    public String toString() {
+        return "PaginatedResult{" +
+            "items=" + items +
+            ", continuationToken='" + continuationToken + '\'' +
+            '}';
+    }
+}
@@ -1,27 +1,236 @@
 package com.amazon.ata.dynamodbquery.dependency;
 
-import com.amazon.ata.aws.dynamodb.DynamoDbClientProvider;
+import com.amazon.ata.dynamodbquery.client.InstrumentedDynamoDB;
+import com.amazon.ata.dynamodbquery.client.RateLimitedDynamoDB;
+import com.amazon.ata.dynamodbquery.client.RetryBudget;
+import com.amazon.ata.dynamodbquery.dao.CachingEventDao;
+import com.amazon.ata.dynamodbquery.dao.EventDao;
+import com.amazon.ata.dynamodbquery.dao.MemberDao;
+import com.amazon.ata.dynamodbquery.dao.ParallelScanner;
+import com.amazon.ata.dynamodbquery.dao.models.Event;
+import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.InviteSummary;
+import com.amazon.ata.dynamodbquery.dao.models.Member;
+import com.amazon.ata.dynamodbquery.local.LocalDynamoDB;
+import com.amazon.ata.dynamodbquery.metrics.InMemoryMetricsSink;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
+import com.amazon.ata.dynamodbquery.metrics.MetricsSink;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import dagger.Module;
 import dagger.Provides;
 
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.inject.Singleton;
 
 /**
- * Provides DynamoDBMapper instance to DAO classes.
+ * Provides AmazonDynamoDB, DynamoDBMapper, ExecutorService, MetricsSink and ParallelScanner instances to DAO classes,
+ * along with DAOs that need more than an injected constructor.
+ *
+ * The DynamoDB client's connection pool, timeouts and per-table request rate can be tuned with the
+ * "dynamodb.*" system properties below.
  */
 @Module
 public class DaoModule {
+    /** System property that selects the DAO executor: "virtual" (the default) or "cached". */
+    public static final String DAO_EXECUTOR_PROPERTY = "dao.executor";
+    /** System property that, when "true", runs the service against an in-memory LocalDynamoDB. */
+    public static final String LOCAL_DYNAMODB_PROPERTY = "dynamodb.local";
+    /** System property for the most HTTP connections the DynamoDB client keeps open. */
+    public static final String MAX_CONNECTIONS_PROPERTY = "dynamodb.maxConnections";
+    /** System property for how long, in milliseconds, to wait to open a connection to DynamoDB. */
+    public static final String CONNECTION_TIMEOUT_PROPERTY = "dynamodb.connectionTimeoutMillis";
+    /** System property for how long, in milliseconds, a single DynamoDB request may take. */
+    public static final String REQUEST_TIMEOUT_PROPERTY = "dynamodb.requestTimeoutMillis";
+    /** System property for the most requests per second to send to each table, for reads and writes each. */
+    public static final String MAX_REQUESTS_PER_SECOND_PROPERTY = "dynamodb.maxRequestsPerSecond";
+    private static final String DAO_EXECUTOR_CACHED = "cached";
+    private static final int DEFAULT_MAX_CONNECTIONS = 50;
+    private static final int DEFAULT_CONNECTION_TIMEOUT_MILLIS = 1_000;
+    private static final int DEFAULT_REQUEST_TIMEOUT_MILLIS = 3_000;
+    private static final int DEFAULT_MAX_REQUESTS_PER_SECOND = 1_000;
+    private static final double MIN_REQUESTS_PER_SECOND = 5;
+    private static final int MAX_ATTEMPTS = 4;
+
+    private final AmazonDynamoDB dynamoDbClient;
+    private final MetricsSink metricsSink;
+
+    /**
+     * Creates a DaoModule that talks to DynamoDB in us-west-2, or to an in-memory LocalDynamoDB
+     * when the system property "dynamodb.local" is "true".
+     */
+    public DaoModule() {
+        this(null);
+    }
+
+    /**
+     * Creates a DaoModule that talks to the given client, such as a LocalDynamoDB set up with
+     * latency or throttling.
+     * @param dynamoDbClient The client every DAO should use
+     */
+    public DaoModule(AmazonDynamoDB dynamoDbClient) {
+        this(dynamoDbClient, null);
+    }
+
+    /**
+     * Creates a DaoModule that talks to the given client and reports every DynamoDB call to the given sink.
+     * @param dynamoDbClient The client every DAO should use, or null to pick one as DaoModule() does
+     * @param metricsSink Where to report DynamoDB calls, or null to total them in an InMemoryMetricsSink
+     */
+    public DaoModule(AmazonDynamoDB dynamoDbClient, MetricsSink metricsSink) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.metricsSink = metricsSink;
+    }
+
+    /**
+     * Returns the client this module was given, or creates one for the in-memory tables or the
+     * appropriate region, wrapped so that calls to each table slow down when DynamoDB throttles them
+     * and retries come out of the shared RetryBudget. Every call is reported to the MetricsSink, with
+     * its latency including any throttling waits and retries.
+     * @param retryBudget The budget every retried DynamoDB call is taken from
+     * @param metricsSink Where to report each DynamoDB call
+     * @return an AmazonDynamoDB client
+     */
+    @Singleton
+    @Provides
+    public AmazonDynamoDB provideAmazonDynamoDB(RetryBudget retryBudget, MetricsSink metricsSink) {
+        AmazonDynamoDB client = dynamoDbClient;
+        if (client == null && Boolean.getBoolean(LOCAL_DYNAMODB_PROPERTY)) {
+            client = new LocalDynamoDB()
+                .createTables(Event.class, Invite.class, InviteSummary.class, Member.class, EventAnnouncement.class);
+        } else if (client == null) {
+            client = AmazonDynamoDBClientBuilder.standard()
+                .withRegion(Regions.US_WEST_2)
+                .withClientConfiguration(clientConfiguration())
+                .build();
+        }
+        return new InstrumentedDynamoDB(new RateLimitedDynamoDB(client, MIN_REQUESTS_PER_SECOND,
+            Integer.getInteger(MAX_REQUESTS_PER_SECOND_PROPERTY, DEFAULT_MAX_REQUESTS_PER_SECOND), retryBudget,
+            MAX_ATTEMPTS), metricsSink);
+    }
 
     /**
-     * Creates and returns a DynamoDBMapper instance for the appropriate region.
+     * Returns the sink this module was given, or an InMemoryMetricsSink that ranks calls by the
+     * capacity they consume.
+     * @return a MetricsSink
+     */
+    @Singleton
+    @Provides
+    public MetricsSink provideMetricsSink() {
+        return metricsSink != null ? metricsSink : new InMemoryMetricsSink();
+    }
+
+    /**
+     * Creates and returns the RetryBudget shared by every DynamoDB call. It allows one retry per ten
+     * calls, plus ten retries a second however quiet the service is.
+     * @return a RetryBudget
+     */
+    @Singleton
+    @Provides
+    public RetryBudget provideRetryBudget() {
+        return new RetryBudget(0.1, 10, 100);
+    }
+
+    /**
+     * Builds the DynamoDB client's configuration. The client doesn't retry on its own, since
+     * RateLimitedDynamoDB retries within the RetryBudget.
+     * @return the ClientConfiguration
+     */
+    private static ClientConfiguration clientConfiguration() {
+        return new ClientConfiguration()
+            .withMaxConnections(Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS))
+            .withConnectionTimeout(Integer.getInteger(CONNECTION_TIMEOUT_PROPERTY, DEFAULT_CONNECTION_TIMEOUT_MILLIS))
+            .withRequestTimeout(Integer.getInteger(REQUEST_TIMEOUT_PROPERTY, DEFAULT_REQUEST_TIMEOUT_MILLIS))
+            .withRetryPolicy(PredefinedRetryPolicies.NO_RETRY_POLICY);
+    }
+
+    /**
+     * Creates and returns a DynamoDBMapper instance for the DynamoDB client.
+     * @param dynamoDbClient The client the mapper reads and writes through
      * @return a DynamoDBMapper
      */
     @Singleton
     @Provides
-    public DynamoDBMapper provideDynamoDBMapper() {
-        return new DynamoDBMapper(DynamoDbClientProvider.getDynamoDBClient(Regions.US_WEST_2));
+    public DynamoDBMapper provideDynamoDBMapper(AmazonDynamoDB dynamoDbClient) {
+        return new DynamoDBMapper(dynamoDbClient);
+    }
+
+    /**
+     * Creates and returns the ExecutorService DAOs use for background DynamoDB calls, such as
+     * prefetching the next page of a query and the *Async methods.
+     *
+     * DAO tasks spend nearly all their time waiting on DynamoDB, so by default they run on virtual
+     * threads when the JVM has them (Java 21+), and on a cached pool of daemon threads otherwise.
+     * Set the system property "dao.executor" to "cached" to always use the cached pool. Tasks run in
+     * the activity that submitted them, so their DynamoDB calls are tagged with it.
+     *
+     * The executor doesn't have to be unbounded. Bulk writes process chunks on the calling thread as well
+     * as the executor's, and only wait on chunks already running, so an *Async bulk write running on a full
+     * pool never waits on a task queued behind itself.
+     * @return an ExecutorService
+     */
+    @Singleton
+    @Provides
+    public ExecutorService provideExecutorService() {
+        if (!DAO_EXECUTOR_CACHED.equals(System.getProperty(DAO_EXECUTOR_PROPERTY))) {
+            try {
+                return MetricsContext.propagating(
+                    (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+            } catch (ReflectiveOperationException e) {
+                // No virtual threads on this JVM
+            }
+        }
+        return MetricsContext.propagating(Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("dao-worker-%d")
+            .setDaemon(true)
+            .build()));
+    }
+
+    /**
+     * Creates and returns the EventDao, which caches up to 10,000 events for 5 minutes.
+     * @param mapper The DynamoDBMapper the DAO reads and writes events with
+     * @param dynamoDbClient The client the DAO cancels events with
+     * @param executorService The ExecutorService the DAO's *Async methods run on
+     * @return an EventDao
+     */
+    @Singleton
+    @Provides
+    public EventDao provideEventDao(DynamoDBMapper mapper, AmazonDynamoDB dynamoDbClient,
+                                    ExecutorService executorService) {
+        return new CachingEventDao(mapper, dynamoDbClient, executorService, 10_000, Duration.ofMinutes(5));
+    }
+
+    /**
+     * Creates and returns the MemberDao. Lookups for the same member share one read, and its result
+     * for one second, since members are looked up in bursts and rarely change.
+     * @param mapper The DynamoDBMapper the DAO reads and writes members with
+     * @param executorService The ExecutorService the DAO's *Async methods run on
+     * @return a MemberDao
+     */
+    @Singleton
+    @Provides
+    public MemberDao provideMemberDao(DynamoDBMapper mapper, ExecutorService executorService) {
+        return new MemberDao(mapper, executorService, Duration.ofSeconds(1));
+    }
+
+    /**
+     * Creates and returns the ParallelScanner used by full-table maintenance jobs. It scans up to one
+     * segment per core and is held to 100 read capacity units per second across all of its scans.
+     * @param mapper The DynamoDBMapper to scan with
+     * @return a ParallelScanner
+     */
+    @Singleton
+    @Provides
+    public ParallelScanner provideParallelScanner(DynamoDBMapper mapper) {
+        return new ParallelScanner(mapper, Runtime.getRuntime().availableProcessors(), 100, 1000, 100);
     }
 }
@@ -4,15 +4,21 @@ import com.amazon.ata.dynamodbquery.activity.CancelEventActivity;
 import com.amazon.ata.dynamodbquery.activity.CreateEventActivity;
 import com.amazon.ata.dynamodbquery.activity.CreateEventAnnouncementActivity;
 import com.amazon.ata.dynamodbquery.activity.CreateInviteActivity;
+import com.amazon.ata.dynamodbquery.activity.CreateInvitesActivity;
 import com.amazon.ata.dynamodbquery.activity.CreateMemberActivity;
 import com.amazon.ata.dynamodbquery.activity.DeleteMemberActivity;
 import com.amazon.ata.dynamodbquery.activity.GetEventActivity;
 import com.amazon.ata.dynamodbquery.activity.GetEventAnnouncementsActivity;
 import com.amazon.ata.dynamodbquery.activity.GetEventAnnouncementsBetweenDatesActivity;
 import com.amazon.ata.dynamodbquery.activity.GetInviteActivity;
+import com.amazon.ata.dynamodbquery.activity.GetInviteSummaryActivity;
 import com.amazon.ata.dynamodbquery.activity.GetInvitesForEventActivity;
 import com.amazon.ata.dynamodbquery.activity.GetInvitesForMemberActivity;
 import com.amazon.ata.dynamodbquery.activity.GetMemberActivity;
+import com.amazon.ata.dynamodbquery.dao.EventCancellationCascade;
+import com.amazon.ata.dynamodbquery.dao.InviteSummaryRebuildJob;
+import com.amazon.ata.dynamodbquery.dao.ParallelScanner;
+import com.amazon.ata.dynamodbquery.metrics.MetricsSink;
 
 import dagger.Component;
 
@@ -32,12 +38,20 @@ public interface ServiceComponent {
     GetInvitesForMemberActivity provideGetInvitesForMemberActivity();
     GetInvitesForEventActivity provideGetInvitesForEventActivity();
     CreateInviteActivity provideCreateInviteActivity();
+    CreateInvitesActivity provideCreateInvitesActivity();
+    GetInviteSummaryActivity provideGetInviteSummaryActivity();
 
     GetEventActivity provideGetEventActivity();
     CreateEventActivity provideCreateEventActivity();
     CancelEventActivity provideCancelEventActivity();
+    EventCancellationCascade provideEventCancellationCascade();
 
     GetEventAnnouncementsActivity provideGetEventAnnouncementsActivity();
     GetEventAnnouncementsBetweenDatesActivity provideGetEventAnnouncementsBetweenDatesActivity();
     CreateEventAnnouncementActivity provideCreateEventAnnouncementActivity();
+
+    ParallelScanner provideParallelScanner();
+    InviteSummaryRebuildJob provideInviteSummaryRebuildJob();
+
+    MetricsSink provideMetricsSink();
 }
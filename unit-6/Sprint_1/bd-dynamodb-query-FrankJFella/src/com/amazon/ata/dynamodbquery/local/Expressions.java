@@ -0,0 +1,785 @@
+package com.amazon.ata.dynamodbquery.local;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalOperator;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.google.common.collect.ImmutableSet;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Parses and evaluates the expressions DynamoDB requests carry: condition, key condition and
+ * filter expressions, projection expressions and update expressions, along with the legacy
+ * Expected/KeyConditions/QueryFilter/ScanFilter/AttributeUpdates parameters the DynamoDBMapper
+ * still sends for some calls.
+ *
+ * Update expressions may only target top-level attributes.
+ */
+final class Expressions {
+    private static final Set<String> COMPARATORS = ImmutableSet.of("=", "<>", "<", "<=", ">", ">=");
+
+    private Expressions() {
+    }
+
+    /**
+     * Parses a condition, key condition or filter expression.
+     * @param expression The expression, or null to match every item
+     * @param names The expression attribute names (#placeholders)
+     * @param values The expression attribute values (:placeholders)
+     * @return a predicate that tests an item against the expression
+     */
+    static Predicate<Map<String, AttributeValue>> condition(String expression, Map<String, String> names,
+                                                           Map<String, AttributeValue> values) {
+        if (expression == null || expression.trim().isEmpty()) {
+            return item -> true;
+        }
+        Parser parser = new Parser(expression, names, values);
+        Predicate<Map<String, AttributeValue>> condition = parser.parseCondition();
+        parser.expectEnd();
+        return condition;
+    }
+
+    /**
+     * Finds the value a key condition expression requires the given attribute to equal.
+     * @param keyCondition A predicate returned by condition()
+     * @param attributeName The attribute to look for, usually the hash key
+     * @return the value, or null if the condition doesn't pin the attribute to one value
+     */
+    static AttributeValue equalityValue(Predicate<Map<String, AttributeValue>> keyCondition, String attributeName) {
+        if (keyCondition instanceof And) {
+            AttributeValue left = equalityValue(((And) keyCondition).left, attributeName);
+            return left != null ? left : equalityValue(((And) keyCondition).right, attributeName);
+        }
+        if (keyCondition instanceof Comparison && "=".equals(((Comparison) keyCondition).operator)) {
+            Comparison comparison = (Comparison) keyCondition;
+            if (comparison.left instanceof Path && ((Path) comparison.left).isAttribute(attributeName)
+                && comparison.right instanceof Literal) {
+                return ((Literal) comparison.right).value;
+            }
+            if (comparison.right instanceof Path && ((Path) comparison.right).isAttribute(attributeName)
+                && comparison.left instanceof Literal) {
+                return ((Literal) comparison.left).value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a projection expression into the list of top-level attributes it selects.
+     * @param expression The projection expression, or null to select everything
+     * @param names The expression attribute names (#placeholders)
+     * @return the selected attribute names, or null to select everything
+     */
+    static Set<String> projection(String expression, Map<String, String> names) {
+        if (expression == null || expression.trim().isEmpty()) {
+            return null;
+        }
+        Parser parser = new Parser(expression, names, Collections.emptyMap());
+        Set<String> attributes = new LinkedHashSet<>();
+        do {
+            attributes.add(parser.parsePath().topLevelName());
+        } while (parser.accept(","));
+        parser.expectEnd();
+        return attributes;
+    }
+
+    /**
+     * Returns a copy of the item holding only the given attributes.
+     * @param item The item to project
+     * @param attributes The attributes to keep, or null to keep everything
+     * @return the projected item
+     */
+    static Map<String, AttributeValue> project(Map<String, AttributeValue> item, Set<String> attributes) {
+        if (attributes == null) {
+            return new LinkedHashMap<>(item);
+        }
+        Map<String, AttributeValue> projected = new LinkedHashMap<>();
+        for (String attribute : attributes) {
+            if (item.containsKey(attribute)) {
+                projected.put(attribute, item.get(attribute));
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * Applies an update expression to an item in place.
+     * @param expression The update expression
+     * @param names The expression attribute names (#placeholders)
+     * @param values The expression attribute values (:placeholders)
+     * @param item The item to update
+     * @return the names of the attributes the update touched
+     */
+    static Set<String> applyUpdate(String expression, Map<String, String> names, Map<String, AttributeValue> values,
+                                   Map<String, AttributeValue> item) {
+        Parser parser = new Parser(expression, names, values);
+        Map<String, AttributeValue> original = new LinkedHashMap<>(item);
+        Set<String> updated = new LinkedHashSet<>();
+        while (!parser.atEnd()) {
+            String clause = parser.next().toUpperCase(Locale.ROOT);
+            do {
+                String attribute = parser.parsePath().topLevelName();
+                updated.add(attribute);
+                switch (clause) {
+                    case "SET":
+                        parser.expect("=");
+                        AttributeValue value = parser.parseSetValue().resolve(original);
+                        if (value == null) {
+                            throw LocalDynamoDB.validationException("The provided expression refers to an " +
+                                "attribute that does not exist in the item");
+                        }
+                        item.put(attribute, value);
+                        break;
+                    case "REMOVE":
+                        item.remove(attribute);
+                        break;
+                    case "ADD":
+                        item.put(attribute, add(item.get(attribute), parser.parseOperand().resolve(original)));
+                        break;
+                    case "DELETE":
+                        AttributeValue remaining = deleteFromSet(item.get(attribute),
+                            parser.parseOperand().resolve(original));
+                        if (remaining == null) {
+                            item.remove(attribute);
+                        } else {
+                            item.put(attribute, remaining);
+                        }
+                        break;
+                    default:
+                        throw LocalDynamoDB.validationException("Invalid UpdateExpression: unexpected clause " +
+                            clause);
+                }
+            } while (parser.accept(","));
+        }
+        return updated;
+    }
+
+    /**
+     * Builds a predicate from the legacy Expected parameter.
+     * @param expected The expected attribute values
+     * @param conditionalOperator AND or OR, null for AND
+     * @return a predicate that tests an item against the expectations
+     */
+    static Predicate<Map<String, AttributeValue>> expected(Map<String, ExpectedAttributeValue> expected,
+                                                          String conditionalOperator) {
+        if (expected == null || expected.isEmpty()) {
+            return item -> true;
+        }
+        List<Predicate<Map<String, AttributeValue>>> checks = new ArrayList<>();
+        for (Map.Entry<String, ExpectedAttributeValue> entry : expected.entrySet()) {
+            String attribute = entry.getKey();
+            ExpectedAttributeValue expectation = entry.getValue();
+            if (expectation.getComparisonOperator() != null) {
+                List<AttributeValue> operands = expectation.getAttributeValueList() != null
+                    ? expectation.getAttributeValueList()
+                    : expectation.getValue() != null ? Collections.singletonList(expectation.getValue())
+                    : Collections.emptyList();
+                checks.add(item -> compare(item.get(attribute), expectation.getComparisonOperator(), operands));
+            } else if (Boolean.FALSE.equals(expectation.getExists())) {
+                checks.add(item -> !item.containsKey(attribute));
+            } else {
+                checks.add(item -> AttributeValues.equal(item.get(attribute), expectation.getValue()));
+            }
+        }
+        return combine(checks, conditionalOperator);
+    }
+
+    /**
+     * Builds a predicate from legacy KeyConditions, QueryFilter or ScanFilter conditions.
+     * @param conditions The conditions, keyed by attribute name
+     * @param conditionalOperator AND or OR, null for AND
+     * @return a predicate that tests an item against the conditions
+     */
+    static Predicate<Map<String, AttributeValue>> conditions(Map<String, Condition> conditions,
+                                                            String conditionalOperator) {
+        if (conditions == null || conditions.isEmpty()) {
+            return item -> true;
+        }
+        List<Predicate<Map<String, AttributeValue>>> checks = new ArrayList<>();
+        for (Map.Entry<String, Condition> entry : conditions.entrySet()) {
+            String attribute = entry.getKey();
+            Condition condition = entry.getValue();
+            List<AttributeValue> operands = condition.getAttributeValueList() == null
+                ? Collections.emptyList() : condition.getAttributeValueList();
+            checks.add(item -> compare(item.get(attribute), condition.getComparisonOperator(), operands));
+        }
+        return combine(checks, conditionalOperator);
+    }
+
+    /**
+     * Applies legacy AttributeUpdates to an item in place.
+     * @param updates The attribute updates, keyed by attribute name
+     * @param item The item to update
+     */
+    static void applyAttributeUpdates(Map<String, AttributeValueUpdate> updates, Map<String, AttributeValue> item) {
+        if (updates == null) {
+            return;
+        }
+        for (Map.Entry<String, AttributeValueUpdate> entry : updates.entrySet()) {
+            String attribute = entry.getKey();
+            AttributeValue value = entry.getValue().getValue();
+            String action = entry.getValue().getAction() == null
+                ? AttributeAction.PUT.toString() : entry.getValue().getAction();
+            if (AttributeAction.PUT.toString().equals(action)) {
+                item.put(attribute, value);
+            } else if (AttributeAction.ADD.toString().equals(action)) {
+                item.put(attribute, add(item.get(attribute), value));
+            } else if (value == null) {
+                item.remove(attribute);
+            } else {
+                AttributeValue remaining = deleteFromSet(item.get(attribute), value);
+                if (remaining == null) {
+                    item.remove(attribute);
+                } else {
+                    item.put(attribute, remaining);
+                }
+            }
+        }
+    }
+
+    private static Predicate<Map<String, AttributeValue>> combine(List<Predicate<Map<String, AttributeValue>>> checks,
+                                                                  String conditionalOperator) {
+        boolean or = ConditionalOperator.OR.toString().equals(conditionalOperator);
+        return item -> or ? checks.stream().anyMatch(check -> check.test(item))
+            : checks.stream().allMatch(check -> check.test(item));
+    }
+
+    private static boolean compare(AttributeValue actual, String operator, List<AttributeValue> operands) {
+        AttributeValue first = operands.isEmpty() ? null : operands.get(0);
+        Integer order = AttributeValues.compare(actual, first);
+        switch (ComparisonOperator.fromValue(operator)) {
+            case EQ:
+                return AttributeValues.equal(actual, first);
+            case NE:
+                return !AttributeValues.equal(actual, first);
+            case LT:
+                return order != null && order < 0;
+            case LE:
+                return order != null && order <= 0;
+            case GT:
+                return order != null && order > 0;
+            case GE:
+                return order != null && order >= 0;
+            case NOT_NULL:
+                return actual != null;
+            case NULL:
+                return actual == null;
+            case CONTAINS:
+                return AttributeValues.contains(actual, first);
+            case NOT_CONTAINS:
+                return actual != null && !AttributeValues.contains(actual, first);
+            case BEGINS_WITH:
+                return AttributeValues.beginsWith(actual, first);
+            case IN:
+                return operands.stream().anyMatch(operand -> AttributeValues.equal(actual, operand));
+            case BETWEEN:
+                Integer upper = AttributeValues.compare(actual, operands.get(1));
+                return order != null && upper != null && order >= 0 && upper <= 0;
+            default:
+                throw LocalDynamoDB.validationException("Unsupported comparison operator " + operator);
+        }
+    }
+
+    private static AttributeValue add(AttributeValue current, AttributeValue value) {
+        if (value == null) {
+            throw LocalDynamoDB.validationException("ADD requires a value");
+        }
+        if (current == null) {
+            return value;
+        }
+        if (current.getN() != null && value.getN() != null) {
+            return new AttributeValue().withN(
+                new BigDecimal(current.getN()).add(new BigDecimal(value.getN())).toPlainString());
+        }
+        if (current.getSS() != null && value.getSS() != null) {
+            Set<String> union = new LinkedHashSet<>(current.getSS());
+            union.addAll(value.getSS());
+            return new AttributeValue().withSS(union);
+        }
+        if (current.getNS() != null && value.getNS() != null) {
+            Set<String> union = new LinkedHashSet<>(current.getNS());
+            union.addAll(value.getNS());
+            return new AttributeValue().withNS(union);
+        }
+        if (current.getBS() != null && value.getBS() != null) {
+            Set<ByteBuffer> union = new LinkedHashSet<>(current.getBS());
+            union.addAll(value.getBS());
+            return new AttributeValue().withBS(union);
+        }
+        throw LocalDynamoDB.validationException("An operand in the update expression has an incorrect data type");
+    }
+
+    private static AttributeValue deleteFromSet(AttributeValue current, AttributeValue value) {
+        if (current == null) {
+            return null;
+        }
+        if (current.getSS() != null && value.getSS() != null) {
+            List<String> strings = new ArrayList<>(current.getSS());
+            strings.removeAll(value.getSS());
+            return strings.isEmpty() ? null : new AttributeValue().withSS(strings);
+        }
+        if (current.getNS() != null && value.getNS() != null) {
+            List<String> numbers = new ArrayList<>(current.getNS());
+            numbers.removeIf(n -> value.getNS().stream()
+                .anyMatch(other -> new BigDecimal(other).compareTo(new BigDecimal(n)) == 0));
+            return numbers.isEmpty() ? null : new AttributeValue().withNS(numbers);
+        }
+        if (current.getBS() != null && value.getBS() != null) {
+            List<ByteBuffer> binaries = new ArrayList<>(current.getBS());
+            binaries.removeAll(value.getBS());
+            return binaries.isEmpty() ? null : new AttributeValue().withBS(binaries);
+        }
+        throw LocalDynamoDB.validationException("An operand in the update expression has an incorrect data type");
+    }
+
+    /** Something in an expression that resolves to a value for a given item. */
+    private interface Operand {
+        AttributeValue resolve(Map<String, AttributeValue> item);
+    }
+
+    private static final class Literal implements Operand {
+        private final AttributeValue value;
+
+        private Literal(AttributeValue value) {
+            this.value = value;
+        }
+
+        @Override
+        public AttributeValue resolve(Map<String, AttributeValue> item) {
+            return value;
+        }
+    }
+
+    /** A document path such as name, #n, info.address or tags[2]. */
+    private static final class Path implements Operand {
+        private final List<Object> elements;
+
+        private Path(List<Object> elements) {
+            this.elements = elements;
+        }
+
+        private boolean isAttribute(String attributeName) {
+            return elements.size() == 1 && attributeName.equals(elements.get(0));
+        }
+
+        private String topLevelName() {
+            if (elements.size() != 1) {
+                throw LocalDynamoDB.validationException("Only top-level attributes are supported here, but got " +
+                    elements);
+            }
+            return (String) elements.get(0);
+        }
+
+        @Override
+        public AttributeValue resolve(Map<String, AttributeValue> item) {
+            AttributeValue current = item.get((String) elements.get(0));
+            for (int i = 1; i < elements.size() && current != null; i++) {
+                Object element = elements.get(i);
+                if (element instanceof Integer) {
+                    List<AttributeValue> list = current.getL();
+                    int index = (Integer) element;
+                    current = list == null || index >= list.size() ? null : list.get(index);
+                } else {
+                    current = current.getM() == null ? null : current.getM().get((String) element);
+                }
+            }
+            return current;
+        }
+    }
+
+    private static final class And implements Predicate<Map<String, AttributeValue>> {
+        private final Predicate<Map<String, AttributeValue>> left;
+        private final Predicate<Map<String, AttributeValue>> right;
+
+        private And(Predicate<Map<String, AttributeValue>> left, Predicate<Map<String, AttributeValue>> right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(Map<String, AttributeValue> item) {
+            return left.test(item) && right.test(item);
+        }
+    }
+
+    private static final class Comparison implements Predicate<Map<String, AttributeValue>> {
+        private final Operand left;
+        private final String operator;
+        private final Operand right;
+
+        private Comparison(Operand left, String operator, Operand right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(Map<String, AttributeValue> item) {
+            AttributeValue leftValue = left.resolve(item);
+            AttributeValue rightValue = right.resolve(item);
+            if ("=".equals(operator)) {
+                return leftValue != null && AttributeValues.equal(leftValue, rightValue);
+            }
+            if ("<>".equals(operator)) {
+                return leftValue != null && rightValue != null && !AttributeValues.equal(leftValue, rightValue);
+            }
+            Integer order = AttributeValues.compare(leftValue, rightValue);
+            if (order == null) {
+                return false;
+            }
+            switch (operator) {
+                case "<":
+                    return order < 0;
+                case "<=":
+                    return order <= 0;
+                case ">":
+                    return order > 0;
+                default:
+                    return order >= 0;
+            }
+        }
+    }
+
+    /** A recursive descent parser over the tokens of one expression. */
+    private static final class Parser {
+        private final String expression;
+        private final Map<String, String> names;
+        private final Map<String, AttributeValue> values;
+        private final List<String> tokens;
+        private int position;
+
+        private Parser(String expression, Map<String, String> names, Map<String, AttributeValue> values) {
+            this.expression = expression;
+            this.names = names == null ? Collections.emptyMap() : names;
+            this.values = values == null ? Collections.emptyMap() : values;
+            this.tokens = tokenize(expression);
+        }
+
+        private Predicate<Map<String, AttributeValue>> parseCondition() {
+            Predicate<Map<String, AttributeValue>> condition = parseAnd();
+            while (acceptKeyword("OR")) {
+                condition = condition.or(parseAnd());
+            }
+            return condition;
+        }
+
+        private Predicate<Map<String, AttributeValue>> parseAnd() {
+            Predicate<Map<String, AttributeValue>> condition = parseNot();
+            while (acceptKeyword("AND")) {
+                condition = new And(condition, parseNot());
+            }
+            return condition;
+        }
+
+        private Predicate<Map<String, AttributeValue>> parseNot() {
+            if (acceptKeyword("NOT")) {
+                return parseNot().negate();
+            }
+            if (accept("(")) {
+                Predicate<Map<String, AttributeValue>> condition = parseCondition();
+                expect(")");
+                return condition;
+            }
+            Predicate<Map<String, AttributeValue>> function = parseConditionFunction();
+            if (function != null) {
+                return function;
+            }
+
+            Operand left = parseOperand();
+            if (acceptKeyword("BETWEEN")) {
+                Operand lower = parseOperand();
+                expectKeyword("AND");
+                Operand upper = parseOperand();
+                return item -> {
+                    AttributeValue value = left.resolve(item);
+                    Integer aboveLower = AttributeValues.compare(value, lower.resolve(item));
+                    Integer belowUpper = AttributeValues.compare(value, upper.resolve(item));
+                    return aboveLower != null && belowUpper != null && aboveLower >= 0 && belowUpper <= 0;
+                };
+            }
+            if (acceptKeyword("IN")) {
+                expect("(");
+                List<Operand> candidates = new ArrayList<>();
+                do {
+                    candidates.add(parseOperand());
+                } while (accept(","));
+                expect(")");
+                return item -> {
+                    AttributeValue value = left.resolve(item);
+                    return value != null && candidates.stream()
+                        .anyMatch(candidate -> AttributeValues.equal(value, candidate.resolve(item)));
+                };
+            }
+            String operator = next();
+            if (!COMPARATORS.contains(operator)) {
+                throw syntaxError("unexpected token " + operator);
+            }
+            return new Comparison(left, operator, parseOperand());
+        }
+
+        private Predicate<Map<String, AttributeValue>> parseConditionFunction() {
+            if (position + 1 >= tokens.size() || !"(".equals(tokens.get(position + 1))) {
+                return null;
+            }
+            String function = tokens.get(position);
+            switch (function) {
+                case "attribute_exists": {
+                    position += 2;
+                    Path path = parsePath();
+                    expect(")");
+                    return item -> path.resolve(item) != null;
+                }
+                case "attribute_not_exists": {
+                    position += 2;
+                    Path path = parsePath();
+                    expect(")");
+                    return item -> path.resolve(item) == null;
+                }
+                case "attribute_type": {
+                    position += 2;
+                    Path path = parsePath();
+                    expect(",");
+                    Operand type = parseOperand();
+                    expect(")");
+                    return item -> {
+                        AttributeValue value = path.resolve(item);
+                        AttributeValue expectedType = type.resolve(item);
+                        return value != null && expectedType != null
+                            && AttributeValues.typeOf(value).equals(expectedType.getS());
+                    };
+                }
+                case "begins_with": {
+                    position += 2;
+                    Operand value = parseOperand();
+                    expect(",");
+                    Operand prefix = parseOperand();
+                    expect(")");
+                    return item -> AttributeValues.beginsWith(value.resolve(item), prefix.resolve(item));
+                }
+                case "contains": {
+                    position += 2;
+                    Operand value = parseOperand();
+                    expect(",");
+                    Operand operand = parseOperand();
+                    expect(")");
+                    return item -> AttributeValues.contains(value.resolve(item), operand.resolve(item));
+                }
+                default:
+                    return null;
+            }
+        }
+
+        private Operand parseOperand() {
+            if ("size".equals(peek()) && position + 1 < tokens.size() && "(".equals(tokens.get(position + 1))) {
+                position += 2;
+                Path path = parsePath();
+                expect(")");
+                return item -> AttributeValues.size(path.resolve(item));
+            }
+            if (peek() != null && peek().startsWith(":")) {
+                String placeholder = next();
+                AttributeValue value = values.get(placeholder);
+                if (value == null) {
+                    throw LocalDynamoDB.validationException("An expression attribute value used in expression " +
+                        "is not defined; attribute value: " + placeholder);
+                }
+                return new Literal(value);
+            }
+            return parsePath();
+        }
+
+        private Operand parseSetValue() {
+            Operand operand = parseSetOperand();
+            if (accept("+")) {
+                Operand left = operand;
+                Operand right = parseSetOperand();
+                return item -> arithmetic(left.resolve(item), right.resolve(item), false);
+            }
+            if (accept("-")) {
+                Operand left = operand;
+                Operand right = parseSetOperand();
+                return item -> arithmetic(left.resolve(item), right.resolve(item), true);
+            }
+            return operand;
+        }
+
+        private Operand parseSetOperand() {
+            if ("if_not_exists".equals(peek())) {
+                position++;
+                expect("(");
+                Path path = parsePath();
+                expect(",");
+                Operand fallback = parseOperand();
+                expect(")");
+                return item -> {
+                    AttributeValue value = path.resolve(item);
+                    return value != null ? value : fallback.resolve(item);
+                };
+            }
+            if ("list_append".equals(peek())) {
+                position++;
+                expect("(");
+                Operand first = parseSetOperand();
+                expect(",");
+                Operand second = parseSetOperand();
+                expect(")");
+                return item -> {
+                    List<AttributeValue> appended = new ArrayList<>(listOf(first.resolve(item)));
+                    appended.addAll(listOf(second.resolve(item)));
+                    return new AttributeValue().withL(appended);
+                };
+            }
+            return parseOperand();
+        }
+
+        private Path parsePath() {
+            List<Object> elements = new ArrayList<>();
+            elements.add(parseName());
+            while (true) {
+                if (accept(".")) {
+                    elements.add(parseName());
+                } else if (accept("[")) {
+                    try {
+                        elements.add(Integer.parseInt(next()));
+                    } catch (NumberFormatException e) {
+                        throw syntaxError("list index must be a number");
+                    }
+                    expect("]");
+                } else {
+                    return new Path(elements);
+                }
+            }
+        }
+
+        private String parseName() {
+            String token = next();
+            if (token.startsWith("#")) {
+                String name = names.get(token);
+                if (name == null) {
+                    throw LocalDynamoDB.validationException("An expression attribute name used in the document " +
+                        "path is not defined; attribute name: " + token);
+                }
+                return name;
+            }
+            if (token.startsWith(":") || !Character.isLetterOrDigit(token.charAt(0)) && token.charAt(0) != '_') {
+                throw syntaxError("expected an attribute name but got " + token);
+            }
+            return token;
+        }
+
+        private boolean atEnd() {
+            return position >= tokens.size();
+        }
+
+        private void expectEnd() {
+            if (!atEnd()) {
+                throw syntaxError("unexpected token " + tokens.get(position));
+            }
+        }
+
+        private String peek() {
+            return atEnd() ? null : tokens.get(position);
+        }
+
+        private String next() {
+            if (atEnd()) {
+                throw syntaxError("unexpected end of expression");
+            }
+            return tokens.get(position++);
+        }
+
+        private boolean accept(String token) {
+            if (token.equals(peek())) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            if (peek() != null && keyword.equalsIgnoreCase(peek())) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw syntaxError("expected " + token);
+            }
+        }
+
+        private void expectKeyword(String keyword) {
+            if (!acceptKeyword(keyword)) {
+                throw syntaxError("expected " + keyword);
+            }
+        }
+
+        private RuntimeException syntaxError(String problem) {
+            return LocalDynamoDB.validationException("Invalid expression \"" + expression + "\": " + problem);
+        }
+
+        private static List<String> tokenize(String expression) {
+            List<String> tokens = new ArrayList<>();
+            int i = 0;
+            while (i < expression.length()) {
+                char c = expression.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if ("(),.[]+-=".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else if (c == '<' || c == '>') {
+                    boolean twoCharacters = i + 1 < expression.length()
+                        && (expression.charAt(i + 1) == '=' || c == '<' && expression.charAt(i + 1) == '>');
+                    tokens.add(expression.substring(i, twoCharacters ? i + 2 : i + 1));
+                    i += twoCharacters ? 2 : 1;
+                } else {
+                    int start = i;
+                    while (i < expression.length() && (Character.isLetterOrDigit(expression.charAt(i))
+                        || "_#:".indexOf(expression.charAt(i)) >= 0)) {
+                        i++;
+                    }
+                    if (start == i) {
+                        throw LocalDynamoDB.validationException("Invalid expression \"" + expression +
+                            "\": unexpected character " + c);
+                    }
+                    tokens.add(expression.substring(start, i));
+                }
+            }
+            return tokens;
+        }
+
+        private static AttributeValue arithmetic(AttributeValue left, AttributeValue right, boolean subtract) {
+            if (left == null || right == null || left.getN() == null || right.getN() == null) {
+                throw LocalDynamoDB.validationException("An operand in the update expression has an incorrect " +
+                    "data type");
+            }
+            BigDecimal result = subtract ? new BigDecimal(left.getN()).subtract(new BigDecimal(right.getN()))
+                : new BigDecimal(left.getN()).add(new BigDecimal(right.getN()));
+            return new AttributeValue().withN(result.toPlainString());
+        }
+
+        private static List<AttributeValue> listOf(AttributeValue value) {
+            if (value == null || value.getL() == null) {
+                throw LocalDynamoDB.validationException("list_append requires two lists");
+            }
+            return value.getL();
+        }
+    }
+}
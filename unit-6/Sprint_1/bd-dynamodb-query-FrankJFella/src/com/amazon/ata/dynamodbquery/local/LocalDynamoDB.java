@@ -0,0 +1,916 @@
+package com.amazon.ata.dynamodbquery.local;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AmazonDynamoDBException;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionCheck;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
+import com.amazonaws.services.dynamodbv2.model.Delete;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteTableResult;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ListTablesRequest;
+import com.amazonaws.services.dynamodbv2.model.ListTablesResult;
+import com.amazonaws.services.dynamodbv2.model.Projection;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.Put;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ResourceInUseException;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.Select;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.Update;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
+
+/**
+ * An in-process stand-in for DynamoDB, for running the service and its tests without AWS.
+ * It keeps every table in memory and answers the calls the DynamoDBMapper makes: get, put, update
+ * and (conditional) delete of single items, query and scan over tables and secondary indexes,
+ * batch get/write and transactional writes.
+ *
+ * To see how the service behaves against a real table, every call can be slowed down by a fixed
+ * latency plus random jitter, a fraction of calls can be throttled at random, and each table can be
+ * held to a number of read and write capacity units per second. Consumed capacity is worked out the
+ * way DynamoDB bills it (4KB per read unit, halved for eventually consistent reads, 1KB per write
+ * unit, doubled inside transactions), returned when a request asks for it, and totalled per table.
+ *
+ * Throttled single-item, query and scan calls throw ProvisionedThroughputExceededException. Throttled
+ * items in batch calls come back as unprocessed, and a throttled transaction is canceled.
+ */
+public class LocalDynamoDB extends AbstractAmazonDynamoDB {
+    private static final int MAX_BATCH_GET_KEYS = 100;
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_TRANSACTION_ITEMS = 100;
+    private static final int MAX_PAGE_BYTES = 1024 * 1024;
+    private static final int READ_UNIT_BYTES = 4 * 1024;
+    private static final int WRITE_UNIT_BYTES = 1024;
+
+    private final ConcurrentMap<String, LocalTable> tables = new ConcurrentHashMap<>();
+    private volatile long latencyMillis;
+    private volatile long latencyJitterMillis;
+    private volatile double throttleProbability;
+    private volatile double readCapacityUnitsPerSecond;
+    private volatile double writeCapacityUnitsPerSecond;
+
+    /**
+     * Adds latency to every call.
+     * @param latency The time every call takes at least
+     * @param jitter The most extra time, picked at random per call, added on top of latency
+     * @return this LocalDynamoDB
+     */
+    public LocalDynamoDB withLatency(Duration latency, Duration jitter) {
+        if (latency.isNegative() || jitter.isNegative()) {
+            throw new IllegalArgumentException("Latency and jitter can't be negative");
+        }
+        this.latencyMillis = latency.toMillis();
+        this.latencyJitterMillis = jitter.toMillis();
+        return this;
+    }
+
+    /**
+     * Throttles a random fraction of calls, or of the items in batch calls.
+     * @param throttleProbability The chance, from 0 to 1, that a call or batch item is throttled
+     * @return this LocalDynamoDB
+     */
+    public LocalDynamoDB withThrottleProbability(double throttleProbability) {
+        if (throttleProbability < 0 || throttleProbability > 1) {
+            throw new IllegalArgumentException("Throttle probability must be between 0 and 1, but was " +
+                throttleProbability);
+        }
+        this.throttleProbability = throttleProbability;
+        return this;
+    }
+
+    /**
+     * Limits how much capacity each table may consume per second. Once a table has used its
+     * capacity for the current second, further calls against it are throttled until the next second.
+     * @param readCapacityUnitsPerSecond The read capacity per table, or 0 for no limit
+     * @param writeCapacityUnitsPerSecond The write capacity per table, or 0 for no limit
+     * @return this LocalDynamoDB
+     */
+    public LocalDynamoDB withThroughputLimit(double readCapacityUnitsPerSecond, double writeCapacityUnitsPerSecond) {
+        if (readCapacityUnitsPerSecond < 0 || writeCapacityUnitsPerSecond < 0) {
+            throw new IllegalArgumentException("Capacity limits can't be negative");
+        }
+        this.readCapacityUnitsPerSecond = readCapacityUnitsPerSecond;
+        this.writeCapacityUnitsPerSecond = writeCapacityUnitsPerSecond;
+        return this;
+    }
+
+    /**
+     * Creates a table for each DynamoDBMapper-annotated model class, including its secondary indexes.
+     * @param modelClasses The classes annotated with @DynamoDBTable
+     * @return this LocalDynamoDB
+     */
+    public LocalDynamoDB createTables(Class<?>... modelClasses) {
+        DynamoDBMapper mapper = new DynamoDBMapper(this);
+        for (Class<?> modelClass : modelClasses) {
+            CreateTableRequest request = mapper.generateCreateTableRequest(modelClass)
+                .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L));
+            if (request.getGlobalSecondaryIndexes() != null) {
+                for (GlobalSecondaryIndex index : request.getGlobalSecondaryIndexes()) {
+                    index.withProjection(new Projection().withProjectionType(ProjectionType.ALL))
+                        .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L));
+                }
+            }
+            createTable(request);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the read capacity units a table has consumed since it was created.
+     * @param tableName The table
+     * @return the consumed read capacity units
+     */
+    public double getConsumedReadCapacity(String tableName) {
+        return table(tableName).getConsumedReadCapacity();
+    }
+
+    /**
+     * Returns the write capacity units a table has consumed since it was created.
+     * @param tableName The table
+     * @return the consumed write capacity units
+     */
+    public double getConsumedWriteCapacity(String tableName) {
+        return table(tableName).getConsumedWriteCapacity();
+    }
+
+    @Override
+    public CreateTableResult createTable(CreateTableRequest request) {
+        LocalTable table = new LocalTable(request);
+        if (tables.putIfAbsent(table.getName(), table) != null) {
+            throw clientError(new ResourceInUseException("Table already exists: " + table.getName()),
+                "ResourceInUseException");
+        }
+        return new CreateTableResult().withTableDescription(table.describe());
+    }
+
+    @Override
+    public DescribeTableResult describeTable(DescribeTableRequest request) {
+        LocalTable table = table(request.getTableName());
+        Lock lock = table.getLock().readLock();
+        lock.lock();
+        try {
+            return new DescribeTableResult().withTable(table.describe());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DeleteTableResult deleteTable(DeleteTableRequest request) {
+        LocalTable table = tables.remove(request.getTableName());
+        if (table == null) {
+            throw tableNotFound(request.getTableName());
+        }
+        return new DeleteTableResult().withTableDescription(table.describe());
+    }
+
+    @Override
+    public ListTablesResult listTables(ListTablesRequest request) {
+        List<String> names = new ArrayList<>(new TreeMap<>(tables).keySet());
+        if (request.getExclusiveStartTableName() != null) {
+            names.removeIf(name -> name.compareTo(request.getExclusiveStartTableName()) <= 0);
+        }
+        if (request.getLimit() != null && names.size() > request.getLimit()) {
+            names = names.subList(0, request.getLimit());
+            return new ListTablesResult().withTableNames(names).withLastEvaluatedTableName(
+                names.get(names.size() - 1));
+        }
+        return new ListTablesResult().withTableNames(names);
+    }
+
+    @Override
+    public GetItemResult getItem(GetItemRequest request) {
+        LocalTable table = table(request.getTableName());
+        beforeCall(table, false);
+
+        Map<String, AttributeValue> item;
+        Lock lock = table.getLock().readLock();
+        lock.lock();
+        try {
+            item = table.get(request.getKey());
+        } finally {
+            lock.unlock();
+        }
+
+        double units = readUnits(AttributeValues.itemSize(item), request.getConsistentRead());
+        table.consume(false, units);
+        Set<String> projection = request.getProjectionExpression() != null
+            ? Expressions.projection(request.getProjectionExpression(), request.getExpressionAttributeNames())
+            : attributesToGet(request.getAttributesToGet());
+        return new GetItemResult()
+            .withItem(item == null ? null : copy(Expressions.project(item, projection)))
+            .withConsumedCapacity(consumedCapacity(request.getReturnConsumedCapacity(), table, units));
+    }
+
+    @Override
+    public PutItemResult putItem(PutItemRequest request) {
+        LocalTable table = table(request.getTableName());
+        beforeCall(table, true);
+
+        Map<String, AttributeValue> previous;
+        Lock lock = table.getLock().writeLock();
+        lock.lock();
+        try {
+            previous = table.get(table.key(request.getItem()));
+            checkCondition(previous, conditionOf(request.getConditionExpression(),
+                request.getExpressionAttributeNames(), request.getExpressionAttributeValues(),
+                request.getExpected(), request.getConditionalOperator()));
+            table.put(request.getItem());
+        } finally {
+            lock.unlock();
+        }
+
+        double units = writeUnits(previous, request.getItem());
+        table.consume(true, units);
+        return new PutItemResult()
+            .withAttributes(ReturnValue.ALL_OLD.toString().equals(request.getReturnValues()) ? copy(previous) : null)
+            .withConsumedCapacity(consumedCapacity(request.getReturnConsumedCapacity(), table, units));
+    }
+
+    @Override
+    public UpdateItemResult updateItem(UpdateItemRequest request) {
+        LocalTable table = table(request.getTableName());
+        beforeCall(table, true);
+
+        Map<String, AttributeValue> previous;
+        Map<String, AttributeValue> updated;
+        Set<String> updatedAttributes;
+        Lock lock = table.getLock().writeLock();
+        lock.lock();
+        try {
+            previous = table.get(request.getKey());
+            checkCondition(previous, conditionOf(request.getConditionExpression(),
+                request.getExpressionAttributeNames(), request.getExpressionAttributeValues(),
+                request.getExpected(), request.getConditionalOperator()));
+            updated = previous == null ? new LinkedHashMap<>(request.getKey()) : new LinkedHashMap<>(previous);
+            updatedAttributes = update(table, request.getUpdateExpression(), request.getExpressionAttributeNames(),
+                request.getExpressionAttributeValues(), request.getAttributeUpdates(), updated);
+            table.put(updated);
+        } finally {
+            lock.unlock();
+        }
+
+        double units = writeUnits(previous, updated);
+        table.consume(true, units);
+        return new UpdateItemResult()
+            .withAttributes(returnValues(request.getReturnValues(), previous, updated, updatedAttributes))
+            .withConsumedCapacity(consumedCapacity(request.getReturnConsumedCapacity(), table, units));
+    }
+
+    @Override
+    public DeleteItemResult deleteItem(DeleteItemRequest request) {
+        LocalTable table = table(request.getTableName());
+        beforeCall(table, true);
+
+        Map<String, AttributeValue> previous;
+        Lock lock = table.getLock().writeLock();
+        lock.lock();
+        try {
+            previous = table.get(request.getKey());
+            checkCondition(previous, conditionOf(request.getConditionExpression(),
+                request.getExpressionAttributeNames(), request.getExpressionAttributeValues(),
+                request.getExpected(), request.getConditionalOperator()));
+            if (previous != null) {
+                table.remove(previous);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        double units = writeUnits(previous, null);
+        table.consume(true, units);
+        return new DeleteItemResult()
+            .withAttributes(ReturnValue.ALL_OLD.toString().equals(request.getReturnValues()) ? copy(previous) : null)
+            .withConsumedCapacity(consumedCapacity(request.getReturnConsumedCapacity(), table, units));
+    }
+
+    @Override
+    public QueryResult query(QueryRequest request) {
+        LocalTable table = table(request.getTableName());
+        LocalTable.Index index = table.index(request.getIndexName());
+        checkConsistentRead(index, request.getConsistentRead());
+        beforeCall(table, false);
+
+        Predicate<Map<String, AttributeValue>> keyCondition;
+        AttributeValue hashValue;
+        if (request.getKeyConditionExpression() != null) {
+            keyCondition = Expressions.condition(request.getKeyConditionExpression(),
+                request.getExpressionAttributeNames(), request.getExpressionAttributeValues());
+            hashValue = Expressions.equalityValue(keyCondition, index.getHashKey());
+        } else {
+            Map<String, Condition> keyConditions = request.getKeyConditions();
+            Condition hashCondition = keyConditions == null ? null : keyConditions.get(index.getHashKey());
+            hashValue = hashCondition != null
+                && ComparisonOperator.EQ.toString().equals(hashCondition.getComparisonOperator())
+                ? hashCondition.getAttributeValueList().get(0) : null;
+            keyCondition = Expressions.conditions(keyConditions, null);
+        }
+        if (hashValue == null) {
+            throw validationException("Query condition missed key schema element: " + index.getHashKey());
+        }
+        Predicate<Map<String, AttributeValue>> filter = request.getFilterExpression() != null
+            ? Expressions.condition(request.getFilterExpression(), request.getExpressionAttributeNames(),
+                request.getExpressionAttributeValues())
+            : Expressions.conditions(request.getQueryFilter(), request.getConditionalOperator());
+        boolean forward = !Boolean.FALSE.equals(request.getScanIndexForward());
+
+        Page page;
+        Lock lock = table.getLock().readLock();
+        lock.lock();
+        try {
+            page = readPage(index, index.partition(hashValue, request.getExclusiveStartKey(), forward),
+                keyCondition, filter, request.getLimit());
+        } finally {
+            lock.unlock();
+        }
+
+        double units = readUnits(page.bytesRead, request.getConsistentRead());
+        table.consume(false, units);
+        QueryResult result = new QueryResult()
+            .withCount(page.items.size())
+            .withScannedCount(page.scannedCount)
+            .withLastEvaluatedKey(page.lastEvaluatedKey)
+            .withConsumedCapacity(consumedCapacity(request.getReturnConsumedCapacity(), table, units));
+        if (!Select.COUNT.toString().equals(request.getSelect())) {
+            result.setItems(project(page.items, request.getProjectionExpression(),
+                request.getExpressionAttributeNames(), request.getAttributesToGet()));
+        }
+        return result;
+    }
+
+    @Override
+    public ScanResult scan(ScanRequest request) {
+        LocalTable table = table(request.getTableName());
+        LocalTable.Index index = table.index(request.getIndexName());
+        checkConsistentRead(index, request.getConsistentRead());
+        Integer segment = request.getSegment();
+        Integer totalSegments = request.getTotalSegments();
+        if ((segment == null) != (totalSegments == null)
+            || totalSegments != null && (totalSegments < 1 || segment < 0 || segment >= totalSegments)) {
+            throw validationException("Segment must be at least 0 and less than TotalSegments, and both must be " +
+                "given together");
+        }
+        beforeCall(table, false);
+
+        Predicate<Map<String, AttributeValue>> inSegment = totalSegments == null ? item -> true
+            : item -> index.segment(item, totalSegments) == segment;
+        Predicate<Map<String, AttributeValue>> filter = request.getFilterExpression() != null
+            ? Expressions.condition(request.getFilterExpression(), request.getExpressionAttributeNames(),
+                request.getExpressionAttributeValues())
+            : Expressions.conditions(request.getScanFilter(), request.getConditionalOperator());
+
+        Page page;
+        Lock lock = table.getLock().readLock();
+        lock.lock();
+        try {
+            page = readPage(index, index.all(request.getExclusiveStartKey()), inSegment, filter, request.getLimit());
+        } finally {
+            lock.unlock();
+        }
+
+        double units = readUnits(page.bytesRead, request.getConsistentRead());
+        table.consume(false, units);
+        ScanResult result = new ScanResult()
+            .withCount(page.items.size())
+            .withScannedCount(page.scannedCount)
+            .withLastEvaluatedKey(page.lastEvaluatedKey)
+            .withConsumedCapacity(consumedCapacity(request.getReturnConsumedCapacity(), table, units));
+        if (!Select.COUNT.toString().equals(request.getSelect())) {
+            result.setItems(project(page.items, request.getProjectionExpression(),
+                request.getExpressionAttributeNames(), request.getAttributesToGet()));
+        }
+        return result;
+    }
+
+    @Override
+    public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+        int keyCount = request.getRequestItems().values().stream().mapToInt(keys -> keys.getKeys().size()).sum();
+        if (keyCount > MAX_BATCH_GET_KEYS) {
+            throw validationException("Too many items requested for the BatchGetItem call");
+        }
+        sleepForLatency();
+
+        Map<String, List<Map<String, AttributeValue>>> responses = new LinkedHashMap<>();
+        Map<String, KeysAndAttributes> unprocessedKeys = new LinkedHashMap<>();
+        List<ConsumedCapacity> consumedCapacity = new ArrayList<>();
+        for (Map.Entry<String, KeysAndAttributes> entry : request.getRequestItems().entrySet()) {
+            LocalTable table = table(entry.getKey());
+            KeysAndAttributes keysAndAttributes = entry.getValue();
+            Set<String> projection = keysAndAttributes.getProjectionExpression() != null
+                ? Expressions.projection(keysAndAttributes.getProjectionExpression(),
+                    keysAndAttributes.getExpressionAttributeNames())
+                : attributesToGet(keysAndAttributes.getAttributesToGet());
+
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            List<Map<String, AttributeValue>> unprocessed = new ArrayList<>();
+            double units = 0;
+            for (Map<String, AttributeValue> key : keysAndAttributes.getKeys()) {
+                if (isThrottled(table, false)) {
+                    unprocessed.add(key);
+                    continue;
+                }
+                Map<String, AttributeValue> item;
+                Lock lock = table.getLock().readLock();
+                lock.lock();
+                try {
+                    item = table.get(key);
+                } finally {
+                    lock.unlock();
+                }
+                double itemUnits = readUnits(AttributeValues.itemSize(item), keysAndAttributes.getConsistentRead());
+                table.consume(false, itemUnits);
+                units += itemUnits;
+                if (item != null) {
+                    items.add(copy(Expressions.project(item, projection)));
+                }
+            }
+
+            responses.put(table.getName(), items);
+            if (!unprocessed.isEmpty()) {
+                unprocessedKeys.put(table.getName(), keysAndAttributes.clone().withKeys(unprocessed));
+            }
+            ConsumedCapacity tableCapacity = consumedCapacity(request.getReturnConsumedCapacity(), table, units);
+            if (tableCapacity != null) {
+                consumedCapacity.add(tableCapacity);
+            }
+        }
+        return new BatchGetItemResult()
+            .withResponses(responses)
+            .withUnprocessedKeys(unprocessedKeys)
+            .withConsumedCapacity(consumedCapacity.isEmpty() ? null : consumedCapacity);
+    }
+
+    @Override
+    public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+        int itemCount = request.getRequestItems().values().stream().mapToInt(List::size).sum();
+        if (itemCount > MAX_BATCH_WRITE_ITEMS) {
+            throw validationException("Too many items requested for the BatchWriteItem call");
+        }
+        sleepForLatency();
+
+        Map<String, List<WriteRequest>> unprocessedItems = new LinkedHashMap<>();
+        List<ConsumedCapacity> consumedCapacity = new ArrayList<>();
+        for (Map.Entry<String, List<WriteRequest>> entry : request.getRequestItems().entrySet()) {
+            LocalTable table = table(entry.getKey());
+            List<WriteRequest> unprocessed = new ArrayList<>();
+            double units = 0;
+            for (WriteRequest writeRequest : entry.getValue()) {
+                if (isThrottled(table, true)) {
+                    unprocessed.add(writeRequest);
+                    continue;
+                }
+                Map<String, AttributeValue> previous;
+                Map<String, AttributeValue> written = writeRequest.getPutRequest() == null ? null
+                    : writeRequest.getPutRequest().getItem();
+                Lock lock = table.getLock().writeLock();
+                lock.lock();
+                try {
+                    if (written != null) {
+                        previous = table.get(table.key(written));
+                        table.put(written);
+                    } else {
+                        previous = table.get(writeRequest.getDeleteRequest().getKey());
+                        if (previous != null) {
+                            table.remove(previous);
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                double itemUnits = writeUnits(previous, written);
+                table.consume(true, itemUnits);
+                units += itemUnits;
+            }
+
+            if (!unprocessed.isEmpty()) {
+                unprocessedItems.put(table.getName(), unprocessed);
+            }
+            ConsumedCapacity tableCapacity = consumedCapacity(request.getReturnConsumedCapacity(), table, units);
+            if (tableCapacity != null) {
+                consumedCapacity.add(tableCapacity);
+            }
+        }
+        return new BatchWriteItemResult()
+            .withUnprocessedItems(unprocessedItems)
+            .withConsumedCapacity(consumedCapacity.isEmpty() ? null : consumedCapacity);
+    }
+
+    @Override
+    public TransactWriteItemsResult transactWriteItems(TransactWriteItemsRequest request) {
+        List<TransactWriteItem> transactItems = request.getTransactItems();
+        if (transactItems == null || transactItems.isEmpty() || transactItems.size() > MAX_TRANSACTION_ITEMS) {
+            throw validationException("A transaction must contain between 1 and " + MAX_TRANSACTION_ITEMS +
+                " items");
+        }
+        sleepForLatency();
+
+        List<TransactionAction> actions = new ArrayList<>();
+        Map<String, LocalTable> involvedTables = new TreeMap<>();
+        for (TransactWriteItem transactItem : transactItems) {
+            TransactionAction action = new TransactionAction(transactItem);
+            actions.add(action);
+            involvedTables.put(action.tableName, table(action.tableName));
+        }
+
+        // Lock tables in name order so concurrent transactions can't deadlock
+        List<Lock> locks = new ArrayList<>();
+        for (LocalTable table : involvedTables.values()) {
+            Lock lock = table.getLock().writeLock();
+            lock.lock();
+            locks.add(lock);
+        }
+        Map<String, Double> unitsByTable = new LinkedHashMap<>();
+        try {
+            List<CancellationReason> reasons = new ArrayList<>();
+            Set<String> seenKeys = new LinkedHashSet<>();
+            boolean canceled = false;
+            for (TransactionAction action : actions) {
+                LocalTable table = involvedTables.get(action.tableName);
+                if (!seenKeys.add(action.tableName + table.key(action.key()))) {
+                    throw validationException("Transaction request cannot include multiple operations on one item");
+                }
+                Map<String, AttributeValue> previous = table.get(table.key(action.key()));
+                String code = "None";
+                if (isThrottled(table, true)) {
+                    code = "ThrottlingError";
+                } else if (!action.condition.test(orEmpty(previous))) {
+                    code = "ConditionalCheckFailed";
+                } else {
+                    // Work out every write before applying any, so a bad update can't half-apply the transaction
+                    action.prepare(table, previous);
+                }
+                canceled |= !"None".equals(code);
+                reasons.add(new CancellationReason().withCode(code)
+                    .withMessage("None".equals(code) ? null : "ConditionalCheckFailed".equals(code)
+                        ? "The conditional request failed" : "Throughput exceeds the current capacity"));
+            }
+            if (canceled) {
+                String codes = reasons.stream().map(CancellationReason::getCode)
+                    .reduce((left, right) -> left + ", " + right).orElse("");
+                throw clientError(new TransactionCanceledException("Transaction cancelled, please refer " +
+                    "cancellation reasons for specific reasons [" + codes + "]").withCancellationReasons(reasons),
+                    "TransactionCanceledException");
+            }
+
+            for (TransactionAction action : actions) {
+                LocalTable table = involvedTables.get(action.tableName);
+                if (action.isWrite()) {
+                    unitsByTable.merge(table.getName(), 2 * writeUnits(action.previous, action.written), Double::sum);
+                }
+                action.commit(table);
+            }
+        } finally {
+            for (Lock lock : locks) {
+                lock.unlock();
+            }
+        }
+
+        List<ConsumedCapacity> consumedCapacity = new ArrayList<>();
+        for (Map.Entry<String, Double> tableUnits : unitsByTable.entrySet()) {
+            LocalTable table = involvedTables.get(tableUnits.getKey());
+            table.consume(true, tableUnits.getValue());
+            ConsumedCapacity tableCapacity = consumedCapacity(request.getReturnConsumedCapacity(), table,
+                tableUnits.getValue());
+            if (tableCapacity != null) {
+                consumedCapacity.add(tableCapacity);
+            }
+        }
+        return new TransactWriteItemsResult().withConsumedCapacity(consumedCapacity.isEmpty() ? null
+            : consumedCapacity);
+    }
+
+    @Override
+    public void shutdown() {
+        tables.clear();
+    }
+
+    /**
+     * Creates the exception DynamoDB returns for a malformed request.
+     * @param message What is wrong with the request
+     * @return the exception
+     */
+    static AmazonDynamoDBException validationException(String message) {
+        return clientError(new AmazonDynamoDBException(message), "ValidationException");
+    }
+
+    private LocalTable table(String tableName) {
+        LocalTable table = tableName == null ? null : tables.get(tableName);
+        if (table == null) {
+            throw tableNotFound(tableName);
+        }
+        return table;
+    }
+
+    private void beforeCall(LocalTable table, boolean write) {
+        sleepForLatency();
+        if (isThrottled(table, write)) {
+            throw clientError(new ProvisionedThroughputExceededException("The level of configured provisioned " +
+                "throughput for the table was exceeded: " + table.getName()), "ProvisionedThroughputExceededException");
+        }
+    }
+
+    private boolean isThrottled(LocalTable table, boolean write) {
+        double limit = write ? writeCapacityUnitsPerSecond : readCapacityUnitsPerSecond;
+        return ThreadLocalRandom.current().nextDouble() < throttleProbability || !table.hasCapacity(write, limit);
+    }
+
+    private void sleepForLatency() {
+        long sleepMillis = latencyMillis
+            + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0);
+        if (sleepMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Page readPage(LocalTable.Index index, Iterator<Map<String, AttributeValue>> candidates,
+                                 Predicate<Map<String, AttributeValue>> keyCondition,
+                                 Predicate<Map<String, AttributeValue>> filter, Integer limit) {
+        Page page = new Page();
+        Map<String, AttributeValue> lastRead = null;
+        while (candidates.hasNext()) {
+            Map<String, AttributeValue> item = candidates.next();
+            if (!keyCondition.test(item)) {
+                continue;
+            }
+            // Only hand back a LastEvaluatedKey when there really is another item to read
+            if ((limit != null && page.scannedCount >= limit) || page.bytesRead >= MAX_PAGE_BYTES) {
+                page.lastEvaluatedKey = index.lastEvaluatedKey(lastRead);
+                break;
+            }
+            Map<String, AttributeValue> projected = index.project(item);
+            page.scannedCount++;
+            page.bytesRead += AttributeValues.itemSize(projected);
+            lastRead = item;
+            if (filter.test(projected)) {
+                page.items.add(projected);
+            }
+        }
+        return page;
+    }
+
+    private static Set<String> update(LocalTable table, String updateExpression, Map<String, String> names,
+                                      Map<String, AttributeValue> values,
+                                      Map<String, AttributeValueUpdate> attributeUpdates,
+                                      Map<String, AttributeValue> item) {
+        Set<String> updatedAttributes;
+        if (updateExpression != null) {
+            updatedAttributes = Expressions.applyUpdate(updateExpression, names, values, item);
+        } else {
+            Expressions.applyAttributeUpdates(attributeUpdates, item);
+            updatedAttributes = attributeUpdates == null ? new LinkedHashSet<>()
+                : new LinkedHashSet<>(attributeUpdates.keySet());
+        }
+        for (String attribute : updatedAttributes) {
+            if (table.isKeyAttribute(attribute)) {
+                throw validationException("One or more parameter values were invalid: Cannot update attribute " +
+                    attribute + ". This attribute is part of the key");
+            }
+        }
+        return updatedAttributes;
+    }
+
+    private static Map<String, AttributeValue> returnValues(String returnValues, Map<String, AttributeValue> previous,
+                                                            Map<String, AttributeValue> updated,
+                                                            Set<String> updatedAttributes) {
+        if (returnValues == null) {
+            return null;
+        }
+        switch (ReturnValue.fromValue(returnValues)) {
+            case ALL_OLD:
+                return copy(previous);
+            case UPDATED_OLD:
+                return previous == null ? null : copy(Expressions.project(previous, updatedAttributes));
+            case ALL_NEW:
+                return copy(updated);
+            case UPDATED_NEW:
+                return copy(Expressions.project(updated, updatedAttributes));
+            default:
+                return null;
+        }
+    }
+
+    private static Predicate<Map<String, AttributeValue>> conditionOf(
+        String conditionExpression, Map<String, String> names, Map<String, AttributeValue> values,
+        Map<String, ExpectedAttributeValue> expected, String conditionalOperator) {
+        if (conditionExpression != null) {
+            return Expressions.condition(conditionExpression, names, values);
+        }
+        return Expressions.expected(expected, conditionalOperator);
+    }
+
+    private static void checkCondition(Map<String, AttributeValue> item,
+                                       Predicate<Map<String, AttributeValue>> condition) {
+        if (!condition.test(orEmpty(item))) {
+            throw clientError(new ConditionalCheckFailedException("The conditional request failed"),
+                "ConditionalCheckFailedException");
+        }
+    }
+
+    private static void checkConsistentRead(LocalTable.Index index, Boolean consistentRead) {
+        if (Boolean.TRUE.equals(consistentRead) && index.isSecondary()) {
+            throw validationException("Consistent reads are not supported on global secondary indexes");
+        }
+    }
+
+    private static List<Map<String, AttributeValue>> project(List<Map<String, AttributeValue>> items,
+                                                             String projectionExpression, Map<String, String> names,
+                                                             List<String> attributesToGet) {
+        Set<String> projection = projectionExpression != null
+            ? Expressions.projection(projectionExpression, names) : attributesToGet(attributesToGet);
+        List<Map<String, AttributeValue>> projected = new ArrayList<>(items.size());
+        for (Map<String, AttributeValue> item : items) {
+            projected.add(copy(Expressions.project(item, projection)));
+        }
+        return projected;
+    }
+
+    private static Set<String> attributesToGet(List<String> attributesToGet) {
+        return attributesToGet == null || attributesToGet.isEmpty() ? null : new LinkedHashSet<>(attributesToGet);
+    }
+
+    private static double readUnits(long bytes, Boolean consistentRead) {
+        double units = Math.max(1, Math.ceil((double) bytes / READ_UNIT_BYTES));
+        return Boolean.TRUE.equals(consistentRead) ? units : units / 2;
+    }
+
+    private static double writeUnits(Map<String, AttributeValue> previous, Map<String, AttributeValue> written) {
+        int bytes = Math.max(AttributeValues.itemSize(previous), AttributeValues.itemSize(written));
+        return Math.max(1, Math.ceil((double) bytes / WRITE_UNIT_BYTES));
+    }
+
+    private static ConsumedCapacity consumedCapacity(String returnConsumedCapacity, LocalTable table, double units) {
+        if (returnConsumedCapacity == null || ReturnConsumedCapacity.NONE.toString().equals(returnConsumedCapacity)) {
+            return null;
+        }
+        return new ConsumedCapacity().withTableName(table.getName()).withCapacityUnits(units);
+    }
+
+    private static Map<String, AttributeValue> orEmpty(Map<String, AttributeValue> item) {
+        return item == null ? new LinkedHashMap<>() : item;
+    }
+
+    private static Map<String, AttributeValue> copy(Map<String, AttributeValue> item) {
+        if (item == null) {
+            return null;
+        }
+        Map<String, AttributeValue> copy = new LinkedHashMap<>();
+        item.forEach((attribute, value) -> copy.put(attribute, value.clone()));
+        return copy;
+    }
+
+    private static ResourceNotFoundException tableNotFound(String tableName) {
+        return clientError(new ResourceNotFoundException("Requested resource not found: Table: " + tableName +
+            " not found"), "ResourceNotFoundException");
+    }
+
+    private static <T extends AmazonServiceException> T clientError(T exception, String errorCode) {
+        exception.setErrorCode(errorCode);
+        exception.setErrorType(AmazonServiceException.ErrorType.Client);
+        exception.setStatusCode(400);
+        exception.setServiceName("AmazonDynamoDBv2");
+        return exception;
+    }
+
+    /** One page of query or scan results, before projection. */
+    private static final class Page {
+        private final List<Map<String, AttributeValue>> items = new ArrayList<>();
+        private int scannedCount;
+        private long bytesRead;
+        private Map<String, AttributeValue> lastEvaluatedKey;
+    }
+
+    /** One Put, Update, Delete or ConditionCheck inside a transaction. */
+    private static final class TransactionAction {
+        private final String tableName;
+        private final Put put;
+        private final Update update;
+        private final Delete delete;
+        private final ConditionCheck conditionCheck;
+        private final Predicate<Map<String, AttributeValue>> condition;
+        private Map<String, AttributeValue> previous;
+        private Map<String, AttributeValue> written;
+
+        private TransactionAction(TransactWriteItem item) {
+            this.put = item.getPut();
+            this.update = item.getUpdate();
+            this.delete = item.getDelete();
+            this.conditionCheck = item.getConditionCheck();
+            if (put != null) {
+                tableName = put.getTableName();
+                condition = Expressions.condition(put.getConditionExpression(), put.getExpressionAttributeNames(),
+                    put.getExpressionAttributeValues());
+            } else if (update != null) {
+                tableName = update.getTableName();
+                condition = Expressions.condition(update.getConditionExpression(),
+                    update.getExpressionAttributeNames(), update.getExpressionAttributeValues());
+            } else if (delete != null) {
+                tableName = delete.getTableName();
+                condition = Expressions.condition(delete.getConditionExpression(),
+                    delete.getExpressionAttributeNames(), delete.getExpressionAttributeValues());
+            } else if (conditionCheck != null) {
+                tableName = conditionCheck.getTableName();
+                condition = Expressions.condition(conditionCheck.getConditionExpression(),
+                    conditionCheck.getExpressionAttributeNames(), conditionCheck.getExpressionAttributeValues());
+            } else {
+                throw validationException("A transaction item must have exactly one of Put, Update, Delete or " +
+                    "ConditionCheck");
+            }
+        }
+
+        private Map<String, AttributeValue> key() {
+            if (put != null) {
+                return put.getItem();
+            } else if (update != null) {
+                return update.getKey();
+            } else if (delete != null) {
+                return delete.getKey();
+            }
+            return conditionCheck.getKey();
+        }
+
+        private boolean isWrite() {
+            return conditionCheck == null;
+        }
+
+        private void prepare(LocalTable table, Map<String, AttributeValue> previous) {
+            this.previous = previous;
+            if (put != null) {
+                table.validate(put.getItem());
+                written = put.getItem();
+            } else if (update != null) {
+                Map<String, AttributeValue> updated = previous == null ? new LinkedHashMap<>(update.getKey())
+                    : new LinkedHashMap<>(previous);
+                update(table, update.getUpdateExpression(), update.getExpressionAttributeNames(),
+                    update.getExpressionAttributeValues(), null, updated);
+                table.validate(updated);
+                written = updated;
+            }
+        }
+
+        private void commit(LocalTable table) {
+            if (written != null) {
+                table.put(written);
+            } else if (delete != null && previous != null) {
+                table.remove(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,530 @@
+package com.amazon.ata.dynamodbquery.local;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.IndexStatus;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndex;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.Projection;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TableStatus;
+import com.google.common.collect.Iterators;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One in-memory table: its key schema, its items, the secondary indexes over them and the
+ * capacity it has consumed.
+ *
+ * Items are kept sorted by hash key and then by range key, and each secondary index keeps its own
+ * sorted view of the items that carry its key attributes, so queries and scans walk the same
+ * order every time. Callers hold the table's lock around every read or write.
+ */
+final class LocalTable {
+    private static final Comparator<List<KeyValue>> SORT_KEY_ORDER = (left, right) -> {
+        for (int i = 0; i < Math.min(left.size(), right.size()); i++) {
+            int result = left.get(i).compareTo(right.get(i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(left.size(), right.size());
+    };
+
+    private final String name;
+    private final List<KeySchemaElement> keySchema;
+    private final List<AttributeDefinition> attributeDefinitions;
+    private final Map<String, String> attributeTypes = new LinkedHashMap<>();
+    private final Index primaryIndex;
+    private final Map<String, Index> secondaryIndexes = new LinkedHashMap<>();
+    private final Set<String> localIndexNames = new LinkedHashSet<>();
+    private final Date creationDateTime = new Date();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final DoubleAdder consumedReadCapacity = new DoubleAdder();
+    private final DoubleAdder consumedWriteCapacity = new DoubleAdder();
+    private long throughputWindowSecond;
+    private double readCapacityInWindow;
+    private double writeCapacityInWindow;
+
+    /**
+     * Creates an empty table from a CreateTableRequest.
+     * @param request The request describing the table
+     */
+    LocalTable(CreateTableRequest request) {
+        this.name = request.getTableName();
+        this.keySchema = request.getKeySchema();
+        this.attributeDefinitions = request.getAttributeDefinitions();
+        if (attributeDefinitions != null) {
+            for (AttributeDefinition definition : attributeDefinitions) {
+                attributeTypes.put(definition.getAttributeName(), definition.getAttributeType());
+            }
+        }
+        this.primaryIndex = new Index(null, keySchema, null, null);
+        if (request.getGlobalSecondaryIndexes() != null) {
+            for (GlobalSecondaryIndex index : request.getGlobalSecondaryIndexes()) {
+                secondaryIndexes.put(index.getIndexName(),
+                    new Index(index.getIndexName(), index.getKeySchema(), index.getProjection(), primaryIndex));
+            }
+        }
+        if (request.getLocalSecondaryIndexes() != null) {
+            for (LocalSecondaryIndex index : request.getLocalSecondaryIndexes()) {
+                localIndexNames.add(index.getIndexName());
+                secondaryIndexes.put(index.getIndexName(),
+                    new Index(index.getIndexName(), index.getKeySchema(), index.getProjection(), primaryIndex));
+            }
+        }
+        for (Index index : secondaryIndexes.values()) {
+            requireDefined(index.hashKey);
+            requireDefined(index.rangeKey);
+        }
+        requireDefined(primaryIndex.hashKey);
+        requireDefined(primaryIndex.rangeKey);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    ReadWriteLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Returns the index to read from.
+     * @param indexName The secondary index name, or null for the table itself
+     * @return the index
+     */
+    Index index(String indexName) {
+        if (indexName == null) {
+            return primaryIndex;
+        }
+        Index index = secondaryIndexes.get(indexName);
+        if (index == null) {
+            throw LocalDynamoDB.validationException("The table does not have the specified index: " + indexName);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the stored item with the given primary key.
+     * @param key The primary key
+     * @return the item, or null if there isn't one
+     */
+    Map<String, AttributeValue> get(Map<String, AttributeValue> key) {
+        Map<String, AttributeValue> primaryKey = key(key);
+        if (primaryKey.size() != key.size()) {
+            throw LocalDynamoDB.validationException("The provided key element does not match the schema");
+        }
+        NavigableMap<List<KeyValue>, Map<String, AttributeValue>> partition =
+            primaryIndex.partitions.get(new KeyValue(primaryKey.get(primaryIndex.hashKey)));
+        return partition == null ? null : partition.get(primaryIndex.sortKey(primaryKey));
+    }
+
+    /**
+     * Stores an item, replacing any item with the same primary key.
+     * @param item The item to store
+     */
+    void put(Map<String, AttributeValue> item) {
+        validate(item);
+        Map<String, AttributeValue> stored = new LinkedHashMap<>();
+        item.forEach((attribute, value) -> stored.put(attribute, value.clone()));
+
+        Map<String, AttributeValue> previous = get(key(stored));
+        if (previous != null) {
+            remove(previous);
+        }
+        primaryIndex.add(stored);
+        for (Index index : secondaryIndexes.values()) {
+            index.add(stored);
+        }
+    }
+
+    /**
+     * Checks that an item could be stored: it has the table's key attributes, and every key attribute
+     * of the table and its indexes has the type the table defines for it.
+     * @param item The item to check
+     */
+    void validate(Map<String, AttributeValue> item) {
+        key(item);
+        for (Index index : secondaryIndexes.values()) {
+            index.validateKeyTypes(item);
+        }
+    }
+
+    /**
+     * Removes an item from the table and its indexes.
+     * @param item The stored item to remove
+     */
+    void remove(Map<String, AttributeValue> item) {
+        primaryIndex.remove(item);
+        for (Index index : secondaryIndexes.values()) {
+            index.remove(item);
+        }
+    }
+
+    /**
+     * Extracts the primary key from an item, checking that every key attribute is present and has
+     * the type the table defines for it.
+     * @param item The item or key
+     * @return the primary key
+     */
+    Map<String, AttributeValue> key(Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        for (KeySchemaElement element : keySchema) {
+            AttributeValue value = item == null ? null : item.get(element.getAttributeName());
+            if (value == null) {
+                throw LocalDynamoDB.validationException("One of the required keys was not given a value: " +
+                    element.getAttributeName());
+            }
+            if (!AttributeValues.typeOf(value).equals(attributeTypes.get(element.getAttributeName()))) {
+                throw LocalDynamoDB.validationException("One or more parameter values were invalid: Type " +
+                    "mismatch for key " + element.getAttributeName() + " expected: " +
+                    attributeTypes.get(element.getAttributeName()) + " actual: " + AttributeValues.typeOf(value));
+            }
+            key.put(element.getAttributeName(), value);
+        }
+        return key;
+    }
+
+    /**
+     * Returns true if the attribute is part of the table's primary key.
+     */
+    boolean isKeyAttribute(String attributeName) {
+        return attributeName.equals(primaryIndex.hashKey) || attributeName.equals(primaryIndex.rangeKey);
+    }
+
+    int itemCount() {
+        return primaryIndex.partitions.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Returns false if the table has already used its per-second capacity for this kind of request.
+     * @param write True for writes, false for reads
+     * @param capacityUnitsPerSecond The table's limit, or 0 for no limit
+     */
+    synchronized boolean hasCapacity(boolean write, double capacityUnitsPerSecond) {
+        rollThroughputWindow();
+        double used = write ? writeCapacityInWindow : readCapacityInWindow;
+        return capacityUnitsPerSecond <= 0 || used < capacityUnitsPerSecond;
+    }
+
+    /**
+     * Records capacity consumed by a request.
+     * @param write True for writes, false for reads
+     * @param capacityUnits The capacity units used
+     */
+    synchronized void consume(boolean write, double capacityUnits) {
+        rollThroughputWindow();
+        if (write) {
+            writeCapacityInWindow += capacityUnits;
+            consumedWriteCapacity.add(capacityUnits);
+        } else {
+            readCapacityInWindow += capacityUnits;
+            consumedReadCapacity.add(capacityUnits);
+        }
+    }
+
+    double getConsumedReadCapacity() {
+        return consumedReadCapacity.sum();
+    }
+
+    double getConsumedWriteCapacity() {
+        return consumedWriteCapacity.sum();
+    }
+
+    TableDescription describe() {
+        TableDescription description = new TableDescription()
+            .withTableName(name)
+            .withTableStatus(TableStatus.ACTIVE)
+            .withKeySchema(keySchema)
+            .withAttributeDefinitions(attributeDefinitions)
+            .withCreationDateTime(creationDateTime)
+            .withItemCount((long) itemCount());
+        List<GlobalSecondaryIndexDescription> globalIndexes = new ArrayList<>();
+        List<LocalSecondaryIndexDescription> localIndexes = new ArrayList<>();
+        for (Index index : secondaryIndexes.values()) {
+            if (localIndexNames.contains(index.name)) {
+                localIndexes.add(new LocalSecondaryIndexDescription()
+                    .withIndexName(index.name)
+                    .withKeySchema(index.keySchema)
+                    .withProjection(index.projection));
+            } else {
+                globalIndexes.add(new GlobalSecondaryIndexDescription()
+                    .withIndexName(index.name)
+                    .withKeySchema(index.keySchema)
+                    .withProjection(index.projection)
+                    .withIndexStatus(IndexStatus.ACTIVE));
+            }
+        }
+        if (!globalIndexes.isEmpty()) {
+            description.setGlobalSecondaryIndexes(globalIndexes);
+        }
+        if (!localIndexes.isEmpty()) {
+            description.setLocalSecondaryIndexes(localIndexes);
+        }
+        return description;
+    }
+
+    private void rollThroughputWindow() {
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        if (second != throughputWindowSecond) {
+            throughputWindowSecond = second;
+            readCapacityInWindow = 0;
+            writeCapacityInWindow = 0;
+        }
+    }
+
+    private void requireDefined(String attributeName) {
+        if (attributeName != null && !attributeTypes.containsKey(attributeName)) {
+            throw LocalDynamoDB.validationException("One or more parameter values were invalid: Some index key " +
+                "attributes are not defined in AttributeDefinitions: " + attributeName);
+        }
+    }
+
+    /**
+     * The table itself or one of its secondary indexes: items grouped by hash key, each group sorted
+     * by range key. Secondary indexes break ties on their range key with the table's primary key.
+     */
+    final class Index {
+        private final String name;
+        private final List<KeySchemaElement> keySchema;
+        private final Projection projection;
+        private final Index tableIndex;
+        private final String hashKey;
+        private final String rangeKey;
+        private final NavigableMap<KeyValue, NavigableMap<List<KeyValue>, Map<String, AttributeValue>>> partitions =
+            new TreeMap<>();
+
+        private Index(String name, List<KeySchemaElement> keySchema, Projection projection, Index tableIndex) {
+            this.name = name;
+            this.keySchema = keySchema;
+            this.projection = projection == null ? new Projection().withProjectionType(ProjectionType.ALL)
+                : projection;
+            this.tableIndex = tableIndex;
+            String hash = null;
+            String range = null;
+            for (KeySchemaElement element : keySchema) {
+                if (KeyType.HASH.toString().equals(element.getKeyType())) {
+                    hash = element.getAttributeName();
+                } else {
+                    range = element.getAttributeName();
+                }
+            }
+            if (hash == null) {
+                throw LocalDynamoDB.validationException("No hash key specified in key schema" +
+                    (name == null ? "" : " of index " + name));
+            }
+            this.hashKey = hash;
+            this.rangeKey = range;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getHashKey() {
+            return hashKey;
+        }
+
+        boolean isSecondary() {
+            return tableIndex != null;
+        }
+
+        /**
+         * Iterates over one partition of the index.
+         * @param hashValue The hash key value of the partition
+         * @param exclusiveStartKey The key of the item to start after, or null to start at the beginning
+         * @param forward True to walk in ascending range key order, false for descending
+         * @return the items in the partition
+         */
+        Iterator<Map<String, AttributeValue>> partition(AttributeValue hashValue,
+                                                        Map<String, AttributeValue> exclusiveStartKey,
+                                                        boolean forward) {
+            NavigableMap<List<KeyValue>, Map<String, AttributeValue>> partition =
+                partitions.get(new KeyValue(hashValue));
+            if (partition == null) {
+                return Collections.emptyIterator();
+            }
+            if (!forward) {
+                partition = partition.descendingMap();
+            }
+            if (exclusiveStartKey != null && !exclusiveStartKey.isEmpty()) {
+                partition = partition.tailMap(sortKey(exclusiveStartKey), false);
+            }
+            return partition.values().iterator();
+        }
+
+        /**
+         * Iterates over every item in the index.
+         * @param exclusiveStartKey The key of the item to start after, or null to start at the beginning
+         * @return the items in the index
+         */
+        Iterator<Map<String, AttributeValue>> all(Map<String, AttributeValue> exclusiveStartKey) {
+            Iterator<Map<String, AttributeValue>> first = Collections.emptyIterator();
+            NavigableMap<KeyValue, NavigableMap<List<KeyValue>, Map<String, AttributeValue>>> remaining = partitions;
+            if (exclusiveStartKey != null && !exclusiveStartKey.isEmpty()) {
+                KeyValue startHash = new KeyValue(exclusiveStartKey.get(hashKey));
+                NavigableMap<List<KeyValue>, Map<String, AttributeValue>> startPartition = partitions.get(startHash);
+                if (startPartition != null) {
+                    first = startPartition.tailMap(sortKey(exclusiveStartKey), false).values().iterator();
+                }
+                remaining = partitions.tailMap(startHash, false);
+            }
+            return Iterators.concat(first, Iterators.concat(
+                Iterators.transform(remaining.values().iterator(), partition -> partition.values().iterator())));
+        }
+
+        /**
+         * Returns the segment of a parallel scan the item belongs to.
+         */
+        int segment(Map<String, AttributeValue> item, int totalSegments) {
+            return Math.floorMod(new KeyValue(item.get(hashKey)).hashCode(), totalSegments);
+        }
+
+        /**
+         * Returns the key DynamoDB hands back as LastEvaluatedKey for an item read through this index:
+         * the table's primary key plus the index's key attributes.
+         */
+        Map<String, AttributeValue> lastEvaluatedKey(Map<String, AttributeValue> item) {
+            Map<String, AttributeValue> key = new LinkedHashMap<>();
+            for (KeySchemaElement element : keySchema) {
+                key.put(element.getAttributeName(), item.get(element.getAttributeName()));
+            }
+            if (tableIndex != null) {
+                key.putAll(tableIndex.lastEvaluatedKey(item));
+            }
+            return key;
+        }
+
+        /**
+         * Returns the attributes of an item that this index projects.
+         */
+        Map<String, AttributeValue> project(Map<String, AttributeValue> item) {
+            if (tableIndex == null || ProjectionType.ALL.toString().equals(projection.getProjectionType())) {
+                return item;
+            }
+            Set<String> attributes = new LinkedHashSet<>(lastEvaluatedKey(item).keySet());
+            if (ProjectionType.INCLUDE.toString().equals(projection.getProjectionType())
+                && projection.getNonKeyAttributes() != null) {
+                attributes.addAll(projection.getNonKeyAttributes());
+            }
+            return Expressions.project(item, attributes);
+        }
+
+        private void validateKeyTypes(Map<String, AttributeValue> item) {
+            for (KeySchemaElement element : keySchema) {
+                AttributeValue value = item.get(element.getAttributeName());
+                if (value != null
+                    && !AttributeValues.typeOf(value).equals(attributeTypes.get(element.getAttributeName()))) {
+                    throw LocalDynamoDB.validationException("One or more parameter values were invalid: Type " +
+                        "mismatch for Index Key " + element.getAttributeName() + " Expected: " +
+                        attributeTypes.get(element.getAttributeName()) + " Actual: " +
+                        AttributeValues.typeOf(value) + " IndexName: " + name);
+                }
+            }
+        }
+
+        private boolean covers(Map<String, AttributeValue> item) {
+            return item.containsKey(hashKey) && (rangeKey == null || item.containsKey(rangeKey));
+        }
+
+        private List<KeyValue> sortKey(Map<String, AttributeValue> item) {
+            List<KeyValue> sortKey = new ArrayList<>(3);
+            if (rangeKey != null) {
+                sortKey.add(new KeyValue(item.get(rangeKey)));
+            }
+            if (tableIndex != null) {
+                sortKey.add(new KeyValue(item.get(tableIndex.hashKey)));
+                sortKey.addAll(tableIndex.sortKey(item));
+            }
+            return sortKey;
+        }
+
+        private void add(Map<String, AttributeValue> item) {
+            if (covers(item)) {
+                partitions.computeIfAbsent(new KeyValue(item.get(hashKey)), hash -> new TreeMap<>(SORT_KEY_ORDER))
+                    .put(sortKey(item), item);
+            }
+        }
+
+        private void remove(Map<String, AttributeValue> item) {
+            if (!covers(item)) {
+                return;
+            }
+            KeyValue hash = new KeyValue(item.get(hashKey));
+            NavigableMap<List<KeyValue>, Map<String, AttributeValue>> partition = partitions.get(hash);
+            if (partition != null) {
+                partition.remove(sortKey(item));
+                if (partition.isEmpty()) {
+                    partitions.remove(hash);
+                }
+            }
+        }
+    }
+
+    /**
+     * A key attribute value (S, N or B) that can be sorted and hashed the way DynamoDB orders keys.
+     */
+    private static final class KeyValue implements Comparable<KeyValue> {
+        private final AttributeValue value;
+        private final String type;
+
+        private KeyValue(AttributeValue value) {
+            if (value == null) {
+                throw LocalDynamoDB.validationException("The provided key element does not match the schema");
+            }
+            this.value = value;
+            this.type = AttributeValues.typeOf(value);
+            if (!"S".equals(type) && !"N".equals(type) && !"B".equals(type)) {
+                throw LocalDynamoDB.validationException("Key attributes must be scalars of type S, N or B, " +
+                    "but got " + type);
+            }
+        }
+
+        @Override
+        public int compareTo(KeyValue other) {
+            int typeOrder = type.compareTo(other.type);
+            return typeOrder != 0 ? typeOrder : AttributeValues.compare(value, other.value);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof KeyValue && compareTo((KeyValue) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            switch (type) {
+                case "N":
+                    return new BigDecimal(value.getN()).stripTrailingZeros().hashCode();
+                case "B":
+                    return value.getB().hashCode();
+                default:
+                    return value.getS().hashCode();
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.amazon.ata.dynamodbquery.metrics;
+
+import java.util.Objects;
+
+/**
+ * What one DynamoDB call cost a single table. Calls that touch several tables, such as batch calls and
+ * transactions, are recorded once per table; every table's record carries the whole call's latency.
+ */
+public class DynamoDbCall {
+    private final String activity;
+    private final String tableName;
+    private final String operation;
+    private final long latencyNanos;
+    private final int itemCount;
+    private final double capacityUnits;
+    private final boolean succeeded;
+
+    /**
+     * Constructs a record of a DynamoDB call.
+     * @param activity The activity the call was made for, or MetricsContext.NO_ACTIVITY
+     * @param tableName The table the call read or wrote
+     * @param operation The DynamoDB operation, such as "Query" or "BatchGetItem"
+     * @param latencyNanos How long the call took, including any throttling waits and retries
+     * @param itemCount The number of items the call returned or wrote in this table
+     * @param capacityUnits The read or write capacity units the call consumed in this table
+     * @param succeeded false if the call threw
+     */
+    public DynamoDbCall(String activity, String tableName, String operation, long latencyNanos, int itemCount,
+                        double capacityUnits, boolean succeeded) {
+        this.activity = activity;
+        this.tableName = tableName;
+        this.operation = operation;
+        this.latencyNanos = latencyNanos;
+        this.itemCount = itemCount;
+        this.capacityUnits = capacityUnits;
+        this.succeeded = succeeded;
+    }
+
+    public String getActivity() {
+        return activity;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public double getCapacityUnits() {
+        return capacityUnits;
+    }
+
+    public boolean isSucceeded() {
+        return succeeded;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DynamoDbCall that = (DynamoDbCall) o;
+        return latencyNanos == that.latencyNanos &&
+            itemCount == that.itemCount &&
+            Double.compare(that.capacityUnits, capacityUnits) == 0 &&
+            succeeded == that.succeeded &&
+            Objects.equals(activity, that.activity) &&
+            Objects.equals(tableName, that.tableName) &&
+            Objects.equals(operation, that.operation);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(activity, tableName, operation, latencyNanos, itemCount, capacityUnits, succeeded);
+    }
+
+    @Override
+    public String toString() {
+        return "DynamoDbCall{" +
+            "activity='" + activity + '\'' +
+            ", tableName='" + tableName + '\'' +
+            ", operation='" + operation + '\'' +
+            ", latencyNanos=" + latencyNanos +
+            ", itemCount=" + itemCount +
+            ", capacityUnits=" + capacityUnits +
+            ", succeeded=" + succeeded +
+            '}';
+    }
+}
@@ -0,0 +1,140 @@
+package com.amazon.ata.dynamodbquery.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals DynamoDB calls in memory by activity, table and operation, with a latency histogram for each,
+ * so the most expensive kinds of call can be found with getCallStatsByCapacity(). This is the default
+ * sink; a sink that publishes to a metrics service can be given to DaoModule instead.
+ */
+public class InMemoryMetricsSink implements MetricsSink {
+    private final ConcurrentMap<List<String>, CallStats> callStats = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(DynamoDbCall call) {
+        List<String> key = Arrays.asList(call.getActivity(), call.getTableName(), call.getOperation());
+        callStats.computeIfAbsent(key, k -> new CallStats(call.getActivity(), call.getTableName(), call.getOperation()))
+            .add(call);
+    }
+
+    /**
+     * Returns the totals for every kind of call recorded so far, most capacity consumed first.
+     * @return the call totals, ranked by capacity
+     */
+    public List<CallStats> getCallStatsByCapacity() {
+        List<CallStats> stats = new ArrayList<>(callStats.values());
+        stats.sort(Comparator.comparingDouble(CallStats::getCapacityUnits).reversed());
+        return stats;
+    }
+
+    /**
+     * Running totals for one activity's calls of one operation against one table.
+     */
+    public static class CallStats {
+        /** Bucket i counts latencies under 2^(i+1) microseconds; the last bucket counts everything slower. */
+        private static final int LATENCY_BUCKETS = 32;
+
+        private final String activity;
+        private final String tableName;
+        private final String operation;
+        private final LongAdder callCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder itemCount = new LongAdder();
+        private final DoubleAdder capacityUnits = new DoubleAdder();
+        private final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS);
+
+        CallStats(String activity, String tableName, String operation) {
+            this.activity = activity;
+            this.tableName = tableName;
+            this.operation = operation;
+        }
+
+        void add(DynamoDbCall call) {
+            callCount.increment();
+            if (!call.isSucceeded()) {
+                failureCount.increment();
+            }
+            itemCount.add(call.getItemCount());
+            capacityUnits.add(call.getCapacityUnits());
+            long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(call.getLatencyNanos()));
+            int bucket = Math.min(LATENCY_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+            latencyBuckets.incrementAndGet(bucket);
+        }
+
+        public String getActivity() {
+            return activity;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getCallCount() {
+            return callCount.sum();
+        }
+
+        public long getFailureCount() {
+            return failureCount.sum();
+        }
+
+        public long getItemCount() {
+            return itemCount.sum();
+        }
+
+        public double getCapacityUnits() {
+            return capacityUnits.sum();
+        }
+
+        /**
+         * Returns an upper bound on the given latency percentile. Latencies are kept in buckets that
+         * double in width, so the bound is within a factor of two of the true value.
+         * @param percentile The percentile, from 0 to 100
+         * @return the latency that at least that share of calls finished within, or 0 if there were no calls
+         */
+        public long getLatencyPercentileNanos(double percentile) {
+            long[] counts = new long[LATENCY_BUCKETS];
+            long total = 0;
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                counts[i] = latencyBuckets.get(i);
+                total += counts[i];
+            }
+            long rank = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return i == LATENCY_BUCKETS - 1 ? Long.MAX_VALUE : TimeUnit.MICROSECONDS.toNanos(2L << i);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return "CallStats{" +
+                "activity='" + activity + '\'' +
+                ", tableName='" + tableName + '\'' +
+                ", operation='" + operation + '\'' +
+                ", callCount=" + getCallCount() +
+                ", failureCount=" + getFailureCount() +
+                ", itemCount=" + getItemCount() +
+                ", capacityUnits=" + getCapacityUnits() +
+                ", p50Nanos=" + getLatencyPercentileNanos(50) +
+                ", p99Nanos=" + getLatencyPercentileNanos(99) +
+                '}';
+        }
+    }
+}
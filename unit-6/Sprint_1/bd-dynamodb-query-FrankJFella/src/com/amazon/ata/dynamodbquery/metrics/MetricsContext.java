@@ -0,0 +1,181 @@
+package com.amazon.ata.dynamodbquery.metrics;
+
+import com.google.common.util.concurrent.ForwardingExecutorService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Tracks which activity the current thread is working for, so DynamoDB calls can be tagged with it.
+ * Activities run their work in their activity:
+ *
+ *     return MetricsContext.run(GetEventActivity.class, () -> eventDao.getEvent(eventId));
+ *
+ * Work handed to an ExecutorService wrapped with propagating() runs in the activity that submitted it.
+ */
+public final class MetricsContext {
+    /** The activity calls are tagged with when no activity scope is open. */
+    public static final String NO_ACTIVITY = "none";
+
+    private static final ThreadLocal<String> ACTIVITY = new ThreadLocal<>();
+
+    private MetricsContext() {
+    }
+
+    /**
+     * An open activity scope. Closing it restores the activity that was current when it was opened.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Makes the given activity current on this thread until the returned scope is closed.
+     * @param activityClass The activity class, whose simple name calls are tagged with
+     * @return the scope to close when the activity's work is done
+     */
+    public static Scope activity(Class<?> activityClass) {
+        return activity(activityClass.getSimpleName());
+    }
+
+    /**
+     * Runs work with the given activity current on this thread, restoring the previous activity afterwards.
+     * @param activityClass The activity class, whose simple name calls are tagged with
+     * @param work The activity's work
+     * @param <T> The work's result type
+     * @return the work's result
+     */
+    public static <T> T run(Class<?> activityClass, Supplier<T> work) {
+        Scope scope = activity(activityClass);
+        try {
+            return work.get();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Returns the activity the current thread is working for.
+     * @return the activity name, or NO_ACTIVITY
+     */
+    public static String currentActivity() {
+        String activity = ACTIVITY.get();
+        return activity == null ? NO_ACTIVITY : activity;
+    }
+
+    /**
+     * Wraps an ExecutorService so each task runs in the activity that was current when it was submitted.
+     * @param executorService The ExecutorService to run tasks on
+     * @return the wrapped ExecutorService
+     */
+    public static ExecutorService propagating(ExecutorService executorService) {
+        return new ForwardingExecutorService() {
+            @Override
+            protected ExecutorService delegate() {
+                return executorService;
+            }
+
+            @Override
+            public void execute(Runnable command) {
+                super.execute(inCurrentActivity(command));
+            }
+
+            @Override
+            public Future<?> submit(Runnable task) {
+                return super.submit(inCurrentActivity(task));
+            }
+
+            @Override
+            public <T> Future<T> submit(Runnable task, T result) {
+                return super.submit(inCurrentActivity(task), result);
+            }
+
+            @Override
+            public <T> Future<T> submit(Callable<T> task) {
+                return super.submit(inCurrentActivity(task));
+            }
+
+            @Override
+            public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+                return super.invokeAll(inCurrentActivity(tasks));
+            }
+
+            @Override
+            public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException {
+                return super.invokeAll(inCurrentActivity(tasks), timeout, unit);
+            }
+
+            @Override
+            public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+                throws InterruptedException, ExecutionException {
+                return super.invokeAny(inCurrentActivity(tasks));
+            }
+
+            @Override
+            public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+                return super.invokeAny(inCurrentActivity(tasks), timeout, unit);
+            }
+        };
+    }
+
+    private static Scope activity(String activity) {
+        String previous = ACTIVITY.get();
+        ACTIVITY.set(activity);
+        return () -> {
+            if (previous == null) {
+                ACTIVITY.remove();
+            } else {
+                ACTIVITY.set(previous);
+            }
+        };
+    }
+
+    private static Runnable inCurrentActivity(Runnable task) {
+        String activity = ACTIVITY.get();
+        if (activity == null) {
+            return task;
+        }
+        return () -> {
+            Scope scope = activity(activity);
+            try {
+                task.run();
+            } finally {
+                scope.close();
+            }
+        };
+    }
+
+    private static <T> Callable<T> inCurrentActivity(Callable<T> task) {
+        String activity = ACTIVITY.get();
+        if (activity == null) {
+            return task;
+        }
+        return () -> {
+            Scope scope = activity(activity);
+            try {
+                return task.call();
+            } finally {
+                scope.close();
+            }
+        };
+    }
+
+    private static <T> List<Callable<T>> inCurrentActivity(Collection<? extends Callable<T>> tasks) {
+        List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            wrapped.add(inCurrentActivity(task));
+        }
+        return wrapped;
+    }
+}
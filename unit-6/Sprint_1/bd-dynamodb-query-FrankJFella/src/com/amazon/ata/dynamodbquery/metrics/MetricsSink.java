@@ -0,0 +1,13 @@
+package com.amazon.ata.dynamodbquery.metrics;
+
+/**
+ * Receives a record of every call the service makes to DynamoDB. Implementations are called on the
+ * thread that made the call, so they should return quickly and be safe to call from many threads.
+ */
+public interface MetricsSink {
+    /**
+     * Records one finished DynamoDB call.
+     * @param call What the call was and what it cost
+     */
+    void record(DynamoDbCall call);
+}
@@ -0,0 +1,61 @@
+package com.amazon.ata.dynamodbquery.activity;
+
+import com.amazon.ata.dynamodbquery.dao.InviteDao;
+import com.amazon.ata.dynamodbquery.dao.models.InviteCreateResult;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class CreateInvitesActivityTest {
+    @InjectMocks
+    private CreateInvitesActivity activity;
+
+    @Mock
+    private InviteDao inviteDao;
+
+    @BeforeEach
+    private void setup() {
+        initMocks(this);
+    }
+
+    @Test
+    void handleRequest_withMemberIds_returnsDaoResults() {
+        // GIVEN
+        List<String> memberIds = ImmutableList.of("MEMBER1", "MEMBER2");
+        List<InviteCreateResult> daoResults = ImmutableList.of(
+            new InviteCreateResult("EVENTID", "MEMBER1", InviteCreateResult.Status.CREATED),
+            new InviteCreateResult("EVENTID", "MEMBER2", InviteCreateResult.Status.SKIPPED_EXISTING));
+        when(inviteDao.createInvites("EVENTID", memberIds)).thenReturn(daoResults);
+
+        // WHEN
+        List<InviteCreateResult> results = activity.handleRequest("EVENTID", memberIds);
+
+        // THEN
+        assertEquals(daoResults, results);
+    }
+
+    @Test
+    void handleRequest_withNullMemberId_throwsIllegalArgumentException() {
+        // GIVEN
+        List<String> memberIds = Arrays.asList("MEMBER1", null);
+
+        // WHEN + THEN
+        assertThrows(IllegalArgumentException.class, () -> activity.handleRequest("EVENTID", memberIds));
+        verify(inviteDao, never()).createInvites(any(), anyList());
+    }
+}
@@ -1,9 +1,13 @@
 package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.activity.DeleteMemberActivity;
+import com.amazon.ata.dynamodbquery.dao.ContinuationTokens;
 import com.amazon.ata.dynamodbquery.dao.InviteDao;
 import com.amazon.ata.dynamodbquery.dao.MemberDao;
 import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.InviteDeleteReport;
+import com.amazon.ata.dynamodbquery.dao.models.InviteDeleteResult;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
 
 import com.google.common.collect.ImmutableList;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +17,13 @@ import org.mockito.Mock;
 
 import java.util.Collections;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -36,7 +47,8 @@ public class DeleteMemberActivityTest {
     void handleRequest_attemptsToDeleteMember() {
         // GIVEN
         String memberId = "1234";
-        when(inviteDao.getInvitesSentToMember(memberId)).thenReturn(Collections.emptyList());
+        when(inviteDao.getInvitesSentToMember(eq(memberId), isNull(), isNull(), anyInt(), isNull()))
+            .thenReturn(new PaginatedResult<>(Collections.emptyList(), null));
 
         // WHEN
         activity.handleRequest(memberId);
@@ -55,13 +67,61 @@ public class DeleteMemberActivityTest {
         inviteToBeDeleted.setEventId(eventId);
         inviteToBeDeleted.setMemberId(memberId);
         inviteToBeDeleted.setCanceled(false);
+        InviteDeleteResult deleted = new InviteDeleteResult(eventId, memberId, InviteDeleteResult.Status.DELETED);
 
-        when(inviteDao.getInvitesSentToMember(memberId)).thenReturn(ImmutableList.of(inviteToBeDeleted));
+        when(inviteDao.getInvitesSentToMember(eq(memberId), isNull(), isNull(), anyInt(), isNull()))
+            .thenReturn(new PaginatedResult<>(ImmutableList.of(inviteToBeDeleted), null));
+        when(inviteDao.deleteInvites(ImmutableList.of(inviteToBeDeleted))).thenReturn(ImmutableList.of(deleted));
 
         // WHEN
-        activity.handleRequest(memberId);
+        InviteDeleteReport report = activity.handleRequest(memberId);
+
+        // THEN
+        verify(inviteDao).deleteInvites(ImmutableList.of(inviteToBeDeleted));
+        assertEquals(ImmutableList.of(deleted), report.getResults());
+        assertTrue(report.isComplete(), "Expected no checkpoint once every invite was processed.");
+    }
+
+    @Test
+    void handleRequest_moreInvitesThanMax_returnsCheckpointAndKeepsMember() {
+        // GIVEN
+        String memberId = "MEMBER 1";
+        Invite invite = new Invite();
+        invite.setEventId("EVENT 1");
+        invite.setMemberId(memberId);
+        InviteDeleteResult deleted = new InviteDeleteResult("EVENT 1", memberId, InviteDeleteResult.Status.DELETED);
+
+        when(inviteDao.getInvitesSentToMember(memberId, null, null, 1, "CHECKPOINT"))
+            .thenReturn(new PaginatedResult<>(ImmutableList.of(invite), "NEXT CHECKPOINT"));
+        when(inviteDao.deleteInvites(ImmutableList.of(invite))).thenReturn(ImmutableList.of(deleted));
+
+        // WHEN
+        InviteDeleteReport report = activity.handleRequest(memberId, "CHECKPOINT", 1);
+
+        // THEN
+        assertEquals("NEXT CHECKPOINT", report.getCheckpoint(), "Expected a checkpoint to resume the delete from.");
+        verify(memberDao, never()).deletePermanently(memberId);
+    }
+
+    @Test
+    void handleRequest_inviteFailsToDelete_keepsMemberAndRestartsFromFirstInvite() {
+        // GIVEN
+        String memberId = "MEMBER 1";
+        Invite invite = new Invite();
+        invite.setEventId("EVENT 1");
+        invite.setMemberId(memberId);
+        InviteDeleteResult failed = new InviteDeleteResult("EVENT 1", memberId, InviteDeleteResult.Status.FAILED);
+
+        when(inviteDao.getInvitesSentToMember(eq(memberId), isNull(), isNull(), anyInt(), isNull()))
+            .thenReturn(new PaginatedResult<>(ImmutableList.of(invite), null));
+        when(inviteDao.deleteInvites(ImmutableList.of(invite))).thenReturn(ImmutableList.of(failed));
+
+        // WHEN
+        InviteDeleteReport report = activity.handleRequest(memberId);
 
         // THEN
-        verify(inviteDao).deleteInvite(inviteToBeDeleted.getEventId(), inviteToBeDeleted.getMemberId());
+        assertFalse(report.isComplete(), "Expected a checkpoint, since an invite is left.");
+        assertEquals(ContinuationTokens.FIRST_PAGE, report.getCheckpoint());
+        verify(memberDao, never()).deletePermanently(memberId);
     }
 }
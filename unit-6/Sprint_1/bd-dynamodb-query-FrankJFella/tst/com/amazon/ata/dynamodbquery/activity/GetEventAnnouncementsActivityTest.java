@@ -33,4 +33,13 @@ public class GetEventAnnouncementsActivityTest {
         // THEN
         verify(eventAnnouncementDao).getEventAnnouncements("EVENTID");
     }
+
+    @Test
+    void handleRequest_withLimitAndToken_callsDaoForLatestPage() {
+        // GIVEN && WHEN
+        activity.handleRequest("EVENTID", 20, "TOKEN", null);
+
+        // THEN
+        verify(eventAnnouncementDao).getLatestEventAnnouncements("EVENTID", null, null, 20, "TOKEN", null);
+    }
 }
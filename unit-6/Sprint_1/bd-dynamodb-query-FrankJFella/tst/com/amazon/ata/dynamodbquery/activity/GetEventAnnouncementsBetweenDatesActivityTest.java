@@ -40,4 +40,16 @@ public class GetEventAnnouncementsBetweenDatesActivityTest {
         verify(eventAnnouncementDao).getEventAnnouncementsBetweenDates("EVENTID",
                 start, end);
     }
+
+    @Test
+    void handleRequest_withLimitAndToken_callsDaoForLatestPage() {
+        // GIVEN && WHEN
+        ZonedDateTime start = ZonedDateTime.now();
+        ZonedDateTime end = ZonedDateTime.now();
+
+        activity.handleRequest("EVENTID", start, end, 20, "TOKEN", null);
+
+        // THEN
+        verify(eventAnnouncementDao).getLatestEventAnnouncements("EVENTID", start, end, 20, "TOKEN", null);
+    }
 }
@@ -2,7 +2,9 @@ package com.amazon.ata.dynamodbquery.activity;
 
 import com.amazon.ata.dynamodbquery.dao.InviteDao;
 import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
 
+import com.google.common.collect.ImmutableList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -10,7 +12,13 @@ import org.mockito.Mock;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class GetInvitesForEventActivityTest {
@@ -42,4 +50,21 @@ public class GetInvitesForEventActivityTest {
         // THEN
         verify(inviteDao).getInvitesForEvent("EVENTID", "MEMBERID");
     }
+
+    @Test
+    void handleRequest_withPageSize_returnsOnePageWithoutPrefetching() {
+        // GIVEN
+        Invite first = new Invite();
+        Invite second = new Invite();
+        when(inviteDao.getInvitesForEvent("EVENTID", 2, "TOKEN"))
+            .thenReturn(new PaginatedResult<>(ImmutableList.of(first, second), "NEXTTOKEN"));
+
+        // WHEN
+        PaginatedResult<Invite> result = activity.handleRequest("EVENTID", "TOKEN", 2);
+
+        // THEN
+        assertEquals(ImmutableList.of(first, second), result.getItems());
+        assertEquals("NEXTTOKEN", result.getContinuationToken());
+        verify(inviteDao, never()).getInvitesForEventIterator(anyString(), anyInt(), any());
+    }
 }
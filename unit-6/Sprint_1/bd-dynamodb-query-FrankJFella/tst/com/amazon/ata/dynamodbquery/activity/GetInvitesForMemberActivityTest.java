@@ -0,0 +1,78 @@
+package com.amazon.ata.dynamodbquery.activity;
+
+import com.amazon.ata.dynamodbquery.dao.EventDao;
+import com.amazon.ata.dynamodbquery.dao.InviteDao;
+import com.amazon.ata.dynamodbquery.dao.models.CanceledInvite;
+import com.amazon.ata.dynamodbquery.dao.models.Event;
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class GetInvitesForMemberActivityTest {
+    @InjectMocks
+    private GetInvitesForMemberActivity activity;
+
+    @Mock
+    private InviteDao inviteDao;
+
+    @Mock
+    private EventDao eventDao;
+
+    @BeforeEach
+    private void setup() {
+        initMocks(this);
+    }
+
+    @Test
+    void handleRequest_inviteToCanceledEvent_showsItCanceledWithoutWriting() {
+        // GIVEN
+        String memberId = "MEMBER";
+        Invite happeningInvite = invite("HAPPENING", memberId);
+        Invite canceledInvite = invite("CANCELED", memberId);
+        when(inviteDao.getInvitesSentToMember(memberId))
+            .thenReturn(new ArrayList<>(ImmutableList.of(happeningInvite, canceledInvite)));
+        when(eventDao.getEventsAsync(anyList())).thenReturn(CompletableFuture.completedFuture(
+            ImmutableList.of(event("HAPPENING", false), event("CANCELED", true))));
+
+        // WHEN
+        List<Invite> result = activity.handleRequest(memberId);
+
+        // THEN
+        assertEquals(2, result.size());
+        assertTrue(result.get(1) instanceof CanceledInvite, "Expected the invite to be replaced by a CanceledInvite.");
+        verify(inviteDao, never()).cancelInviteAsync(anyString(), anyString());
+        verify(inviteDao, never()).cancelInvite(anyString(), anyString());
+        verify(eventDao, never()).getEvents(anyList());
+    }
+
+    private static Invite invite(String eventId, String memberId) {
+        Invite invite = new Invite();
+        invite.setEventId(eventId);
+        invite.setMemberId(memberId);
+        return invite;
+    }
+
+    private static Event event(String id, boolean canceled) {
+        Event event = new Event();
+        event.setId(id);
+        event.setCanceled(canceled);
+        return event;
+    }
+}
@@ -0,0 +1,62 @@
+package com.amazon.ata.dynamodbquery.client;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AdaptiveRateLimiterTest {
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    @Test
+    void onThrottle_halvesRateOncePerCooldownDownToMinimum() {
+        // GIVEN
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(10, 100, ticker);
+
+        // WHEN
+        limiter.onThrottle();
+        limiter.onThrottle();
+        double afterBurst = limiter.getRate();
+        for (int i = 0; i < 10; i++) {
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(1) / 10);
+            limiter.onThrottle();
+        }
+
+        // THEN
+        assertEquals(50, afterBurst, "Expected throttles arriving together to halve the rate once.");
+        assertEquals(10, limiter.getRate(), "Expected the rate never to drop below the minimum.");
+    }
+
+    @Test
+    void onSuccess_afterThrottle_recoversToMaximumOverTime() {
+        // GIVEN
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(10, 100, ticker);
+        limiter.onThrottle();
+
+        // WHEN
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        limiter.onSuccess();
+        double afterTwoSeconds = limiter.getRate();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        limiter.onSuccess();
+
+        // THEN
+        assertEquals(70, afterTwoSeconds, 0.001, "Expected a tenth of the maximum back per second.");
+        assertEquals(100, limiter.getRate(), "Expected the rate never to go above the maximum.");
+    }
+
+    @Test
+    void constructor_minAboveMax_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveRateLimiter(10, 5, ticker));
+    }
+}
@@ -0,0 +1,121 @@
+package com.amazon.ata.dynamodbquery.client;
+
+import com.amazon.ata.dynamodbquery.activity.GetEventActivity;
+import com.amazon.ata.dynamodbquery.activity.GetMemberActivity;
+import com.amazon.ata.dynamodbquery.dao.models.Event;
+import com.amazon.ata.dynamodbquery.dao.models.Member;
+import com.amazon.ata.dynamodbquery.local.LocalDynamoDB;
+import com.amazon.ata.dynamodbquery.metrics.DynamoDbCall;
+import com.amazon.ata.dynamodbquery.metrics.MetricsContext;
+import com.amazon.ata.dynamodbquery.metrics.MetricsSink;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InstrumentedDynamoDBTest {
+    private static final String MEMBERS_TABLE = "DynamoDBQuery-Members";
+    private static final String EVENTS_TABLE = "DynamoDBQuery-Events";
+
+    private final List<DynamoDbCall> calls = new CopyOnWriteArrayList<>();
+    private final MetricsSink metricsSink = calls::add;
+    private LocalDynamoDB localDynamoDB;
+    private DynamoDBMapper mapper;
+
+    @BeforeEach
+    private void setup() {
+        localDynamoDB = new LocalDynamoDB().createTables(Member.class, Event.class);
+        mapper = new DynamoDBMapper(new InstrumentedDynamoDB(localDynamoDB, metricsSink));
+    }
+
+    @Test
+    void load_insideActivity_recordsCapacityTaggedWithActivityAndTable() {
+        // GIVEN
+        Member member = new Member();
+        member.setId("member");
+        mapper.save(member);
+        calls.clear();
+
+        // WHEN
+        MetricsContext.run(GetMemberActivity.class, () -> mapper.load(Member.class, "member"));
+
+        // THEN
+        assertEquals(1, calls.size());
+        DynamoDbCall call = calls.get(0);
+        assertEquals("GetMemberActivity", call.getActivity());
+        assertEquals(MEMBERS_TABLE, call.getTableName());
+        assertEquals("GetItem", call.getOperation());
+        assertEquals(1, call.getItemCount());
+        assertEquals(0.5, call.getCapacityUnits(), "Expected an eventually consistent read of a small item.");
+        assertTrue(call.isSucceeded());
+    }
+
+    @Test
+    void batchLoad_twoTables_recordsEachTable() {
+        // GIVEN
+        Member member = new Member();
+        member.setId("member");
+        Event event = new Event();
+        event.setId("event");
+        mapper.batchSave(ImmutableList.of(member, event));
+        calls.clear();
+
+        // WHEN
+        mapper.batchLoad(ImmutableList.of(member, event));
+
+        // THEN
+        assertEquals(2, calls.size());
+        for (DynamoDbCall call : calls) {
+            assertEquals("BatchGetItem", call.getOperation());
+            assertEquals(MetricsContext.NO_ACTIVITY, call.getActivity());
+            assertEquals(1, call.getItemCount());
+            assertTrue(call.getCapacityUnits() > 0, "Expected capacity for " + call.getTableName());
+        }
+        assertTrue(calls.stream().anyMatch(call -> EVENTS_TABLE.equals(call.getTableName())));
+    }
+
+    @Test
+    void load_throttled_recordsFailedCall() {
+        // GIVEN
+        localDynamoDB.withThrottleProbability(1);
+
+        // WHEN
+        assertThrows(ProvisionedThroughputExceededException.class, () -> mapper.load(Member.class, "member"));
+
+        // THEN
+        assertEquals(1, calls.size());
+        assertFalse(calls.get(0).isSucceeded());
+        assertEquals(0, calls.get(0).getCapacityUnits());
+    }
+
+    @Test
+    void propagatingExecutor_taskSubmittedInActivity_isTaggedWithIt() throws Exception {
+        // GIVEN
+        ExecutorService executorService = MetricsContext.propagating(Executors.newSingleThreadExecutor());
+
+        // WHEN
+        Future<Event> submittedInActivity = MetricsContext.run(GetEventActivity.class,
+            () -> executorService.submit(() -> mapper.load(Event.class, "event")));
+        submittedInActivity.get();
+        executorService.submit(() -> mapper.load(Event.class, "event")).get();
+        executorService.shutdown();
+
+        // THEN
+        assertEquals("GetEventActivity", calls.get(0).getActivity());
+        assertEquals(MetricsContext.NO_ACTIVITY, calls.get(1).getActivity(),
+            "Expected the worker thread not to keep the activity after the task.");
+    }
+}
@@ -0,0 +1,87 @@
+package com.amazon.ata.dynamodbquery.client;
+
+import com.amazon.ata.dynamodbquery.dao.models.Event;
+import com.amazon.ata.dynamodbquery.dao.models.Member;
+import com.amazon.ata.dynamodbquery.local.LocalDynamoDB;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimitedDynamoDBTest {
+    private static final String MEMBERS_TABLE = "DynamoDBQuery-Members";
+
+    private LocalDynamoDB localDynamoDB;
+
+    @BeforeEach
+    private void setup() {
+        localDynamoDB = new LocalDynamoDB().createTables(Member.class, Event.class);
+    }
+
+    @Test
+    void save_someCallsThrottled_retriesUntilTheySucceedAndSlowsTheTable() {
+        // GIVEN
+        RateLimitedDynamoDB client =
+            new RateLimitedDynamoDB(localDynamoDB, 5, 1000, new RetryBudget(0.1, 0, 100), 10);
+        DynamoDBMapper mapper = new DynamoDBMapper(client);
+        localDynamoDB.withThrottleProbability(0.5);
+
+        // WHEN
+        for (int i = 0; i < 10; i++) {
+            Member member = new Member();
+            member.setId("member" + i);
+            mapper.save(member);
+        }
+
+        // THEN
+        localDynamoDB.withThrottleProbability(0);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("member" + i, mapper.load(Member.class, "member" + i).getId());
+        }
+        assertTrue(client.getRate(MEMBERS_TABLE, RateLimitedDynamoDB.OperationType.WRITE) < 1000,
+            "Expected throttled writes to lower the table's write rate.");
+        assertEquals(1000, client.getRate(MEMBERS_TABLE, RateLimitedDynamoDB.OperationType.READ),
+            "Expected reads to be limited separately from writes.");
+    }
+
+    @Test
+    void load_everyCallThrottled_stopsRetryingWhenBudgetRunsOut() {
+        // GIVEN
+        RetryBudget retryBudget = new RetryBudget(0, 0, 3);
+        DynamoDBMapper mapper = new DynamoDBMapper(new RateLimitedDynamoDB(localDynamoDB, 5, 1000, retryBudget, 10));
+        localDynamoDB.withThrottleProbability(1);
+
+        // WHEN
+        assertThrows(ProvisionedThroughputExceededException.class, () -> mapper.load(Member.class, "member"));
+        assertThrows(ProvisionedThroughputExceededException.class, () -> mapper.load(Member.class, "member"));
+
+        // THEN
+        assertEquals(2, retryBudget.getRejectedRetryCount(),
+            "Expected the first call to spend the whole budget and the second not to retry at all.");
+    }
+
+    @Test
+    void retryBudget_spentRetries_refusesUntilRequestsEarnMore() {
+        // GIVEN
+        RetryBudget retryBudget = new RetryBudget(0.5, 0, 2);
+        assertTrue(retryBudget.tryRetry());
+        assertTrue(retryBudget.tryRetry());
+
+        // WHEN
+        boolean whenEmpty = retryBudget.tryRetry();
+        retryBudget.recordRequest();
+        retryBudget.recordRequest();
+        boolean afterTwoRequests = retryBudget.tryRetry();
+
+        // THEN
+        assertFalse(whenEmpty);
+        assertTrue(afterTwoRequests, "Expected two requests at a 0.5 ratio to earn one retry.");
+        assertEquals(1, retryBudget.getRejectedRetryCount());
+    }
+}
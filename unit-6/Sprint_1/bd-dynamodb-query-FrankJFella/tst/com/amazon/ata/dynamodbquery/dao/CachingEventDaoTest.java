@@ -0,0 +1,143 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazon.ata.dynamodbquery.dao.codec.EventCodec;
+import com.amazon.ata.dynamodbquery.dao.models.Event;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.KeyPair;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class CachingEventDaoTest {
+    @Mock
+    private DynamoDBMapper mapper;
+
+    @Mock
+    private AmazonDynamoDB dynamoDbClient;
+
+    private CachingEventDao eventDao;
+
+    @BeforeEach
+    private void setup() {
+        initMocks(this);
+        eventDao = new CachingEventDao(mapper, dynamoDbClient, MoreExecutors.newDirectExecutorService(), 100,
+            Duration.ofMinutes(5));
+    }
+
+    @Test
+    void getEvent_calledTwice_loadsOnceAndReturnsCopies() {
+        // GIVEN
+        Event event = event("1234", false);
+        when(mapper.load(Event.class, "1234")).thenReturn(event);
+
+        // WHEN
+        Event first = eventDao.getEvent("1234");
+        Event second = eventDao.getEvent("1234");
+
+        // THEN
+        verify(mapper, times(1)).load(Event.class, "1234");
+        assertEquals(first, second);
+        assertNotSame(first, second, "Expected each caller to get its own copy of a cached event.");
+        assertEquals(1, eventDao.getCacheStats().hitCount());
+        assertEquals(1, eventDao.getCacheStats().missCount());
+    }
+
+    @Test
+    void getEvents_someCached_batchLoadsOnlyMisses() {
+        // GIVEN
+        when(mapper.load(Event.class, "cached")).thenReturn(event("cached", false));
+        eventDao.getEvent("cached");
+        Map<String, List<Object>> batchResult = ImmutableMap.of("DynamoDBQuery-Events",
+            ImmutableList.of(event("missing", false)));
+        when(mapper.batchLoad(anyMap())).thenReturn(batchResult);
+
+        // WHEN
+        List<Event> events = eventDao.getEvents(ImmutableList.of("cached", "missing", "cached"));
+
+        // THEN
+        assertEquals(2, events.size(), "Expected one event per distinct ID.");
+        ArgumentCaptor<Map<Class<?>, List<KeyPair>>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(mapper).batchLoad(captor.capture());
+        List<KeyPair> loadedKeys = captor.getValue().get(Event.class);
+        assertEquals(1, loadedKeys.size(), "Expected only the cache miss to be batch loaded.");
+        assertEquals("missing", loadedKeys.get(0).getHashKey());
+    }
+
+    @Test
+    void cancelEvent_cachedEvent_updatesCache() {
+        // GIVEN
+        when(mapper.load(Event.class, "1234")).thenReturn(event("1234", false));
+        eventDao.getEvent("1234");
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenReturn(new UpdateItemResult()
+            .withAttributes(new EventCodec().encode(event("1234", true))));
+
+        // WHEN
+        eventDao.cancelEvent("1234");
+
+        // THEN
+        assertTrue(eventDao.getEvent("1234").isCanceled(), "Expected the cache to hold the canceled event.");
+        verify(mapper, times(1)).load(Event.class, "1234");
+    }
+
+    @Test
+    void getEvent_canceledWhileLoading_doesNotCacheStaleEvent() {
+        // GIVEN
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenReturn(new UpdateItemResult()
+            .withAttributes(new EventCodec().encode(event("1234", true))));
+        // The cancel lands after the read, but before the read's result is cached
+        when(mapper.load(Event.class, "1234")).thenAnswer(invocation -> {
+            eventDao.cancelEvent("1234");
+            return event("1234", false);
+        });
+
+        // WHEN
+        eventDao.getEvent("1234");
+
+        // THEN
+        assertTrue(eventDao.getEvent("1234").isCanceled(), "Expected the cache to keep the canceled event.");
+        verify(mapper, times(1)).load(Event.class, "1234");
+    }
+
+    private static Event event(String id, boolean canceled) {
+        Event event = new Event();
+        event.setId(id);
+        event.setCanceled(canceled);
+        return event;
+    }
+
+    @Test
+    void getEventAsync_cachedEvent_completesWithCopy() {
+        // GIVEN
+        when(mapper.load(Event.class, "1234")).thenReturn(event("1234", false));
+        Event cachedEvent = eventDao.getEvent("1234");
+
+        // WHEN
+        Event result = eventDao.getEventAsync("1234").join();
+
+        // THEN
+        assertEquals(cachedEvent, result);
+        verify(mapper, times(1)).load(Event.class, "1234");
+    }
+}
@@ -1,26 +1,41 @@
 package com.amazon.ata.dynamodbquery.dao;
 
 import com.amazon.ata.dynamodbquery.converter.ZonedDateTimeConverter;
+import com.amazon.ata.dynamodbquery.dao.codec.EventAnnouncementCodec;
+import com.amazon.ata.dynamodbquery.dao.codec.ItemReader;
+import com.amazon.ata.dynamodbquery.dao.models.Event;
 import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -33,7 +48,16 @@ public class EventAnnouncementDaoTest {
     DynamoDBMapper mapper;
 
     @Mock
-    PaginatedQueryList<EventAnnouncement> queryResult;
+    ItemReader itemReader;
+
+    @Mock
+    List<EventAnnouncement> queryResult;
+
+    @Mock
+    QueryResultPage<EventAnnouncement> queryPage;
+
+    @Mock
+    EventDao eventDao;
 
     @InjectMocks
     EventAnnouncementDao eventAnnouncementDao;
@@ -46,13 +70,14 @@ public class EventAnnouncementDaoTest {
     @Test
     public void getEventAnnouncements_queriesDynamoDb_returnsListFromDynamo() {
         // GIVEN
-        when(mapper.query(eq(EventAnnouncement.class), any(DynamoDBQueryExpression.class))).thenReturn(queryResult);
+        when(itemReader.query(any(EventAnnouncementCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(queryResult);
 
         // WHEN
         List<EventAnnouncement> results = eventAnnouncementDao.getEventAnnouncements(TEST_EVENT_ID);
 
         // THEN
-        verify(mapper).query(eq(EventAnnouncement.class), any(DynamoDBQueryExpression.class));
+        verify(itemReader).query(any(EventAnnouncementCodec.class), any(DynamoDBQueryExpression.class));
         assertEquals(results, queryResult, "Expected getEventAnnouncements to return the query list");
     }
 
@@ -60,7 +85,8 @@ public class EventAnnouncementDaoTest {
     @Test
     public void getEventAnnouncements_queriesDynamoDbArgCaptor_withHashKeyValues() {
         // GIVEN
-        when(mapper.query(eq(EventAnnouncement.class), any(DynamoDBQueryExpression.class))).thenReturn(queryResult);
+        when(itemReader.query(any(EventAnnouncementCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(queryResult);
 
         // WHEN
         List<EventAnnouncement> results = eventAnnouncementDao.getEventAnnouncements(TEST_EVENT_ID);
@@ -68,7 +94,7 @@ public class EventAnnouncementDaoTest {
         // THEN
         ArgumentCaptor<DynamoDBQueryExpression<EventAnnouncement>> queryExpressionArgumentCaptor =
             ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
-        verify(mapper).query(eq(EventAnnouncement.class), queryExpressionArgumentCaptor.capture());
+        verify(itemReader).query(any(EventAnnouncementCodec.class), queryExpressionArgumentCaptor.capture());
         assertEquals(results, queryResult, "Expected getEventAnnouncements to return the query list");
 
         DynamoDBQueryExpression<EventAnnouncement> capturedQueryExpression = queryExpressionArgumentCaptor.getValue();
@@ -84,13 +110,14 @@ public class EventAnnouncementDaoTest {
         // GIVEN
         ArgumentCaptor<DynamoDBQueryExpression<EventAnnouncement>> queryExpressionArgumentCaptor =
             ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
-        when(mapper.query(eq(EventAnnouncement.class), queryExpressionArgumentCaptor.capture())).thenReturn(queryResult);
+        when(itemReader.query(any(EventAnnouncementCodec.class), queryExpressionArgumentCaptor.capture()))
+            .thenReturn(queryResult);
 
         // WHEN
         List<EventAnnouncement> results = eventAnnouncementDao.getEventAnnouncements(TEST_EVENT_ID);
 
         // THEN
-        verify(mapper).query(eq(EventAnnouncement.class), any(DynamoDBQueryExpression.class));
+        verify(itemReader).query(any(EventAnnouncementCodec.class), any(DynamoDBQueryExpression.class));
         assertEquals(results, queryResult, "Expected getEventAnnouncements to return the query list");
 
         DynamoDBQueryExpression<EventAnnouncement> capturedQueryExpression = queryExpressionArgumentCaptor.getValue();
@@ -106,7 +133,8 @@ public class EventAnnouncementDaoTest {
         // GIVEN
         ZonedDateTime startTime = ZonedDateTime.now();
         ZonedDateTime endTime = ZonedDateTime.now().plusDays(2);
-        when(mapper.query(eq(EventAnnouncement.class), any(DynamoDBQueryExpression.class))).thenReturn(queryResult);
+        when(itemReader.query(any(EventAnnouncementCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(queryResult);
 
         // WHEN
         List<EventAnnouncement> results = eventAnnouncementDao.getEventAnnouncementsBetweenDates("eventId",
@@ -115,7 +143,7 @@ public class EventAnnouncementDaoTest {
         // THEN
         ArgumentCaptor<DynamoDBQueryExpression<EventAnnouncement>> queryExpressionArgumentCaptor =
             ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
-        verify(mapper).query(eq(EventAnnouncement.class), queryExpressionArgumentCaptor.capture());
+        verify(itemReader).query(any(EventAnnouncementCodec.class), queryExpressionArgumentCaptor.capture());
         assertEquals(results, queryResult, "Expected getEventAnnouncementsBetweenDates to return the query list");
 
         DynamoDBQueryExpression<EventAnnouncement> capturedQueryExpression = queryExpressionArgumentCaptor.getValue();
@@ -132,4 +160,156 @@ public class EventAnnouncementDaoTest {
         assertEquals(keyExpression, "eventId = :eventId and timePublished between :startDate and :endDate",
             "Expected the key expression to contain the event id and time published between condition");
     }
+
+    @Test
+    public void getLatestEventAnnouncements_withProjection_queriesNewestFirstWithLimit() {
+        // GIVEN
+        Map<String, AttributeValue> lastEvaluatedKey = ImmutableMap.of(
+            "eventId", new AttributeValue().withS(TEST_EVENT_ID),
+            "timePublished", new AttributeValue().withS("2021-01-01T00:00Z"));
+        when(itemReader.queryPage(any(EventAnnouncementCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(queryPage);
+        when(queryPage.getResults()).thenReturn(ImmutableList.of(new EventAnnouncement()));
+        when(queryPage.getLastEvaluatedKey()).thenReturn(lastEvaluatedKey);
+
+        // WHEN
+        PaginatedResult<EventAnnouncement> result = eventAnnouncementDao.getLatestEventAnnouncements(TEST_EVENT_ID,
+            null, null, 20, null, ImmutableList.of("subject"));
+
+        // THEN
+        assertEquals(1, result.getItems().size(), "Expected the announcements from the query page.");
+        assertEquals(lastEvaluatedKey, ContinuationTokens.decode(result.getContinuationToken()),
+            "Expected the last evaluated key to be returned as the continuation token.");
+
+        ArgumentCaptor<DynamoDBQueryExpression<EventAnnouncement>> captor =
+            ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(itemReader).queryPage(any(EventAnnouncementCodec.class), captor.capture());
+        DynamoDBQueryExpression<EventAnnouncement> capturedQueryExpression = captor.getValue();
+        assertFalse(capturedQueryExpression.isScanIndexForward(), "Expected newest announcements first.");
+        assertEquals(20, capturedQueryExpression.getLimit());
+        assertEquals("eventId = :eventId", capturedQueryExpression.getKeyConditionExpression());
+        assertEquals("#a0, #a1, #a2", capturedQueryExpression.getProjectionExpression());
+        assertEquals(ImmutableMap.of("#a0", "eventId", "#a1", "timePublished", "#a2", "subject"),
+            capturedQueryExpression.getExpressionAttributeNames());
+    }
+
+    @Test
+    public void getLatestEventAnnouncements_withTimeRangeAndToken_queriesFromToken() {
+        // GIVEN
+        ZonedDateTime startTime = ZonedDateTime.now();
+        Map<String, AttributeValue> startKey = ImmutableMap.of(
+            "eventId", new AttributeValue().withS(TEST_EVENT_ID),
+            "timePublished", new AttributeValue().withS("2021-01-01T00:00Z"));
+        when(itemReader.queryPage(any(EventAnnouncementCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(queryPage);
+        when(queryPage.getResults()).thenReturn(ImmutableList.of());
+
+        // WHEN
+        PaginatedResult<EventAnnouncement> result = eventAnnouncementDao.getLatestEventAnnouncements(TEST_EVENT_ID,
+            startTime, null, 20, ContinuationTokens.encode(startKey), null);
+
+        // THEN
+        assertFalse(result.hasMorePages(), "Expected no continuation token on the last page.");
+
+        ArgumentCaptor<DynamoDBQueryExpression<EventAnnouncement>> captor =
+            ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(itemReader).queryPage(any(EventAnnouncementCodec.class), captor.capture());
+        DynamoDBQueryExpression<EventAnnouncement> capturedQueryExpression = captor.getValue();
+        assertEquals("eventId = :eventId and timePublished >= :startDate",
+            capturedQueryExpression.getKeyConditionExpression());
+        assertEquals(new AttributeValue().withS(ZONED_DATE_TIME_CONVERTER.convert(startTime)),
+            capturedQueryExpression.getExpressionAttributeValues().get(":startDate"));
+        assertEquals(startKey, capturedQueryExpression.getExclusiveStartKey());
+        assertNull(capturedQueryExpression.getProjectionExpression(), "Expected every attribute to be read.");
+    }
+
+    @Test
+    public void createEventAnnouncement_shardedEvent_savesUnderShardKey() {
+        // GIVEN
+        eventAnnouncementDao = new EventAnnouncementDao(mapper, itemReader, MoreExecutors.newDirectExecutorService(),
+            eventDao);
+        when(eventDao.getEvent(TEST_EVENT_ID)).thenReturn(shardedEvent(4));
+        EventAnnouncement announcement = new EventAnnouncement();
+        announcement.setEventId(TEST_EVENT_ID);
+        announcement.setTimePublished(ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+
+        // WHEN
+        EventAnnouncement result = eventAnnouncementDao.createEventAnnouncement(announcement);
+
+        // THEN
+        ArgumentCaptor<EventAnnouncement> captor = ArgumentCaptor.forClass(EventAnnouncement.class);
+        verify(mapper).save(captor.capture());
+        assertTrue(captor.getValue().getEventId().matches(TEST_EVENT_ID + "#[0-3]"),
+            "Expected the announcement to be saved under one of the 4 shard keys.");
+        assertEquals(TEST_EVENT_ID, result.getEventId(), "Expected the caller's announcement to keep its event ID.");
+    }
+
+    @Test
+    public void getEventAnnouncementsBetweenDates_shardedEvent_queriesEveryPartition() {
+        // GIVEN
+        eventAnnouncementDao = new EventAnnouncementDao(mapper, itemReader, MoreExecutors.newDirectExecutorService(),
+            eventDao);
+        when(eventDao.getEvent(TEST_EVENT_ID)).thenReturn(shardedEvent(2));
+        when(itemReader.query(any(EventAnnouncementCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(queryResult);
+        when(queryResult.toArray()).thenReturn(new Object[0]);
+        ZonedDateTime startTime = ZonedDateTime.now();
+
+        // WHEN
+        eventAnnouncementDao.getEventAnnouncementsBetweenDates(TEST_EVENT_ID, startTime, startTime.plusDays(1));
+
+        // THEN
+        ArgumentCaptor<DynamoDBQueryExpression<EventAnnouncement>> captor =
+            ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(itemReader, times(3)).query(any(EventAnnouncementCodec.class), captor.capture());
+        assertEquals(ImmutableList.of(TEST_EVENT_ID, TEST_EVENT_ID + "#0", TEST_EVENT_ID + "#1"),
+            captor.getAllValues().stream()
+                .map(query -> query.getExpressionAttributeValues().get(":eventId").getS())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shardEventAnnouncements_fewerShardsThanBefore_throwsIllegalArgumentException() {
+        // GIVEN
+        when(eventDao.getEvent(TEST_EVENT_ID)).thenReturn(shardedEvent(8));
+
+        // WHEN + THEN
+        assertThrows(IllegalArgumentException.class,
+            () -> eventAnnouncementDao.shardEventAnnouncements(TEST_EVENT_ID, 4));
+        verify(eventDao, never()).raiseAnnouncementShards(any(), anyInt());
+    }
+
+    @Test
+    public void shardEventAnnouncements_moreShards_updatesOnlyShardCount() {
+        // GIVEN
+        when(eventDao.getEvent(TEST_EVENT_ID)).thenReturn(shardedEvent(2));
+        when(eventDao.raiseAnnouncementShards(TEST_EVENT_ID, 4)).thenReturn(shardedEvent(4));
+
+        // WHEN
+        Event result = eventAnnouncementDao.shardEventAnnouncements(TEST_EVENT_ID, 4);
+
+        // THEN
+        assertEquals(4, result.getAnnouncementShards());
+        verify(eventDao, never()).createEvent(any(Event.class));
+    }
+
+    @Test
+    public void shardEventAnnouncements_raisedFurtherMeanwhile_throwsIllegalArgumentException() {
+        // GIVEN
+        // the cached event still has the old count, but another host already raised it past 4
+        when(eventDao.getEvent(TEST_EVENT_ID)).thenReturn(shardedEvent(2));
+        when(eventDao.raiseAnnouncementShards(TEST_EVENT_ID, 4)).thenReturn(null);
+
+        // WHEN + THEN
+        assertThrows(IllegalArgumentException.class,
+            () -> eventAnnouncementDao.shardEventAnnouncements(TEST_EVENT_ID, 4));
+        verify(eventDao, never()).createEvent(any(Event.class));
+    }
+
+    private static Event shardedEvent(int shardCount) {
+        Event event = new Event();
+        event.setId(TEST_EVENT_ID);
+        event.setAnnouncementShards(shardCount);
+        return event;
+    }
 }
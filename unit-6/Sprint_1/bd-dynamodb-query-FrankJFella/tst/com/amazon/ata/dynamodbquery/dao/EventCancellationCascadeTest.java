@@ -0,0 +1,170 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.InviteCancellationProgress;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class EventCancellationCascadeTest {
+    private static final String TEST_EVENT_ID = "eventId";
+
+    @Mock
+    private InviteDao inviteDao;
+
+    @BeforeEach
+    private void setup() {
+        initMocks(this);
+    }
+
+    @Test
+    void start_manyInvites_cancelsThemAPageAtATimeAndReportsProgress() {
+        // GIVEN
+        List<Invite> invites = new ArrayList<>();
+        for (int i = 0; i < EventCancellationCascade.PAGE_SIZE + 10; i++) {
+            invites.add(invite("member" + i, i == 0));
+        }
+        when(inviteDao.getInvitesForEventIterator(TEST_EVENT_ID, EventCancellationCascade.PAGE_SIZE, null))
+            .thenReturn(iteratorOver(invites));
+        when(inviteDao.cancelInvites(anyList())).thenReturn(ImmutableList.of());
+        EventCancellationCascade cascade =
+            new EventCancellationCascade(inviteDao, MoreExecutors.newDirectExecutorService());
+
+        // WHEN
+        InviteCancellationProgress progress = cascade.start(TEST_EVENT_ID, null).join();
+
+        // THEN
+        assertEquals(new InviteCancellationProgress(TEST_EVENT_ID, invites.size() - 1, 1, 0, null, true), progress);
+        assertEquals(progress, cascade.getProgress(TEST_EVENT_ID));
+        ArgumentCaptor<List> pages = ArgumentCaptor.forClass(List.class);
+        verify(inviteDao, times(2)).cancelInvites(pages.capture());
+        assertEquals(EventCancellationCascade.PAGE_SIZE, pages.getAllValues().get(0).size());
+        assertEquals(10, pages.getAllValues().get(1).size());
+    }
+
+    @Test
+    void start_inviteFailsOnFirstPage_keepsGoingButHoldsTokenAtFirstPage() {
+        // GIVEN
+        List<Invite> invites = new ArrayList<>();
+        for (int i = 0; i < EventCancellationCascade.PAGE_SIZE + 10; i++) {
+            invites.add(invite("member" + i, i == 0));
+        }
+        when(inviteDao.getInvitesForEventIterator(TEST_EVENT_ID, EventCancellationCascade.PAGE_SIZE, null))
+            .thenReturn(iteratorOver(invites));
+        when(inviteDao.cancelInvites(anyList()))
+            .thenReturn(ImmutableList.of(invites.get(1)))
+            .thenReturn(ImmutableList.of());
+        EventCancellationCascade cascade =
+            new EventCancellationCascade(inviteDao, MoreExecutors.newDirectExecutorService());
+
+        // WHEN
+        InviteCancellationProgress progress = cascade.start(TEST_EVENT_ID, null).join();
+
+        // THEN
+        assertEquals(new InviteCancellationProgress(TEST_EVENT_ID, invites.size() - 2, 1, 1,
+            ContinuationTokens.FIRST_PAGE, false), progress,
+            "Expected a cascade with failures not to be done, and to resume from the page that failed.");
+        verify(inviteDao, times(2)).cancelInvites(anyList());
+    }
+
+    @Test
+    void start_inviteFailsOnSecondPage_holdsTokenAtStartOfThatPage() {
+        // GIVEN
+        List<Invite> invites = new ArrayList<>();
+        for (int i = 0; i < EventCancellationCascade.PAGE_SIZE + 10; i++) {
+            invites.add(invite("member" + i, false));
+        }
+        when(inviteDao.getInvitesForEventIterator(TEST_EVENT_ID, EventCancellationCascade.PAGE_SIZE, null))
+            .thenReturn(iteratorOver(invites));
+        when(inviteDao.cancelInvites(anyList()))
+            .thenReturn(ImmutableList.of())
+            .thenReturn(ImmutableList.of(invites.get(EventCancellationCascade.PAGE_SIZE)));
+        EventCancellationCascade cascade =
+            new EventCancellationCascade(inviteDao, MoreExecutors.newDirectExecutorService());
+
+        // WHEN
+        InviteCancellationProgress progress = cascade.start(TEST_EVENT_ID, null).join();
+
+        // THEN
+        assertFalse(progress.isDone());
+        assertEquals(1, progress.getFailedCount());
+        String lastInviteOfFirstPage = ContinuationTokens.encode(ImmutableMap.of("memberId",
+            new AttributeValue().withS("member" + (EventCancellationCascade.PAGE_SIZE - 1))));
+        assertEquals(lastInviteOfFirstPage, progress.getContinuationToken(),
+            "Expected the token to skip only the first page, which was fully written.");
+    }
+
+    @Test
+    void start_cascadeAlreadyRunning_returnsTheRunningCascade() {
+        // GIVEN
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        CompletableFuture<Void> blocker = new CompletableFuture<>();
+        executorService.submit(blocker::join);
+        when(inviteDao.getInvitesForEventIterator(eq(TEST_EVENT_ID), eq(EventCancellationCascade.PAGE_SIZE),
+            anyString())).thenReturn(iteratorOver(ImmutableList.of()));
+        EventCancellationCascade cascade = new EventCancellationCascade(inviteDao, executorService);
+
+        try {
+            // WHEN
+            CompletableFuture<InviteCancellationProgress> first = cascade.start(TEST_EVENT_ID, "token");
+            CompletableFuture<InviteCancellationProgress> second = cascade.start(TEST_EVENT_ID, "token");
+            InviteCancellationProgress startingProgress = cascade.getProgress(TEST_EVENT_ID);
+            blocker.complete(null);
+
+            // THEN
+            assertSame(first, second, "Expected one cascade per event at a time.");
+            assertEquals("token", startingProgress.getContinuationToken(),
+                "Expected a cascade that hasn't written anything yet to resume from where it started.");
+            assertTrue(first.join().isDone());
+            verify(inviteDao, times(1)).getInvitesForEventIterator(TEST_EVENT_ID,
+                EventCancellationCascade.PAGE_SIZE, "token");
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static PrefetchingPageIterator<Invite> iteratorOver(List<Invite> invites) {
+        return new PrefetchingPageIterator<>(
+            startKey -> {
+                QueryResultPage<Invite> page = new QueryResultPage<>();
+                page.setResults(invites);
+                return page;
+            },
+            invite -> ImmutableMap.of("memberId", new AttributeValue().withS(invite.getMemberId())),
+            Runnable::run,
+            null);
+    }
+
+    private static Invite invite(String memberId, boolean canceled) {
+        Invite invite = new Invite();
+        invite.setEventId(TEST_EVENT_ID);
+        invite.setMemberId(memberId);
+        invite.setCanceled(canceled);
+        return invite;
+    }
+}
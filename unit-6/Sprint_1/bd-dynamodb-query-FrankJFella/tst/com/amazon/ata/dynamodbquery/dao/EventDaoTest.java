@@ -2,7 +2,14 @@ package com.amazon.ata.dynamodbquery.dao;
 
 import com.amazon.ata.dynamodbquery.dao.models.Event;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.google.common.collect.ImmutableMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -10,10 +17,13 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -24,8 +34,11 @@ public class EventDaoTest {
     @Mock
     private DynamoDBMapper mapper;
 
+    @Mock
+    private AmazonDynamoDB dynamoDbClient;
+
     @Captor
-    ArgumentCaptor<Event> eventCaptor;
+    ArgumentCaptor<UpdateItemRequest> updateCaptor;
 
     @BeforeEach
     private void setup() {
@@ -37,22 +50,81 @@ public class EventDaoTest {
         // GIVEN
         // event ID to cancel
         String eventId = "1234";
-        Event event = new Event();
-        event.setId(eventId);
-        when(mapper.load(Event.class, eventId)).thenReturn(event);
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenReturn(new UpdateItemResult()
+            .withAttributes(ImmutableMap.of(
+                "id", new AttributeValue().withS(eventId),
+                "name", new AttributeValue().withS("Launch party"),
+                "isCanceled", new AttributeValue().withBOOL(true))));
 
         // WHEN
         Event result = eventDao.cancelEvent(eventId);
 
         // THEN
-        // save() is called, and Event has attribute called isCanceled which is true
-        verify(mapper).save(eventCaptor.capture());
-        assertTrue(eventCaptor.getValue().isCanceled());
+        // a single update sets only isCanceled, on an event that must already exist
+        verify(dynamoDbClient).updateItem(updateCaptor.capture());
+        UpdateItemRequest request = updateCaptor.getValue();
+        assertEquals(ImmutableMap.of("id", new AttributeValue().withS(eventId)), request.getKey());
+        assertEquals("SET isCanceled = :canceled", request.getUpdateExpression());
+        assertEquals("attribute_exists(id)", request.getConditionExpression());
+        assertEquals(ReturnValue.ALL_NEW.toString(), request.getReturnValues());
 
-        // delete() is never called
-        verify(mapper, never()).delete(any());
+        // the event is never read first, saved whole or deleted
+        verifyNoInteractions(mapper);
 
         // resulting Event is marked canceled
         assertTrue(result.isCanceled(), "Expected canceled event to be marked canceled, but was not: " + result);
+        assertEquals("Launch party", result.getName(), "Expected the rest of the event to be returned too.");
+    }
+
+    @Test
+    void cancelEvent_noSuchEvent_returnsNullWithoutReading() {
+        // GIVEN
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+            .thenThrow(new ConditionalCheckFailedException("missing"));
+
+        // WHEN
+        Event result = eventDao.cancelEvent("missing");
+
+        // THEN
+        assertNull(result);
+        verify(mapper, never()).load(Event.class, "missing");
+    }
+
+    @Test
+    void raiseAnnouncementShards_onExistingEvent_setsOnlyShardCountIfNotLower() {
+        // GIVEN
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenReturn(new UpdateItemResult()
+            .withAttributes(ImmutableMap.of(
+                "id", new AttributeValue().withS("1234"),
+                "isCanceled", new AttributeValue().withBOOL(true),
+                "announcementShards", new AttributeValue().withN("4"))));
+
+        // WHEN
+        Event result = eventDao.raiseAnnouncementShards("1234", 4);
+
+        // THEN
+        verify(dynamoDbClient).updateItem(updateCaptor.capture());
+        UpdateItemRequest request = updateCaptor.getValue();
+        assertEquals("SET announcementShards = :shards", request.getUpdateExpression());
+        assertEquals("attribute_exists(id) AND " +
+            "(attribute_not_exists(announcementShards) OR announcementShards <= :shards)",
+            request.getConditionExpression());
+        assertEquals("4", request.getExpressionAttributeValues().get(":shards").getN());
+        verifyNoInteractions(mapper);
+        assertEquals(4, result.getAnnouncementShards());
+        assertTrue(result.isCanceled(), "Expected the rest of the event to be returned as stored.");
+    }
+
+    @Test
+    void raiseAnnouncementShards_alreadyMoreShards_returnsNull() {
+        // GIVEN
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+            .thenThrow(new ConditionalCheckFailedException("higher"));
+
+        // WHEN
+        Event result = eventDao.raiseAnnouncementShards("1234", 4);
+
+        // THEN
+        assertNull(result);
     }
 }
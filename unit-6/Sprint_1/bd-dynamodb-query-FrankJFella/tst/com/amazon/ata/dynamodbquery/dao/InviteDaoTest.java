@@ -1,23 +1,46 @@
 package com.amazon.ata.dynamodbquery.dao;
 
+import com.amazon.ata.dynamodbquery.dao.codec.InviteCodec;
+import com.amazon.ata.dynamodbquery.dao.codec.ItemReader;
 import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.InviteCreateResult;
+import com.amazon.ata.dynamodbquery.dao.models.InviteDeleteResult;
+import com.amazon.ata.dynamodbquery.dao.models.InviteSummary;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
 
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBDeleteExpression;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.KeyPair;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.datamodeling.TransactionWriteRequest;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -25,8 +48,12 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -44,6 +71,15 @@ public class InviteDaoTest {
     @Mock
     private QueryResultPage<Invite> inviteQueryResultPage;
 
+    @Mock
+    private ItemReader itemReader;
+
+    @Mock
+    private AmazonDynamoDB dynamoDbClient;
+
+    @Mock
+    private InviteSummaryDao inviteSummaryDao;
+
     @BeforeEach
     private void setup() {
         initMocks(this);
@@ -52,30 +88,40 @@ public class InviteDaoTest {
     @Test
     void deleteInvite_deleteConditionsNotViolated_returnsTrue() {
         // GIVEN
+        Invite deleted = new Invite();
+        deleted.setEventId("EVENTID");
+        deleted.setMemberId("MEMBERID");
+        deleted.setAttending(false);
+        when(dynamoDbClient.deleteItem(any(DeleteItemRequest.class)))
+            .thenReturn(new DeleteItemResult().withAttributes(new InviteCodec().encode(deleted)));
+
         // WHEN
         boolean result = inviteDao.deleteInvite("EVENTID", "MEMBERID");
 
         // THEN
         assertTrue(result, "Expected deleteInvite() to return true when delete condition check not violated");
+        verify(inviteSummaryDao).recordChange("MEMBERID", InviteSummary.InviteStatus.PENDING, null);
     }
 
     @Test
     void deleteInvite_deleteConditionsViolated_returnsFalse() {
         // GIVEN
-        doThrow(ConditionalCheckFailedException.class).when(mapper).delete(any(Invite.class), any(DynamoDBDeleteExpression.class));
+        doThrow(ConditionalCheckFailedException.class).when(dynamoDbClient).deleteItem(any(DeleteItemRequest.class));
 
         // WHEN
         boolean result = inviteDao.deleteInvite("EVENTID", "MEMBERID");
 
         // THEN
         assertFalse(result, "Expected deleteInvite() to return false when delete condition check violated");
+        verify(inviteSummaryDao, never()).recordChange(any(), any(), any());
     }
 
     @Test
     public void getInvitesForEvent_nullExclusiveStartKey_queriesWithoutStartKey() {
         // GIVEN
         List<Invite> resultList = Collections.nCopies(10, new Invite());
-        when(mapper.queryPage(eq(Invite.class), any(DynamoDBQueryExpression.class))).thenReturn(inviteQueryResultPage);
+        when(itemReader.queryPage(any(InviteCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(inviteQueryResultPage);
         when(inviteQueryResultPage.getResults()).thenReturn(ImmutableList.of()).thenReturn(resultList);
 
         // WHEN
@@ -85,7 +131,7 @@ public class InviteDaoTest {
         assertEquals(result, result, "Expected list of invites to be contained in the QueryResultPage.");
 
         ArgumentCaptor<DynamoDBQueryExpression<Invite>> captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
-        verify(mapper).queryPage(eq(Invite.class), captor.capture());
+        verify(itemReader).queryPage(any(InviteCodec.class), captor.capture());
         DynamoDBQueryExpression<Invite> capturedQueryExpression = captor.getValue();
         Invite queriedInvite = capturedQueryExpression.getHashKeyValues();
         assertEquals(TEST_EVENT_ID, queriedInvite.getEventId(), "Expected query expression to query for " +
@@ -99,7 +145,8 @@ public class InviteDaoTest {
     public void getInvitesForEvent_withExclusiveStartKey_queriesWithStartKey() {
         // GIVEN
         List<Invite> resultList = Collections.nCopies(10, new Invite());
-        when(mapper.queryPage(eq(Invite.class), any(DynamoDBQueryExpression.class))).thenReturn(inviteQueryResultPage);
+        when(itemReader.queryPage(any(InviteCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(inviteQueryResultPage);
         when(inviteQueryResultPage.getResults()).thenReturn(ImmutableList.of()).thenReturn(resultList);
 
         // WHEN
@@ -109,7 +156,7 @@ public class InviteDaoTest {
         assertEquals(result, result, "Expected list of invites to be contained in the QueryResultPage.");
 
         ArgumentCaptor<DynamoDBQueryExpression<Invite>> captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
-        verify(mapper).queryPage(eq(Invite.class), captor.capture());
+        verify(itemReader).queryPage(any(InviteCodec.class), captor.capture());
         DynamoDBQueryExpression<Invite> capturedQueryExpression = captor.getValue();
         Invite queriedInvite = capturedQueryExpression.getHashKeyValues();
         assertEquals(TEST_EVENT_ID, queriedInvite.getEventId(), "Expected query expression to query for " +
@@ -124,4 +171,520 @@ public class InviteDaoTest {
         assertTrue(startKeyMap.containsValue(new AttributeValue().withS(TEST_MEMBER_ID)),
             "Expected the exclusive start key to contain the range key " + TEST_MEMBER_ID);
     }
+
+    @Test
+    public void getInvitesForEvent_withPageSize_queriesOnePageAndReturnsItsToken() {
+        // GIVEN
+        Map<String, AttributeValue> startKey = ImmutableMap.of(
+            "eventId", new AttributeValue().withS(TEST_EVENT_ID),
+            "memberId", new AttributeValue().withS(TEST_MEMBER_ID));
+        Map<String, AttributeValue> lastEvaluatedKey = ImmutableMap.of(
+            "eventId", new AttributeValue().withS(TEST_EVENT_ID),
+            "memberId", new AttributeValue().withS("lastMemberId"));
+        List<Invite> resultList = Collections.nCopies(5, new Invite());
+        when(itemReader.queryPage(any(InviteCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(inviteQueryResultPage);
+        when(inviteQueryResultPage.getResults()).thenReturn(resultList);
+        when(inviteQueryResultPage.getLastEvaluatedKey()).thenReturn(lastEvaluatedKey);
+
+        // WHEN
+        PaginatedResult<Invite> result = inviteDao.getInvitesForEvent(TEST_EVENT_ID, 5,
+            ContinuationTokens.encode(startKey));
+
+        // THEN
+        assertEquals(resultList, result.getItems(), "Expected the invites from the query page.");
+        assertEquals(ContinuationTokens.encode(lastEvaluatedKey), result.getContinuationToken(),
+            "Expected the page's last evaluated key as the continuation token.");
+
+        ArgumentCaptor<DynamoDBQueryExpression<Invite>> captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(itemReader, times(1)).queryPage(any(InviteCodec.class), captor.capture());
+        DynamoDBQueryExpression<Invite> capturedQueryExpression = captor.getValue();
+        assertEquals(TEST_EVENT_ID, capturedQueryExpression.getHashKeyValues().getEventId());
+        assertEquals(5, capturedQueryExpression.getLimit(), "Expected the page size as the query limit.");
+        assertEquals(startKey, capturedQueryExpression.getExclusiveStartKey(),
+            "Expected the continuation token to be decoded into the exclusive start key.");
+    }
+
+    @Test
+    public void getInvitesSentToMember_queriesMemberIndexNewestFirst_doesNotScan() {
+        // GIVEN
+        when(itemReader.query(any(InviteCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(ImmutableList.of());
+
+        // WHEN
+        inviteDao.getInvitesSentToMember(TEST_MEMBER_ID);
+
+        // THEN
+        ArgumentCaptor<DynamoDBQueryExpression<Invite>> captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(itemReader).query(any(InviteCodec.class), captor.capture());
+        verify(mapper, never()).scan(eq(Invite.class), any(DynamoDBScanExpression.class));
+
+        DynamoDBQueryExpression<Invite> capturedQueryExpression = captor.getValue();
+        assertEquals(Invite.TIME_RECEIVED_MEMBER_ID_GSI, capturedQueryExpression.getIndexName(),
+            "Expected the query to use the memberId-timeReceived GSI.");
+        assertFalse(capturedQueryExpression.isConsistentRead(), "Expected an eventually consistent GSI query.");
+        assertFalse(capturedQueryExpression.isScanIndexForward(), "Expected newest invites first.");
+        assertEquals("memberId = :memberId", capturedQueryExpression.getKeyConditionExpression());
+        assertEquals(new AttributeValue().withS(TEST_MEMBER_ID),
+            capturedQueryExpression.getExpressionAttributeValues().get(":memberId"));
+    }
+
+    @Test
+    public void getAcceptedInvitesForEvent_queriesSparseAttendingIndex_doesNotScan() {
+        // GIVEN
+        Invite invite = new Invite();
+        invite.setEventId(TEST_EVENT_ID);
+        invite.setMemberId(TEST_MEMBER_ID);
+        invite.setAttending(true);
+        when(itemReader.query(any(InviteCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(ImmutableList.of(invite));
+
+        // WHEN
+        List<Invite> results = inviteDao.getAcceptedInvitesForEvent(TEST_EVENT_ID);
+
+        // THEN
+        ArgumentCaptor<DynamoDBQueryExpression<Invite>> captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(itemReader).query(any(InviteCodec.class), captor.capture());
+        verify(mapper, never()).scan(eq(Invite.class), any(DynamoDBScanExpression.class));
+        assertEquals(ImmutableList.of(invite), results);
+
+        DynamoDBQueryExpression<Invite> capturedQueryExpression = captor.getValue();
+        assertEquals(Invite.ATTENDING_EVENT_ID_GSI, capturedQueryExpression.getIndexName(),
+            "Expected the query to use the attendingEventId-memberId GSI.");
+        assertFalse(capturedQueryExpression.isConsistentRead(), "Expected an eventually consistent GSI query.");
+        assertEquals("attendingEventId = :eventId", capturedQueryExpression.getKeyConditionExpression());
+        assertEquals(new AttributeValue().withS(TEST_EVENT_ID),
+            capturedQueryExpression.getExpressionAttributeValues().get(":eventId"));
+    }
+
+    @Test
+    public void countAcceptedInvitesForEvent_countsOnAttendingIndex_withoutLoadingInvites() {
+        // GIVEN
+        when(mapper.count(eq(Invite.class), any(DynamoDBQueryExpression.class))).thenReturn(42);
+
+        // WHEN
+        int count = inviteDao.countAcceptedInvitesForEvent(TEST_EVENT_ID);
+
+        // THEN
+        ArgumentCaptor<DynamoDBQueryExpression<Invite>> captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(mapper).count(eq(Invite.class), captor.capture());
+        verify(itemReader, never()).query(any(InviteCodec.class), any(DynamoDBQueryExpression.class));
+        assertEquals(42, count);
+        assertEquals(Invite.ATTENDING_EVENT_ID_GSI, captor.getValue().getIndexName(),
+            "Expected the count to use the attendingEventId-memberId GSI.");
+    }
+
+    @Test
+    public void getInvitesSentToMember_withTimeBoundsAndToken_queriesPageBetweenTimes() {
+        // GIVEN
+        Date receivedAfter = new Date(1000L);
+        Date receivedBefore = new Date(2000L);
+        Map<String, AttributeValue> lastEvaluatedKey = ImmutableMap.of(
+            "eventId", new AttributeValue().withS(TEST_EVENT_ID),
+            "memberId", new AttributeValue().withS(TEST_MEMBER_ID),
+            "timeReceived", new AttributeValue().withS("1970-01-01T00:00:01.500Z"));
+        String continuationToken = ContinuationTokens.encode(lastEvaluatedKey);
+        when(itemReader.queryPage(any(InviteCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(inviteQueryResultPage);
+        when(inviteQueryResultPage.getResults()).thenReturn(ImmutableList.of(new Invite()));
+        when(inviteQueryResultPage.getLastEvaluatedKey()).thenReturn(lastEvaluatedKey);
+
+        // WHEN
+        PaginatedResult<Invite> result = inviteDao.getInvitesSentToMember(TEST_MEMBER_ID, receivedAfter,
+            receivedBefore, 25, continuationToken);
+
+        // THEN
+        assertEquals(1, result.getItems().size(), "Expected the invites from the query page.");
+        assertEquals(continuationToken, result.getContinuationToken(),
+            "Expected the last evaluated key to be returned as the continuation token.");
+
+        ArgumentCaptor<DynamoDBQueryExpression<Invite>> captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(itemReader).queryPage(any(InviteCodec.class), captor.capture());
+        DynamoDBQueryExpression<Invite> capturedQueryExpression = captor.getValue();
+        assertEquals(Invite.TIME_RECEIVED_MEMBER_ID_GSI, capturedQueryExpression.getIndexName());
+        assertEquals(25, capturedQueryExpression.getLimit(), "Expected the page size as the query limit.");
+        assertEquals(lastEvaluatedKey, capturedQueryExpression.getExclusiveStartKey(),
+            "Expected the continuation token to be decoded into the exclusive start key.");
+        assertEquals("memberId = :memberId and timeReceived between :receivedAfter and :receivedBefore",
+            capturedQueryExpression.getKeyConditionExpression());
+        Map<String, AttributeValue> values = capturedQueryExpression.getExpressionAttributeValues();
+        assertEquals(new AttributeValue().withS("1970-01-01T00:00:01.000Z"), values.get(":receivedAfter"));
+        assertEquals(new AttributeValue().withS("1970-01-01T00:00:02.000Z"), values.get(":receivedBefore"));
+    }
+
+    @Test
+    public void getInvitesSentToMember_lastPage_returnsNullContinuationToken() {
+        // GIVEN
+        when(itemReader.queryPage(any(InviteCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(inviteQueryResultPage);
+        when(inviteQueryResultPage.getResults()).thenReturn(ImmutableList.of());
+        when(inviteQueryResultPage.getLastEvaluatedKey()).thenReturn(null);
+
+        // WHEN
+        PaginatedResult<Invite> result = inviteDao.getInvitesSentToMember(TEST_MEMBER_ID, null, null, 10, null);
+
+        // THEN
+        assertFalse(result.hasMorePages(), "Expected no continuation token on the last page.");
+        ArgumentCaptor<DynamoDBQueryExpression<Invite>> captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(itemReader).queryPage(any(InviteCodec.class), captor.capture());
+        assertNull(captor.getValue().getExclusiveStartKey(), "Expected no exclusive start key for the first page.");
+    }
+
+    @Test
+    public void getInvitesForEventIterator_withContinuationToken_queriesPagesFromToken() {
+        // GIVEN
+        InviteDao prefetchingInviteDao = new InviteDao(mapper, dynamoDbClient, itemReader,
+            MoreExecutors.newDirectExecutorService(), inviteSummaryDao);
+        Map<String, AttributeValue> startKey = ImmutableMap.of(
+            "eventId", new AttributeValue().withS(TEST_EVENT_ID),
+            "memberId", new AttributeValue().withS(TEST_MEMBER_ID));
+        Invite invite = new Invite();
+        invite.setEventId(TEST_EVENT_ID);
+        invite.setMemberId("nextMemberId");
+        when(itemReader.queryPage(any(InviteCodec.class), any(DynamoDBQueryExpression.class)))
+            .thenReturn(inviteQueryResultPage);
+        when(inviteQueryResultPage.getResults()).thenReturn(ImmutableList.of(invite));
+        when(inviteQueryResultPage.getLastEvaluatedKey()).thenReturn(null);
+
+        // WHEN
+        PrefetchingPageIterator<Invite> result = prefetchingInviteDao.getInvitesForEventIterator(TEST_EVENT_ID, 5,
+            ContinuationTokens.encode(startKey));
+
+        // THEN
+        assertEquals(invite, result.next(), "Expected the invite from the query page.");
+        assertFalse(result.hasNext(), "Expected no more invites after the last page.");
+
+        ArgumentCaptor<DynamoDBQueryExpression<Invite>> captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(itemReader).queryPage(any(InviteCodec.class), captor.capture());
+        DynamoDBQueryExpression<Invite> capturedQueryExpression = captor.getValue();
+        assertEquals(TEST_EVENT_ID, capturedQueryExpression.getHashKeyValues().getEventId());
+        assertEquals(5, capturedQueryExpression.getLimit(), "Expected the page size as the query limit.");
+        assertEquals(startKey, capturedQueryExpression.getExclusiveStartKey(),
+            "Expected the continuation token to be decoded into the exclusive start key.");
+    }
+
+    @Test
+    public void deleteInvites_oneInviteAttending_skipsItAndDeletesTheRest() {
+        // GIVEN
+        InviteDao bulkInviteDao = new InviteDao(mapper, dynamoDbClient, itemReader,
+            MoreExecutors.newDirectExecutorService(), inviteSummaryDao);
+        List<Invite> invites = new ArrayList<>();
+        for (int i = 0; i < InviteDao.MAX_DELETES_PER_TRANSACTION + 1; i++) {
+            Invite invite = new Invite();
+            invite.setEventId("event" + i);
+            invite.setMemberId(TEST_MEMBER_ID);
+            invites.add(invite);
+        }
+        List<CancellationReason> reasons = new ArrayList<>(
+            Collections.nCopies(InviteDao.MAX_DELETES_PER_TRANSACTION, new CancellationReason().withCode("None")));
+        reasons.set(1, new CancellationReason().withCode("ConditionalCheckFailed"));
+        doThrow(new TransactionCanceledException("canceled").withCancellationReasons(reasons))
+            .doNothing()
+            .when(mapper).transactionWrite(any(TransactionWriteRequest.class));
+        Invite attendingInvite = new Invite();
+        attendingInvite.setEventId("event1");
+        attendingInvite.setMemberId(TEST_MEMBER_ID);
+        attendingInvite.setAttending(true);
+        when(mapper.load(eq(Invite.class), eq("event1"), eq(TEST_MEMBER_ID), any(DynamoDBMapperConfig.class)))
+            .thenReturn(attendingInvite);
+
+        // WHEN
+        List<InviteDeleteResult> results = bulkInviteDao.deleteInvites(invites);
+
+        // THEN
+        assertEquals(invites.size(), results.size(), "Expected a result for every invite.");
+        for (int i = 0; i < invites.size(); i++) {
+            assertEquals("event" + i, results.get(i).getEventId(), "Expected results in the same order as invites.");
+            InviteDeleteResult.Status expectedStatus = i == 1 ?
+                InviteDeleteResult.Status.SKIPPED_ATTENDING : InviteDeleteResult.Status.DELETED;
+            assertEquals(expectedStatus, results.get(i).getStatus());
+        }
+
+        ArgumentCaptor<TransactionWriteRequest> captor = ArgumentCaptor.forClass(TransactionWriteRequest.class);
+        verify(mapper, times(3)).transactionWrite(captor.capture());
+        List<TransactionWriteRequest> transactions = captor.getAllValues();
+        assertEquals(InviteDao.MAX_DELETES_PER_TRANSACTION, transactions.get(0).getTransactionWriteOperations().size());
+        assertEquals(InviteDao.MAX_DELETES_PER_TRANSACTION - 1,
+            transactions.get(1).getTransactionWriteOperations().size(),
+            "Expected the canceled transaction to be retried without the attending invite.");
+        assertEquals(1, transactions.get(2).getTransactionWriteOperations().size());
+        verify(inviteSummaryDao).adjustCounts(TEST_MEMBER_ID,
+            ImmutableMap.of(InviteSummary.InviteStatus.PENDING, -InviteDao.MAX_DELETES_PER_TRANSACTION));
+    }
+
+    @Test
+    public void deleteInvites_inviteCanceledSinceRead_retriesItAndCountsItAsCanceled() {
+        // GIVEN
+        InviteDao bulkInviteDao = new InviteDao(mapper, dynamoDbClient, itemReader,
+            MoreExecutors.newDirectExecutorService(), inviteSummaryDao);
+        Invite staleInvite = new Invite();
+        staleInvite.setEventId(TEST_EVENT_ID);
+        staleInvite.setMemberId(TEST_MEMBER_ID);
+        Invite canceledInvite = new Invite();
+        canceledInvite.setEventId(TEST_EVENT_ID);
+        canceledInvite.setMemberId(TEST_MEMBER_ID);
+        canceledInvite.setCanceled(true);
+        doThrow(new TransactionCanceledException("canceled")
+                .withCancellationReasons(new CancellationReason().withCode("ConditionalCheckFailed")))
+            .doNothing()
+            .when(mapper).transactionWrite(any(TransactionWriteRequest.class));
+        when(mapper.load(eq(Invite.class), eq(TEST_EVENT_ID), eq(TEST_MEMBER_ID), any(DynamoDBMapperConfig.class)))
+            .thenReturn(canceledInvite);
+
+        // WHEN
+        List<InviteDeleteResult> results = bulkInviteDao.deleteInvites(ImmutableList.of(staleInvite));
+
+        // THEN
+        assertEquals(ImmutableList.of(new InviteDeleteResult(TEST_EVENT_ID, TEST_MEMBER_ID,
+            InviteDeleteResult.Status.DELETED)), results);
+        ArgumentCaptor<TransactionWriteRequest> captor = ArgumentCaptor.forClass(TransactionWriteRequest.class);
+        verify(mapper, times(2)).transactionWrite(captor.capture());
+        String firstCondition = captor.getAllValues().get(0).getTransactionWriteOperations().get(0)
+            .getDynamoDBTransactionWriteExpression().getConditionExpression();
+        String retryCondition = captor.getAllValues().get(1).getTransactionWriteOperations().get(0)
+            .getDynamoDBTransactionWriteExpression().getConditionExpression();
+        assertTrue(firstCondition.endsWith("(attribute_not_exists(isCanceled) or isCanceled <> :canceled)"),
+            "Expected the first delete to expect the invite not canceled: " + firstCondition);
+        assertTrue(retryCondition.endsWith("isCanceled = :canceled"),
+            "Expected the retry to expect the canceled state that was read: " + retryCondition);
+        verify(inviteSummaryDao).adjustCounts(TEST_MEMBER_ID, ImmutableMap.of(InviteSummary.InviteStatus.CANCELED, -1));
+    }
+
+    @Test
+    public void deleteInvites_transactionKeepsFailing_reportsFailed() {
+        // GIVEN
+        InviteDao bulkInviteDao = new InviteDao(mapper, dynamoDbClient, itemReader,
+            MoreExecutors.newDirectExecutorService(), inviteSummaryDao);
+        Invite invite = new Invite();
+        invite.setEventId(TEST_EVENT_ID);
+        invite.setMemberId(TEST_MEMBER_ID);
+        doThrow(new TransactionCanceledException("conflict")
+            .withCancellationReasons(new CancellationReason().withCode("TransactionConflict")))
+            .when(mapper).transactionWrite(any(TransactionWriteRequest.class));
+
+        // WHEN
+        List<InviteDeleteResult> results = bulkInviteDao.deleteInvites(ImmutableList.of(invite));
+
+        // THEN
+        assertEquals(ImmutableList.of(new InviteDeleteResult(TEST_EVENT_ID, TEST_MEMBER_ID,
+            InviteDeleteResult.Status.FAILED)), results);
+    }
+
+    @Test
+    public void createInvites_duplicateAndExistingMembers_writesOnlyNewInvites() {
+        // GIVEN
+        InviteDao bulkInviteDao = new InviteDao(mapper, dynamoDbClient, itemReader,
+            MoreExecutors.newDirectExecutorService(), inviteSummaryDao);
+        Invite existingInvite = new Invite();
+        existingInvite.setEventId(TEST_EVENT_ID);
+        existingInvite.setMemberId("existing");
+        when(mapper.batchLoad(anyMap())).thenReturn(ImmutableMap.of("DynamoDBQuery-Invites",
+            ImmutableList.of(existingInvite)));
+        List<String> memberIds = new ArrayList<>();
+        for (int i = 0; i < InviteDao.MAX_INVITES_PER_BATCH_LOAD + 1; i++) {
+            memberIds.add("member" + i);
+        }
+        memberIds.add("existing");
+        memberIds.add("member0");
+
+        // WHEN
+        List<InviteCreateResult> results = bulkInviteDao.createInvites(TEST_EVENT_ID, memberIds);
+
+        // THEN
+        assertEquals(memberIds.size(), results.size(), "Expected a result for every member ID.");
+        for (int i = 0; i < memberIds.size(); i++) {
+            assertEquals(memberIds.get(i), results.get(i).getMemberId(), "Expected results in the same order.");
+        }
+        assertEquals(InviteCreateResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(InviteCreateResult.Status.SKIPPED_EXISTING, results.get(memberIds.size() - 2).getStatus());
+        assertEquals(InviteCreateResult.Status.SKIPPED_DUPLICATE, results.get(memberIds.size() - 1).getStatus());
+
+        // only the requested members are looked up, at most 100 per batch load
+        ArgumentCaptor<Map<Class<?>, List<KeyPair>>> loadCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(mapper, times(2)).batchLoad(loadCaptor.capture());
+        assertEquals(InviteDao.MAX_INVITES_PER_BATCH_LOAD, loadCaptor.getAllValues().get(0).get(Invite.class).size());
+        assertEquals(2, loadCaptor.getAllValues().get(1).get(Invite.class).size());
+        verify(itemReader, never()).query(any(InviteCodec.class), any(DynamoDBQueryExpression.class));
+
+        // the 101 new invites are created in transactions of up to 25 conditional puts
+        ArgumentCaptor<TransactionWriteRequest> writeCaptor = ArgumentCaptor.forClass(TransactionWriteRequest.class);
+        verify(mapper, times(5)).transactionWrite(writeCaptor.capture());
+        assertEquals(InviteDao.MAX_INVITES_PER_BATCH_WRITE,
+            writeCaptor.getAllValues().get(0).getTransactionWriteOperations().size());
+        TransactionWriteRequest.TransactionWriteOperation put =
+            writeCaptor.getAllValues().get(0).getTransactionWriteOperations().get(0);
+        assertEquals("attribute_not_exists(memberId)", put.getDynamoDBTransactionWriteExpression()
+            .getConditionExpression(), "Expected puts not to overwrite an existing invite.");
+        Invite written = (Invite) put.getObject();
+        assertEquals(TEST_EVENT_ID, written.getEventId());
+        assertNotNull(written.getTimeReceived(), "Expected new invites to have a timeReceived.");
+    }
+
+    @Test
+    public void createInvites_invitedMeanwhile_skipsItAndCountsOnlyTheRest() {
+        // GIVEN
+        InviteDao bulkInviteDao = new InviteDao(mapper, dynamoDbClient, itemReader,
+            MoreExecutors.newDirectExecutorService(), inviteSummaryDao);
+        when(mapper.batchLoad(anyMap())).thenReturn(ImmutableMap.of("DynamoDBQuery-Invites", ImmutableList.of()));
+        // another request creates an invite for "raced" after the lookup
+        doThrow(new TransactionCanceledException("canceled").withCancellationReasons(
+                new CancellationReason().withCode("None"),
+                new CancellationReason().withCode("ConditionalCheckFailed")))
+            .doNothing()
+            .when(mapper).transactionWrite(any(TransactionWriteRequest.class));
+
+        // WHEN
+        List<InviteCreateResult> results =
+            bulkInviteDao.createInvites(TEST_EVENT_ID, ImmutableList.of(TEST_MEMBER_ID, "raced"));
+
+        // THEN
+        assertEquals(ImmutableList.of(
+            new InviteCreateResult(TEST_EVENT_ID, TEST_MEMBER_ID, InviteCreateResult.Status.CREATED),
+            new InviteCreateResult(TEST_EVENT_ID, "raced", InviteCreateResult.Status.SKIPPED_EXISTING)), results);
+        verify(mapper, times(2)).transactionWrite(any(TransactionWriteRequest.class));
+        verify(inviteSummaryDao).adjustCounts(TEST_MEMBER_ID, ImmutableMap.of(InviteSummary.InviteStatus.PENDING, 1));
+        verify(inviteSummaryDao, never()).adjustCounts(eq("raced"), any());
+    }
+
+    @Test
+    public void createInvites_transactionKeepsFailing_reportsInvitesFailed() {
+        // GIVEN
+        InviteDao bulkInviteDao = new InviteDao(mapper, dynamoDbClient, itemReader,
+            MoreExecutors.newDirectExecutorService(), inviteSummaryDao);
+        when(mapper.batchLoad(anyMap())).thenReturn(ImmutableMap.of("DynamoDBQuery-Invites", ImmutableList.of()));
+        doThrow(new TransactionCanceledException("conflict")
+            .withCancellationReasons(new CancellationReason().withCode("TransactionConflict")))
+            .when(mapper).transactionWrite(any(TransactionWriteRequest.class));
+
+        // WHEN
+        List<InviteCreateResult> results = bulkInviteDao.createInvites(TEST_EVENT_ID, ImmutableList.of(TEST_MEMBER_ID));
+
+        // THEN
+        assertEquals(ImmutableList.of(
+            new InviteCreateResult(TEST_EVENT_ID, TEST_MEMBER_ID, InviteCreateResult.Status.FAILED)), results);
+        verify(inviteSummaryDao, never()).adjustCounts(any(), any());
+    }
+
+    @Test
+    public void cancelInvite_noSuchInvite_returnsNullWithoutReading() {
+        // GIVEN
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+            .thenThrow(new ConditionalCheckFailedException("missing"));
+
+        // WHEN
+        Invite result = inviteDao.cancelInvite(TEST_EVENT_ID, TEST_MEMBER_ID);
+
+        // THEN
+        assertNull(result);
+        verify(mapper, never()).load(Invite.class, TEST_EVENT_ID, TEST_MEMBER_ID);
+        verify(inviteSummaryDao, never()).recordChange(any(), any(), any());
+    }
+
+    @Test
+    public void setAttending_inviteExists_movesItFromPendingToAccepted() {
+        // GIVEN
+        Invite previous = new Invite();
+        previous.setEventId(TEST_EVENT_ID);
+        previous.setMemberId(TEST_MEMBER_ID);
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+            .thenReturn(new UpdateItemResult().withAttributes(new InviteCodec().encode(previous)));
+
+        // WHEN
+        Invite result = inviteDao.setAttending(TEST_EVENT_ID, TEST_MEMBER_ID, true);
+
+        // THEN
+        assertTrue(result.isAttending());
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(captor.capture());
+        assertEquals("SET isAttending = :attending, attendingEventId = :eventId",
+            captor.getValue().getUpdateExpression());
+        assertEquals("attribute_exists(eventId)", captor.getValue().getConditionExpression(),
+            "Expected the update not to create a missing invite.");
+        verify(inviteSummaryDao).recordChange(TEST_MEMBER_ID, InviteSummary.InviteStatus.PENDING,
+            InviteSummary.InviteStatus.ACCEPTED);
+    }
+
+    @Test
+    public void cancelInvite_acceptedInvite_movesItFromAcceptedToCanceled() {
+        // GIVEN
+        Invite previous = new Invite();
+        previous.setEventId(TEST_EVENT_ID);
+        previous.setMemberId(TEST_MEMBER_ID);
+        previous.setAttending(true);
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+            .thenReturn(new UpdateItemResult().withAttributes(new InviteCodec().encode(previous)));
+
+        // WHEN
+        Invite result = inviteDao.cancelInvite(TEST_EVENT_ID, TEST_MEMBER_ID);
+
+        // THEN
+        assertTrue(result.isCanceled());
+        assertTrue(result.isAttending(), "Expected the rest of the invite to be returned too.");
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(captor.capture());
+        assertEquals("SET isCanceled = :canceled", captor.getValue().getUpdateExpression());
+        assertEquals("attribute_exists(eventId)", captor.getValue().getConditionExpression());
+        verify(mapper, never()).load(Invite.class, TEST_EVENT_ID, TEST_MEMBER_ID);
+        verify(inviteSummaryDao).recordChange(TEST_MEMBER_ID, InviteSummary.InviteStatus.ACCEPTED,
+            InviteSummary.InviteStatus.CANCELED);
+    }
+
+    @Test
+    public void cancelInvites_staleInvites_updatesOnlyTheFlagAndCountsFromWhatItFound() {
+        // GIVEN
+        InviteDao bulkInviteDao = new InviteDao(mapper, dynamoDbClient, itemReader,
+            MoreExecutors.newDirectExecutorService(), inviteSummaryDao);
+        Invite accepted = new Invite();
+        accepted.setEventId(TEST_EVENT_ID);
+        accepted.setMemberId("accepted");
+        accepted.setAttending(true);
+        List<Invite> staleInvites = new ArrayList<>();
+        for (String memberId : ImmutableList.of("accepted", "deleted", "throttled")) {
+            Invite invite = new Invite();
+            invite.setEventId(TEST_EVENT_ID);
+            invite.setMemberId(memberId);
+            staleInvites.add(invite);
+        }
+        // "accepted" was answered, and "deleted" removed, since the invites were read
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+            .thenReturn(new UpdateItemResult().withAttributes(new InviteCodec().encode(accepted)))
+            .thenThrow(new ConditionalCheckFailedException("missing"))
+            .thenThrow(new ProvisionedThroughputExceededException("throttled"));
+
+        // WHEN
+        List<Invite> failed = bulkInviteDao.cancelInvites(staleInvites);
+
+        // THEN
+        assertEquals(ImmutableList.of(staleInvites.get(2)), failed);
+        verify(mapper, never()).batchWrite(any(), any(), any());
+        verify(inviteSummaryDao).recordChange("accepted", InviteSummary.InviteStatus.ACCEPTED,
+            InviteSummary.InviteStatus.CANCELED);
+        verify(inviteSummaryDao, never()).recordChange(eq("deleted"), any(), any());
+        verify(inviteSummaryDao, never()).recordChange(eq("throttled"), any(), any());
+    }
+
+    @Test
+    public void cancelInvites_executorNeverRunsTasks_callerCancelsEveryChunk() {
+        // GIVEN
+        // An executor too busy to run anything, as a bounded pool full of callers waiting on it would be
+        ExecutorService saturatedExecutor = mock(ExecutorService.class);
+        InviteDao bulkInviteDao = new InviteDao(mapper, dynamoDbClient, itemReader, saturatedExecutor,
+            inviteSummaryDao);
+        List<Invite> invites = new ArrayList<>();
+        for (int i = 0; i < InviteDao.MAX_INVITES_PER_BATCH_WRITE * 2 + 1; i++) {
+            Invite invite = new Invite();
+            invite.setEventId(TEST_EVENT_ID);
+            invite.setMemberId("member" + i);
+            invites.add(invite);
+        }
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+            .thenReturn(new UpdateItemResult().withAttributes(new InviteCodec().encode(invites.get(0))));
+
+        // WHEN
+        List<Invite> failed = bulkInviteDao.cancelInvites(invites);
+
+        // THEN
+        assertTrue(failed.isEmpty(), "Expected every invite to be canceled without the executor.");
+        verify(dynamoDbClient, times(invites.size())).updateItem(any(UpdateItemRequest.class));
+    }
 }
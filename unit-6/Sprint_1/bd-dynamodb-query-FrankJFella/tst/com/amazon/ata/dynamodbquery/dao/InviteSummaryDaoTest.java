@@ -0,0 +1,83 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazon.ata.dynamodbquery.dao.models.InviteSummary;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class InviteSummaryDaoTest {
+    private static final String TEST_MEMBER_ID = "memberId";
+
+    @InjectMocks
+    private InviteSummaryDao inviteSummaryDao;
+
+    @Mock
+    private DynamoDBMapper mapper;
+
+    @Mock
+    private AmazonDynamoDB dynamoDbClient;
+
+    @BeforeEach
+    private void setup() {
+        initMocks(this);
+    }
+
+    @Test
+    void recordChange_pendingToAccepted_movesOneInviteInOneUpdate() {
+        // GIVEN
+        // WHEN
+        inviteSummaryDao.recordChange(TEST_MEMBER_ID, InviteSummary.InviteStatus.PENDING,
+            InviteSummary.InviteStatus.ACCEPTED);
+
+        // THEN
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(captor.capture());
+        UpdateItemRequest request = captor.getValue();
+        assertEquals("DynamoDBQuery-InviteSummaries", request.getTableName());
+        assertEquals(ImmutableMap.of("memberId", new AttributeValue().withS(TEST_MEMBER_ID)), request.getKey());
+        assertEquals("ADD pendingCount :pendingCount, acceptedCount :acceptedCount", request.getUpdateExpression());
+        assertEquals(ImmutableMap.of(
+            ":pendingCount", new AttributeValue().withN("-1"),
+            ":acceptedCount", new AttributeValue().withN("1")), request.getExpressionAttributeValues());
+    }
+
+    @Test
+    void recordChange_statusUnchanged_doesNotWrite() {
+        // GIVEN
+        // WHEN
+        inviteSummaryDao.recordChange(TEST_MEMBER_ID, InviteSummary.InviteStatus.CANCELED,
+            InviteSummary.InviteStatus.CANCELED);
+        inviteSummaryDao.adjustCounts(TEST_MEMBER_ID, ImmutableMap.of(InviteSummary.InviteStatus.PENDING, 0));
+
+        // THEN
+        verify(dynamoDbClient, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void getInviteSummary_memberNeverInvited_returnsZeroCounts() {
+        // GIVEN
+        when(mapper.load(InviteSummary.class, TEST_MEMBER_ID)).thenReturn(null);
+
+        // WHEN
+        InviteSummary summary = inviteSummaryDao.getInviteSummary(TEST_MEMBER_ID);
+
+        // THEN
+        assertEquals(TEST_MEMBER_ID, summary.getMemberId());
+        assertEquals(0, summary.getPendingCount() + summary.getAcceptedCount() + summary.getCanceledCount());
+    }
+}
@@ -0,0 +1,117 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class ParallelScannerTest {
+    @Mock
+    private DynamoDBMapper mapper;
+
+    private ParallelScanner scanner;
+
+    @BeforeEach
+    private void setup() {
+        initMocks(this);
+        scanner = new ParallelScanner(mapper, 2, 10, 1, 1000);
+    }
+
+    @Test
+    void scan_multipleSegments_consumesEveryItemFromEverySegment() {
+        // GIVEN
+        Set<Integer> segments = ConcurrentHashMap.newKeySet();
+        List<DynamoDBScanExpression> expressions = new CopyOnWriteArrayList<>();
+        when(mapper.scanPage(eq(Invite.class), any(DynamoDBScanExpression.class))).thenAnswer(invocation -> {
+            DynamoDBScanExpression expression = invocation.getArgument(1);
+            expressions.add(expression);
+            segments.add(expression.getSegment());
+            ScanResultPage<Invite> page = new ScanResultPage<>();
+            page.setScannedCount(2);
+            page.setResults(ImmutableList.of(invite(expression.getSegment()), invite(expression.getSegment())));
+            if (expression.getExclusiveStartKey() == null) {
+                page.setLastEvaluatedKey(ImmutableMap.of("eventId", new AttributeValue().withS("next")));
+            }
+            return page;
+        });
+        List<Invite> consumed = new CopyOnWriteArrayList<>();
+
+        // WHEN
+        long itemCount = scanner.scan(Invite.class, 3, consumed::add);
+
+        // THEN
+        assertEquals(12, itemCount, "Expected two pages of two items from each of three segments.");
+        assertEquals(12, consumed.size(), "Expected every scanned item to be passed to the consumer.");
+        assertEquals(ImmutableList.of(0, 1, 2), ImmutableList.sortedCopyOf(segments));
+        for (DynamoDBScanExpression expression : expressions) {
+            assertEquals(3, expression.getTotalSegments(), "Expected every scan to know the total segments.");
+            assertEquals(10, expression.getLimit(), "Expected every scan to be limited to the page size.");
+        }
+    }
+
+    @Test
+    void scan_segmentFails_rethrowsException() {
+        // GIVEN
+        when(mapper.scanPage(eq(Invite.class), any(DynamoDBScanExpression.class)))
+            .thenThrow(new ProvisionedThroughputExceededException("throttled"));
+
+        // WHEN + THEN
+        assertThrows(ProvisionedThroughputExceededException.class,
+            () -> scanner.scan(Invite.class, 2, invite -> { }));
+    }
+
+    @Test
+    void scan_segmentThrowsError_rethrowsErrorInsteadOfWaiting() {
+        // GIVEN
+        when(mapper.scanPage(eq(Invite.class), any(DynamoDBScanExpression.class)))
+            .thenThrow(new NoClassDefFoundError("com/amazonaws/Missing"));
+
+        // WHEN + THEN
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(NoClassDefFoundError.class,
+            () -> scanner.scan(Invite.class, 2, invite -> { })));
+    }
+
+    @Test
+    void scan_consumerFails_stopsScanAndRethrowsException() {
+        // GIVEN
+        when(mapper.scanPage(eq(Invite.class), any(DynamoDBScanExpression.class))).thenAnswer(invocation -> {
+            ScanResultPage<Invite> page = new ScanResultPage<>();
+            page.setResults(ImmutableList.of(new Invite(), new Invite()));
+            page.setLastEvaluatedKey(ImmutableMap.of("eventId", new AttributeValue().withS("more")));
+            return page;
+        });
+
+        // WHEN + THEN
+        assertThrows(IllegalStateException.class, () -> scanner.scan(Invite.class, 2, invite -> {
+            throw new IllegalStateException("consumer failed");
+        }));
+    }
+
+    private static Invite invite(int segment) {
+        Invite invite = new Invite();
+        invite.setEventId("event" + segment);
+        return invite;
+    }
+}
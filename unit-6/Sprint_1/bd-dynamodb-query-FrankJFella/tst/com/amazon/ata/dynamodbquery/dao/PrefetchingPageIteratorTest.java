@@ -0,0 +1,172 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PrefetchingPageIteratorTest {
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    private final List<Map<String, AttributeValue>> requestedStartKeys = new ArrayList<>();
+
+    @Test
+    void next_multiplePages_returnsItemsInOrderAndFetchesEachPageOnce() {
+        // GIVEN
+        PrefetchingPageIterator<String> iterator = iteratorOver(null,
+            ImmutableList.of("a", "b"), ImmutableList.of(), ImmutableList.of("c"));
+
+        // WHEN
+        List<String> items = iterator.stream().collect(Collectors.toList());
+
+        // THEN
+        assertEquals(ImmutableList.of("a", "b", "c"), items, "Expected every item from every page, in order.");
+        assertEquals(3, requestedStartKeys.size(), "Expected each page to be fetched exactly once.");
+        assertNull(requestedStartKeys.get(0), "Expected the first page to be fetched without a start key.");
+        assertEquals(key("b"), requestedStartKeys.get(1));
+        assertEquals(key("b"), requestedStartKeys.get(2), "Expected the empty page's start key to be reused.");
+    }
+
+    @Test
+    void next_noItemsLeft_throwsNoSuchElementException() {
+        // GIVEN
+        PrefetchingPageIterator<String> iterator = iteratorOver(null, ImmutableList.of());
+
+        // WHEN + THEN
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void getContinuationToken_partWayThroughPage_resumesAfterLastReturnedItem() {
+        // GIVEN
+        PrefetchingPageIterator<String> iterator = iteratorOver(null,
+            ImmutableList.of("a", "b", "c"), ImmutableList.of("d"));
+
+        // WHEN
+        iterator.next();
+        String token = iterator.getContinuationToken();
+
+        // THEN
+        assertEquals(key("a"), ContinuationTokens.decode(token),
+            "Expected the token to point right after the last returned item.");
+    }
+
+    @Test
+    void getContinuationToken_nothingReturnedYet_returnsStartKey() {
+        // GIVEN
+        PrefetchingPageIterator<String> iterator = iteratorOver(key("z"), ImmutableList.of("a"));
+
+        // WHEN
+        String token = iterator.getContinuationToken();
+
+        // THEN
+        assertEquals(key("z"), ContinuationTokens.decode(token));
+    }
+
+    @Test
+    void getContinuationToken_nothingReturnedWithoutStartKey_returnsFirstPageToken() {
+        // GIVEN
+        PrefetchingPageIterator<String> iterator = iteratorOver(null, ImmutableList.of("a"));
+        iterator.hasNext();
+
+        // WHEN
+        String token = iterator.getContinuationToken();
+
+        // THEN
+        assertEquals(ContinuationTokens.FIRST_PAGE, token, "Expected a token, since an item is left.");
+        assertNull(ContinuationTokens.decode(token), "Expected the token to resume from the first page.");
+    }
+
+    @Test
+    void getContinuationToken_pageUsedUp_doesNotWaitForNextPage() {
+        // GIVEN
+        // An executor that only runs the first page's fetch, so the prefetch never finishes
+        List<Runnable> pendingFetches = new ArrayList<>();
+        Executor firstFetchOnly = task -> {
+            if (requestedStartKeys.isEmpty()) {
+                task.run();
+            } else {
+                pendingFetches.add(task);
+            }
+        };
+        PrefetchingPageIterator<String> iterator = new PrefetchingPageIterator<>(startKey -> {
+            requestedStartKeys.add(startKey);
+            QueryResultPage<String> page = new QueryResultPage<>();
+            page.setResults(ImmutableList.of("a", "b"));
+            page.setLastEvaluatedKey(key("b"));
+            return page;
+        }, PrefetchingPageIteratorTest::key, firstFetchOnly, null);
+        iterator.next();
+        iterator.next();
+
+        // WHEN
+        String token = iterator.getContinuationToken();
+
+        // THEN
+        assertEquals(key("b"), ContinuationTokens.decode(token), "Expected the used up page's LastEvaluatedKey.");
+        assertEquals(1, pendingFetches.size(), "Expected the next page to still be in flight.");
+    }
+
+    @Test
+    void getContinuationToken_allItemsReturned_returnsNull() {
+        // GIVEN
+        PrefetchingPageIterator<String> iterator = iteratorOver(null, ImmutableList.of("a"));
+
+        // WHEN
+        iterator.next();
+
+        // THEN
+        assertNull(iterator.getContinuationToken(), "Expected no token once every item has been returned.");
+    }
+
+    @Test
+    void hasNext_pageFetchFails_throwsOriginalException() {
+        // GIVEN
+        PrefetchingPageIterator<String> iterator = new PrefetchingPageIterator<>(
+            startKey -> {
+                throw new IllegalStateException("throttled");
+            },
+            PrefetchingPageIteratorTest::key, DIRECT_EXECUTOR, null);
+
+        // WHEN + THEN
+        assertThrows(IllegalStateException.class, iterator::hasNext);
+    }
+
+    @SafeVarargs
+    private final PrefetchingPageIterator<String> iteratorOver(Map<String, AttributeValue> startKey,
+                                                               List<String>... pages) {
+        Function<Map<String, AttributeValue>, QueryResultPage<String>> fetcher = exclusiveStartKey -> {
+            int pageIndex = requestedStartKeys.size();
+            requestedStartKeys.add(exclusiveStartKey);
+
+            QueryResultPage<String> page = new QueryResultPage<>();
+            page.setResults(pages[pageIndex]);
+            if (pageIndex < pages.length - 1) {
+                List<String> results = pages[pageIndex];
+                page.setLastEvaluatedKey(results.isEmpty() ?
+                    exclusiveStartKey : key(results.get(results.size() - 1)));
+            }
+            return page;
+        };
+        return new PrefetchingPageIterator<>(fetcher, PrefetchingPageIteratorTest::key, DIRECT_EXECUTOR, startKey);
+    }
+
+    private static Map<String, AttributeValue> key(String item) {
+        return ImmutableMap.of("id", new AttributeValue().withS(item));
+    }
+}
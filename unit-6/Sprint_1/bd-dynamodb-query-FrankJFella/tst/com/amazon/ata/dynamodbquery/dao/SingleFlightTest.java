@@ -0,0 +1,172 @@
+package com.amazon.ata.dynamodbquery.dao;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    @AfterEach
+    private void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void get_concurrentCallsForSameKey_shareOneLoad() throws Exception {
+        // GIVEN
+        SingleFlight<String, StringBuilder> singleFlight = new SingleFlight<>(StringBuilder::new);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Future<StringBuilder> leader = executorService.submit(() -> singleFlight.get("key", key -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            await(releaseLoad);
+            return new StringBuilder("value");
+        }));
+        loadStarted.await(5, TimeUnit.SECONDS);
+
+        // WHEN
+        List<Future<StringBuilder>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(executorService.submit(() -> singleFlight.get("key", key -> {
+                loads.incrementAndGet();
+                return new StringBuilder("other");
+            })));
+        }
+        waitForCoalescedCount(singleFlight, 5);
+        releaseLoad.countDown();
+
+        // THEN
+        StringBuilder leaderValue = leader.get(5, TimeUnit.SECONDS);
+        for (Future<StringBuilder> follower : followers) {
+            StringBuilder followerValue = follower.get(5, TimeUnit.SECONDS);
+            assertEquals("value", followerValue.toString());
+            assertNotSame(leaderValue, followerValue, "Expected every caller to get its own copy.");
+        }
+        assertEquals(1, loads.get(), "Expected only the first call to load.");
+        assertEquals(1, singleFlight.getLoadCount());
+        assertEquals(5, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    void get_loadFails_everyWaitingCallerGetsTheException() throws Exception {
+        // GIVEN
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(UnaryOperator.identity());
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        Future<String> leader = executorService.submit(() -> singleFlight.get("key", key -> {
+            loadStarted.countDown();
+            await(releaseLoad);
+            throw new IllegalStateException("throttled");
+        }));
+        loadStarted.await(5, TimeUnit.SECONDS);
+        Future<String> follower = executorService.submit(() -> singleFlight.get("key", key -> "unused"));
+        waitForCoalescedCount(singleFlight, 1);
+
+        // WHEN
+        releaseLoad.countDown();
+
+        // THEN
+        ExecutionException leaderFailure =
+            assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerFailure =
+            assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(leaderFailure.getCause() instanceof IllegalStateException);
+        assertSame(leaderFailure.getCause(), followerFailure.getCause(), "Expected the loader's own exception.");
+        assertEquals("loaded again", singleFlight.get("key", key -> "loaded again"),
+            "Expected the failure not to be kept.");
+    }
+
+    @Test
+    void get_withinResultTtl_reusesResultUntilItExpires() {
+        // GIVEN
+        SingleFlight<String, String> singleFlight =
+            new SingleFlight<>(Duration.ofSeconds(1), 100, UnaryOperator.identity(), ticker);
+        singleFlight.get("key", key -> "first");
+
+        // WHEN
+        String withinTtl = singleFlight.get("key", key -> "second");
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        String afterTtl = singleFlight.get("key", key -> "third");
+
+        // THEN
+        assertEquals("first", withinTtl);
+        assertEquals("third", afterTtl);
+        assertEquals(2, singleFlight.getLoadCount());
+        assertEquals(1, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    void get_nullResultWithinTtl_isShared() {
+        // GIVEN
+        SingleFlight<String, String> singleFlight =
+            new SingleFlight<>(Duration.ofSeconds(1), 100, UnaryOperator.identity(), ticker);
+        singleFlight.get("missing", key -> null);
+
+        // WHEN
+        String result = singleFlight.get("missing", key -> "found");
+
+        // THEN
+        assertEquals(null, result);
+        assertEquals(1, singleFlight.getLoadCount());
+    }
+
+    @Test
+    void invalidate_afterWrite_nextGetLoadsAgain() {
+        // GIVEN
+        SingleFlight<String, String> singleFlight =
+            new SingleFlight<>(Duration.ofSeconds(1), 100, UnaryOperator.identity(), ticker);
+        singleFlight.get("key", key -> "old");
+
+        // WHEN
+        singleFlight.invalidate("key");
+        String result = singleFlight.get("key", key -> "new");
+
+        // THEN
+        assertEquals("new", result);
+        assertEquals(2, singleFlight.getLoadCount());
+    }
+
+    private static void waitForCoalescedCount(SingleFlight<?, ?> singleFlight, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getCoalescedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.amazon.ata.dynamodbquery.dao.codec;
+
+import com.amazon.ata.dynamodbquery.dao.models.Event;
+import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+public class ItemCodecTest {
+    private DynamoDBMapper mapper;
+
+    @BeforeEach
+    private void setup() {
+        mapper = new DynamoDBMapper(mock(AmazonDynamoDB.class));
+    }
+
+    @Test
+    void inviteCodec_encodeAndDecode_matchesDynamoDBMapper() {
+        // GIVEN
+        Invite invite = new Invite();
+        invite.setEventId("event");
+        invite.setMemberId("member");
+        invite.setAttending(true);
+        invite.setCanceled(false);
+        invite.setTimeReceived(new Date(1_600_000_000_123L));
+        InviteCodec codec = new InviteCodec();
+
+        // WHEN
+        Map<String, AttributeValue> item = codec.encode(invite);
+
+        // THEN
+        assertEquals(mapper.getTableModel(Invite.class).convert(invite), item);
+        assertEquals(invite, codec.decode(item));
+        assertEquals(mapper.getTableModel(Invite.class).unconvert(item), codec.decode(item));
+        assertEquals("DynamoDBQuery-Invites", codec.getTableName());
+    }
+
+    @Test
+    void eventCodec_encodeAndDecode_matchesDynamoDBMapper() {
+        // GIVEN
+        Event event = new Event();
+        event.setId("event");
+        event.setOrganizerId("organizer");
+        event.setTime(ZonedDateTime.of(2021, 6, 1, 18, 30, 0, 0, ZoneId.of("America/Los_Angeles")));
+        event.setName("Launch party");
+        event.setDescription("Cake");
+        event.setCanceled(true);
+        event.setAnnouncementShards(4);
+        EventCodec codec = new EventCodec();
+
+        // WHEN
+        Map<String, AttributeValue> item = codec.encode(event);
+
+        // THEN
+        assertEquals(mapper.getTableModel(Event.class).convert(event), item);
+        assertEquals(event, codec.decode(item));
+        assertEquals("DynamoDBQuery-Events", codec.getTableName());
+    }
+
+    @Test
+    void eventAnnouncementCodec_encodeAndDecode_matchesDynamoDBMapper() {
+        // GIVEN
+        EventAnnouncement announcement = new EventAnnouncement();
+        announcement.setEventId("event");
+        announcement.setTimePublished(ZonedDateTime.of(2021, 6, 1, 18, 30, 0, 0, ZoneId.of("UTC")));
+        announcement.setSubject("Moved");
+        announcement.setContent("We moved to the big room.");
+        EventAnnouncementCodec codec = new EventAnnouncementCodec();
+
+        // WHEN
+        Map<String, AttributeValue> item = codec.encode(announcement);
+
+        // THEN
+        assertEquals(mapper.getTableModel(EventAnnouncement.class).convert(announcement), item);
+        assertEquals(announcement, codec.decode(item));
+        assertEquals("DynamoDBQuery-EventAnnouncements", codec.getTableName());
+    }
+
+    @Test
+    void inviteCodec_decodeProjectedItem_leavesMissingFieldsNull() {
+        // GIVEN
+        Map<String, AttributeValue> item = ImmutableMap.of(
+            "eventId", new AttributeValue().withS("event"),
+            "memberId", new AttributeValue().withS("member"),
+            "isAttending", new AttributeValue().withN("0"));
+
+        // WHEN
+        Invite invite = new InviteCodec().decode(item);
+
+        // THEN
+        assertEquals("event", invite.getEventId());
+        assertFalse(invite.isAttending(), "Expected a number-typed boolean to be read.");
+        assertNull(invite.getTimeReceived());
+    }
+}
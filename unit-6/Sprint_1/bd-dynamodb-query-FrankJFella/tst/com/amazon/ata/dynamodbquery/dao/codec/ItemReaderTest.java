@@ -0,0 +1,123 @@
+package com.amazon.ata.dynamodbquery.dao.codec;
+
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class ItemReaderTest {
+    private static final InviteCodec INVITE_CODEC = new InviteCodec();
+
+    @Mock
+    private AmazonDynamoDB dynamoDbClient;
+
+    @InjectMocks
+    private ItemReader itemReader;
+
+    @BeforeEach
+    private void setup() {
+        initMocks(this);
+    }
+
+    @Test
+    void queryPage_keyConditionExpression_copiesTheQueryAndDecodesItems() {
+        // GIVEN
+        Map<String, AttributeValue> lastEvaluatedKey = inviteItem("member2");
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(new QueryResult()
+            .withItems(inviteItem("member1"), inviteItem("member2"))
+            .withCount(2)
+            .withLastEvaluatedKey(lastEvaluatedKey));
+        DynamoDBQueryExpression<Invite> queryExpression = new DynamoDBQueryExpression<Invite>()
+            .withIndexName(Invite.ATTENDING_EVENT_ID_GSI)
+            .withConsistentRead(false)
+            .withScanIndexForward(false)
+            .withLimit(2)
+            .withKeyConditionExpression("attendingEventId = :eventId")
+            .withExpressionAttributeValues(ImmutableMap.of(":eventId", new AttributeValue().withS("event")));
+
+        // WHEN
+        QueryResultPage<Invite> page = itemReader.queryPage(INVITE_CODEC, queryExpression);
+
+        // THEN
+        assertEquals(2, page.getResults().size());
+        assertEquals("member1", page.getResults().get(0).getMemberId());
+        assertEquals(lastEvaluatedKey, page.getLastEvaluatedKey());
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient).query(captor.capture());
+        QueryRequest request = captor.getValue();
+        assertEquals("DynamoDBQuery-Invites", request.getTableName());
+        assertEquals(Invite.ATTENDING_EVENT_ID_GSI, request.getIndexName());
+        assertFalse(request.getConsistentRead(), "Expected the read consistency to be copied.");
+        assertFalse(request.getScanIndexForward(), "Expected the read direction to be copied.");
+        assertEquals(2, request.getLimit());
+        assertEquals("attendingEventId = :eventId", request.getKeyConditionExpression());
+    }
+
+    @Test
+    void query_severalPages_readsUntilNoLastEvaluatedKey() {
+        // GIVEN
+        Map<String, AttributeValue> lastEvaluatedKey = inviteItem("member1");
+        when(dynamoDbClient.query(any(QueryRequest.class)))
+            .thenReturn(new QueryResult().withItems(inviteItem("member1")).withLastEvaluatedKey(lastEvaluatedKey))
+            .thenReturn(new QueryResult().withItems(inviteItem("member2")));
+        Invite hashKeyValues = new Invite();
+        hashKeyValues.setEventId("event");
+
+        // WHEN
+        List<Invite> invites = itemReader.query(INVITE_CODEC,
+            new DynamoDBQueryExpression<Invite>().withHashKeyValues(hashKeyValues));
+
+        // THEN
+        assertEquals(2, invites.size());
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient, times(2)).query(captor.capture());
+        QueryRequest request = captor.getValue();
+        assertEquals("#hashKey = :hashKey", request.getKeyConditionExpression());
+        assertEquals(ImmutableMap.of("#hashKey", "eventId"), request.getExpressionAttributeNames());
+        assertEquals(new AttributeValue().withS("event"), request.getExpressionAttributeValues().get(":hashKey"));
+        assertEquals(lastEvaluatedKey, request.getExclusiveStartKey());
+    }
+
+    @Test
+    void queryPage_hashKeyValuesOnIndex_throwsIllegalArgumentException() {
+        // GIVEN
+        Invite hashKeyValues = new Invite();
+        hashKeyValues.setMemberId("member");
+        DynamoDBQueryExpression<Invite> queryExpression = new DynamoDBQueryExpression<Invite>()
+            .withIndexName(Invite.TIME_RECEIVED_MEMBER_ID_GSI)
+            .withHashKeyValues(hashKeyValues);
+
+        // WHEN + THEN
+        assertThrows(IllegalArgumentException.class, () -> itemReader.queryPage(INVITE_CODEC, queryExpression));
+    }
+
+    private static Map<String, AttributeValue> inviteItem(String memberId) {
+        return ImmutableMap.of(
+            "eventId", new AttributeValue().withS("event"),
+            "memberId", new AttributeValue().withS(memberId));
+    }
+}
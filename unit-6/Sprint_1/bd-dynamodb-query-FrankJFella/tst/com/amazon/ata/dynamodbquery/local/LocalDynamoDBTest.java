@@ -0,0 +1,447 @@
+package com.amazon.ata.dynamodbquery.local;
+
+import com.amazon.ata.dynamodbquery.dao.EventAnnouncementDao;
+import com.amazon.ata.dynamodbquery.dao.EventCancellationCascade;
+import com.amazon.ata.dynamodbquery.dao.EventDao;
+import com.amazon.ata.dynamodbquery.dao.InviteDao;
+import com.amazon.ata.dynamodbquery.dao.InviteSummaryDao;
+import com.amazon.ata.dynamodbquery.dao.InviteSummaryRebuildJob;
+import com.amazon.ata.dynamodbquery.dao.ParallelScanner;
+import com.amazon.ata.dynamodbquery.dao.codec.ItemReader;
+import com.amazon.ata.dynamodbquery.dao.models.Event;
+import com.amazon.ata.dynamodbquery.dao.models.EventAnnouncement;
+import com.amazon.ata.dynamodbquery.dao.models.Invite;
+import com.amazon.ata.dynamodbquery.dao.models.InviteCancellationProgress;
+import com.amazon.ata.dynamodbquery.dao.models.InviteDeleteResult;
+import com.amazon.ata.dynamodbquery.dao.models.InviteSummary;
+import com.amazon.ata.dynamodbquery.dao.models.Member;
+import com.amazon.ata.dynamodbquery.dao.models.PaginatedResult;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBDeleteExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocalDynamoDBTest {
+    private LocalDynamoDB localDynamoDB;
+    private DynamoDBMapper mapper;
+    private ItemReader itemReader;
+    private ExecutorService executorService;
+
+    @BeforeEach
+    private void setup() {
+        localDynamoDB = new LocalDynamoDB()
+            .createTables(Event.class, Invite.class, InviteSummary.class, Member.class, EventAnnouncement.class);
+        mapper = new DynamoDBMapper(localDynamoDB);
+        itemReader = new ItemReader(localDynamoDB);
+        executorService = MoreExecutors.newDirectExecutorService();
+    }
+
+    @Test
+    void eventDao_createGetAndCancel_roundTripsThroughTheTable() {
+        // GIVEN
+        EventDao eventDao = new EventDao(mapper, localDynamoDB, executorService);
+        Event event = new Event();
+        event.setName("Launch party");
+        event.setTime(ZonedDateTime.of(2021, 6, 1, 18, 0, 0, 0, ZoneOffset.UTC));
+        event.setCanceled(false);
+
+        // WHEN
+        Event created = eventDao.createEvent(event);
+        Event canceled = eventDao.cancelEvent(created.getId());
+        Event loaded = eventDao.getEvent(created.getId());
+        Event canceledMissing = eventDao.cancelEvent("missing");
+
+        // THEN
+        assertEquals(created.getId(), loaded.getId());
+        assertEquals("Launch party", loaded.getName());
+        assertTrue(loaded.isCanceled(), "Expected the cancel to be saved.");
+        assertEquals(loaded, canceled, "Expected the cancel to return the updated event.");
+        assertNull(canceledMissing);
+        assertNull(eventDao.getEvent("missing"), "Expected canceling a missing event not to create one.");
+    }
+
+    @Test
+    void getEvents_someMissing_batchLoadsTheOnesThatExist() {
+        // GIVEN
+        EventDao eventDao = new EventDao(mapper, localDynamoDB, executorService);
+        for (String id : ImmutableList.of("1", "2", "3")) {
+            Event event = new Event();
+            event.setId(id);
+            eventDao.createEvent(event);
+        }
+
+        // WHEN
+        List<Event> events = eventDao.getEvents(ImmutableList.of("1", "3", "missing"));
+
+        // THEN
+        Set<String> ids = events.stream().map(Event::getId).collect(Collectors.toSet());
+        assertEquals(new HashSet<>(ImmutableList.of("1", "3")), ids);
+    }
+
+    @Test
+    void getInvitesSentToMember_pagedThroughGsi_returnsNewestFirst() {
+        // GIVEN
+        InviteDao inviteDao = new InviteDao(mapper, localDynamoDB, itemReader, executorService,
+            new InviteSummaryDao(mapper, localDynamoDB));
+        for (int i = 0; i < 5; i++) {
+            inviteDao.createInvite(invite("event" + i, "member", false, new Date(1_000_000L * i)));
+        }
+        inviteDao.createInvite(invite("event0", "someoneElse", false, new Date()));
+
+        // WHEN
+        PaginatedResult<Invite> firstPage = inviteDao.getInvitesSentToMember("member", null, null, 3, null);
+        PaginatedResult<Invite> secondPage = inviteDao.getInvitesSentToMember("member", null, null, 3,
+            firstPage.getContinuationToken());
+
+        // THEN
+        assertEquals(ImmutableList.of("event4", "event3", "event2"), eventIds(firstPage.getItems()));
+        assertEquals(ImmutableList.of("event1", "event0"), eventIds(secondPage.getItems()));
+        assertTrue(firstPage.hasMorePages());
+        assertNull(secondPage.getContinuationToken(), "Expected no token once every invite was read.");
+    }
+
+    @Test
+    void deleteInvites_oneAttending_skipsItAndDeletesTheRest() {
+        // GIVEN
+        InviteDao inviteDao = new InviteDao(mapper, localDynamoDB, itemReader, executorService,
+            new InviteSummaryDao(mapper, localDynamoDB));
+        List<Invite> invites = ImmutableList.of(
+            invite("event1", "member", false, new Date()),
+            invite("event2", "member", true, new Date()),
+            invite("event3", "member", null, new Date()));
+        invites.forEach(inviteDao::createInvite);
+
+        // WHEN
+        List<InviteDeleteResult> results = inviteDao.deleteInvites(invites);
+
+        // THEN
+        assertEquals(InviteDeleteResult.Status.DELETED, results.get(0).getStatus());
+        assertEquals(InviteDeleteResult.Status.SKIPPED_ATTENDING, results.get(1).getStatus());
+        assertEquals(InviteDeleteResult.Status.DELETED, results.get(2).getStatus());
+        assertNull(inviteDao.getInvite("event1", "member"));
+        assertNotNull(inviteDao.getInvite("event2", "member"), "Expected the attended invite to be kept.");
+        assertNull(inviteDao.getInvite("event3", "member"));
+    }
+
+    @Test
+    void delete_expectedValueDoesNotMatch_throwsConditionalCheckFailed() {
+        // GIVEN
+        Invite invite = invite("event1", "member", true, new Date());
+        mapper.save(invite);
+        DynamoDBDeleteExpression notAttending = new DynamoDBDeleteExpression()
+            .withExpectedEntry("isAttending", new ExpectedAttributeValue(new AttributeValue().withBOOL(false)));
+
+        // WHEN + THEN
+        assertThrows(ConditionalCheckFailedException.class, () -> mapper.delete(invite, notAttending));
+        assertNotNull(mapper.load(Invite.class, "event1", "member"));
+    }
+
+    @Test
+    void getLatestEventAnnouncements_withLimitAndProjection_returnsNewestFirstWithOnlyRequestedAttributes() {
+        // GIVEN
+        EventAnnouncementDao announcementDao = new EventAnnouncementDao(mapper, itemReader, executorService,
+            new EventDao(mapper, localDynamoDB, executorService));
+        ZonedDateTime start = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        for (int day = 0; day < 4; day++) {
+            EventAnnouncement announcement = new EventAnnouncement();
+            announcement.setEventId("event");
+            announcement.setTimePublished(start.plusDays(day));
+            announcement.setSubject("Day " + day);
+            announcement.setContent("Content " + day);
+            announcementDao.createEventAnnouncement(announcement);
+        }
+
+        // WHEN
+        PaginatedResult<EventAnnouncement> page = announcementDao.getLatestEventAnnouncements("event",
+            start.plusDays(1), start.plusDays(3), 2, null, ImmutableList.of("subject"));
+
+        // THEN
+        assertEquals(2, page.getItems().size());
+        assertEquals("Day 3", page.getItems().get(0).getSubject());
+        assertEquals("Day 2", page.getItems().get(1).getSubject());
+        assertNull(page.getItems().get(0).getContent(), "Expected content not to be projected.");
+        assertTrue(page.hasMorePages(), "Expected day 1 to be left for the next page.");
+    }
+
+    @Test
+    void shardEventAnnouncements_afterSomeAnnouncements_readsOldAndShardedAnnouncementsInOrder() {
+        // GIVEN
+        EventDao eventDao = new EventDao(mapper, localDynamoDB, executorService);
+        EventAnnouncementDao announcementDao = new EventAnnouncementDao(mapper, itemReader, executorService, eventDao);
+        Event event = new Event();
+        event.setId("event");
+        eventDao.createEvent(event);
+        ZonedDateTime start = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        announcementDao.createEventAnnouncement(announcement("event", start, "Before sharding"));
+
+        // WHEN
+        announcementDao.shardEventAnnouncements("event", 4);
+        for (int minute = 1; minute <= 20; minute++) {
+            announcementDao.createEventAnnouncement(
+                announcement("event", start.plusMinutes(minute), "Minute " + minute));
+        }
+        List<EventAnnouncement> all = announcementDao.getEventAnnouncements("event");
+        List<EventAnnouncement> between = announcementDao.getEventAnnouncementsBetweenDates("event",
+            start, start.plusMinutes(5));
+        List<String> pagedSubjects = new ArrayList<>();
+        String token = null;
+        do {
+            PaginatedResult<EventAnnouncement> page = announcementDao.getLatestEventAnnouncements("event",
+                null, null, 6, token, null);
+            page.getItems().forEach(announcement -> pagedSubjects.add(announcement.getSubject()));
+            token = page.getContinuationToken();
+        } while (token != null);
+
+        // THEN
+        assertEquals(21, all.size());
+        assertEquals("Before sharding", all.get(0).getSubject());
+        assertEquals("Minute 20", all.get(20).getSubject());
+        assertTrue(all.stream().allMatch(announcement -> "event".equals(announcement.getEventId())),
+            "Expected the shard suffix to be hidden from callers.");
+        assertEquals(6, between.size());
+        assertEquals(21, pagedSubjects.size());
+        assertEquals(21, new HashSet<>(pagedSubjects).size(), "Expected no announcement on two pages.");
+        assertEquals("Minute 20", pagedSubjects.get(0));
+        assertEquals("Before sharding", pagedSubjects.get(20));
+    }
+
+    @Test
+    void parallelScanner_overManySegments_readsEveryItemOnce() {
+        // GIVEN
+        InviteDao inviteDao = new InviteDao(mapper, localDynamoDB, itemReader, executorService,
+            new InviteSummaryDao(mapper, localDynamoDB));
+        for (int i = 0; i < 50; i++) {
+            inviteDao.createInvite(invite("event" + i, "member" + (i % 7), false, new Date()));
+        }
+        ParallelScanner scanner = new ParallelScanner(mapper, 3, 4, 10, 10_000);
+        List<String> scannedKeys = new ArrayList<>();
+
+        // WHEN
+        long count = scanner.scan(Invite.class, 5,
+            invite -> scannedKeys.add(invite.getEventId() + "|" + invite.getMemberId()));
+
+        // THEN
+        assertEquals(50, count);
+        assertEquals(50, new HashSet<>(scannedKeys).size(), "Expected no item to be scanned twice.");
+        assertTrue(localDynamoDB.getConsumedReadCapacity("DynamoDBQuery-Invites") > 0);
+    }
+
+    @Test
+    void getEvent_everyCallThrottled_throwsProvisionedThroughputExceeded() {
+        // GIVEN
+        localDynamoDB.withThrottleProbability(1);
+        EventDao eventDao = new EventDao(mapper, localDynamoDB, executorService);
+
+        // WHEN + THEN
+        assertThrows(ProvisionedThroughputExceededException.class, () -> eventDao.getEvent("1234"));
+    }
+
+    @Test
+    void createEvent_throughputLimitUsedUp_throttlesUntilTheNextSecond() {
+        // GIVEN
+        localDynamoDB.withThroughputLimit(0, 1);
+        Member member = new Member();
+        member.setId("member");
+        mapper.save(member);
+
+        // WHEN + THEN
+        assertThrows(ProvisionedThroughputExceededException.class, () -> mapper.save(member));
+        assertEquals(1, localDynamoDB.getConsumedWriteCapacity("DynamoDBQuery-Members"));
+    }
+
+    @Test
+    void query_filterExpressionOnTable_filtersAfterReadingAndCountsScannedItems() {
+        // GIVEN
+        InviteDao inviteDao = new InviteDao(mapper, localDynamoDB, itemReader, executorService,
+            new InviteSummaryDao(mapper, localDynamoDB));
+        inviteDao.createInvite(invite("event", "a", true, new Date()));
+        inviteDao.createInvite(invite("event", "b", false, new Date()));
+        inviteDao.createInvite(invite("event", "c", true, new Date()));
+
+        // WHEN
+        int count = mapper.count(Invite.class,
+            new DynamoDBQueryExpression<Invite>()
+                .withKeyConditionExpression("eventId = :eventId")
+                .withFilterExpression("isAttending = :attending")
+                .withExpressionAttributeValues(ImmutableMap.of(
+                    ":eventId", new AttributeValue().withS("event"),
+                    ":attending", new AttributeValue().withBOOL(true))));
+
+        // THEN
+        assertEquals(2, count);
+    }
+
+    @Test
+    void getAcceptedInvitesForEvent_memberStopsAttending_dropsOutOfTheSparseIndex() {
+        // GIVEN
+        InviteDao inviteDao = new InviteDao(mapper, localDynamoDB, itemReader, executorService,
+            new InviteSummaryDao(mapper, localDynamoDB));
+        inviteDao.createInvite(invite("event", "a", true, new Date()));
+        inviteDao.createInvite(invite("event", "b", false, new Date()));
+        inviteDao.createInvite(invite("event", "c", true, new Date()));
+        inviteDao.createInvite(invite("event", "d", null, new Date()));
+        inviteDao.createInvite(invite("otherEvent", "a", true, new Date()));
+
+        // WHEN
+        List<Invite> accepted = inviteDao.getAcceptedInvitesForEvent("event");
+        Invite declined = inviteDao.getInvite("event", "c");
+        declined.setAttending(false);
+        mapper.save(declined);
+
+        // THEN
+        assertEquals(ImmutableList.of("a", "c"),
+            accepted.stream().map(Invite::getMemberId).collect(Collectors.toList()));
+        assertEquals(1, inviteDao.countAcceptedInvitesForEvent("event"));
+        assertEquals(1, inviteDao.countAcceptedInvitesForEvent("otherEvent"));
+    }
+
+    @Test
+    void inviteSummary_inviteCreatedAnsweredCanceledAndDeleted_countsFollowEveryChange() {
+        // GIVEN
+        InviteSummaryDao inviteSummaryDao = new InviteSummaryDao(mapper, localDynamoDB);
+        InviteDao inviteDao = new InviteDao(mapper, localDynamoDB, itemReader, executorService, inviteSummaryDao);
+        inviteDao.createInvite(invite("event1", "member", null, new Date()));
+        inviteDao.createInvite(invite("event2", "member", null, new Date()));
+        inviteDao.createInvite(invite("event3", "member", null, new Date()));
+
+        // WHEN
+        inviteDao.setAttending("event1", "member", true);
+        inviteDao.cancelInvite("event2", "member");
+        boolean deleted = inviteDao.deleteInvite("event3", "member");
+        Invite missing = inviteDao.setAttending("event4", "member", true);
+
+        // THEN
+        assertTrue(deleted);
+        assertNull(missing, "Expected answering a missing invite not to create one.");
+        assertNull(inviteDao.getInvite("event4", "member"));
+        assertEquals(summary("member", 0, 1, 1), inviteSummaryDao.getInviteSummary("member"));
+        assertEquals(ImmutableList.of("member"), inviteDao.getAcceptedInvitesForEvent("event1").stream()
+            .map(Invite::getMemberId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void deleteInvites_invitesChangedSinceRead_takesThemOutOfTheirCurrentCounts() {
+        // GIVEN
+        InviteSummaryDao inviteSummaryDao = new InviteSummaryDao(mapper, localDynamoDB);
+        InviteDao inviteDao = new InviteDao(mapper, localDynamoDB, itemReader, executorService, inviteSummaryDao);
+        List<Invite> staleInvites = ImmutableList.of(
+            invite("event1", "member", null, new Date()),
+            invite("event2", "member", null, new Date()),
+            invite("event3", "member", null, new Date()));
+        staleInvites.forEach(inviteDao::createInvite);
+        inviteDao.cancelInvite("event1", "member");
+        inviteDao.deleteInvite("event2", "member");
+
+        // WHEN
+        List<InviteDeleteResult> results = inviteDao.deleteInvites(staleInvites);
+
+        // THEN
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == InviteDeleteResult.Status.DELETED),
+            "Expected every invite to be deleted: " + results);
+        assertNull(inviteDao.getInvite("event1", "member"));
+        assertEquals(summary("member", 0, 0, 0), inviteSummaryDao.getInviteSummary("member"),
+            "Expected each invite to leave the count it was in when deleted, not the one it was read in.");
+    }
+
+    @Test
+    void inviteSummaryRebuildJob_summariesDrifted_recountsFromTheInvites() {
+        // GIVEN
+        InviteSummaryDao inviteSummaryDao = new InviteSummaryDao(mapper, localDynamoDB);
+        InviteDao inviteDao = new InviteDao(mapper, localDynamoDB, itemReader, executorService, inviteSummaryDao);
+        inviteDao.createInvite(invite("event1", "a", true, new Date()));
+        inviteDao.createInvite(invite("event2", "a", null, new Date()));
+        inviteDao.createInvite(invite("event1", "b", false, new Date()));
+        inviteSummaryDao.saveInviteSummary(summary("a", 7, 0, 0));
+        inviteSummaryDao.saveInviteSummary(summary("ghost", 3, 0, 0));
+        ParallelScanner scanner = new ParallelScanner(mapper, 3, 4, 10, 10_000);
+
+        // WHEN
+        int rebuilt = new InviteSummaryRebuildJob(scanner, inviteSummaryDao).rebuildAll();
+
+        // THEN
+        assertEquals(3, rebuilt);
+        assertEquals(summary("a", 1, 1, 0), inviteSummaryDao.getInviteSummary("a"));
+        assertEquals(summary("b", 1, 0, 0), inviteSummaryDao.getInviteSummary("b"));
+        assertEquals(summary("ghost", 0, 0, 0), inviteSummaryDao.getInviteSummary("ghost"));
+    }
+
+    @Test
+    void eventCancellationCascade_largeGuestList_cancelsEveryInviteAndIsSafeToRunAgain() {
+        // GIVEN
+        InviteSummaryDao inviteSummaryDao = new InviteSummaryDao(mapper, localDynamoDB);
+        InviteDao inviteDao = new InviteDao(mapper, localDynamoDB, itemReader, executorService, inviteSummaryDao);
+        int guests = EventCancellationCascade.PAGE_SIZE * 2 + 30;
+        for (int i = 0; i < guests; i++) {
+            inviteDao.createInvite(invite("event", "member" + i, i % 2 == 0, new Date()));
+        }
+        inviteDao.cancelInvite("event", "member0");
+        EventCancellationCascade cascade = new EventCancellationCascade(inviteDao, executorService);
+
+        // WHEN
+        InviteCancellationProgress first = cascade.start("event", null).join();
+        InviteCancellationProgress second = cascade.start("event", null).join();
+
+        // THEN
+        assertEquals(new InviteCancellationProgress("event", guests - 1, 1, 0, null, true), first);
+        assertEquals(new InviteCancellationProgress("event", 0, guests, 0, null, true), second);
+        assertTrue(inviteDao.getInvitesForEventIterator("event", 50, null).stream().allMatch(Invite::isCanceled));
+        assertEquals(summary("member1", 0, 0, 1), inviteSummaryDao.getInviteSummary("member1"));
+        assertEquals(summary("member2", 0, 0, 1), inviteSummaryDao.getInviteSummary("member2"));
+    }
+
+    private static Invite invite(String eventId, String memberId, Boolean attending, Date timeReceived) {
+        Invite invite = new Invite();
+        invite.setEventId(eventId);
+        invite.setMemberId(memberId);
+        invite.setAttending(attending);
+        invite.setCanceled(false);
+        invite.setTimeReceived(timeReceived);
+        return invite;
+    }
+
+    private static InviteSummary summary(String memberId, int pending, int accepted, int canceled) {
+        InviteSummary summary = new InviteSummary();
+        summary.setMemberId(memberId);
+        summary.setPendingCount(pending);
+        summary.setAcceptedCount(accepted);
+        summary.setCanceledCount(canceled);
+        return summary;
+    }
+
+    private static EventAnnouncement announcement(String eventId, ZonedDateTime timePublished, String subject) {
+        EventAnnouncement announcement = new EventAnnouncement();
+        announcement.setEventId(eventId);
+        announcement.setTimePublished(timePublished);
+        announcement.setSubject(subject);
+        return announcement;
+    }
+
+    private static List<String> eventIds(List<Invite> invites) {
+        return invites.stream().map(Invite::getEventId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,58 @@
+package com.amazon.ata.dynamodbquery.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryMetricsSinkTest {
+    @Test
+    void getCallStatsByCapacity_severalKindsOfCall_ranksMostExpensiveFirst() {
+        // GIVEN
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        sink.record(new DynamoDbCall("GetEventActivity", "Events", "GetItem", 1_000_000, 1, 0.5, true));
+        sink.record(new DynamoDbCall("GetEventActivity", "Events", "GetItem", 1_000_000, 1, 0.5, true));
+        sink.record(new DynamoDbCall("GetInvitesForMemberActivity", "Invites", "Query", 5_000_000, 40, 12, true));
+        sink.record(new DynamoDbCall("GetInvitesForMemberActivity", "Invites", "Query", 5_000_000, 0, 0, false));
+
+        // WHEN
+        List<InMemoryMetricsSink.CallStats> stats = sink.getCallStatsByCapacity();
+
+        // THEN
+        assertEquals(2, stats.size());
+        InMemoryMetricsSink.CallStats mostExpensive = stats.get(0);
+        assertEquals("GetInvitesForMemberActivity", mostExpensive.getActivity());
+        assertEquals("Query", mostExpensive.getOperation());
+        assertEquals(2, mostExpensive.getCallCount());
+        assertEquals(1, mostExpensive.getFailureCount());
+        assertEquals(40, mostExpensive.getItemCount());
+        assertEquals(12, mostExpensive.getCapacityUnits());
+        assertEquals(1, stats.get(1).getCapacityUnits());
+    }
+
+    @Test
+    void getLatencyPercentileNanos_mixedLatencies_boundsEachPercentileWithinFactorOfTwo() {
+        // GIVEN
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        for (int i = 0; i < 99; i++) {
+            sink.record(new DynamoDbCall("activity", "table", "GetItem", TimeUnit.MILLISECONDS.toNanos(3), 1, 0.5,
+                true));
+        }
+        sink.record(new DynamoDbCall("activity", "table", "GetItem", TimeUnit.MILLISECONDS.toNanos(200), 1, 0.5,
+            true));
+        InMemoryMetricsSink.CallStats stats = sink.getCallStatsByCapacity().get(0);
+
+        // WHEN
+        long p50 = stats.getLatencyPercentileNanos(50);
+        long p100 = stats.getLatencyPercentileNanos(100);
+
+        // THEN
+        assertTrue(p50 >= TimeUnit.MILLISECONDS.toNanos(3) && p50 <= TimeUnit.MILLISECONDS.toNanos(6),
+            "Expected p50 near 3ms but was " + p50);
+        assertTrue(p100 >= TimeUnit.MILLISECONDS.toNanos(200) && p100 <= TimeUnit.MILLISECONDS.toNanos(400),
+            "Expected p100 near 200ms but was " + p100);
+    }
+}
@@ -1,5 +1,6 @@
 package com.amazon.ata.dynamodbdeleteiterators.classroom.activity;
 
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.CanceledInviteWriter;
 import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.EventDao;
 import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.InviteDao;
 import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.CanceledInvite;
@@ -15,15 +16,20 @@ import javax.inject.Inject;
 public class GetInvitesForMemberActivity {
     private InviteDao inviteDao;
     private EventDao  eventDao;   // new reference for Phase 4
+    private CanceledInviteWriter canceledInviteWriter;
 
     /**
      * Constructs an Activity with the given DAO.
      * @param inviteDao The InviteDao to use to fetch invites
+     * @param eventDao The EventDao to use to check whether events are canceled
+     * @param canceledInviteWriter The writer that marks invites to canceled events canceled in the background
      */
     @Inject                             // EventDao added to ctor for Phase 4
-    public GetInvitesForMemberActivity(InviteDao inviteDao, EventDao eventDao) {
+    public GetInvitesForMemberActivity(InviteDao inviteDao, EventDao eventDao,
+                                       CanceledInviteWriter canceledInviteWriter) {
         this.inviteDao = inviteDao;
         this.eventDao  = eventDao;   // Added for Phase 4
+        this.canceledInviteWriter = canceledInviteWriter;
     }
 
     /**
@@ -77,24 +83,27 @@ public class GetInvitesForMemberActivity {
         // Go through list of Invites for member
         //    1. Find matching event in lookup Map.
         //    2. If Event is cancelled:
-        //       a. Mark invitation as cancelled in the database
+        //       a. Remember the invitation so it can be marked cancelled in the database
         //       b. Remove the Invite from the list of Invites for the member
         //       c  Add a CancelledInvite to the list of Invites for the member
+        //    3. Hand the invitations to cancel to the CanceledInviteWriter, which writes them
+        //       in batches in the background so we don't wait for a load + save per invitation
 
         // Since we are removing and adding entries from the List as we go through it
         //       Use an Iterator to go through the list of invitations to avoid ConcurrentModificationException
         ListIterator<Invite> inviteIterator = invites.listIterator();   // Simple Iterator is OK too
+        List<Invite> invitesToCancel = new ArrayList<>();               // Invitations to mark cancelled
 
         while(inviteIterator.hasNext()) {  // Go through list of Invites for member
             Invite currentInvite = inviteIterator.next();                 // Retrieve the next Invite from the list
             Event theEvent = eventLookup.get(currentInvite.getEventId()); // Find the Event on the Invite
             if (theEvent.isCanceled()) {                                  // If Event is cancelled:
-                inviteDao.cancelInvite(currentInvite.getEventId(),
-                        currentInvite.getMemberId());          // Mark invitation as cancelled in the database
+                invitesToCancel.add(currentInvite);                           // Remember to mark it cancelled
                 inviteIterator.remove();                                      // Remove the Invite from the list of member invites
                 inviteIterator.add(new CanceledInvite(currentInvite));        // Add current invite back to list as cancelled
             }
         }
+        canceledInviteWriter.markCanceled(invitesToCancel);  // Mark invitations cancelled in the background
 
         return invites;  // return the list of Event Invites for the member
     }
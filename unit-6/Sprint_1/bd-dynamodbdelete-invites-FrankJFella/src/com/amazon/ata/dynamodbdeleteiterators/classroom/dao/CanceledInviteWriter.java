@@ -0,0 +1,213 @@
+package com.amazon.ata.dynamodbdeleteiterators.classroom.dao;
+
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.Invite;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Marks invites canceled in the background, so reads that notice a canceled event don't have to
+ * wait for the writes. Invites queued within a short window are written together by the next flush.
+ *
+ * Each invite is canceled with a conditional UpdateItem that only sets isCanceled, so an invite
+ * deleted after it was queued is not re-created, and an attendance change made meanwhile is kept.
+ *
+ * Queuing is idempotent: invites that are already canceled are ignored, and an invite that is
+ * already waiting to be written is only written once. An invite that fails to write is retried, with
+ * the wait doubling each time, up to MAX_ATTEMPTS writes; after that, or after an error that retrying
+ * can't fix, it is dropped and counted in getDroppedCount().
+ */
+@Singleton
+public class CanceledInviteWriter {
+    /** How long to collect invites before writing them, in milliseconds. */
+    public static final long FLUSH_DELAY_MILLIS = 100;
+    /** The most times an invite is written before it is dropped. */
+    public static final int MAX_ATTEMPTS = 6;
+
+    private static final String TABLE_NAME = Invite.class.getAnnotation(DynamoDBTable.class).tableName();
+
+    private final AmazonDynamoDB dynamoDbClient;
+    private final ScheduledExecutorService scheduler;
+    private final Ticker ticker;
+    private final Map<String, PendingCancel> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final LongAdder droppedCount = new LongAdder();
+
+    /**
+     * Constructs a writer that cancels invites with the given client.
+     * @param dynamoDbClient The AmazonDynamoDB client to use
+     */
+    @Inject
+    public CanceledInviteWriter(AmazonDynamoDB dynamoDbClient) {
+        this(dynamoDbClient, Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("canceled-invite-writer-%d")
+            .setDaemon(true)
+            .build()));
+    }
+
+    /**
+     * Constructs a writer that flushes on the given scheduler.
+     * @param dynamoDbClient The AmazonDynamoDB client to use
+     * @param scheduler The scheduler to run flushes on
+     */
+    public CanceledInviteWriter(AmazonDynamoDB dynamoDbClient, ScheduledExecutorService scheduler) {
+        this(dynamoDbClient, scheduler, Ticker.systemTicker());
+    }
+
+    CanceledInviteWriter(AmazonDynamoDB dynamoDbClient, ScheduledExecutorService scheduler, Ticker ticker) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.scheduler = scheduler;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Queues invites to be marked canceled. Returns without waiting for them to be written.
+     * @param invites The invites to cancel
+     */
+    public void markCanceled(Collection<Invite> invites) {
+        boolean queuedAny = false;
+        for (Invite invite : invites) {
+            if (invite.isCanceled()) {
+                continue;
+            }
+
+            PendingCancel cancel = new PendingCancel(invite.getEventId(), invite.getMemberId(), 0, 0);
+            queuedAny |= pending.putIfAbsent(cancel.key(), cancel) == null;
+        }
+
+        if (queuedAny) {
+            scheduleFlush(FLUSH_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Writes every queued invite now, waiting for any flush already in progress. Invites that failed
+     * an earlier write are left queued until their backoff has passed, and invites that fail to write
+     * stay queued for a later flush, until they run out of attempts.
+     * @return the number of invites canceled; invites that no longer exist aren't counted
+     */
+    public synchronized int flush() {
+        flushScheduled.set(false);
+
+        long now = ticker.read();
+        List<PendingCancel> batch = new ArrayList<>();
+        for (Map.Entry<String, PendingCancel> entry : pending.entrySet()) {
+            if (entry.getValue().delayNanos(now) <= 0 && pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry.getValue());
+            }
+        }
+
+        int canceled = 0;
+        for (PendingCancel cancel : batch) {
+            try {
+                cancel(cancel);
+                canceled++;
+            } catch (ConditionalCheckFailedException e) {
+                // The invite was deleted after it was queued, so there's nothing to cancel
+            } catch (RuntimeException e) {
+                int attempts = cancel.attempts + 1;
+                if (attempts >= MAX_ATTEMPTS || !isRetryable(e)) {
+                    droppedCount.increment();
+                } else {
+                    // Back off, doubling the wait for each failed attempt
+                    long backoffNanos = TimeUnit.MILLISECONDS.toNanos(FLUSH_DELAY_MILLIS << attempts);
+                    pending.putIfAbsent(cancel.key(),
+                        new PendingCancel(cancel.eventId, cancel.memberId, attempts, ticker.read() + backoffNanos));
+                }
+            }
+        }
+
+        // Come back for whatever is left once the first of it is due
+        long afterFlush = ticker.read();
+        pending.values().stream()
+            .mapToLong(cancel -> cancel.delayNanos(afterFlush))
+            .min()
+            .ifPresent(delayNanos -> scheduleFlush(
+                Math.max(FLUSH_DELAY_MILLIS, TimeUnit.NANOSECONDS.toMillis(delayNanos))));
+        return canceled;
+    }
+
+    /**
+     * Returns the number of invites given up on, because they failed MAX_ATTEMPTS times or failed
+     * with an error that retrying can't fix.
+     * @return the dropped invite count
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    private void cancel(PendingCancel cancel) {
+        dynamoDbClient.updateItem(new UpdateItemRequest()
+            .withTableName(TABLE_NAME)
+            .withKey(ImmutableMap.of(
+                "eventId", new AttributeValue().withS(cancel.eventId),
+                "memberId", new AttributeValue().withS(cancel.memberId)))
+            .withUpdateExpression("SET isCanceled = :canceled")
+            .withConditionExpression("attribute_exists(eventId)")
+            .withExpressionAttributeValues(ImmutableMap.of(":canceled", new AttributeValue().withBOOL(true))));
+    }
+
+    private static boolean isRetryable(RuntimeException e) {
+        if (!(e instanceof AmazonServiceException)) {
+            // Network errors and the like
+            return true;
+        }
+        AmazonServiceException serviceException = (AmazonServiceException) e;
+        return serviceException.getErrorType() != AmazonServiceException.ErrorType.Client ||
+            RetryUtils.isRetryableServiceException(serviceException) ||
+            RetryUtils.isThrottlingException(serviceException);
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * An invite waiting to be canceled, how many times writing it has failed, and when it may next be written.
+     */
+    private static final class PendingCancel {
+        private final String eventId;
+        private final String memberId;
+        private final int attempts;
+        private final long retryAtNanos;
+
+        private PendingCancel(String eventId, String memberId, int attempts, long retryAtNanos) {
+            this.eventId = eventId;
+            this.memberId = memberId;
+            this.attempts = attempts;
+            this.retryAtNanos = retryAtNanos;
+        }
+
+        private long delayNanos(long now) {
+            // Invites that haven't been tried yet are due right away
+            return attempts == 0 ? 0 : retryAtNanos - now;
+        }
+
+        private String key() {
+            return eventId + "|" + memberId;
+        }
+    }
+}
@@ -4,12 +4,11 @@ import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.Invite;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBDeleteExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
-import com.google.common.collect.ImmutableMap;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -47,10 +46,16 @@ public class InviteDao {
      * @return List of Invite objects sent to the given member
      */
     public List<Invite> getInvitesSentToMember(String memberId) {
-        DynamoDBScanExpression scanExpression = new DynamoDBScanExpression()
-            .withFilterExpression("memberId = :memberId")
-            .withExpressionAttributeValues(ImmutableMap.of(":memberId", new AttributeValue(memberId)));
-        return new ArrayList<>(mapper.scan(Invite.class, scanExpression));
+        Invite anInvite = new Invite();   // Instantiate object to tell DynamoDB which member we want
+        anInvite.setMemberId(memberId);   // memberId is the hash key of the MemberIdIndex GSI
+
+        // Query the GSI instead of scanning the whole table
+        // GSIs don't support consistent reads, so we have to turn it off
+        DynamoDBQueryExpression<Invite> queryExpression = new DynamoDBQueryExpression<Invite>()
+            .withIndexName(Invite.MEMBER_ID_GSI)
+            .withConsistentRead(false)
+            .withHashKeyValues(anInvite);
+        return new ArrayList<>(mapper.query(Invite.class, queryExpression));
     }
 
     /**
@@ -2,6 +2,7 @@ package com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexHashKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperFieldModel;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
@@ -14,6 +15,8 @@ import java.util.Objects;
  */
 @DynamoDBTable(tableName = "DynamoDBDeleteIterators-Invites")
 public class Invite {
+    public static final String MEMBER_ID_GSI = "MemberIdIndex";
+
     private String eventId;
     private String memberId;
     private Boolean isAttending;
@@ -29,6 +32,7 @@ public class Invite {
     }
 
     @DynamoDBRangeKey(attributeName = "memberId")
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = MEMBER_ID_GSI)
     public String getMemberId() {
         return memberId;
     }
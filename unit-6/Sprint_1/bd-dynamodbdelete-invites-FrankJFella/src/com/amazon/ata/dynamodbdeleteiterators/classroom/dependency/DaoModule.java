@@ -1,8 +1,13 @@
 package com.amazon.ata.dynamodbdeleteiterators.classroom.dependency;
 
 import com.amazon.ata.aws.dynamodb.DynamoDbClientProvider;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.Event;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.Invite;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.Member;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.local.LocalDynamoDB;
 
 import com.amazonaws.regions.Regions;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import dagger.Module;
 import dagger.Provides;
@@ -10,18 +15,57 @@ import dagger.Provides;
 import javax.inject.Singleton;
 
 /**
- * Provides DynamoDBMapper instance to DAO classes.
+ * Provides AmazonDynamoDB and DynamoDBMapper instances to DAO classes.
  */
 @Module
 public class DaoModule {
+    /** System property that, when "true", runs the service against an in-memory LocalDynamoDB. */
+    public static final String LOCAL_DYNAMODB_PROPERTY = "dynamodb.local";
+
+    private final AmazonDynamoDB dynamoDbClient;
+
+    /**
+     * Creates a DaoModule that talks to DynamoDB in us-west-2, or to an in-memory LocalDynamoDB
+     * when the system property "dynamodb.local" is "true".
+     */
+    public DaoModule() {
+        this(null);
+    }
+
+    /**
+     * Creates a DaoModule that talks to the given client, such as a LocalDynamoDB set up with
+     * latency or throttling.
+     * @param dynamoDbClient The client every DAO should use
+     */
+    public DaoModule(AmazonDynamoDB dynamoDbClient) {
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    /**
+     * Returns the client this module was given, or creates one for the in-memory tables or the
+     * appropriate region.
+     * @return an AmazonDynamoDB client
+     */
+    @Singleton
+    @Provides
+    public AmazonDynamoDB provideAmazonDynamoDB() {
+        if (dynamoDbClient != null) {
+            return dynamoDbClient;
+        }
+        if (Boolean.getBoolean(LOCAL_DYNAMODB_PROPERTY)) {
+            return new LocalDynamoDB().createTables(Event.class, Invite.class, Member.class);
+        }
+        return DynamoDbClientProvider.getDynamoDBClient(Regions.US_WEST_2);
+    }
 
     /**
-     * Creates and returns a DynamoDBMapper instance for the appropriate region.
+     * Creates and returns a DynamoDBMapper instance for the DynamoDB client.
+     * @param dynamoDbClient The client the mapper reads and writes through
      * @return a DynamoDBMapper
      */
     @Singleton
     @Provides
-    public DynamoDBMapper provideDynamoDBMapper() {
-        return new DynamoDBMapper(DynamoDbClientProvider.getDynamoDBClient(Regions.US_WEST_2));
+    public DynamoDBMapper provideDynamoDBMapper(AmazonDynamoDB dynamoDbClient) {
+        return new DynamoDBMapper(dynamoDbClient);
     }
 }
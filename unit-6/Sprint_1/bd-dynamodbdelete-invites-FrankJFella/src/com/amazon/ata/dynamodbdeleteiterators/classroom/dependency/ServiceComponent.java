@@ -9,6 +9,7 @@ import com.amazon.ata.dynamodbdeleteiterators.classroom.activity.GetEventActivit
 import com.amazon.ata.dynamodbdeleteiterators.classroom.activity.GetInviteActivity;
 import com.amazon.ata.dynamodbdeleteiterators.classroom.activity.GetInvitesForMemberActivity;
 import com.amazon.ata.dynamodbdeleteiterators.classroom.activity.GetMemberActivity;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.CanceledInviteWriter;
 
 import dagger.Component;
 
@@ -31,4 +32,6 @@ public interface ServiceComponent {
     GetEventActivity provideGetEventActivity();
     CreateEventActivity provideCreateEventActivity();
     CancelEventActivity provideCancelEventActivity();
+
+    CanceledInviteWriter provideCanceledInviteWriter();
 }
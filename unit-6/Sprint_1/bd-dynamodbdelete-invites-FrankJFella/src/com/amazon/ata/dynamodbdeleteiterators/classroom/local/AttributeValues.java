@@ -0,0 +1,272 @@
+package com.amazon.ata.dynamodbdeleteiterators.classroom.local;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Comparison, equality and sizing rules for AttributeValues, following DynamoDB's semantics
+ * (numbers compare numerically, strings and binaries by their bytes, sets ignore order).
+ */
+final class AttributeValues {
+    private AttributeValues() {
+    }
+
+    /**
+     * Returns the DynamoDB type descriptor of a value: S, N, B, BOOL, NULL, SS, NS, BS, L or M.
+     */
+    static String typeOf(AttributeValue value) {
+        if (value.getS() != null) {
+            return "S";
+        } else if (value.getN() != null) {
+            return "N";
+        } else if (value.getB() != null) {
+            return "B";
+        } else if (value.getBOOL() != null) {
+            return "BOOL";
+        } else if (value.getNULL() != null) {
+            return "NULL";
+        } else if (value.getSS() != null) {
+            return "SS";
+        } else if (value.getNS() != null) {
+            return "NS";
+        } else if (value.getBS() != null) {
+            return "BS";
+        } else if (value.getL() != null) {
+            return "L";
+        } else if (value.getM() != null) {
+            return "M";
+        }
+        throw LocalDynamoDB.validationException("Supplied AttributeValue is empty, must contain exactly one of the " +
+            "supported datatypes");
+    }
+
+    /**
+     * Returns true if both values have the same type and value.
+     */
+    static boolean equal(AttributeValue left, AttributeValue right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        String type = typeOf(left);
+        if (!type.equals(typeOf(right))) {
+            return false;
+        }
+        switch (type) {
+            case "N":
+                return new BigDecimal(left.getN()).compareTo(new BigDecimal(right.getN())) == 0;
+            case "SS":
+                return new HashSet<>(left.getSS()).equals(new HashSet<>(right.getSS()));
+            case "NS":
+                return numberSetEquals(left.getNS(), right.getNS());
+            case "BS":
+                return new HashSet<>(left.getBS()).equals(new HashSet<>(right.getBS()));
+            case "L":
+                return listEquals(left.getL(), right.getL());
+            case "M":
+                return mapEquals(left.getM(), right.getM());
+            default:
+                return left.equals(right);
+        }
+    }
+
+    /**
+     * Orders two scalar values of the same type (S, N or B).
+     * @return negative, zero or positive like Comparator.compare, or null if the values can't be ordered
+     */
+    static Integer compare(AttributeValue left, AttributeValue right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        String type = typeOf(left);
+        if (!type.equals(typeOf(right))) {
+            return null;
+        }
+        switch (type) {
+            case "S":
+                return compareBytes(ByteBuffer.wrap(left.getS().getBytes(StandardCharsets.UTF_8)),
+                    ByteBuffer.wrap(right.getS().getBytes(StandardCharsets.UTF_8)));
+            case "N":
+                return new BigDecimal(left.getN()).compareTo(new BigDecimal(right.getN()));
+            case "B":
+                return compareBytes(left.getB(), right.getB());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns true if value is a String or Binary that starts with prefix.
+     */
+    static boolean beginsWith(AttributeValue value, AttributeValue prefix) {
+        if (value == null || prefix == null) {
+            return false;
+        }
+        if (value.getS() != null && prefix.getS() != null) {
+            return value.getS().startsWith(prefix.getS());
+        }
+        if (value.getB() != null && prefix.getB() != null) {
+            ByteBuffer bytes = value.getB().duplicate();
+            ByteBuffer prefixBytes = prefix.getB().duplicate();
+            if (prefixBytes.remaining() > bytes.remaining()) {
+                return false;
+            }
+            bytes.limit(bytes.position() + prefixBytes.remaining());
+            return bytes.equals(prefixBytes);
+        }
+        return false;
+    }
+
+    /**
+     * Implements the contains() function: substring for strings, membership for sets and lists.
+     */
+    static boolean contains(AttributeValue value, AttributeValue operand) {
+        if (value == null || operand == null) {
+            return false;
+        }
+        if (value.getS() != null && operand.getS() != null) {
+            return value.getS().contains(operand.getS());
+        }
+        if (value.getSS() != null && operand.getS() != null) {
+            return value.getSS().contains(operand.getS());
+        }
+        if (value.getNS() != null && operand.getN() != null) {
+            BigDecimal number = new BigDecimal(operand.getN());
+            return value.getNS().stream().anyMatch(n -> new BigDecimal(n).compareTo(number) == 0);
+        }
+        if (value.getBS() != null && operand.getB() != null) {
+            return value.getBS().contains(operand.getB());
+        }
+        if (value.getL() != null) {
+            return value.getL().stream().anyMatch(element -> equal(element, operand));
+        }
+        return false;
+    }
+
+    /**
+     * Implements the size() function.
+     */
+    static AttributeValue size(AttributeValue value) {
+        if (value == null) {
+            return null;
+        }
+        int size;
+        switch (typeOf(value)) {
+            case "S":
+                size = value.getS().getBytes(StandardCharsets.UTF_8).length;
+                break;
+            case "B":
+                size = value.getB().remaining();
+                break;
+            case "SS":
+                size = value.getSS().size();
+                break;
+            case "NS":
+                size = value.getNS().size();
+                break;
+            case "BS":
+                size = value.getBS().size();
+                break;
+            case "L":
+                size = value.getL().size();
+                break;
+            case "M":
+                size = value.getM().size();
+                break;
+            default:
+                return null;
+        }
+        return new AttributeValue().withN(Integer.toString(size));
+    }
+
+    /**
+     * Estimates an item's stored size in bytes the way DynamoDB bills for it: attribute name
+     * lengths plus value sizes.
+     */
+    static int itemSize(Map<String, AttributeValue> item) {
+        if (item == null) {
+            return 0;
+        }
+        int size = 0;
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            size += attribute.getKey().getBytes(StandardCharsets.UTF_8).length + valueSize(attribute.getValue());
+        }
+        return size;
+    }
+
+    private static int valueSize(AttributeValue value) {
+        switch (typeOf(value)) {
+            case "S":
+                return value.getS().getBytes(StandardCharsets.UTF_8).length;
+            case "N":
+                return (value.getN().length() + 1) / 2 + 1;
+            case "B":
+                return value.getB().remaining();
+            case "BOOL":
+            case "NULL":
+                return 1;
+            case "SS":
+                return value.getSS().stream().mapToInt(s -> s.getBytes(StandardCharsets.UTF_8).length).sum();
+            case "NS":
+                return value.getNS().stream().mapToInt(n -> (n.length() + 1) / 2 + 1).sum();
+            case "BS":
+                return value.getBS().stream().mapToInt(ByteBuffer::remaining).sum();
+            case "L":
+                return 3 + value.getL().stream().mapToInt(element -> 1 + valueSize(element)).sum();
+            case "M":
+                return 3 + itemSize(value.getM()) + value.getM().size();
+            default:
+                return 0;
+        }
+    }
+
+    private static int compareBytes(ByteBuffer left, ByteBuffer right) {
+        ByteBuffer l = left.duplicate();
+        ByteBuffer r = right.duplicate();
+        while (l.hasRemaining() && r.hasRemaining()) {
+            int result = Integer.compare(l.get() & 0xff, r.get() & 0xff);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(l.remaining(), r.remaining());
+    }
+
+    private static boolean numberSetEquals(List<String> left, List<String> right) {
+        HashSet<BigDecimal> l = new HashSet<>();
+        left.forEach(n -> l.add(new BigDecimal(n).stripTrailingZeros()));
+        HashSet<BigDecimal> r = new HashSet<>();
+        right.forEach(n -> r.add(new BigDecimal(n).stripTrailingZeros()));
+        return l.equals(r);
+    }
+
+    private static boolean listEquals(List<AttributeValue> left, List<AttributeValue> right) {
+        if (left.size() != right.size()) {
+            return false;
+        }
+        for (int i = 0; i < left.size(); i++) {
+            if (!equal(left.get(i), right.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean mapEquals(Map<String, AttributeValue> left, Map<String, AttributeValue> right) {
+        if (!left.keySet().equals(right.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, AttributeValue> entry : left.entrySet()) {
+            if (!equal(entry.getValue(), right.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return Objects.equals(left.size(), right.size());
+    }
+}
@@ -0,0 +1,181 @@
+package com.amazon.ata.dynamodbdeleteiterators.classroom.dao;
+
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.Invite;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class CanceledInviteWriterTest {
+    @Mock
+    private AmazonDynamoDB dynamoDbClient;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private CanceledInviteWriter writer;
+
+    @BeforeEach
+    private void setup() {
+        initMocks(this);
+        writer = new CanceledInviteWriter(dynamoDbClient, scheduler, new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        });
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenReturn(new UpdateItemResult());
+    }
+
+    @Test
+    void markCanceled_sameInviteTwice_writesItOnce() {
+        // GIVEN
+        Invite invite1 = invite("event1", false);
+        Invite invite2 = invite("event2", false);
+
+        // WHEN
+        writer.markCanceled(ImmutableList.of(invite1, invite2));
+        writer.markCanceled(ImmutableList.of(invite1));
+        int written = writer.flush();
+
+        // THEN
+        assertEquals(2, written);
+        verify(scheduler, times(1)).schedule(any(Callable.class), anyLong(), any(TimeUnit.class));
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(2)).updateItem(captor.capture());
+        List<UpdateItemRequest> requests = captor.getAllValues();
+        assertTrue(requests.stream().allMatch(request -> "SET isCanceled = :canceled".equals(
+            request.getUpdateExpression())), "Expected only the canceled flag to be written.");
+        assertTrue(requests.stream().allMatch(request -> "attribute_exists(eventId)".equals(
+            request.getConditionExpression())), "Expected deleted invites not to be re-created.");
+    }
+
+    @Test
+    void markCanceled_inviteAlreadyCanceled_isSkipped() {
+        // GIVEN
+        Invite canceledInvite = invite("event1", true);
+
+        // WHEN
+        writer.markCanceled(ImmutableList.of(canceledInvite));
+        int written = writer.flush();
+
+        // THEN
+        assertEquals(0, written);
+        verify(scheduler, never()).schedule(any(Callable.class), anyLong(), any(TimeUnit.class));
+        verify(dynamoDbClient, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    @Test
+    void flush_inviteDeletedSinceQueued_isNotRetried() {
+        // GIVEN
+        writer.markCanceled(ImmutableList.of(invite("event1", false)));
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+            .thenThrow(new ConditionalCheckFailedException("deleted"));
+
+        // WHEN
+        int firstFlush = writer.flush();
+        int secondFlush = writer.flush();
+
+        // THEN
+        assertEquals(0, firstFlush);
+        assertEquals(0, secondFlush);
+        verify(dynamoDbClient, times(1)).updateItem(any(UpdateItemRequest.class));
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    void flush_writeThrottled_retriedOnceItsBackoffHasPassed() {
+        // GIVEN
+        writer.markCanceled(ImmutableList.of(invite("event1", false)));
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+            .thenThrow(new ProvisionedThroughputExceededException("throttled"))
+            .thenReturn(new UpdateItemResult());
+
+        // WHEN
+        int firstFlush = writer.flush();
+        int tooSoon = writer.flush();
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(CanceledInviteWriter.FLUSH_DELAY_MILLIS * 2));
+        int afterBackoff = writer.flush();
+
+        // THEN
+        assertEquals(0, firstFlush);
+        assertEquals(0, tooSoon, "Expected the invite to wait out its backoff.");
+        assertEquals(1, afterBackoff, "Expected the failed invite to be written once its backoff passed.");
+        verify(scheduler, atLeastOnce()).schedule(any(Callable.class), eq(CanceledInviteWriter.FLUSH_DELAY_MILLIS * 2),
+            eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void flush_writeKeepsFailing_droppedAfterMaxAttempts() {
+        // GIVEN
+        writer.markCanceled(ImmutableList.of(invite("event1", false)));
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+            .thenThrow(new ProvisionedThroughputExceededException("throttled"));
+
+        // WHEN
+        for (int i = 0; i < CanceledInviteWriter.MAX_ATTEMPTS + 2; i++) {
+            writer.flush();
+            nanos.addAndGet(TimeUnit.HOURS.toNanos(1));
+        }
+
+        // THEN
+        verify(dynamoDbClient, times(CanceledInviteWriter.MAX_ATTEMPTS)).updateItem(any(UpdateItemRequest.class));
+        assertEquals(1, writer.getDroppedCount());
+    }
+
+    @Test
+    void flush_writeFailsWithClientError_droppedWithoutRetrying() {
+        // GIVEN
+        writer.markCanceled(ImmutableList.of(invite("event1", false)));
+        AmazonServiceException accessDenied = new AmazonServiceException("not authorized");
+        accessDenied.setErrorCode("AccessDeniedException");
+        accessDenied.setErrorType(AmazonServiceException.ErrorType.Client);
+        accessDenied.setStatusCode(400);
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenThrow(accessDenied);
+
+        // WHEN
+        writer.flush();
+        nanos.addAndGet(TimeUnit.HOURS.toNanos(1));
+        writer.flush();
+
+        // THEN
+        verify(dynamoDbClient, times(1)).updateItem(any(UpdateItemRequest.class));
+        assertEquals(1, writer.getDroppedCount());
+    }
+
+    private static Invite invite(String eventId, boolean canceled) {
+        Invite invite = new Invite();
+        invite.setEventId(eventId);
+        invite.setMemberId("member");
+        invite.setCanceled(canceled);
+        return invite;
+    }
+}
@@ -4,18 +4,25 @@ import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.Invite;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBDeleteExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class InviteDaoTest {
@@ -25,6 +32,9 @@ public class InviteDaoTest {
     @Mock
     private DynamoDBMapper mapper;
 
+    @Mock
+    private PaginatedQueryList<Invite> inviteQueryList;
+
     @BeforeEach
     private void setup() {
         initMocks(this);
@@ -56,4 +66,24 @@ public class InviteDaoTest {
         // verify that load() is never called
         verify(mapper, never()).load(any(), any(), any());
     }
+
+    @Test
+    void getInvitesSentToMember_queriesMemberIdIndex_doesNotScan() {
+        // GIVEN
+        when(mapper.query(eq(Invite.class), any(DynamoDBQueryExpression.class))).thenReturn(inviteQueryList);
+        when(inviteQueryList.toArray()).thenReturn(new Object[0]);
+
+        // WHEN
+        inviteDao.getInvitesSentToMember("MEMBERID");
+
+        // THEN
+        ArgumentCaptor<DynamoDBQueryExpression<Invite>> captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(mapper).query(eq(Invite.class), captor.capture());
+        verify(mapper, never()).scan(eq(Invite.class), any(DynamoDBScanExpression.class));
+        assertEquals(Invite.MEMBER_ID_GSI, captor.getValue().getIndexName(),
+            "Expected the query to use the MemberIdIndex GSI");
+        assertEquals("MEMBERID", captor.getValue().getHashKeyValues().getMemberId(),
+            "Expected the query to be for the given member");
+        assertFalse(captor.getValue().isConsistentRead(), "Expected an eventually consistent GSI query");
+    }
 }
@@ -0,0 +1,112 @@
+package com.amazon.ata.dynamodbdeleteiterators.classroom.local;
+
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.CanceledInviteWriter;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.InviteDao;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.MemberDao;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.Event;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.Invite;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.models.Member;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class LocalDynamoDBTest {
+    private LocalDynamoDB localDynamoDB;
+    private DynamoDBMapper mapper;
+
+    @BeforeEach
+    private void setup() {
+        localDynamoDB = new LocalDynamoDB().createTables(Event.class, Invite.class, Member.class);
+        mapper = new DynamoDBMapper(localDynamoDB);
+    }
+
+    @Test
+    void deleteInvite_attendingInvite_isKeptAndOthersAreDeleted() {
+        // GIVEN
+        InviteDao inviteDao = new InviteDao(mapper);
+        inviteDao.createInvite(invite("event1", "member", true));
+        inviteDao.createInvite(invite("event2", "member", false));
+
+        // WHEN
+        boolean attendingDeleted = inviteDao.deleteInvite("event1", "member");
+        boolean notAttendingDeleted = inviteDao.deleteInvite("event2", "member");
+
+        // THEN
+        assertFalse(attendingDeleted, "Expected the conditional delete to refuse an attended invite.");
+        assertTrue(notAttendingDeleted);
+        assertEquals(1, inviteDao.getInvitesSentToMember("member").size());
+    }
+
+    @Test
+    void flush_queuedCancels_setsOnlyTheCanceledFlag() {
+        // GIVEN
+        InviteDao inviteDao = new InviteDao(mapper);
+        List<Invite> invites = ImmutableList.of(invite("event1", "member", false), invite("event2", "member", false));
+        invites.forEach(inviteDao::createInvite);
+        CanceledInviteWriter writer = new CanceledInviteWriter(localDynamoDB, mock(ScheduledExecutorService.class));
+        writer.markCanceled(invites);
+        // Meanwhile, the member accepts one invite and the other is deleted
+        inviteDao.createInvite(invite("event1", "member", true));
+        inviteDao.deleteInvite("event2", "member");
+        double writeCapacityBefore = localDynamoDB.getConsumedWriteCapacity("DynamoDBDeleteIterators-Invites");
+
+        // WHEN
+        int written = writer.flush();
+
+        // THEN
+        assertEquals(1, written, "Expected only the invite that still exists to be canceled.");
+        Invite canceledInvite = inviteDao.getInvite("event1", "member");
+        assertTrue(canceledInvite.isCanceled());
+        assertTrue(canceledInvite.isAttending(), "Expected the attendance change to be kept.");
+        assertNull(inviteDao.getInvite("event2", "member"), "Expected the deleted invite not to be re-created.");
+        assertEquals(1.0, localDynamoDB.getConsumedWriteCapacity("DynamoDBDeleteIterators-Invites") -
+            writeCapacityBefore, "Expected one write capacity unit per small invite.");
+    }
+
+    @Test
+    void getMember_everyCallThrottled_throwsProvisionedThroughputExceeded() {
+        // GIVEN
+        MemberDao memberDao = new MemberDao(mapper);
+        localDynamoDB.withThrottleProbability(1);
+
+        // WHEN + THEN
+        assertThrows(ProvisionedThroughputExceededException.class, () -> memberDao.getMember("member"));
+    }
+
+    @Test
+    void deletePermanently_existingMember_removesIt() {
+        // GIVEN
+        MemberDao memberDao = new MemberDao(mapper);
+        Member member = new Member();
+        member.setId("member");
+        memberDao.createMember(member);
+
+        // WHEN
+        memberDao.deletePermanently("member");
+
+        // THEN
+        assertNull(mapper.load(Member.class, "member"));
+    }
+
+    private static Invite invite(String eventId, String memberId, Boolean attending) {
+        Invite invite = new Invite();
+        invite.setEventId(eventId);
+        invite.setMemberId(memberId);
+        invite.setAttending(attending);
+        invite.setCanceled(false);
+        return invite;
+    }
+}
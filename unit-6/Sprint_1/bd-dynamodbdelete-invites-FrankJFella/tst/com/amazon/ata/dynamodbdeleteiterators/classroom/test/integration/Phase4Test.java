@@ -124,6 +124,7 @@ public class Phase4Test {
 
         // WHEN
         getInvitesForMemberActivity.handleRequest(member.getId());
+        ActivityProvider.provideCanceledInviteWriter().flush();
 
         // THEN
         // invite to canceled event is canceled
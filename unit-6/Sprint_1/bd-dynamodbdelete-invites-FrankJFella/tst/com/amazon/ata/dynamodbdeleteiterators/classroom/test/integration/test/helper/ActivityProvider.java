@@ -9,6 +9,7 @@ import com.amazon.ata.dynamodbdeleteiterators.classroom.activity.GetEventActivit
 import com.amazon.ata.dynamodbdeleteiterators.classroom.activity.GetInviteActivity;
 import com.amazon.ata.dynamodbdeleteiterators.classroom.activity.GetInvitesForMemberActivity;
 import com.amazon.ata.dynamodbdeleteiterators.classroom.activity.GetMemberActivity;
+import com.amazon.ata.dynamodbdeleteiterators.classroom.dao.CanceledInviteWriter;
 import com.amazon.ata.dynamodbdeleteiterators.classroom.dependency.DaggerServiceComponent;
 import com.amazon.ata.dynamodbdeleteiterators.classroom.dependency.ServiceComponent;
 
@@ -47,4 +48,8 @@ public final class ActivityProvider {
     public static CancelEventActivity provideCancelEventActivity() {
         return DAGGER.provideCancelEventActivity();
     }
+
+    public static CanceledInviteWriter provideCanceledInviteWriter() {
+        return DAGGER.provideCanceledInviteWriter();
+    }
 }
@@ -1,7 +1,7 @@
 package com.amazon.ata.inmemorycaching.classroom.activity;
 
 import com.amazon.ata.inmemorycaching.classroom.dao.GroupDao;
-import com.amazon.ata.inmemorycaching.classroom.dao.GroupMembershipDao;
+import com.amazon.ata.inmemorycaching.classroom.dao.GroupMembershipCachingDao;
 import com.amazon.ata.inmemorycaching.classroom.dao.models.Group;
 
 import javax.inject.Inject;
@@ -11,16 +11,17 @@ import javax.inject.Inject;
  */
 public class AddUserToGroupActivity {
 
-    private final GroupMembershipDao groupMembershipDao;
+    private final GroupMembershipCachingDao groupMembershipDao;
     private final GroupDao groupDao;
 
     /**
      * Constructs an Activity with the given DAOs.
-     * @param groupMembershipDao The GroupMembershipDao to use for creating the membership
+     * @param groupMembershipDao The GroupMembershipCachingDao to use for creating the membership, so cached
+     *                           memberships change with it
      * @param groupDao The GroupDao to get the Group the membership should be created for
      */
     @Inject
-    public AddUserToGroupActivity(final GroupMembershipDao groupMembershipDao, final GroupDao groupDao) {
+    public AddUserToGroupActivity(final GroupMembershipCachingDao groupMembershipDao, final GroupDao groupDao) {
         this.groupMembershipDao = groupMembershipDao;
         this.groupDao = groupDao;
     }
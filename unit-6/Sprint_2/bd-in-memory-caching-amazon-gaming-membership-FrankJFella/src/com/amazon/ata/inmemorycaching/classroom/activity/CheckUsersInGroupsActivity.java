@@ -0,0 +1,38 @@
+package com.amazon.ata.inmemorycaching.classroom.activity;
+
+import com.amazon.ata.inmemorycaching.classroom.dao.GroupMembershipCachingDao;
+import com.amazon.ata.inmemorycaching.classroom.dao.models.GroupMembershipCacheKey;
+
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+
+/**
+ * Handles requests to check many users' memberships in many groups at once.
+ */
+public class CheckUsersInGroupsActivity {
+
+    private final GroupMembershipCachingDao groupMembershipDao;
+
+    /**
+     * Constructs an Activity with the given DAO.
+     * @param groupMembershipDao The GroupMembershipCachingDao to use for checking the users' memberships
+     */
+    @Inject
+    public CheckUsersInGroupsActivity(final GroupMembershipCachingDao groupMembershipDao) {
+        this.groupMembershipDao = groupMembershipDao;
+    }
+
+    /**
+     * Checks whether each userId is a member of the group it's paired with.
+     * @param pairs - the (userId, groupId) pairs to check
+     * @return true for each pair whose userId has a membership in the group, false otherwise
+     */
+    public Map<GroupMembershipCacheKey, Boolean> handleRequest(final List<GroupMembershipCacheKey> pairs) {
+        if (pairs == null || pairs.stream().anyMatch(pair -> pair == null || pair.getUserId() == null
+            || pair.getGroupId() == null)) {
+            throw new IllegalArgumentException("Membership checks must each have a userId and groupId: " + pairs);
+        }
+        return groupMembershipDao.areUsersInGroups(pairs);
+    }
+}
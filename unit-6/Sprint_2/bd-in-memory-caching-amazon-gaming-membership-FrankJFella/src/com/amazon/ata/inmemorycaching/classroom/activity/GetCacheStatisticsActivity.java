@@ -0,0 +1,31 @@
+package com.amazon.ata.inmemorycaching.classroom.activity;
+
+import com.amazon.ata.inmemorycaching.classroom.dao.GroupMembershipCachingDao;
+import com.amazon.ata.inmemorycaching.classroom.dao.models.CacheStatistics;
+
+import javax.inject.Inject;
+
+/**
+ * Handles admin requests for the membership cache's statistics.
+ */
+public class GetCacheStatisticsActivity {
+
+    private final GroupMembershipCachingDao groupMembershipDao;
+
+    /**
+     * Constructs an Activity with the given DAO.
+     * @param groupMembershipDao The GroupMembershipCachingDao whose cache to report on
+     */
+    @Inject
+    public GetCacheStatisticsActivity(final GroupMembershipCachingDao groupMembershipDao) {
+        this.groupMembershipDao = groupMembershipDao;
+    }
+
+    /**
+     * Returns the membership cache's statistics since the service started.
+     * @return the cache's size, hit and miss rates, load latencies and removal counts
+     */
+    public CacheStatistics handleRequest() {
+        return groupMembershipDao.getStatistics();
+    }
+}
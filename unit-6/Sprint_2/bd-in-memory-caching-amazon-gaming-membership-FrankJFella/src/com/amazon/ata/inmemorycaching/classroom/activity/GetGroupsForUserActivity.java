@@ -1,6 +1,6 @@
 package com.amazon.ata.inmemorycaching.classroom.activity;
 
-import com.amazon.ata.inmemorycaching.classroom.dao.GroupMembershipDao;
+import com.amazon.ata.inmemorycaching.classroom.dao.GroupMembershipCachingDao;
 import com.amazon.ata.inmemorycaching.classroom.dao.models.GroupType;
 
 import java.util.List;
@@ -11,14 +11,14 @@ import javax.inject.Inject;
  */
 public class GetGroupsForUserActivity {
 
-    private final GroupMembershipDao groupMembershipDao;
+    private final GroupMembershipCachingDao groupMembershipDao;
 
     /**
      * Constructs an Activity with the given DAO.
-     * @param groupMembershipDao The GroupMembershipDao to use for getting a users memberships
+     * @param groupMembershipDao The GroupMembershipCachingDao to use for getting a users memberships
      */
     @Inject
-    public GetGroupsForUserActivity(final GroupMembershipDao groupMembershipDao) {
+    public GetGroupsForUserActivity(final GroupMembershipCachingDao groupMembershipDao) {
         this.groupMembershipDao = groupMembershipDao;
     }
 
@@ -0,0 +1,35 @@
+package com.amazon.ata.inmemorycaching.classroom.activity;
+
+import com.amazon.ata.inmemorycaching.classroom.dao.GroupMembershipCachingDao;
+
+import java.util.Map;
+import javax.inject.Inject;
+
+/**
+ * Handles admin requests for the users whose memberships are looked up most often.
+ */
+public class GetHottestCachedUsersActivity {
+
+    private final GroupMembershipCachingDao groupMembershipDao;
+
+    /**
+     * Constructs an Activity with the given DAO.
+     * @param groupMembershipDao The GroupMembershipCachingDao whose lookups to report on
+     */
+    @Inject
+    public GetHottestCachedUsersActivity(final GroupMembershipCachingDao groupMembershipDao) {
+        this.groupMembershipDao = groupMembershipDao;
+    }
+
+    /**
+     * Returns the users looked up most often, with how many times each was looked up.
+     * @param limit - the most users to return
+     * @return the hottest userIds and their lookup counts, most looked up first
+     */
+    public Map<String, Long> handleRequest(final int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("The limit can't be negative: " + limit);
+        }
+        return groupMembershipDao.getHottestUsers(limit);
+    }
+}
@@ -1,6 +1,6 @@
 package com.amazon.ata.inmemorycaching.classroom.activity;
 
-import com.amazon.ata.inmemorycaching.classroom.dao.GroupMembershipDao;
+import com.amazon.ata.inmemorycaching.classroom.dao.GroupMembershipCachingDao;
 
 import javax.inject.Inject;
 
@@ -9,14 +9,15 @@ import javax.inject.Inject;
  */
 public class RemoveUserFromGroupActivity {
 
-    private final GroupMembershipDao groupMembershipDao;
+    private final GroupMembershipCachingDao groupMembershipDao;
 
     /**
      * Constructs an Activity with the given DAO.
-     * @param groupMembershipDao The GroupMembershipDao to use for removing the membership
+     * @param groupMembershipDao The GroupMembershipCachingDao to use for removing the membership, so cached
+     *                           memberships change with it
      */
     @Inject
-    public RemoveUserFromGroupActivity(final GroupMembershipDao groupMembershipDao) {
+    public RemoveUserFromGroupActivity(final GroupMembershipCachingDao groupMembershipDao) {
         this.groupMembershipDao = groupMembershipDao;
     }
 
@@ -0,0 +1,81 @@
+package com.amazon.ata.inmemorycaching.classroom.dao;
+
+import com.amazon.ata.inmemorycaching.classroom.dao.models.CacheStatistics;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Publishes the membership cache's statistics on a fixed period, such as to a metrics service or a log.
+ * Each report covers the period since the last one, so hit rates and eviction counts show how the cache
+ * is doing now rather than since the service started.
+ */
+@Singleton
+public class CacheStatisticsReporter {
+    private final GroupMembershipCachingDao cachingDao;
+    private ScheduledExecutorService scheduler;
+    private CacheStatistics lastSnapshot;
+    private volatile CacheStatistics lastReport;
+
+    /**
+     * Creates a reporter for the given cache.
+     * @param cachingDao the GroupMembershipCachingDao to report on
+     */
+    @Inject
+    public CacheStatisticsReporter(final GroupMembershipCachingDao cachingDao) {
+        this.cachingDao = cachingDao;
+    }
+
+    /**
+     * Starts publishing the cache's statistics every period, until stop() is called.
+     * @param period how often to publish
+     * @param publisher where to publish each period's statistics; called on the reporter's own thread
+     */
+    public synchronized void start(final Duration period, final Consumer<CacheStatistics> publisher) {
+        if (scheduler != null) {
+            throw new IllegalStateException("The cache statistics reporter is already running");
+        }
+        lastSnapshot = cachingDao.getStatistics();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("cache-statistics-reporter")
+            .setDaemon(true)
+            .build());
+        scheduler.scheduleAtFixedRate(() -> report(publisher), period.toNanos(), period.toNanos(),
+            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops publishing the cache's statistics.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Returns the statistics most recently published.
+     * @return the last period's statistics, or null if none have been published yet
+     */
+    public CacheStatistics getLastReport() {
+        return lastReport;
+    }
+
+    void report(final Consumer<CacheStatistics> publisher) {
+        CacheStatistics snapshot = cachingDao.getStatistics();
+        lastReport = snapshot.since(lastSnapshot);
+        lastSnapshot = snapshot;
+        try {
+            publisher.accept(lastReport);
+        } catch (RuntimeException e) {
+            // A publisher that throws would cancel every later report, so skip just this one
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.amazon.ata.inmemorycaching.classroom.dao;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.Striped;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Keeps a Bloom filter of each group's members, so most checks for users who are not in a group are
+ * answered from memory, without a read. A filter may say a non-member might be in the group, about 1% of
+ * the time; those checks go on to the membership cache.
+ *
+ * A group's filter is built from the groupId-userId GSI the first time the group is checked. Users added
+ * through addUserToGroup are put in the filter as they are added, so a filter never misses a member added
+ * through this host. A Bloom filter can't forget a user, so removed users only make the filter less
+ * selective, and a filter is rebuilt once a quarter of its users have been removed. Filters are also
+ * rebuilt every hour, to pick up memberships added by other hosts, so a member added elsewhere is missed
+ * for at most an hour - less than the 3 hours the membership cache may serve a stale answer for.
+ */
+@Singleton
+public class GroupMemberFilters {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_EXPECTED_MEMBERS = 1000;
+    private static final int MAX_GROUPS = 1000;
+    private static final int LOCK_STRIPES = 64;
+
+    private final GroupMembershipDao delegateDao;
+    private final Cache<String, GroupFilter> filters;
+
+    // Building a group's filter holds a read lock and adding a member holds the write lock,
+    // so a filter can never be built from the members from before an add and miss the new member
+    private final Striped<ReadWriteLock> groupLocks = Striped.readWriteLock(LOCK_STRIPES);
+
+    private final LongAdder negativeCount = new LongAdder();
+    private final LongAdder falsePositiveCount = new LongAdder();
+
+    /**
+     * Creates the filters, which load groups' members with the given DAO.
+     * @param delegateDao the GroupMembershipDao to read a group's members with when building its filter
+     */
+    @Inject
+    public GroupMemberFilters(final GroupMembershipDao delegateDao) {
+        this.delegateDao = delegateDao;
+        this.filters = CacheBuilder.newBuilder()
+            .maximumSize(MAX_GROUPS)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+    }
+
+    /**
+     * Checks if the user might have a membership in the group with id: groupId.
+     * @param userId the user to check for
+     * @param groupId the id of the group
+     * @return false if the user is definitely not in the group; true if they might be
+     */
+    public boolean mightBeInGroup(final String userId, final String groupId) {
+        boolean mightContain = getFilter(groupId).mightContain(userId);
+        if (!mightContain) {
+            negativeCount.increment();
+        }
+        return mightContain;
+    }
+
+    /**
+     * Records that a check this filter let through turned out to be for a user who is not in the group.
+     */
+    public void recordFalsePositive() {
+        falsePositiveCount.increment();
+    }
+
+    /**
+     * Returns the share of checks for non-members that the filters let through, as recorded with
+     * recordFalsePositive() since the filters were created.
+     * @return the observed false-positive rate, between 0 and 1; 0 before any non-member has been checked
+     */
+    public double getFalsePositiveRate() {
+        long falsePositives = falsePositiveCount.sum();
+        long nonMemberChecks = falsePositives + negativeCount.sum();
+        return nonMemberChecks == 0 ? 0 : (double) falsePositives / nonMemberChecks;
+    }
+
+    /**
+     * Returns the number of checks the filters answered as definitely not a member.
+     * @return the negative answer count
+     */
+    public long getNegativeCount() {
+        return negativeCount.sum();
+    }
+
+    /**
+     * Writes a new membership with the given write, and puts the user in the group's filter.
+     * @param userId the user being added
+     * @param groupId the group the user is being added to
+     * @param write writes the membership
+     * @param <T> the type of the write's result
+     * @return the write's result
+     */
+    public <T> T addUserToGroup(final String userId, final String groupId, final Supplier<T> write) {
+        Lock lock = groupLocks.get(groupId).writeLock();
+        lock.lock();
+        try {
+            T result = write.get();
+            GroupFilter groupFilter = filters.getIfPresent(groupId);
+            if (groupFilter != null) {
+                groupFilter.put(userId);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            // The write may have partly happened, so rebuild the filter in case the user was added
+            filters.invalidate(groupId);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that a user was removed from a group, rebuilding the group's filter once enough users have
+     * been removed from it.
+     * @param groupId the group a user was removed from
+     */
+    public void recordRemoval(final String groupId) {
+        GroupFilter groupFilter = filters.getIfPresent(groupId);
+        if (groupFilter != null && groupFilter.recordRemoval()) {
+            filters.invalidate(groupId);
+        }
+    }
+
+    private GroupFilter getFilter(final String groupId) {
+        GroupFilter groupFilter = filters.getIfPresent(groupId);
+        if (groupFilter != null) {
+            return groupFilter;
+        }
+
+        Lock lock = groupLocks.get(groupId).readLock();
+        lock.lock();
+        try {
+            return filters.get(groupId, () -> new GroupFilter(delegateDao.getUserIdsInGroup(groupId)));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not load members of group " + groupId, e.getCause());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * One group's filter, and how many of the users in it have since been removed.
+     */
+    private static final class GroupFilter {
+        private final BloomFilter<CharSequence> filter;
+        private final AtomicInteger insertions;
+        private final AtomicInteger removals = new AtomicInteger();
+
+        GroupFilter(final List<String> userIds) {
+            // Leave room for the group to double before the false-positive rate climbs
+            this.filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                Math.max(MIN_EXPECTED_MEMBERS, userIds.size() * 2), FALSE_POSITIVE_RATE);
+            userIds.forEach(filter::put);
+            this.insertions = new AtomicInteger(userIds.size());
+        }
+
+        boolean mightContain(final String userId) {
+            return filter.mightContain(userId);
+        }
+
+        void put(final String userId) {
+            filter.put(userId);
+            insertions.incrementAndGet();
+        }
+
+        boolean recordRemoval() {
+            return removals.incrementAndGet() * 4 > insertions.get();
+        }
+    }
+}
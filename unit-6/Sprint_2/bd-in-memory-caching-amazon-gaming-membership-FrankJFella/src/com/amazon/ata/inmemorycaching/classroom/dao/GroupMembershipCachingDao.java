@@ -1,48 +1,323 @@
 package com.amazon.ata.inmemorycaching.classroom.dao;
 
+import com.amazon.ata.inmemorycaching.classroom.dao.models.CacheStatistics;
+import com.amazon.ata.inmemorycaching.classroom.dao.models.Group;
+import com.amazon.ata.inmemorycaching.classroom.dao.models.GroupMembership;
 import com.amazon.ata.inmemorycaching.classroom.dao.models.GroupMembershipCacheKey;
+import com.amazon.ata.inmemorycaching.classroom.dao.models.GroupType;
+import com.amazon.ata.inmemorycaching.classroom.dao.models.UserMemberships;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 // This manage the calls to the data store for membership validation
 // using the Google Guava cache manager
 
-// Insert calls to Guave cache manger when the application wants to verify membership
-// if data is not found in the cache,
-//    Guava will go to the data store using the DelegateDao will then use the original Dao method
+// The cache holds each user's full set of memberships, keyed by userId.
+// If a user is not found in the cache,
+//    we load all of the user's memberships with one query using the delegateDao
+// so every later check for that user - against any group - is answered from memory.
 //
-// We need to mimic the behavior of  the original Dao method so application doesn't have to change
+// Most checks are for users who are not in the group, so before loading a user's memberships
+//    we ask the group's Bloom filter (GroupMemberFilters), which can say "definitely not a member"
+// without touching the cache loader or the data store.
 //
-// We need to have a method called isUserInGroup that receives a userid and groupid and returns a boolean
+// Adding or removing a user goes through this DAO too, so the cached set is updated at the same time
+// as the data store, and cached entries stay correct however long they are kept.
+//
+// The cache records its statistics, so we can tell whether it's the right size for our traffic -
+//    see getStatistics(), CacheStatisticsReporter and getHottestUsers()
+//
+// We need to mimic the behavior of the original Dao methods so the application doesn't have to change
 
+/**
+ * Answers membership checks and group lookups for a user from an in-memory cache of the user's memberships,
+ * and keeps that cache up to date as users are added to and removed from groups.
+ * There is one instance per service, so every activity shares the same cache.
+ */
+@Singleton
 public class GroupMembershipCachingDao {
+    private static final int LOCK_STRIPES = 64;
+    private static final int LOAD_LATENCY_SAMPLES = 1024;
+    private static final int LOOKUP_SAMPLES = 10000;
+    // A bulk check loads all of a user's memberships (and caches them) when it asks about this many of
+    // their groups; fewer are batch loaded pair by pair
+    private static final int MIN_PAIRS_TO_LOAD_USER = 4;
+
+    private final GroupMembershipDao delegateDao;
+    private final GroupMemberFilters memberFilters;
 
-    // Define a reference to a LoadingCache object for use by Guava
-    // The LoadingCache object has a key (cache key) and a value (what is returned for cache key)
+    // Define a reference to a Cache object for use by Guava
+    // The Cache object has a key (the userId) and a value (every group that user is in)
+    private final Cache<String, UserMemberships> theCache;
 
-    private LoadingCache<GroupMembershipCacheKey, Boolean> theCache;
+    // A load of a user's memberships holds a read lock and a change to them holds the write lock,
+    // so a load can never read the memberships from before a change and cache them after it
+    private final Striped<ReadWriteLock> userLocks = Striped.readWriteLock(LOCK_STRIPES);
 
+    // Instrumentation: hits and misses, how long loads take, how many fail, why entries leave the cache,
+    // and who the most recent lookups were for. Lookups only touch LongAdders and an array, so hits stay lock-free
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LatencySampler loadLatencies = new LatencySampler(LOAD_LATENCY_SAMPLES);
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final Map<RemovalCause, LongAdder> removalCounts = new EnumMap<>(RemovalCause.class);
+    private final LookupSampler recentLookups = new LookupSampler(LOOKUP_SAMPLES);
+
+    /**
+     * Creates a GroupMembershipCachingDao that reads and writes users' memberships with the given DAO.
+     * @param delegateDao the GroupMembershipDao to load a user's memberships with on a cache miss, and to
+     *                    add and remove memberships with
+     * @param memberFilters the per-group filters that rule out non-members before a cache miss is loaded
+     */
     @Inject
     // We receive the delegateDao object when it's called
-    public GroupMembershipCachingDao(final GroupMembershipDao delegateDao) {
-        // Instantiate a LoadingCache object and assign it to the reference
+    public GroupMembershipCachingDao(final GroupMembershipDao delegateDao, final GroupMemberFilters memberFilters) {
+        this.delegateDao = delegateDao;
+        this.memberFilters = memberFilters;
+        for (RemovalCause cause : RemovalCause.values()) {
+            removalCounts.put(cause, new LongAdder());
+        }
+        // Instantiate a Cache object and assign it to the reference
         this.theCache = CacheBuilder.newBuilder()
-                .maximumSize(20000)                  // max number of entries to keep in the cache
+                .maximumSize(20000)                  // max number of users to keep in the cache
                 .expireAfterWrite(3, TimeUnit.HOURS) // how long after an entry is writing to cache should it be evicted
-                .build(CacheLoader.from(delegateDao::isUserInGroup));  // go build the cache with the delegateDao
-        // the delegateDao must have a method with name given after the :: that receives a cache key object
+                .removalListener(this::recordRemoval) // count why entries leave the cache
+                .build();
     }
 
-    // The method the application will call to interact with the data store
-    // It should mimic the behavior of the original method (not a bad to just copy method signature)
+    /**
+     * Checks if the user has a membership in the group with id: groupId.
+     * @param userId the user to check for
+     * @param groupId the id of the group
+     * @return true if the userId has a membership in the group, false otherwise
+     */
     public boolean isUserInGroup(final String userId, final String groupId) {
-        // search the cache to the data requested using the cache key with the values provided
-        // use getUnchecked() instead of get() to avoid Exception processing
-        return theCache.getUnchecked(new GroupMembershipCacheKey(userId, groupId));
+        UserMemberships memberships = lookUp(userId);
+        if (memberships != null) {
+            return memberships.contains(groupId);
+        }
+
+        // Not cached - let the group's filter rule the user out before we load their memberships
+        if (!memberFilters.mightBeInGroup(userId, groupId)) {
+            return false;
+        }
+        return recordFilterOutcome(loadMemberships(userId).contains(groupId));
+    }
+
+    /**
+     * Checks many (userId, groupId) pairs at once. Pairs for users in the cache are answered from it, and
+     * pairs the group filters rule out are answered without a read. Users asked about in 4 or more groups
+     * have all their memberships loaded and cached, as a single check would; the other pairs are checked
+     * with one batch load per 100 pairs, whose results aren't cached since they aren't a user's full set.
+     * @param pairs the (userId, groupId) pairs to check
+     * @return whether each distinct pair is a membership, in the order the pairs were given
+     */
+    public Map<GroupMembershipCacheKey, Boolean> areUsersInGroups(final Collection<GroupMembershipCacheKey> pairs) {
+        Map<GroupMembershipCacheKey, Boolean> results = new LinkedHashMap<>();
+        Map<String, List<GroupMembershipCacheKey>> pairsByUser = new LinkedHashMap<>();
+        for (GroupMembershipCacheKey pair : pairs) {
+            if (results.put(pair, false) == null) {
+                pairsByUser.computeIfAbsent(pair.getUserId(), userId -> new ArrayList<>()).add(pair);
+            }
+        }
+
+        List<GroupMembershipCacheKey> pairsToLoad = new ArrayList<>();
+        pairsByUser.forEach((userId, userPairs) -> {
+            UserMemberships memberships = lookUp(userId);
+            List<GroupMembershipCacheKey> uncachedPairs = new ArrayList<>();
+            for (GroupMembershipCacheKey pair : userPairs) {
+                if (memberships != null) {
+                    results.put(pair, memberships.contains(pair.getGroupId()));
+                } else if (memberFilters.mightBeInGroup(userId, pair.getGroupId())) {
+                    uncachedPairs.add(pair);
+                }
+            }
+
+            if (uncachedPairs.size() >= MIN_PAIRS_TO_LOAD_USER) {
+                UserMemberships loaded = loadMemberships(userId);
+                for (GroupMembershipCacheKey pair : uncachedPairs) {
+                    results.put(pair, recordFilterOutcome(loaded.contains(pair.getGroupId())));
+                }
+            } else {
+                pairsToLoad.addAll(uncachedPairs);
+            }
+        });
+
+        if (!pairsToLoad.isEmpty()) {
+            Set<GroupMembershipCacheKey> existing = delegateDao.getExistingMemberships(pairsToLoad);
+            pairsToLoad.forEach(pair -> results.put(pair, recordFilterOutcome(existing.contains(pair))));
+        }
+        return results;
+    }
+
+    /**
+     * Returns a list of groupIds that the provided userId has a membership in.
+     * @param userId the userId to get the groups for
+     * @return the groupIds of the groups the user has a membership in
+     */
+    public List<String> getGroupIdsForUser(final String userId) {
+        return getGroupIdsForUser(userId, null);
+    }
+
+    /**
+     * Returns a list of groupIds with the matching group type that the provided userId has a membership in.
+     * @param userId the userId to get the groups for
+     * @param groupType provides the filter for groups to return, or null for all groups
+     * @return a list of groupIds of the provided type that the user has a membership in
+     */
+    public List<String> getGroupIdsForUser(final String userId, final GroupType groupType) {
+        return getMemberships(userId).getGroupIds(groupType);
+    }
+
+    /**
+     * Creates a GroupMembership for the provided userId in the provided group, and adds the group to the
+     * user's cached memberships.
+     * @param userId - the userId to add the membership for
+     * @param group - the group to grant membership to
+     * @return the new GroupMembership created for the userId
+     */
+    public GroupMembership addUserToGroup(final String userId, final Group group) {
+        return memberFilters.addUserToGroup(userId, group.getId(), () -> changeMemberships(userId,
+            () -> delegateDao.addUserToGroup(userId, group),
+            memberships -> memberships.with(group.getId(), group.getType())));
+    }
+
+    /**
+     * Deletes the membership for the provided userId in the group with id: groupId, and removes the group
+     * from the user's cached memberships.
+     * @param userId the userId with the membership to be removed
+     * @param groupId the group to remove the user from
+     */
+    public void removeUserFromGroup(final String userId, final String groupId) {
+        changeMemberships(userId, () -> {
+            delegateDao.removeUserFromGroup(userId, groupId);
+            return null;
+        }, memberships -> memberships.without(groupId));
+        memberFilters.recordRemoval(groupId);
     }
 
+    /**
+     * Returns the cache's statistics since it was created.
+     * @return a snapshot of the cache's statistics
+     */
+    public CacheStatistics getStatistics() {
+        Map<RemovalCause, Long> removals = new EnumMap<>(RemovalCause.class);
+        removalCounts.forEach((cause, count) -> removals.put(cause, count.sum()));
+        return new CacheStatistics(theCache.size(), hitCount.sum(), missCount.sum(), loadCount.sum(),
+            loadFailureCount.sum(), loadLatencies.percentiles(50, 90, 99), removals,
+            memberFilters.getNegativeCount(), memberFilters.getFalsePositiveRate());
+    }
+
+    /**
+     * Returns the users looked up most often in the last 10,000 lookups, for sizing the cache.
+     * @param limit the most users to return
+     * @return each user's lookup count among the last 10,000 lookups, most looked up first
+     */
+    public Map<String, Long> getHottestUsers(final int limit) {
+        ImmutableMap.Builder<String, Long> hottestUsers = ImmutableMap.builder();
+        recentLookups.counts().entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+            .limit(limit)
+            .forEach(hottestUsers::put);
+        return hottestUsers.build();
+    }
+
+    // Called once a pair the group filter let through has been checked,
+    // so a user who turns out not to be a member is recorded as a false positive
+    private boolean recordFilterOutcome(final boolean member) {
+        if (!member) {
+            memberFilters.recordFalsePositive();
+        }
+        return member;
+    }
+
+    private UserMemberships getMemberships(final String userId) {
+        UserMemberships memberships = lookUp(userId);
+        return memberships != null ? memberships : loadMemberships(userId);
+    }
+
+    private UserMemberships lookUp(final String userId) {
+        recentLookups.record(userId);
+        // asMap().get, unlike getIfPresent, doesn't record Guava stats, so a miss followed by
+        // get(key, loader) counts once - in our own counters
+        UserMemberships memberships = theCache.asMap().get(userId);
+        (memberships != null ? hitCount : missCount).increment();
+        return memberships;
+    }
+
+    private UserMemberships loadMemberships(final String userId) {
+        Lock lock = userLocks.get(userId).readLock();
+        lock.lock();
+        try {
+            // get(key, loader) makes concurrent misses for a user wait on one load,
+            // without holding the cache segment's lock while the load runs
+            return theCache.get(userId, () -> readMemberships(userId));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException("Could not load memberships for user " + userId, e.getCause());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private UserMemberships readMemberships(final String userId) {
+        long start = System.nanoTime();
+        loadCount.increment();
+        try {
+            // one query on the userId hash key loads all their groups
+            return UserMemberships.of(userId, delegateDao.getMembershipsForUser(userId));
+        } catch (RuntimeException e) {
+            loadFailureCount.increment();
+            throw e;
+        } finally {
+            loadLatencies.record(System.nanoTime() - start);
+        }
+    }
+
+    private void recordRemoval(final RemovalNotification<String, UserMemberships> notification) {
+        removalCounts.get(notification.getCause()).increment();
+    }
+
+    private <T> T changeMemberships(final String userId, final Supplier<T> write,
+                                    final UnaryOperator<UserMemberships> update) {
+        Lock lock = userLocks.get(userId).writeLock();
+        lock.lock();
+        try {
+            T result = write.get();
+            // Update the cached set in place rather than dropping it, so the next check is still a hit
+            theCache.asMap().computeIfPresent(userId, (id, memberships) -> update.apply(memberships));
+            return result;
+        } catch (RuntimeException e) {
+            // The write may have partly happened, so the next check reads the memberships again
+            theCache.invalidate(userId);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
 }
@@ -6,9 +6,15 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 
@@ -16,6 +22,8 @@ import javax.inject.Inject;
  * Manages access to GroupMembership items.
  */
 public class GroupMembershipDao {
+    // The most items a single BatchGetItem request can read
+    private static final int BATCH_LOAD_SIZE = 100;
 
     private final DynamoDBMapper mapper;
 
@@ -65,16 +73,34 @@ public class GroupMembershipDao {
 
         return membership != null;
     }
-    /*
-        method used by cache manager when there is not a hit in the cache
-        call the original method with the values from the cache key
 
-        @return value received from the original method accessing the data store
+    /**
+     * Checks which of the provided (userId, groupId) pairs are memberships, with one batch load per 100 pairs.
+     * @param keys the pairs to check
+     * @return the pairs that have a membership
      */
-    public boolean isUserInGroup(GroupMembershipCacheKey theKey) {
-        return this.isUserInGroup(theKey.getUserId(), theKey.getGroupId());  // this. is optional
-    }
+    public Set<GroupMembershipCacheKey> getExistingMemberships(final Collection<GroupMembershipCacheKey> keys) {
+        // A batch load can't ask for the same item twice
+        List<GroupMembership> itemsToGet = new ArrayList<>();
+        for (GroupMembershipCacheKey key : new LinkedHashSet<>(keys)) {
+            GroupMembership membership = new GroupMembership();
+            membership.setUserId(key.getUserId());
+            membership.setGroupId(key.getGroupId());
+            itemsToGet.add(membership);
+        }
 
+        Set<GroupMembershipCacheKey> existing = new HashSet<>();
+        for (List<GroupMembership> batch : Lists.partition(itemsToGet, BATCH_LOAD_SIZE)) {
+            // The mapper retries any keys DynamoDB leaves unprocessed before returning
+            for (List<Object> items : mapper.batchLoad(batch).values()) {
+                for (Object item : items) {
+                    GroupMembership membership = (GroupMembership) item;
+                    existing.add(new GroupMembershipCacheKey(membership.getUserId(), membership.getGroupId()));
+                }
+            }
+        }
+        return existing;
+    }
 
     /**
      * Returns a list of userIds that have memberships in the group with id: groupId.
@@ -121,6 +147,21 @@ public class GroupMembershipDao {
         return getGroupIdsForUser(userId, null);
     }
 
+    /**
+     * Returns every GroupMembership the provided userId has, with a single query on the userId hash key.
+     * @param userId the userId to get the memberships for
+     * @return the user's memberships
+     */
+    public List<GroupMembership> getMembershipsForUser(final String userId) {
+        GroupMembership membership = new GroupMembership();
+        membership.setUserId(userId);
+
+        DynamoDBQueryExpression<GroupMembership> queryExpression = new DynamoDBQueryExpression<GroupMembership>()
+            .withHashKeyValues(membership);
+
+        return mapper.query(GroupMembership.class, queryExpression);
+    }
+
     /**
      * Returns a list of groupIds with the matching group type that the provided userId has a membership in.
      * @param userId the userId to get the groups for
@@ -0,0 +1,56 @@
+package com.amazon.ata.inmemorycaching.classroom.dao;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the latencies of the most recent loads, so percentiles can be reported without a histogram
+ * library. Recording a latency is one array write; percentiles are computed from a copy when asked for.
+ */
+final class LatencySampler {
+    private final AtomicLongArray samples;
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    /**
+     * Creates a sampler that keeps the given number of most recent latencies.
+     * @param capacity how many latencies to keep
+     */
+    LatencySampler(final int capacity) {
+        this.samples = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Records one load's latency, replacing the oldest kept one once the sampler is full.
+     * @param nanos the load's latency in nanoseconds
+     */
+    void record(final long nanos) {
+        samples.set((int) (sampleCount.getAndIncrement() % samples.length()), nanos);
+    }
+
+    /**
+     * Returns the given percentiles of the kept latencies.
+     * @param percentiles the percentiles to compute, each between 0 and 100
+     * @return a latency for each percentile, in the same order; all zero if nothing has been recorded
+     */
+    Duration[] percentiles(final double... percentiles) {
+        long[] sorted = new long[(int) Math.min(sampleCount.get(), samples.length())];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+
+        Duration[] results = new Duration[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            if (sorted.length == 0) {
+                results[i] = Duration.ZERO;
+            } else {
+                // The nearest-rank percentile: the smallest latency at least that share of loads were within
+                int rank = (int) Math.ceil(percentiles[i] / 100 * sorted.length);
+                results[i] = Duration.ofNanos(sorted[Math.max(rank, 1) - 1]);
+            }
+        }
+        return results;
+    }
+}
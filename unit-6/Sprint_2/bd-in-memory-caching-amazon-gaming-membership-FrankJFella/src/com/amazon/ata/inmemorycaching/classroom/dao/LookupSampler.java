@@ -0,0 +1,48 @@
+package com.amazon.ata.inmemorycaching.classroom.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the users of the most recent lookups, so the most looked up users can be found without counting
+ * every lookup in a map. Recording a lookup is one array write; counts are computed from the kept lookups
+ * when asked for.
+ */
+final class LookupSampler {
+    private final AtomicReferenceArray<String> samples;
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    /**
+     * Creates a sampler that keeps the given number of most recent lookups.
+     * @param capacity how many lookups to keep
+     */
+    LookupSampler(final int capacity) {
+        this.samples = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Records one lookup, replacing the oldest kept one once the sampler is full.
+     * @param userId the user looked up
+     */
+    void record(final String userId) {
+        samples.set((int) (sampleCount.getAndIncrement() % samples.length()), userId);
+    }
+
+    /**
+     * Returns how many of the kept lookups were for each user.
+     * @return each user's lookup count among the kept lookups
+     */
+    Map<String, Long> counts() {
+        Map<String, Long> counts = new HashMap<>();
+        int kept = (int) Math.min(sampleCount.get(), samples.length());
+        for (int i = 0; i < kept; i++) {
+            String userId = samples.get(i);
+            if (userId != null) {
+                counts.merge(userId, 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+}
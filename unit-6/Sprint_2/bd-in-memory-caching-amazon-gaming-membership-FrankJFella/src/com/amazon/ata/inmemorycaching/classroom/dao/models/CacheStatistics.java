@@ -0,0 +1,170 @@
+package com.amazon.ata.inmemorycaching.classroom.dao.models;
+
+import com.google.common.cache.RemovalCause;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * A snapshot of how the membership cache is doing: its size, how many lookups it answered, how long
+ * loads on a miss took, and why entries left it.
+ *
+ * Counts are totals since the cache was created; since() turns two snapshots into the counts for the
+ * time between them. Load latency percentiles are over the most recent loads either way.
+ *
+ * This is an immutable class - it's thread safe and may be shared by multiple threads.
+ */
+public final class CacheStatistics {
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+    private final long loadCount;
+    private final long loadFailureCount;
+    private final Duration loadLatencyP50;
+    private final Duration loadLatencyP90;
+    private final Duration loadLatencyP99;
+    private final Map<RemovalCause, Long> removalCounts;
+    private final long filterNegativeCount;
+    private final double filterFalsePositiveRate;
+
+    /**
+     * Creates a snapshot of the cache's statistics.
+     * @param size the number of users in the cache
+     * @param hitCount the lookups answered from the cache
+     * @param missCount the lookups for users not in the cache, including those the group filters answered
+     * @param loadCount the users' memberships loaded on a miss
+     * @param loadFailureCount the loads that threw
+     * @param loadLatencyPercentiles the 50th, 90th and 99th percentile load latencies
+     * @param removalCounts the entries that left the cache, by why they left, with an entry for every RemovalCause
+     * @param filterNegativeCount the misses the group filters answered without a load
+     * @param filterFalsePositiveRate the share of non-member checks the group filters let through
+     */
+    public CacheStatistics(final long size, final long hitCount, final long missCount, final long loadCount,
+                           final long loadFailureCount, final Duration[] loadLatencyPercentiles,
+                           final Map<RemovalCause, Long> removalCounts, final long filterNegativeCount,
+                           final double filterFalsePositiveRate) {
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.loadFailureCount = loadFailureCount;
+        this.loadLatencyP50 = loadLatencyPercentiles[0];
+        this.loadLatencyP90 = loadLatencyPercentiles[1];
+        this.loadLatencyP99 = loadLatencyPercentiles[2];
+        this.removalCounts = ImmutableMap.copyOf(removalCounts);
+        this.filterNegativeCount = filterNegativeCount;
+        this.filterFalsePositiveRate = filterFalsePositiveRate;
+    }
+
+    /**
+     * Returns the statistics for the time between an earlier snapshot and this one. The size, latency
+     * percentiles and filter false-positive rate are this snapshot's.
+     * @param earlier a snapshot of the same cache taken before this one
+     * @return the statistics for the interval between the two snapshots
+     */
+    public CacheStatistics since(final CacheStatistics earlier) {
+        return new CacheStatistics(size, hitCount - earlier.hitCount, missCount - earlier.missCount,
+            loadCount - earlier.loadCount, loadFailureCount - earlier.loadFailureCount,
+            new Duration[] {loadLatencyP50, loadLatencyP90, loadLatencyP99},
+            Maps.transformEntries(removalCounts,
+                (cause, count) -> count - earlier.removalCounts.getOrDefault(cause, 0L)),
+            filterNegativeCount - earlier.filterNegativeCount, filterFalsePositiveRate);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache; 1 if there were no lookups, as Guava's
+     * CacheStats does.
+     * @return the hit rate, between 0 and 1
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 1 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Returns the share of lookups for users not in the cache; 0 if there were no lookups.
+     * @return the miss rate, between 0 and 1
+     */
+    public double getMissRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) missCount / lookups;
+    }
+
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public Duration getLoadLatencyP50() {
+        return loadLatencyP50;
+    }
+
+    public Duration getLoadLatencyP90() {
+        return loadLatencyP90;
+    }
+
+    public Duration getLoadLatencyP99() {
+        return loadLatencyP99;
+    }
+
+    /**
+     * Returns how many entries left the cache for each cause. SIZE and EXPIRED are evictions; REPLACED
+     * counts cached memberships updated by an add or remove, and EXPLICIT those dropped after a failed write.
+     * @return the removal counts, with an entry for every RemovalCause
+     */
+    public Map<RemovalCause, Long> getRemovalCounts() {
+        return removalCounts;
+    }
+
+    /**
+     * Returns the number of entries evicted because the cache was full, they expired or they were
+     * garbage collected.
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return removalCounts.get(RemovalCause.SIZE) + removalCounts.get(RemovalCause.EXPIRED)
+            + removalCounts.get(RemovalCause.COLLECTED);
+    }
+
+    public long getFilterNegativeCount() {
+        return filterNegativeCount;
+    }
+
+    public double getFilterFalsePositiveRate() {
+        return filterFalsePositiveRate;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{" +
+            "size=" + size +
+            ", hitRate=" + getHitRate() +
+            ", missRate=" + getMissRate() +
+            ", loadCount=" + loadCount +
+            ", loadFailureCount=" + loadFailureCount +
+            ", loadLatencyP50=" + loadLatencyP50 +
+            ", loadLatencyP90=" + loadLatencyP90 +
+            ", loadLatencyP99=" + loadLatencyP99 +
+            ", removalCounts=" + removalCounts +
+            ", filterNegativeCount=" + filterNegativeCount +
+            ", filterFalsePositiveRate=" + filterFalsePositiveRate +
+            '}';
+    }
+}
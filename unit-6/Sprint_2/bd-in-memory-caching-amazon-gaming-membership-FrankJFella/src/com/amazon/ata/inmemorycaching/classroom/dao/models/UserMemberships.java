@@ -0,0 +1,137 @@
+package com.amazon.ata.inmemorycaching.classroom.dao.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The set of groups one user is a member of, along with each group's type.
+ *
+ * Group IDs are kept in a sorted array, with each group's type in a parallel array of enum ordinals,
+ * so a user in hundreds of groups costs a few bytes per group beyond the IDs themselves, and
+ * membership checks are a binary search.
+ *
+ * This is an immutable class - it's thread safe and may be shared by multiple threads.
+ */
+public final class UserMemberships {
+    private static final GroupType[] GROUP_TYPES = GroupType.values();
+    private static final byte NO_GROUP_TYPE = -1;
+
+    private final String userId;
+    private final String[] groupIds;
+    private final byte[] groupTypes;
+
+    private UserMemberships(final String userId, final String[] groupIds, final byte[] groupTypes) {
+        this.userId = userId;
+        this.groupIds = groupIds;
+        this.groupTypes = groupTypes;
+    }
+
+    /**
+     * Builds the membership set for a user from their GroupMembership items.
+     * @param userId the user the memberships belong to
+     * @param memberships every GroupMembership the user has
+     * @return the user's memberships
+     */
+    public static UserMemberships of(final String userId, final Collection<GroupMembership> memberships) {
+        List<GroupMembership> sorted = new ArrayList<>(memberships);
+        sorted.sort(Comparator.comparing(GroupMembership::getGroupId));
+
+        String[] groupIds = new String[sorted.size()];
+        byte[] groupTypes = new byte[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            GroupMembership membership = sorted.get(i);
+            groupIds[i] = membership.getGroupId();
+            groupTypes[i] = membership.getGroupType() == null ?
+                NO_GROUP_TYPE : (byte) membership.getGroupType().ordinal();
+        }
+        return new UserMemberships(userId, groupIds, groupTypes);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Checks if the user has a membership in the group with id: groupId.
+     * @param groupId the id of the group
+     * @return true if the user has a membership in the group, false otherwise
+     */
+    public boolean contains(final String groupId) {
+        return groupId != null && Arrays.binarySearch(groupIds, groupId) >= 0;
+    }
+
+    /**
+     * Returns the groupIds of the groups with the matching group type that the user has a membership in.
+     * @param groupType the type of groups to return, or null for all of them
+     * @return the groupIds, sorted
+     */
+    public List<String> getGroupIds(final GroupType groupType) {
+        if (groupType == null) {
+            return Collections.unmodifiableList(Arrays.asList(groupIds));
+        }
+
+        List<String> matching = new ArrayList<>();
+        for (int i = 0; i < groupIds.length; i++) {
+            if (groupTypes[i] != NO_GROUP_TYPE && GROUP_TYPES[groupTypes[i]] == groupType) {
+                matching.add(groupIds[i]);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Returns these memberships with the user added to a group.
+     * @param groupId the id of the group the user was added to
+     * @param groupType the type of the group
+     * @return the updated memberships; this object if the user was already in the group
+     */
+    public UserMemberships with(final String groupId, final GroupType groupType) {
+        int index = Arrays.binarySearch(groupIds, groupId);
+        if (index >= 0) {
+            return this;
+        }
+
+        int insertAt = -index - 1;
+        String[] newGroupIds = new String[groupIds.length + 1];
+        byte[] newGroupTypes = new byte[groupTypes.length + 1];
+        System.arraycopy(groupIds, 0, newGroupIds, 0, insertAt);
+        System.arraycopy(groupTypes, 0, newGroupTypes, 0, insertAt);
+        newGroupIds[insertAt] = groupId;
+        newGroupTypes[insertAt] = groupType == null ? NO_GROUP_TYPE : (byte) groupType.ordinal();
+        System.arraycopy(groupIds, insertAt, newGroupIds, insertAt + 1, groupIds.length - insertAt);
+        System.arraycopy(groupTypes, insertAt, newGroupTypes, insertAt + 1, groupTypes.length - insertAt);
+        return new UserMemberships(userId, newGroupIds, newGroupTypes);
+    }
+
+    /**
+     * Returns these memberships with the user removed from a group.
+     * @param groupId the id of the group the user was removed from
+     * @return the updated memberships; this object if the user wasn't in the group
+     */
+    public UserMemberships without(final String groupId) {
+        int index = Arrays.binarySearch(groupIds, groupId);
+        if (index < 0) {
+            return this;
+        }
+
+        String[] newGroupIds = new String[groupIds.length - 1];
+        byte[] newGroupTypes = new byte[groupTypes.length - 1];
+        System.arraycopy(groupIds, 0, newGroupIds, 0, index);
+        System.arraycopy(groupTypes, 0, newGroupTypes, 0, index);
+        System.arraycopy(groupIds, index + 1, newGroupIds, index, groupIds.length - index - 1);
+        System.arraycopy(groupTypes, index + 1, newGroupTypes, index, groupTypes.length - index - 1);
+        return new UserMemberships(userId, newGroupIds, newGroupTypes);
+    }
+
+    /**
+     * Returns the number of groups the user has a membership in.
+     * @return the number of memberships
+     */
+    public int size() {
+        return groupIds.length;
+    }
+}
@@ -3,11 +3,15 @@ package com.amazon.ata.inmemorycaching.classroom.dependency;
 import com.amazon.ata.inmemorycaching.classroom.dependency.DaoModule;
 import com.amazon.ata.inmemorycaching.classroom.activity.AddUserToGroupActivity;
 import com.amazon.ata.inmemorycaching.classroom.activity.CheckUserInGroupActivity;
+import com.amazon.ata.inmemorycaching.classroom.activity.CheckUsersInGroupsActivity;
 import com.amazon.ata.inmemorycaching.classroom.activity.CreateGroupActivity;
+import com.amazon.ata.inmemorycaching.classroom.activity.GetCacheStatisticsActivity;
 import com.amazon.ata.inmemorycaching.classroom.activity.GetGroupActivity;
 import com.amazon.ata.inmemorycaching.classroom.activity.GetGroupsForUserActivity;
+import com.amazon.ata.inmemorycaching.classroom.activity.GetHottestCachedUsersActivity;
 import com.amazon.ata.inmemorycaching.classroom.activity.GetUsersInGroupActivity;
 import com.amazon.ata.inmemorycaching.classroom.activity.RemoveUserFromGroupActivity;
+import com.amazon.ata.inmemorycaching.classroom.dao.CacheStatisticsReporter;
 
 import dagger.Component;
 
@@ -23,13 +27,21 @@ public interface ServiceComponent {
 
     CheckUserInGroupActivity provideCheckUserInGroupActivity();
 
+    CheckUsersInGroupsActivity provideCheckUsersInGroupsActivity();
+
     CreateGroupActivity provideCreateGroupActivity();
 
+    GetCacheStatisticsActivity provideGetCacheStatisticsActivity();
+
     GetGroupActivity provideGetGroupActivity();
 
     GetGroupsForUserActivity provideGetGroupsForUserActivity();
 
+    GetHottestCachedUsersActivity provideGetHottestCachedUsersActivity();
+
     GetUsersInGroupActivity provideGetUsersInGroupActivity();
 
     RemoveUserFromGroupActivity provideRemoveUserFromGroupActivity();
+
+    CacheStatisticsReporter provideCacheStatisticsReporter();
 }
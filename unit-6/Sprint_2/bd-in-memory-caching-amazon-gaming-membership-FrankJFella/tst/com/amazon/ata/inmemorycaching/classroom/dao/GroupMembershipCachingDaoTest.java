@@ -1,53 +1,368 @@
 package com.amazon.ata.inmemorycaching.classroom.dao;
 
+import com.amazon.ata.inmemorycaching.classroom.dao.models.CacheStatistics;
+import com.amazon.ata.inmemorycaching.classroom.dao.models.Group;
+import com.amazon.ata.inmemorycaching.classroom.dao.models.GroupMembership;
+import com.amazon.ata.inmemorycaching.classroom.dao.models.GroupMembershipCacheKey;
+import com.amazon.ata.inmemorycaching.classroom.dao.models.GroupType;
+import com.google.common.cache.RemovalCause;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class GroupMembershipCachingDaoTest {
+    private static final String USER_ID = "user";
+
     @Mock
     private GroupMembershipDao membershipDao;
 
+    private GroupMemberFilters memberFilters;
+
     // The unit under test
-    @InjectMocks
     private GroupMembershipCachingDao cachingMembershipDao;
 
     @BeforeEach
     public void setup() {
         initMocks(this);
+        // Unless a test says otherwise, every group's filter lets USER_ID through to the cache
+        when(membershipDao.getUserIdsInGroup(anyString())).thenReturn(ImmutableList.of(USER_ID));
+        memberFilters = new GroupMemberFilters(membershipDao);
+        cachingMembershipDao = new GroupMembershipCachingDao(membershipDao, memberFilters);
     }
 
     @Test
     public void isUserInGroup_userNotInCache_delegateDaoCalled() {
         // GIVEN
-        // A cache key with a known user and group
-        // The delegate DAO will return true when asked if the user is in the group
+        // A user who is in a known group
+        // The delegate DAO will return the user's memberships
+        when(membershipDao.getMembershipsForUser(USER_ID))
+            .thenReturn(ImmutableList.of(membership("group", GroupType.GAMING_GROUP)));
 
         // WHEN
         // We ask the caching DAO if the user is in the group
+        boolean result = cachingMembershipDao.isUserInGroup(USER_ID, "group");
 
         // THEN
         // The user was in the group
-        // The delegate DAO was called
+        // The delegate DAO was called to build the group's filter and load the user's memberships
         // There were no other calls to the delegate DAO
+        assertTrue(result);
+        verify(membershipDao).getUserIdsInGroup("group");
+        verify(membershipDao).getMembershipsForUser(USER_ID);
+        verifyNoMoreInteractions(membershipDao);
     }
 
     @Test
     public void isUserInGroup_userInCache_delegateDaoNotCalled() {
         // GIVEN
-        // A cache key with a known user and group
-        // The delegate DAO will return true when asked if the user is in the group
-        // The caching DAO has been "primed" by asking if the user is in the group
+        // A user who is in two groups
+        // The caching DAO has been "primed" by asking if the user is in one of them
+        when(membershipDao.getMembershipsForUser(USER_ID)).thenReturn(ImmutableList.of(
+            membership("group1", GroupType.GAMING_GROUP), membership("group2", GroupType.DISCUSSION_GROUP)));
+        cachingMembershipDao.isUserInGroup(USER_ID, "group1");
 
         // WHEN
-        // We ask the caching DAO if the user is in the group
+        // We ask the caching DAO about the other group, and one the user isn't in
+        boolean inOtherGroup = cachingMembershipDao.isUserInGroup(USER_ID, "group2");
+        boolean inUnknownGroup = cachingMembershipDao.isUserInGroup(USER_ID, "group3");
 
         // THEN
-        // The user was in the group
+        // Both were answered from the user's cached memberships
         // The delegate DAO was called exactly once
         // There were no other calls to the delegate DAO
+        assertTrue(inOtherGroup);
+        assertFalse(inUnknownGroup);
+        verify(membershipDao, times(1)).getMembershipsForUser(USER_ID);
+        verify(membershipDao).getUserIdsInGroup("group1");
+        verifyNoMoreInteractions(membershipDao);
+    }
+
+    @Test
+    public void getGroupIdsForUser_withGroupType_filtersCachedMemberships() {
+        // GIVEN
+        when(membershipDao.getMembershipsForUser(USER_ID)).thenReturn(ImmutableList.of(
+            membership("b", GroupType.GAMING_GROUP), membership("c", GroupType.DISCUSSION_GROUP),
+            membership("a", GroupType.GAMING_GROUP)));
+
+        // WHEN
+        List<String> gamingGroups = cachingMembershipDao.getGroupIdsForUser(USER_ID, GroupType.GAMING_GROUP);
+        List<String> allGroups = cachingMembershipDao.getGroupIdsForUser(USER_ID);
+
+        // THEN
+        assertEquals(ImmutableList.of("a", "b"), gamingGroups);
+        assertEquals(ImmutableList.of("a", "b", "c"), allGroups);
+        verify(membershipDao, times(1)).getMembershipsForUser(USER_ID);
+        verifyNoMoreInteractions(membershipDao);
+    }
+
+    @Test
+    public void removeUserFromGroup_userInCache_cachedMembershipsUpdatedWithoutReload() {
+        // GIVEN
+        // A user whose memberships are cached
+        when(membershipDao.getMembershipsForUser(USER_ID)).thenReturn(ImmutableList.of(
+            membership("group1", GroupType.GAMING_GROUP), membership("group2", GroupType.GAMING_GROUP)));
+        cachingMembershipDao.isUserInGroup(USER_ID, "group1");
+
+        // WHEN
+        // The user is removed from one of their groups
+        cachingMembershipDao.removeUserFromGroup(USER_ID, "group1");
+
+        // THEN
+        // The removal was written, and the cache no longer has the user in the group
+        // The memberships were not loaded again
+        verify(membershipDao).removeUserFromGroup(USER_ID, "group1");
+        assertFalse(cachingMembershipDao.isUserInGroup(USER_ID, "group1"));
+        assertTrue(cachingMembershipDao.isUserInGroup(USER_ID, "group2"));
+        verify(membershipDao, times(1)).getMembershipsForUser(USER_ID);
+    }
+
+    @Test
+    public void addUserToGroup_userInCache_cachedMembershipsUpdatedWithoutReload() {
+        // GIVEN
+        // A user whose memberships are cached, and a group they aren't in
+        when(membershipDao.getMembershipsForUser(USER_ID))
+            .thenReturn(ImmutableList.of(membership("group2", GroupType.GAMING_GROUP)));
+        cachingMembershipDao.isUserInGroup(USER_ID, "group2");
+        Group group = new Group();
+        group.setId("group1");
+        group.setType(GroupType.DISCUSSION_GROUP);
+
+        // WHEN
+        // The user is added to the group
+        cachingMembershipDao.addUserToGroup(USER_ID, group);
+
+        // THEN
+        // The membership was written, and the cache has the user in the group with its type
+        verify(membershipDao).addUserToGroup(USER_ID, group);
+        assertTrue(cachingMembershipDao.isUserInGroup(USER_ID, "group1"));
+        assertEquals(ImmutableList.of("group1"),
+            cachingMembershipDao.getGroupIdsForUser(USER_ID, GroupType.DISCUSSION_GROUP));
+        assertEquals(ImmutableList.of("group1", "group2"), cachingMembershipDao.getGroupIdsForUser(USER_ID));
+        verify(membershipDao, times(1)).getMembershipsForUser(USER_ID);
+    }
+
+    @Test
+    public void removeUserFromGroup_writeFails_cachedMembershipsReloaded() {
+        // GIVEN
+        when(membershipDao.getMembershipsForUser(USER_ID))
+            .thenReturn(ImmutableList.of(membership("group1", GroupType.GAMING_GROUP)));
+        cachingMembershipDao.isUserInGroup(USER_ID, "group1");
+        doThrow(new IllegalStateException("audit write failed"))
+            .when(membershipDao).removeUserFromGroup(USER_ID, "group1");
+
+        // WHEN
+        assertThrows(IllegalStateException.class, () -> cachingMembershipDao.removeUserFromGroup(USER_ID, "group1"));
+        cachingMembershipDao.isUserInGroup(USER_ID, "group1");
+
+        // THEN
+        // The memberships were read again, since the failed write may have partly happened
+        verify(membershipDao, times(2)).getMembershipsForUser(USER_ID);
+    }
+
+    @Test
+    public void isUserInGroup_userNotInGroupFilter_membershipsNotLoaded() {
+        // GIVEN
+        // A group with one member, and a user who isn't in it
+        when(membershipDao.getUserIdsInGroup("premium")).thenReturn(ImmutableList.of("member"));
+
+        // WHEN
+        // We ask twice if the other user is in the group
+        boolean firstResult = cachingMembershipDao.isUserInGroup(USER_ID, "premium");
+        boolean secondResult = cachingMembershipDao.isUserInGroup(USER_ID, "premium");
+
+        // THEN
+        // Both were answered by the group's filter, built once, without loading the user's memberships
+        assertFalse(firstResult);
+        assertFalse(secondResult);
+        verify(membershipDao, times(1)).getUserIdsInGroup("premium");
+        verify(membershipDao, never()).getMembershipsForUser(USER_ID);
+        verify(membershipDao, never()).isUserInGroup(anyString(), anyString());
+        assertEquals(2, memberFilters.getNegativeCount());
+        assertEquals(0, memberFilters.getFalsePositiveRate());
+    }
+
+    @Test
+    public void addUserToGroup_groupFilterBuilt_newMemberPassesFilter() {
+        // GIVEN
+        // A group with no members, whose filter has already been built
+        when(membershipDao.getUserIdsInGroup("group1")).thenReturn(ImmutableList.of());
+        assertFalse(cachingMembershipDao.isUserInGroup(USER_ID, "group1"));
+        Group group = new Group();
+        group.setId("group1");
+        group.setType(GroupType.GAMING_GROUP);
+        when(membershipDao.getMembershipsForUser(USER_ID))
+            .thenReturn(ImmutableList.of(membership("group1", GroupType.GAMING_GROUP)));
+
+        // WHEN
+        cachingMembershipDao.addUserToGroup(USER_ID, group);
+
+        // THEN
+        // The user is in the group, though the filter wasn't built again
+        assertTrue(cachingMembershipDao.isUserInGroup(USER_ID, "group1"));
+        verify(membershipDao, times(1)).getUserIdsInGroup("group1");
+    }
+
+    @Test
+    public void isUserInGroup_filterLetsNonMemberThrough_falsePositiveRecorded() {
+        // GIVEN
+        // A group whose filter still has USER_ID, though the user has since left it,
+        // and a user the filter rules out
+        when(membershipDao.getMembershipsForUser(USER_ID)).thenReturn(ImmutableList.of());
+
+        // WHEN
+        boolean staleResult = cachingMembershipDao.isUserInGroup(USER_ID, "group");
+        boolean filteredResult = cachingMembershipDao.isUserInGroup("other", "group");
+
+        // THEN
+        // Neither user is in the group, and one of the two non-member checks got past the filter
+        assertFalse(staleResult);
+        assertFalse(filteredResult);
+        assertEquals(0.5, memberFilters.getFalsePositiveRate());
+    }
+
+    @Test
+    public void getStatistics_afterHitsAndMisses_eachLookupCountedOnce() {
+        // GIVEN
+        // A user whose memberships are loaded on the first lookup, and found in the cache on the next two
+        when(membershipDao.getMembershipsForUser(USER_ID))
+            .thenReturn(ImmutableList.of(membership("group1", GroupType.GAMING_GROUP)));
+        cachingMembershipDao.isUserInGroup(USER_ID, "group1");
+        cachingMembershipDao.isUserInGroup(USER_ID, "group2");
+        cachingMembershipDao.getGroupIdsForUser(USER_ID);
+
+        // WHEN
+        CacheStatistics statistics = cachingMembershipDao.getStatistics();
+
+        // THEN
+        assertEquals(1, statistics.getSize());
+        assertEquals(2, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(2.0 / 3, statistics.getHitRate());
+        assertEquals(1, statistics.getLoadCount());
+        assertEquals(0, statistics.getLoadFailureCount());
+        assertFalse(statistics.getLoadLatencyP99().isNegative());
+        assertEquals(0, statistics.getEvictionCount());
+    }
+
+    @Test
+    public void getStatistics_since_countsRemovalsByCauseForTheInterval() {
+        // GIVEN
+        // A user whose memberships are cached, and a snapshot of the statistics
+        when(membershipDao.getMembershipsForUser(USER_ID))
+            .thenReturn(ImmutableList.of(membership("group1", GroupType.GAMING_GROUP)));
+        cachingMembershipDao.isUserInGroup(USER_ID, "group1");
+        CacheStatistics before = cachingMembershipDao.getStatistics();
+        doThrow(new IllegalStateException("audit write failed"))
+            .when(membershipDao).removeUserFromGroup(USER_ID, "group2");
+
+        // WHEN
+        // The cached memberships are updated by one removal, and dropped after another fails
+        cachingMembershipDao.removeUserFromGroup(USER_ID, "group1");
+        assertThrows(IllegalStateException.class, () -> cachingMembershipDao.removeUserFromGroup(USER_ID, "group2"));
+        CacheStatistics interval = cachingMembershipDao.getStatistics().since(before);
+
+        // THEN
+        assertEquals(1, interval.getRemovalCounts().get(RemovalCause.REPLACED));
+        assertEquals(1, interval.getRemovalCounts().get(RemovalCause.EXPLICIT));
+        assertEquals(0, interval.getEvictionCount());
+        assertEquals(0, interval.getHitCount());
+        assertEquals(0, interval.getMissCount());
+        assertEquals(0, interval.getSize());
+    }
+
+    @Test
+    public void getHottestUsers_afterLookups_mostLookedUpFirst() {
+        // GIVEN
+        when(membershipDao.getMembershipsForUser(anyString())).thenReturn(ImmutableList.of());
+        cachingMembershipDao.getGroupIdsForUser("cold");
+        for (int i = 0; i < 3; i++) {
+            cachingMembershipDao.getGroupIdsForUser("hot");
+        }
+        cachingMembershipDao.getGroupIdsForUser("warm");
+        cachingMembershipDao.getGroupIdsForUser("warm");
+
+        // WHEN
+        Map<String, Long> hottestUsers = cachingMembershipDao.getHottestUsers(2);
+
+        // THEN
+        assertEquals(ImmutableList.of("hot", "warm"), ImmutableList.copyOf(hottestUsers.keySet()));
+        assertEquals(3, hottestUsers.get("hot"));
+        assertEquals(2, hottestUsers.get("warm"));
+    }
+
+    @Test
+    public void areUsersInGroups_cachedAndUncachedUsers_onlyUncachedPairsBatchLoaded() {
+        // GIVEN
+        // A user whose memberships are cached, two users who aren't, and one the group's filter rules out
+        when(membershipDao.getMembershipsForUser(USER_ID))
+            .thenReturn(ImmutableList.of(membership("group1", GroupType.GAMING_GROUP)));
+        cachingMembershipDao.isUserInGroup(USER_ID, "group1");
+        when(membershipDao.getUserIdsInGroup("group3")).thenReturn(ImmutableList.of("member", "nonMember"));
+        GroupMembershipCacheKey member = new GroupMembershipCacheKey("member", "group3");
+        GroupMembershipCacheKey nonMember = new GroupMembershipCacheKey("nonMember", "group3");
+        when(membershipDao.getExistingMemberships(any())).thenReturn(ImmutableSet.of(member));
+
+        // WHEN
+        Map<GroupMembershipCacheKey, Boolean> results = cachingMembershipDao.areUsersInGroups(ImmutableList.of(
+            new GroupMembershipCacheKey(USER_ID, "group1"), new GroupMembershipCacheKey(USER_ID, "group2"),
+            member, nonMember, new GroupMembershipCacheKey("stranger", "group3"), member));
+
+        // THEN
+        // Every distinct pair was answered, and only the two uncached pairs the filter let through were read
+        assertEquals(ImmutableMap.of(
+            new GroupMembershipCacheKey(USER_ID, "group1"), true, new GroupMembershipCacheKey(USER_ID, "group2"), false,
+            member, true, nonMember, false, new GroupMembershipCacheKey("stranger", "group3"), false), results);
+        verify(membershipDao).getExistingMemberships(ImmutableList.of(member, nonMember));
+        verify(membershipDao, never()).getMembershipsForUser("member");
+        verify(membershipDao, times(1)).getMembershipsForUser(USER_ID);
+    }
+
+    @Test
+    public void areUsersInGroups_userCheckedAgainstManyGroups_membershipsLoadedAndCached() {
+        // GIVEN
+        // A user who isn't cached, checked against four groups
+        when(membershipDao.getMembershipsForUser(USER_ID)).thenReturn(ImmutableList.of(
+            membership("group1", GroupType.GAMING_GROUP), membership("group3", GroupType.DISCUSSION_GROUP)));
+        List<GroupMembershipCacheKey> pairs = ImmutableList.of(new GroupMembershipCacheKey(USER_ID, "group1"),
+            new GroupMembershipCacheKey(USER_ID, "group2"), new GroupMembershipCacheKey(USER_ID, "group3"),
+            new GroupMembershipCacheKey(USER_ID, "group4"));
+
+        // WHEN
+        Map<GroupMembershipCacheKey, Boolean> results = cachingMembershipDao.areUsersInGroups(pairs);
+
+        // THEN
+        // The user's memberships were loaded with one query instead of a batch load, and are now cached
+        assertEquals(ImmutableList.of(true, false, true, false), ImmutableList.copyOf(results.values()));
+        verify(membershipDao, never()).getExistingMemberships(any());
+        assertTrue(cachingMembershipDao.isUserInGroup(USER_ID, "group3"));
+        verify(membershipDao, times(1)).getMembershipsForUser(USER_ID);
+    }
+
+    private static GroupMembership membership(String groupId, GroupType groupType) {
+        GroupMembership membership = new GroupMembership();
+        membership.setUserId(USER_ID);
+        membership.setGroupId(groupId);
+        membership.setGroupType(groupType);
+        return membership;
     }
 }